@@ -0,0 +1,114 @@
+package com.presentationchoreographer.core.model;
+
+/**
+ * Axis-aligned affine transform of slide coordinates in EMUs:
+ * x' = scaleX * x + translateX, y' = scaleY * y + translateY.
+ * Widths and heights are scaled without translation.
+ */
+public class GeometryTransform {
+  private static final GeometryTransform IDENTITY = new GeometryTransform(1.0, 1.0, 0.0, 0.0);
+
+  private final double scaleX, scaleY;
+  private final double translateX, translateY;
+
+  public GeometryTransform(double scaleX, double scaleY, double translateX, double translateY) {
+    if (!(scaleX > 0) || !(scaleY > 0)) {
+      throw new IllegalArgumentException("Scale factors must be positive");
+    }
+    this.scaleX = scaleX;
+    this.scaleY = scaleY;
+    this.translateX = translateX;
+    this.translateY = translateY;
+  }
+
+  public static GeometryTransform identity() {
+    return IDENTITY;
+  }
+
+  public static GeometryTransform translate(long dx, long dy) {
+    return new GeometryTransform(1.0, 1.0, dx, dy);
+  }
+
+  public static GeometryTransform scale(double sx, double sy) {
+    return new GeometryTransform(sx, sy, 0.0, 0.0);
+  }
+
+  /**
+   * Transform mapping one slide size onto another (e.g. 16:9 to 4:3).
+   * With preserveAspectRatio the content is scaled uniformly and centered
+   * on the new slide; otherwise each axis is stretched independently.
+   */
+  public static GeometryTransform slideResize(long fromWidth, long fromHeight,
+      long toWidth, long toHeight, boolean preserveAspectRatio) {
+    if (fromWidth <= 0 || fromHeight <= 0 || toWidth <= 0 || toHeight <= 0) {
+      throw new IllegalArgumentException("Slide dimensions must be positive");
+    }
+
+    double sx = (double) toWidth / fromWidth;
+    double sy = (double) toHeight / fromHeight;
+    if (!preserveAspectRatio) {
+      return scale(sx, sy);
+    }
+
+    double s = Math.min(sx, sy);
+    return new GeometryTransform(s, s, (toWidth - fromWidth * s) / 2.0, (toHeight - fromHeight * s) / 2.0);
+  }
+
+  /**
+   * Transform mapping a group's child coordinate space (chOff/chExt) to its frame (off/ext).
+   */
+  public static GeometryTransform groupMapping(long offX, long offY, long extCx, long extCy,
+      long chOffX, long chOffY, long chExtCx, long chExtCy) {
+    double sx = chExtCx > 0 && extCx > 0 ? (double) extCx / chExtCx : 1.0;
+    double sy = chExtCy > 0 && extCy > 0 ? (double) extCy / chExtCy : 1.0;
+    return new GeometryTransform(sx, sy, offX - chOffX * sx, offY - chOffY * sy);
+  }
+
+  /**
+   * Returns the transform applying this one first, then next.
+   */
+  public GeometryTransform then(GeometryTransform next) {
+    return new GeometryTransform(
+        next.scaleX * scaleX,
+        next.scaleY * scaleY,
+        next.scaleX * translateX + next.translateX,
+        next.scaleY * translateY + next.translateY);
+  }
+
+  public GeometryTransform inverse() {
+    return new GeometryTransform(1.0 / scaleX, 1.0 / scaleY, -translateX / scaleX, -translateY / scaleY);
+  }
+
+  /**
+   * Expresses this transform in another coordinate space: toSpace maps that space
+   * to the space this transform operates in.
+   */
+  public GeometryTransform conjugate(GeometryTransform toSpace) {
+    return toSpace.then(this).then(toSpace.inverse());
+  }
+
+  public long applyX(long x) { return Math.round(scaleX * x + translateX); }
+  public long applyY(long y) { return Math.round(scaleY * y + translateY); }
+  public long applyWidth(long width) { return Math.round(scaleX * width); }
+  public long applyHeight(long height) { return Math.round(scaleY * height); }
+
+  public ShapeGeometry apply(ShapeGeometry geometry) {
+    return new ShapeGeometry(applyX(geometry.getX()), applyY(geometry.getY()),
+        applyWidth(geometry.getWidth()), applyHeight(geometry.getHeight()));
+  }
+
+  public boolean isIdentity() {
+    return scaleX == 1.0 && scaleY == 1.0 && translateX == 0.0 && translateY == 0.0;
+  }
+
+  public double getScaleX() { return scaleX; }
+  public double getScaleY() { return scaleY; }
+  public double getTranslateX() { return translateX; }
+  public double getTranslateY() { return translateY; }
+
+  @Override
+  public String toString() {
+    return String.format("GeometryTransform{scale=(%.4f, %.4f), translate=(%.0f, %.0f)}",
+        scaleX, scaleY, translateX, translateY);
+  }
+}
@@ -6,6 +6,7 @@ import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.*;
+import java.net.URI;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -14,6 +15,7 @@ import com.presentationchoreographer.xml.writers.*;
 import com.presentationchoreographer.xml.parsers.SlideXMLParser;
 import com.presentationchoreographer.core.model.*;
 import com.presentationchoreographer.exceptions.XMLParsingException;
+import com.presentationchoreographer.utils.PackageArchive;
 import com.presentationchoreographer.utils.XMLConstants;
 
 /**
@@ -29,7 +31,8 @@ import com.presentationchoreographer.utils.XMLConstants;
  *   <li>Complete PPTX processing pipeline (extract → modify → reconstruct)</li>
  *   <li>ZIP compression/decompression management</li>
  *   <li>Transaction support with rollback capabilities</li>
- *   <li>High-level slide operations (add, copy, modify, delete)</li>
+ *   <li>High-level slide operations (add, copy, import, modify, delete)</li>
+ *   <li>Merging decks into one and splitting a deck into slide ranges</li>
  *   <li>Presentation validation and integrity checking</li>
  *   <li>Integration point for Anthropic API operations</li>
  * </ul>
@@ -111,31 +114,19 @@ public class PPTXOrchestrator {
       File extractedDir = new File(sessionDir, "extracted");
       extractPPTX(pptxFile, extractedDir);
 
-      // Step 2: Initialize management components
-      RelationshipManager relationshipManager = new RelationshipManager(extractedDir);
-      SPIDManager spidManager = new SPIDManager(extractedDir);
-      SlideCreator slideCreator = new SlideCreator(extractedDir);
-
-      // Step 3: Analyze presentation structure
-      PresentationMetadata metadata = analyzePresentationStructure(extractedDir);
-
-      // Step 4: Create session
-      PresentationSession session = new PresentationSession(
-          sessionId,
-          pptxFile,
-          extractedDir,
-          relationshipManager,
-          spidManager,
-          slideCreator,
-          metadata
-          );
-
-      activeSessions.put(sessionId, session);
+      // Steps 2-4: Initialize components, analyze structure and register the session
+      PackageIndex packageIndex = openPackageIndex(pptxFile);
+      PresentationSession session = createSession(sessionId, pptxFile, extractedDir, packageIndex);
+      savePackageIndex(packageIndex);
 
       System.out.println("✓ Presentation opened: " + pptxFile.getName());
       System.out.println("  Session ID: " + sessionId);
-      System.out.println("  Slides: " + metadata.getSlideCount());
-      System.out.println("  Total shapes: " + spidManager.getAllSpids().size());
+      System.out.println("  Slides: " + session.getMetadata().getSlideCount());
+      System.out.println("  Total shapes: " + session.getSPIDManager().getAllSpids().size());
+      if (packageIndex != null) {
+        System.out.println("  Index: " + packageIndex.getPartsReused() + " parts reused, "
+            + packageIndex.getPartsScanned() + " scanned");
+      }
 
       return session;
 
@@ -144,6 +135,109 @@ public class PPTXOrchestrator {
     }
   }
 
+  /**
+   * Merges several PPTX files into one new session, in the order given.
+   * 
+   * <p>The first file is opened as the session; the slides of every other file are appended
+   * by {@link SlideCreator#importSlides}, which reads each input archive entry by entry
+   * without extracting it. Masters that are identical down to their layouts, themes and
+   * media are shared rather than copied, and identical media is stored once across all
+   * inputs.</p>
+   * 
+   * @param pptxFiles The files to merge, first file first
+   * @return PresentationSession holding the merged presentation
+   * @throws XMLParsingException If an input cannot be read or merged
+   * @throws IllegalArgumentException If pptxFiles is null or empty, or a file does not exist
+   */
+  public PresentationSession merge(List<File> pptxFiles) throws XMLParsingException {
+    if (pptxFiles == null || pptxFiles.isEmpty()) {
+      throw new IllegalArgumentException("pptxFiles cannot be null or empty");
+    }
+    for (File pptxFile : pptxFiles) {
+      if (pptxFile == null || !pptxFile.isFile()) {
+        throw new IllegalArgumentException("PPTX file must exist and be non-null: " + pptxFile);
+      }
+    }
+
+    PresentationSession session = openPresentation(pptxFiles.get(0));
+    try {
+      session.beginTransaction("merge");
+
+      SlideCreator slideCreator = session.getSlideCreator();
+      for (File pptxFile : pptxFiles.subList(1, pptxFiles.size())) {
+        int position = slideCreator.getPresentationPart().getSlideCount() + 1;
+        int imported = slideCreator.importSlides(pptxFile, null, position).getSlideNumbers().size();
+        for (int i = 0; i < imported; i++) {
+          session.getMetadata().incrementSlideCount();
+        }
+      }
+
+      session.markModified();
+      session.commitTransaction();
+
+      System.out.println("✓ Merged " + pptxFiles.size() + " presentations into session " + session.getSessionId());
+      System.out.println("  Slides: " + slideCreator.getPresentationPart().getSlideCount());
+      return session;
+
+    } catch (Exception e) {
+      session.rollbackTransaction();
+      closeSession(session);
+      throw new XMLParsingException("Failed to merge " + pptxFiles.size() + " presentations", e);
+    }
+  }
+
+  /**
+   * Splits a presentation into one new session per slide range.
+   * 
+   * <p>Each new session starts from the parts of the source that do not belong to a slide
+   * (masters, layouts, themes, notes and handout masters, document properties), and the
+   * slides of its range are imported into it, so each piece carries only the media its
+   * slides reference. Notes slides are not carried over. The source session is not
+   * modified.</p>
+   * 
+   * @param session The presentation session to split
+   * @param ranges Slide ranges as {first, last} presentation positions (1-based, inclusive)
+   * @return One new PresentationSession per range, in the order given
+   * @throws XMLParsingException If a piece cannot be created
+   * @throws IllegalArgumentException If session or ranges is null, or a range is malformed or out of bounds
+   */
+  public List<PresentationSession> split(PresentationSession session, List<int[]> ranges) throws XMLParsingException {
+    if (session == null || ranges == null) {
+      throw new IllegalArgumentException("Session and ranges must be non-null");
+    }
+    int slideCount = session.getSlideCreator().getPresentationPart().getSlideCount();
+    for (int[] range : ranges) {
+      if (range == null || range.length != 2 || range[0] < 1 || range[0] > range[1] || range[1] > slideCount) {
+        throw new IllegalArgumentException("Each range must be {first, last} within 1.." + slideCount);
+      }
+    }
+
+    List<PresentationSession> pieces = new ArrayList<>();
+    try {
+      for (int[] range : ranges) {
+        String sessionId = generateSessionId();
+        File extractedDir = new File(new File(tempDirectory, "session_" + sessionId), "extracted");
+        copyPackageSkeleton(session.getExtractedDirectory(), extractedDir);
+
+        int[] positions = new int[range[1] - range[0] + 1];
+        for (int i = 0; i < positions.length; i++) {
+          positions[i] = range[0] + i;
+        }
+        new SlideCreator(extractedDir).importSlides(session.getExtractedDirectory(), positions, 1);
+
+        pieces.add(createSession(sessionId, session.getOriginalFile(), extractedDir, null));
+        System.out.println("✓ Split slides " + range[0] + "-" + range[1] + " into session " + sessionId);
+      }
+      return pieces;
+
+    } catch (Exception e) {
+      for (PresentationSession piece : pieces) {
+        closeSession(piece);
+      }
+      throw new XMLParsingException("Failed to split session " + session.getSessionId(), e);
+    }
+  }
+
   /**
    * Saves a presentation session back to a PPTX file, performing full reconstruction.
    * 
@@ -158,8 +252,14 @@ public class PPTXOrchestrator {
     }
 
     try {
-      // Step 1: Validate presentation integrity
-      ValidationResult validation = validatePresentation(session);
+      // Step 0: Compact logically ordered slide parts so slideN.xml is the Nth slide
+      SlideCreator slideCreator = session.getSlideCreator();
+      if (slideCreator.isCompactOnSave()) {
+        slideCreator.compactSlideParts();
+      }
+
+      // Step 1: Validate presentation integrity, re-parsing only slides changed since the last check
+      ValidationResult validation = validatePresentation(session, SPIDManager.ValidationMode.INCREMENTAL);
       if (!validation.isValid()) {
         throw new XMLParsingException("Cannot save invalid presentation. Errors: " + 
             validation.getErrors());
@@ -277,20 +377,192 @@ public class PPTXOrchestrator {
   }
 
   /**
-   * Validates the integrity of a presentation session.
+   * Imports slides from another open presentation, together with their layouts, masters
+   * and media. Identical masters, layouts and media already in the target are reused.
+   *
+   * @param target The session receiving the slides
+   * @param source The session to import from; it is not modified
+   * @param sourcePositions Positions of the source slides to import (1-based)
+   * @param destinationPosition Position of the first imported slide in the target
+   * @return SlideOperationResult containing the slide number of the first imported slide
+   * @throws XMLParsingException If the slides cannot be imported
+   */
+  public SlideOperationResult importSlides(PresentationSession target, PresentationSession source,
+      int[] sourcePositions, int destinationPosition) throws XMLParsingException {
+    if (target == null || source == null) {
+      throw new IllegalArgumentException("Sessions cannot be null");
+    }
+    if (target == source) {
+      throw new IllegalArgumentException("Use copySlide to copy slides within one presentation");
+    }
+
+    try {
+      target.beginTransaction("importSlides");
+
+      List<Integer> slideNumbers = target.getSlideCreator().importSlides(
+          source.getExtractedDirectory(), sourcePositions, destinationPosition).getSlideNumbers();
+
+      for (int i = 0; i < slideNumbers.size(); i++) {
+        target.getMetadata().incrementSlideCount();
+      }
+      target.markModified();
+      target.commitTransaction();
+
+      System.out.println("✓ Imported " + slideNumbers.size() + " slides from session " + source.getSessionId());
+      return new SlideOperationResult(
+          SlideOperationType.IMPORT_SLIDES,
+          true,
+          String.format("%d slides imported at position %d", slideNumbers.size(), destinationPosition),
+          slideNumbers.get(0)
+          );
+
+    } catch (Exception e) {
+      target.rollbackTransaction();
+      throw new XMLParsingException("Failed to import slides from session " + source.getSessionId(), e);
+    }
+  }
+
+  /**
+   * Deletes the slide at a presentation position, releasing its SPIDs.
+   *
+   * @param session The presentation session
+   * @param position Position of the slide to delete (1-based)
+   * @return SlideOperationResult containing the part number of the deleted slide
+   * @throws XMLParsingException If the slide cannot be deleted
+   */
+  public SlideOperationResult deleteSlide(PresentationSession session, int position) throws XMLParsingException {
+    if (session == null) {
+      throw new IllegalArgumentException("Session cannot be null");
+    }
+
+    try {
+      session.beginTransaction("deleteSlide");
+
+      int deletedSlideNumber = session.getSlideCreator().deleteSlide(position);
+      session.getSPIDManager().releaseSlide(deletedSlideNumber);
+
+      session.getMetadata().decrementSlideCount();
+      session.markModified();
+      session.commitTransaction();
+
+      System.out.println("✓ Deleted slide at position " + position);
+      return new SlideOperationResult(
+          SlideOperationType.DELETE_SLIDE,
+          true,
+          "Slide deleted at position " + position,
+          deletedSlideNumber
+          );
+
+    } catch (Exception e) {
+      session.rollbackTransaction();
+      throw new XMLParsingException("Failed to delete slide at position " + position, e);
+    }
+  }
+
+  /**
+   * Moves a slide to a new presentation position without renaming any slide part.
+   *
+   * @param session The presentation session
+   * @param fromPosition Current position of the slide (1-based)
+   * @param toPosition Position the slide should end up at (1-based)
+   * @return SlideOperationResult containing the new position
+   * @throws XMLParsingException If the slide cannot be moved
+   */
+  public SlideOperationResult moveSlide(PresentationSession session, int fromPosition, int toPosition)
+      throws XMLParsingException {
+    if (session == null) {
+      throw new IllegalArgumentException("Session cannot be null");
+    }
+
+    try {
+      session.beginTransaction("moveSlide");
+
+      session.getSlideCreator().moveSlide(fromPosition, toPosition);
+
+      session.markModified();
+      session.commitTransaction();
+
+      System.out.println("✓ Moved slide from position " + fromPosition + " to " + toPosition);
+      return new SlideOperationResult(
+          SlideOperationType.MOVE_SLIDE,
+          true,
+          String.format("Slide moved from position %d to %d", fromPosition, toPosition),
+          toPosition
+          );
+
+    } catch (Exception e) {
+      session.rollbackTransaction();
+      throw new XMLParsingException("Failed to move slide from position " + fromPosition +
+          " to " + toPosition, e);
+    }
+  }
+
+  /**
+   * Reorders every slide of the presentation in one step.
+   *
+   * @param session The presentation session
+   * @param permutation For each new position i (0-based index), the current 1-based position of
+   *                    the slide to place there
+   * @return SlideOperationResult describing the reorder
+   * @throws XMLParsingException If the slides cannot be reordered
+   */
+  public SlideOperationResult reorderSlides(PresentationSession session, int[] permutation)
+      throws XMLParsingException {
+    if (session == null) {
+      throw new IllegalArgumentException("Session cannot be null");
+    }
+
+    try {
+      session.beginTransaction("reorderSlides");
+
+      session.getSlideCreator().reorderSlides(permutation);
+
+      session.markModified();
+      session.commitTransaction();
+
+      System.out.println("✓ Reordered " + permutation.length + " slides");
+      return new SlideOperationResult(
+          SlideOperationType.REORDER_SLIDES,
+          true,
+          "Reordered " + permutation.length + " slides",
+          -1
+          );
+
+    } catch (Exception e) {
+      session.rollbackTransaction();
+      throw new XMLParsingException("Failed to reorder slides", e);
+    }
+  }
+
+  /**
+   * Validates the integrity of a presentation session with a full audit of every slide.
    * 
    * @param session The presentation session to validate
    * @return ValidationResult containing any detected issues
    * @throws XMLParsingException If validation cannot be performed
    */
   public ValidationResult validatePresentation(PresentationSession session) throws XMLParsingException {
+    return validatePresentation(session, SPIDManager.ValidationMode.FULL_AUDIT);
+  }
+
+  /**
+   * Validates the integrity of a presentation session.
+   * 
+   * @param session The presentation session to validate
+   * @param spidValidationMode Whether SPIDs are checked by re-parsing every slide or only changed slides
+   * @return ValidationResult containing any detected issues
+   * @throws XMLParsingException If validation cannot be performed
+   */
+  public ValidationResult validatePresentation(PresentationSession session,
+      SPIDManager.ValidationMode spidValidationMode) throws XMLParsingException {
     if (session == null) {
       throw new IllegalArgumentException("Session cannot be null");
     }
 
     try {
       // Validate using SlideCreator's comprehensive validation
-      return session.getSlideCreator().validatePresentation();
+      SlideCreator.ValidationSummary summary = session.getSlideCreator().validatePresentation(spidValidationMode);
+      return new ValidationResult(summary.getErrors(), summary.getWarnings());
 
     } catch (Exception e) {
       throw new XMLParsingException("Failed to validate presentation", e);
@@ -312,8 +584,9 @@ public class PPTXOrchestrator {
       // Remove from active sessions
       activeSessions.remove(session.getSessionId());
 
-      // Clean up temporary files
+      // Clean up temporary files and the parts cached from them
       deleteDirectory(session.getExtractedDirectory().getParentFile());
+      PartCache.shared().invalidateUnder(session.getExtractedDirectory());
 
       System.out.println("✓ Session closed: " + session.getSessionId());
 
@@ -344,25 +617,137 @@ public class PPTXOrchestrator {
   // ========== PRIVATE HELPER METHODS ==========
 
   /**
-   * Extracts a PPTX file to the specified directory using PowerShell.
+   * Initializes the management components for an extracted presentation and registers the session.
+   * Unchanged parts are taken from packageIndex when one is given.
    */
-  private void extractPPTX(File pptxFile, File extractDir) throws XMLParsingException {
-    try {
-      extractDir.mkdirs();
+  private PresentationSession createSession(String sessionId, File originalFile, File extractedDir,
+      PackageIndex packageIndex) throws XMLParsingException {
+    // Initialize management components
+    RelationshipManager relationshipManager = new RelationshipManager(extractedDir, packageIndex);
+    SPIDManager spidManager = new SPIDManager(extractedDir, packageIndex);
+    SlideCreator slideCreator = new SlideCreator(extractedDir, packageIndex);
+
+    // Analyze presentation structure
+    PresentationMetadata metadata = analyzePresentationStructure(extractedDir);
+
+    PresentationSession session = new PresentationSession(
+        sessionId,
+        originalFile,
+        extractedDir,
+        relationshipManager,
+        spidManager,
+        slideCreator,
+        metadata
+        );
+
+    activeSessions.put(sessionId, session);
+    return session;
+  }
 
-      // Use PowerShell to extract ZIP contents
-      String command = String.format(
-          "powershell -command \"Expand-Archive -Path '%s' -DestinationPath '%s' -Force\"",
-          pptxFile.getAbsolutePath(),
-          extractDir.getAbsolutePath()
-          );
+  /**
+   * Copies the parts of a package reachable from its root without passing through a slide
+   * or notes slide, then empties sldIdLst and drops content type Overrides of parts left behind.
+   */
+  private void copyPackageSkeleton(File sourceDir, File targetDir) throws Exception {
+    Set<String> parts = new LinkedHashSet<>();
+    parts.add("[Content_Types].xml");
+
+    // Breadth-first over the relationship graph; "" is the package root, whose relationships are _rels/.rels
+    Deque<String> pending = new ArrayDeque<>();
+    pending.add("");
+    while (!pending.isEmpty()) {
+      String part = pending.poll();
+      int slash = part.lastIndexOf('/');
+      String relsPath = part.substring(0, slash + 1) + "_rels/" + part.substring(slash + 1) + ".rels";
+      File relsFile = new File(sourceDir, relsPath);
+      if (!relsFile.exists()) {
+        continue;
+      }
+      parts.add(relsPath);
+
+      NodeList relationships = documentBuilder.parse(relsFile)
+        .getElementsByTagNameNS(XMLConstants.PACKAGE_RELATIONSHIPS_NS, "Relationship");
+      for (int i = 0; i < relationships.getLength(); i++) {
+        Element relationship = (Element) relationships.item(i);
+        String type = relationship.getAttribute("Type");
+        if ("External".equals(relationship.getAttribute("TargetMode"))
+            || XMLConstants.RELATIONSHIP_TYPE_SLIDE.equals(type)
+            || XMLConstants.RELATIONSHIP_TYPE_NOTES_SLIDE.equals(type)) {
+          continue;
+        }
 
-      Process process = Runtime.getRuntime().exec(command);
-      int exitCode = process.waitFor();
+        String target = new URI(null, null, "/" + part, null)
+          .resolve(new URI(null, null, relationship.getAttribute("Target"), null)).getPath().substring(1);
+        if (new File(sourceDir, target).isFile() && parts.add(target)) {
+          pending.add(target);
+        }
+      }
+    }
 
-      if (exitCode != 0) {
-        throw new XMLParsingException("Failed to extract PPTX file: " + pptxFile.getName());
+    for (String part : parts) {
+      File source = new File(sourceDir, part);
+      if (source.isFile()) {
+        File target = new File(targetDir, part);
+        target.getParentFile().mkdirs();
+        Files.copy(source.toPath(), target.toPath());
       }
+    }
+
+    PresentationPart presentation = PresentationPart.load(targetDir);
+    while (presentation.getSlideCount() > 0) {
+      presentation.removeSlide(1);
+    }
+    presentation.flush();
+
+    ContentTypesRegistry contentTypes = ContentTypesRegistry.load(targetDir);
+    for (String partName : new ArrayList<>(contentTypes.getOverridePartNames())) {
+      if (!new File(targetDir, partName.substring(1)).isFile()) {
+        contentTypes.removeOverride(partName);
+      }
+    }
+    contentTypes.flush();
+  }
+
+  /**
+   * Opens the persistent index of a PPTX file against the part CRCs in its central directory.
+   * Returns null if the CRCs cannot be read; the session is then built by a full scan.
+   */
+  private PackageIndex openPackageIndex(File pptxFile) {
+    try {
+      String path = pptxFile.getCanonicalPath();
+      File indexFile = new File(new File(tempDirectory, "index"),
+          pptxFile.getName() + "-" + Integer.toHexString(path.hashCode()) + ".pcidx");
+      PackageIndex packageIndex = PackageIndex.open(indexFile, PackageArchive.readEntryCrcs(pptxFile));
+      if (packageIndex.getReadError() != null) {
+        System.out.println("⚠ Ignoring unreadable package index " + indexFile.getName() + ": " + packageIndex.getReadError());
+      }
+      return packageIndex;
+    } catch (IOException e) {
+      System.out.println("⚠ Package index unavailable for " + pptxFile.getName() + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Writes a package index back if opening the session changed it. Failures only cost the next open a rescan.
+   */
+  private void savePackageIndex(PackageIndex packageIndex) {
+    if (packageIndex == null) {
+      return;
+    }
+    try {
+      packageIndex.save();
+    } catch (IOException e) {
+      System.out.println("⚠ Failed to save package index " + packageIndex.getIndexFile().getName() + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Extracts a PPTX file to the specified directory.
+   */
+  private void extractPPTX(File pptxFile, File extractDir) throws XMLParsingException {
+    try {
+      PackageArchive.extract(pptxFile, extractDir);
 
       // Verify extraction success
       if (!new File(extractDir, "ppt/presentation.xml").exists()) {
@@ -375,7 +760,7 @@ public class PPTXOrchestrator {
   }
 
   /**
-   * Compresses an extracted directory back to a PPTX file using PowerShell.
+   * Compresses an extracted directory back to a PPTX file.
    */
   private void compressPPTX(File extractedDir, File outputFile) throws XMLParsingException {
     try {
@@ -384,19 +769,7 @@ public class PPTXOrchestrator {
         outputFile.delete();
       }
 
-      // Use PowerShell to create ZIP archive
-      String command = String.format(
-          "powershell -command \"Compress-Archive -Path '%s\\*' -DestinationPath '%s' -Force\"",
-          extractedDir.getAbsolutePath(),
-          outputFile.getAbsolutePath()
-          );
-
-      Process process = Runtime.getRuntime().exec(command);
-      int exitCode = process.waitFor();
-
-      if (exitCode != 0) {
-        throw new XMLParsingException("Failed to compress PPTX file: " + outputFile.getName());
-      }
+      PackageArchive.compress(extractedDir, outputFile);
 
       // Verify compression success
       if (!outputFile.exists() || outputFile.length() == 0) {
@@ -601,7 +974,7 @@ public class PPTXOrchestrator {
    * Types of slide operations.
    */
   public enum SlideOperationType {
-    ADD_SLIDE, COPY_SLIDE, DELETE_SLIDE, MOVE_SLIDE, MODIFY_SLIDE
+    ADD_SLIDE, COPY_SLIDE, IMPORT_SLIDES, DELETE_SLIDE, MOVE_SLIDE, REORDER_SLIDES, MODIFY_SLIDE
   }
 
   /**
@@ -0,0 +1,115 @@
+package com.presentationchoreographer.utils;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+/**
+ * ZIP utilities for PPTX packages, built on java.util.zip
+ * Extracts and writes packages without external tools, and reads single parts on demand
+ */
+public final class PackageArchive {
+
+  private static final String CONTENT_TYPES_ENTRY = "[Content_Types].xml";
+
+  private PackageArchive() {
+    // Utility class - no instantiation
+  }
+
+  /**
+   * Extracts every entry of a PPTX archive into a directory.
+   * Entries that would resolve outside the directory are rejected.
+   *
+   * @param pptxFile The archive to extract
+   * @param extractDir The directory to extract into (created if absent)
+   * @throws IOException If the archive cannot be read, a file cannot be written, or an entry escapes extractDir
+   */
+  public static void extract(File pptxFile, File extractDir) throws IOException {
+    Path root = extractDir.toPath().toAbsolutePath().normalize();
+    Files.createDirectories(root);
+
+    try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(pptxFile)))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        Path output = root.resolve(entry.getName()).normalize();
+        if (!output.startsWith(root)) {
+          throw new IOException("Archive entry outside extraction directory: " + entry.getName());
+        }
+
+        if (entry.isDirectory()) {
+          Files.createDirectories(output);
+        } else {
+          Files.createDirectories(output.getParent());
+          Files.copy(zip, output, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the files under a directory to a PPTX archive, [Content_Types].xml first.
+   *
+   * @param extractedDir The directory holding the package parts
+   * @param outputFile The archive to create, replacing any existing file
+   * @throws IOException If a file cannot be read or the archive cannot be written
+   */
+  public static void compress(File extractedDir, File outputFile) throws IOException {
+    Path root = extractedDir.toPath();
+    List<Path> files = new ArrayList<>();
+    try (java.util.stream.Stream<Path> walk = Files.walk(root)) {
+      walk.filter(Files::isRegularFile).sorted().forEach(files::add);
+    }
+    files.sort(Comparator.comparing((Path file) -> !file.getFileName().toString().equals(CONTENT_TYPES_ENTRY)
+          || !file.getParent().equals(root)));
+
+    try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+      for (Path file : files) {
+        zip.putNextEntry(new ZipEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+        Files.copy(file, zip);
+        zip.closeEntry();
+      }
+    }
+  }
+
+  /**
+   * Reads the CRC-32 of every part of an archive from its central directory,
+   * without decompressing any entry.
+   *
+   * @param pptxFile The archive to read
+   * @return CRC-32 by part path (no leading slash); parts without a recorded CRC are left out
+   * @throws IOException If the archive cannot be read
+   */
+  public static Map<String, Long> readEntryCrcs(File pptxFile) throws IOException {
+    Map<String, Long> crcs = new HashMap<>();
+    try (ZipFile archive = new ZipFile(pptxFile)) {
+      Enumeration<? extends ZipEntry> entries = archive.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (!entry.isDirectory() && entry.getCrc() != -1) {
+          crcs.put(entry.getName(), entry.getCrc());
+        }
+      }
+    }
+    return crcs;
+  }
+
+  /**
+   * Reads one part of an open archive.
+   *
+   * @param archive The open PPTX archive
+   * @param partPath The part path without a leading slash, e.g. "ppt/presentation.xml"
+   * @return The part content, or null if the archive has no such part
+   * @throws IOException If the entry cannot be read
+   */
+  public static byte[] readEntry(ZipFile archive, String partPath) throws IOException {
+    ZipEntry entry = archive.getEntry(partPath);
+    if (entry == null) {
+      return null;
+    }
+
+    try (InputStream input = archive.getInputStream(entry)) {
+      return input.readAllBytes();
+    }
+  }
+}
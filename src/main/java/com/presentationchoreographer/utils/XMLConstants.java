@@ -16,6 +16,7 @@ public final class XMLConstants {
   public static final String DRAWING_NS = "http://schemas.openxmlformats.org/drawingml/2006/main";
   public static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
   public static final String PACKAGE_RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+  public static final String CONTENT_TYPES_NS = "http://schemas.openxmlformats.org/package/2006/content-types";
 
   // Namespace declaration attribute names (for setAttributeNS calls)
   public static final String XMLNS_ATTRIBUTE = "http://www.w3.org/2000/xmlns/";
@@ -66,15 +67,19 @@ public final class XMLConstants {
   public static final String XPATH_RELATIONSHIP_ELEMENTS = "./Relationship";
 
   // Relationship type constants
+  public static final String RELATIONSHIP_TYPE_SLIDE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/slide";
   public static final String RELATIONSHIP_TYPE_SLIDE_LAYOUT = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/slideLayout";
   public static final String RELATIONSHIP_TYPE_THEME = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/theme";
   public static final String RELATIONSHIP_TYPE_SLIDE_MASTER = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/slideMaster";
   public static final String RELATIONSHIP_TYPE_IMAGE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/image";
+  public static final String RELATIONSHIP_TYPE_NOTES_SLIDE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/notesSlide";
 
   // Content type constants
   public static final String CONTENT_TYPE_SLIDE = "application/vnd.openxmlformats-officedocument.presentationml.slide+xml";
   public static final String CONTENT_TYPE_SLIDE_LAYOUT = "application/vnd.openxmlformats-officedocument.presentationml.slideLayout+xml";
   public static final String CONTENT_TYPE_SLIDE_MASTER = "application/vnd.openxmlformats-officedocument.presentationml.slideMaster+xml";
+  public static final String CONTENT_TYPE_RELATIONSHIPS = "application/vnd.openxmlformats-package.relationships+xml";
+  public static final String CONTENT_TYPE_XML = "application/xml";
 
   // Animation timing constants
   public static final int DEFAULT_ANIMATION_INTERVAL_MS = 330;
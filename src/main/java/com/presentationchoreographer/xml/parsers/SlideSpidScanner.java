@@ -0,0 +1,192 @@
+package com.presentationchoreographer.xml.parsers;
+
+import javax.xml.stream.*;
+import java.io.*;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * Streaming scanner that reports the shape IDs of a slide without building a DOM.
+ *
+ * <p>The scanner walks the slide with a StAX reader and reports the id and name of every
+ * p:cNvPr under p:spTree except the tree's own: those of shapes, pictures, connectors,
+ * groups and graphic frames, the same ids as recorded by
+ * {@code ShapeReferenceGraph}. The p:ph in a shape's p:nvPr is reported with the id of
+ * that shape, so placeholders can be found again by SPID. Inside p:timing only p:spTgt
+ * elements are looked at; their spid attributes are reported as animation targets. Memory
+ * use is bounded by the nesting depth of the slide, not its size.</p>
+ *
+ * <p>Thread Safety: A scanner may be shared by several threads; each scan uses its own
+ * stream reader.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public class SlideSpidScanner {
+
+  /**
+   * Receives the shapes and animation targets of a slide in document order.
+   */
+  public interface Handler {
+
+    /**
+     * Called for each shape, picture, connector, group or graphic frame with an id.
+     *
+     * @param spid The shape ID
+     * @param name The shape name, empty if the shape has none
+     */
+    void shape(int spid, String name);
+
+    /**
+     * Called after {@link #shape} for a shape whose non-visual properties hold a p:ph.
+     *
+     * @param spid The ID of the placeholder shape
+     * @param type The p:ph type, empty if absent
+     * @param idx The p:ph idx, empty if absent
+     */
+    default void placeholder(int spid, String type, String idx) {}
+
+    /**
+     * Called for each p:spTgt in the slide timing.
+     *
+     * @param spid The targeted shape ID
+     */
+    default void animationTarget(int spid) {}
+  }
+
+  private final XMLInputFactory inputFactory;
+
+  public SlideSpidScanner() {
+    this.inputFactory = XMLInputFactory.newInstance();
+    this.inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    this.inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+    this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+  }
+
+  /**
+   * Scans a slide file.
+   *
+   * @param slideFile The slide XML file
+   * @param handler Receives the shapes and animation targets
+   * @throws XMLParsingException If the file cannot be read or is not well-formed
+   */
+  public void scan(File slideFile, Handler handler) throws XMLParsingException {
+    try (InputStream in = new BufferedInputStream(new FileInputStream(slideFile))) {
+      scan(in, handler);
+    } catch (IOException e) {
+      throw new XMLParsingException("Failed to read slide: " + slideFile.getName(), e);
+    } catch (XMLParsingException e) {
+      throw new XMLParsingException("Failed to scan slide: " + slideFile.getName(), e);
+    }
+  }
+
+  /**
+   * Scans a slide from a stream, which is not closed.
+   *
+   * @param in The slide XML
+   * @param handler Receives the shapes and animation targets
+   * @throws XMLParsingException If the stream is not well-formed or an id is not numeric
+   */
+  public void scan(InputStream in, Handler handler) throws XMLParsingException {
+    XMLStreamReader reader = null;
+    try {
+      reader = inputFactory.createXMLStreamReader(in);
+
+      int spTreeDepth = 0;
+      // Element depth below the open p:spTree; the tree's own p:cNvPr is at depth 2
+      int treeDepth = 0;
+      // The last reported shape, while its p:nv*Pr is open: the p:cNvPr is at shapeDepth
+      // and a p:ph of the shape one level deeper, under the p:nvPr sibling
+      int shapeSpid = -1;
+      int shapeDepth = 0;
+
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          if (spTreeDepth > 0) {
+            treeDepth++;
+          }
+          if (!XMLConstants.PRESENTATION_NS.equals(reader.getNamespaceURI())) {
+            continue;
+          }
+          String localName = reader.getLocalName();
+
+          if ("timing".equals(localName)) {
+            scanTiming(reader, handler);
+          } else if ("spTree".equals(localName)) {
+            spTreeDepth++;
+            treeDepth = 0;
+          } else if (spTreeDepth > 0 && treeDepth > 2 && "cNvPr".equals(localName)) {
+            String id = reader.getAttributeValue(null, "id");
+            String name = reader.getAttributeValue(null, "name");
+            if (id != null && !id.isEmpty()) {
+              shapeSpid = parseSpid(id);
+              shapeDepth = treeDepth;
+              handler.shape(shapeSpid, name != null ? name : "");
+            }
+          } else if (shapeSpid >= 0 && treeDepth == shapeDepth + 1 && "ph".equals(localName)) {
+            String type = reader.getAttributeValue(null, "type");
+            String idx = reader.getAttributeValue(null, "idx");
+            handler.placeholder(shapeSpid, type != null ? type : "", idx != null ? idx : "");
+            shapeSpid = -1;
+          }
+
+        } else if (event == XMLStreamConstants.END_ELEMENT && spTreeDepth > 0) {
+          if ("spTree".equals(reader.getLocalName())
+              && XMLConstants.PRESENTATION_NS.equals(reader.getNamespaceURI())) {
+            spTreeDepth--;
+          } else if (--treeDepth < shapeDepth - 1) {
+            shapeSpid = -1;
+          }
+        }
+      }
+
+    } catch (XMLStreamException e) {
+      throw new XMLParsingException("Failed to scan slide XML", e);
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException e) {
+          // Nothing to release beyond the reader itself
+        }
+      }
+    }
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  /**
+   * Skips the content of p:timing, reporting the spid of each p:spTgt on the way.
+   * Returns with the reader on the p:timing end element.
+   */
+  private static void scanTiming(XMLStreamReader reader, Handler handler)
+      throws XMLStreamException, XMLParsingException {
+    int depth = 1;
+    while (depth > 0 && reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+        if ("spTgt".equals(reader.getLocalName())
+            && XMLConstants.PRESENTATION_NS.equals(reader.getNamespaceURI())) {
+          String spid = reader.getAttributeValue(null, "spid");
+          if (spid != null && !spid.isEmpty()) {
+            handler.animationTarget(parseSpid(spid));
+          }
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  private static int parseSpid(String value) throws XMLParsingException {
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new XMLParsingException("Invalid shape ID: " + value, e);
+    }
+  }
+}
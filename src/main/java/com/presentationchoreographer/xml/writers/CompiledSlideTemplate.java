@@ -0,0 +1,444 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.w3c.dom.*;
+import javax.xml.parsers.*;
+import java.io.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * Slide template compiled once into a reusable instantiation plan.
+ *
+ * <p>Compiling a template locates everything instantiation needs up front: the prototype
+ * slide DOM, the binding slots (paragraphs whose text contains "{{key}}" tokens), and the
+ * SPID layout (each shape's p:cNvPr and the attributes referencing it, as recorded by a
+ * {@link ShapeReferenceGraph}: animation targets, build list entries and connector ends).
+ * Shape slot k of an instance receives SPID firstSpid + k, so a whole instance, or a batch
+ * of instances, needs a single contiguous SPID reservation. Instantiation is a DOM clone
+ * plus attribute and text updates at precomputed positions; the source is never re-parsed
+ * and no XPath is evaluated.</p>
+ *
+ * <p>Shapes are tracked the way {@link SPIDManager} tracks them (p:sp and p:pic). Binding
+ * follows {@link SlideXMLWriter#replaceTextTokens(Map)}: tokens split across runs are matched
+ * and each run keeps its formatting. A paragraph containing a list-valued token is repeated
+ * once per item.</p>
+ *
+ * <p>Notes slide relationships of the source are dropped, since a notes slide belongs to
+ * exactly one slide; every other relationship is kept with its original ID, so r:id and
+ * r:embed references in the prototype stay valid in each instance.</p>
+ *
+ * <p>Thread Safety: A compiled template is immutable and may be instantiated concurrently;
+ * cloning the shared prototype is serialized internally.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public class CompiledSlideTemplate implements SlideTemplate {
+
+  private static final Pattern TOKEN_PATTERN = Pattern.compile("\\{\\{([^{}\\s]+)\\}\\}");
+
+  private final String templateName;
+
+  /**
+   * Pristine slide DOM every instance is cloned from
+   */
+  private final Document prototype;
+
+  /**
+   * Relationships of the source slide, or null if the template has none
+   */
+  private final Document relationshipsPrototype;
+
+  /**
+   * Document-order index (among all p:cNvPr) of the p:cNvPr of each shape slot
+   */
+  private final int[] shapeCNvPrIndices;
+  private final String[] shapeNames;
+
+  /**
+   * For each shape reference: its kind, its document-order index among the elements of
+   * that kind, and the shape slot it references
+   */
+  private final ShapeReferenceGraph.ReferenceKind[] referenceKinds;
+  private final int[] referenceOrdinals;
+  private final int[] referenceSlots;
+  private final int animationTargetCount;
+
+  private final BindingSlot[] bindingSlots;
+  private final Set<String> bindingKeys;
+
+  /**
+   * Token matcher over every binding key of the template, or null if there are none
+   */
+  private final TokenReplacer tokenReplacer;
+
+  private CompiledSlideTemplate(String templateName, Document prototype, Document relationshipsPrototype)
+      throws XMLParsingException {
+    this.templateName = templateName;
+    this.prototype = prototype;
+    this.relationshipsPrototype = relationshipsPrototype;
+
+    // SPID layout
+    NodeList allCNvPr = prototype.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "cNvPr");
+    Map<Node, Integer> cNvPrOrder = new IdentityHashMap<>();
+    for (int i = 0; i < allCNvPr.getLength(); i++) {
+      cNvPrOrder.put(allCNvPr.item(i), i);
+    }
+
+    ShapeReferenceGraph graph = ShapeReferenceGraph.build(prototype);
+
+    int[] indices = new int[graph.getShapeCount()];
+    String[] names = new String[graph.getShapeCount()];
+    Map<Integer, Integer> slotsBySpid = new HashMap<>();
+    for (int slot = 0; slot < graph.getShapeCount(); slot++) {
+      Element cNvPr = graph.getShapeProperties(slot);
+      slotsBySpid.putIfAbsent(graph.getShapeSpid(slot), slot);
+      indices[slot] = cNvPrOrder.get(cNvPr);
+      names[slot] = cNvPr.getAttribute("name").isEmpty() ? "unnamed_shape" : cNvPr.getAttribute("name");
+    }
+    this.shapeCNvPrIndices = indices;
+    this.shapeNames = names;
+
+    List<ShapeReferenceGraph.ReferenceKind> kinds = new ArrayList<>();
+    List<Integer> ordinals = new ArrayList<>();
+    List<Integer> referencedSlots = new ArrayList<>();
+    int animationTargets = 0;
+    for (int i = 0; i < graph.getReferenceCount(); i++) {
+      Integer slot = slotsBySpid.get(graph.getReferencedSpid(i));
+      if (slot != null) {
+        kinds.add(graph.getReferenceKind(i));
+        ordinals.add(graph.getReferenceOrdinal(i));
+        referencedSlots.add(slot);
+        if (graph.getReferenceKind(i) == ShapeReferenceGraph.ReferenceKind.ANIMATION_TARGET) {
+          animationTargets++;
+        }
+      }
+    }
+    this.referenceKinds = kinds.toArray(new ShapeReferenceGraph.ReferenceKind[0]);
+    this.referenceOrdinals = toArray(ordinals);
+    this.referenceSlots = toArray(referencedSlots);
+    this.animationTargetCount = animationTargets;
+
+    // Binding slots
+    NodeList paragraphs = prototype.getElementsByTagNameNS(XMLConstants.DRAWING_NS, "p");
+    List<BindingSlot> slots = new ArrayList<>();
+    Set<String> keys = new LinkedHashSet<>();
+    for (int i = 0; i < paragraphs.getLength(); i++) {
+      Matcher matcher = TOKEN_PATTERN.matcher(paragraphText((Element) paragraphs.item(i)));
+      Set<String> slotKeys = new LinkedHashSet<>();
+      while (matcher.find()) {
+        slotKeys.add(matcher.group(1));
+      }
+      if (!slotKeys.isEmpty()) {
+        slots.add(new BindingSlot(i, slotKeys.toArray(new String[0])));
+        keys.addAll(slotKeys);
+      }
+    }
+    this.bindingSlots = slots.toArray(new BindingSlot[0]);
+    this.bindingKeys = Collections.unmodifiableSet(keys);
+
+    List<String> tokens = new ArrayList<>();
+    for (String key : keys) {
+      tokens.add(toToken(key));
+    }
+    this.tokenReplacer = tokens.isEmpty() ? null : new TokenReplacer(tokens);
+  }
+
+  /**
+   * Compiles a template from a slide part, together with its relationships file if present.
+   *
+   * @param templateName The template name
+   * @param slideFile The slide XML part, e.g. ppt/slides/slide3.xml
+   * @return The compiled template
+   * @throws XMLParsingException If the slide or its relationships cannot be parsed
+   * @throws IllegalArgumentException If slideFile is null or does not exist
+   */
+  public static CompiledSlideTemplate compile(String templateName, File slideFile) throws XMLParsingException {
+    if (slideFile == null || !slideFile.exists()) {
+      throw new IllegalArgumentException("slideFile must exist and be non-null");
+    }
+
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      DocumentBuilder documentBuilder = factory.newDocumentBuilder();
+
+      Document prototype = documentBuilder.parse(slideFile);
+      File relsFile = new File(slideFile.getParentFile(), "_rels/" + slideFile.getName() + ".rels");
+      Document relationships = relsFile.exists() ? documentBuilder.parse(relsFile) : null;
+      if (relationships != null) {
+        removeNotesSlideRelationships(relationships);
+      }
+
+      return new CompiledSlideTemplate(templateName, prototype, relationships);
+
+    } catch (XMLParsingException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to compile template from " + slideFile.getName(), e);
+    }
+  }
+
+  /**
+   * Compiles a template from a slide document. The document is copied, so later changes
+   * to it do not affect the template.
+   *
+   * @param templateName The template name
+   * @param slideDocument The prototype slide document
+   * @param relationships The slide's relationships document, or null
+   * @return The compiled template
+   * @throws XMLParsingException If the prototype cannot be analyzed
+   * @throws IllegalArgumentException If slideDocument is null
+   */
+  public static CompiledSlideTemplate compile(String templateName, Document slideDocument,
+      Document relationships) throws XMLParsingException {
+    if (slideDocument == null) {
+      throw new IllegalArgumentException("slideDocument cannot be null");
+    }
+
+    Document relationshipsCopy = null;
+    if (relationships != null) {
+      relationshipsCopy = (Document) relationships.cloneNode(true);
+      removeNotesSlideRelationships(relationshipsCopy);
+    }
+    return new CompiledSlideTemplate(templateName, (Document) slideDocument.cloneNode(true), relationshipsCopy);
+  }
+
+  /**
+   * Creates an instance keeping the prototype's SPIDs. Prefer {@link #instantiate} when the
+   * instance is added to a deck, so its SPIDs do not collide with the source slide.
+   */
+  @Override
+  public Document createSlideDocument(TemplateData data) {
+    return createInstance(data, 0);
+  }
+
+  /**
+   * Creates an instance with fresh SPIDs and the given data bound.
+   *
+   * @param data The values to bind; null leaves every token in place
+   * @param firstSpid The SPID for shape slot 0; slot k receives firstSpid + k
+   * @return A new slide Document owned by the caller
+   * @throws IllegalArgumentException If firstSpid is not positive
+   */
+  public Document instantiate(TemplateData data, int firstSpid) {
+    if (firstSpid < 1) {
+      throw new IllegalArgumentException("firstSpid must be positive");
+    }
+    return createInstance(data, firstSpid);
+  }
+
+  /**
+   * Creates a copy of the source slide's relationships for an instance.
+   *
+   * @return A new relationships Document, or null if the template has no relationships
+   */
+  public Document createRelationshipsDocument() {
+    if (relationshipsPrototype == null) {
+      return null;
+    }
+    synchronized (relationshipsPrototype) {
+      return (Document) relationshipsPrototype.cloneNode(true);
+    }
+  }
+
+  /**
+   * Checks whether the template carries relationships for its instances.
+   */
+  public boolean hasRelationships() {
+    return relationshipsPrototype != null;
+  }
+
+  @Override
+  public String getTemplateName() {
+    return templateName;
+  }
+
+  /**
+   * Gets the number of SPIDs one instance needs.
+   */
+  public int getShapeCount() {
+    return shapeCNvPrIndices.length;
+  }
+
+  /**
+   * Gets the name of the shape in a SPID slot.
+   */
+  public String getShapeName(int slot) {
+    return shapeNames[slot];
+  }
+
+  /**
+   * Gets the number of p:spTgt animation targets remapped per instance.
+   */
+  public int getAnimationTargetCount() {
+    return animationTargetCount;
+  }
+
+  /**
+   * Gets the number of shape references (animation targets, build list entries and
+   * connector ends) remapped per instance.
+   */
+  public int getShapeReferenceCount() {
+    return referenceKinds.length;
+  }
+
+  /**
+   * Gets the binding keys found in the template, in document order.
+   *
+   * @return An unmodifiable set of keys (without braces)
+   */
+  public Set<String> getBindingKeys() {
+    return bindingKeys;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("CompiledSlideTemplate{name='%s', shapes=%d, animationTargets=%d, bindingSlots=%d}",
+        templateName, shapeCNvPrIndices.length, animationTargetCount, bindingSlots.length);
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  /**
+   * Clone the prototype, stamp SPIDs (unless firstSpid is 0) and bind data
+   */
+  private Document createInstance(TemplateData data, int firstSpid) {
+    Document copy;
+    synchronized (prototype) {
+      copy = (Document) prototype.cloneNode(true);
+    }
+
+    if (firstSpid > 0) {
+      stampSpids(copy, firstSpid);
+    }
+    if (data != null && tokenReplacer != null) {
+      bind(copy, data);
+    }
+    return copy;
+  }
+
+  private void stampSpids(Document copy, int firstSpid) {
+    NodeList allCNvPr = copy.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "cNvPr");
+    for (int slot = 0; slot < shapeCNvPrIndices.length; slot++) {
+      ((Element) allCNvPr.item(shapeCNvPrIndices[slot])).setAttribute("id", String.valueOf(firstSpid + slot));
+    }
+
+    // One live list per reference kind present, resolved on first use
+    Map<ShapeReferenceGraph.ReferenceKind, NodeList> elementsByKind = new EnumMap<>(ShapeReferenceGraph.ReferenceKind.class);
+    for (int i = 0; i < referenceKinds.length; i++) {
+      ShapeReferenceGraph.ReferenceKind kind = referenceKinds[i];
+      NodeList elements = elementsByKind.computeIfAbsent(kind,
+          k -> copy.getElementsByTagNameNS(k.getNamespace(), k.getLocalName()));
+      ((Element) elements.item(referenceOrdinals[i]))
+        .setAttribute(kind.getAttribute(), String.valueOf(firstSpid + referenceSlots[i]));
+    }
+  }
+
+  private void bind(Document copy, TemplateData data) {
+    // Resolve slot paragraphs before binding, since list slots add paragraphs
+    NodeList paragraphs = copy.getElementsByTagNameNS(XMLConstants.DRAWING_NS, "p");
+    Element[] slotParagraphs = new Element[bindingSlots.length];
+    for (int i = 0; i < bindingSlots.length; i++) {
+      slotParagraphs[i] = (Element) paragraphs.item(bindingSlots[i].paragraphIndex);
+    }
+
+    for (int i = 0; i < bindingSlots.length; i++) {
+      Map<String, String> values = new HashMap<>();
+      String listKey = null;
+      for (String key : bindingSlots[i].keys) {
+        if (!data.has(key)) {
+          continue;
+        }
+        if (data.isList(key) && listKey == null) {
+          listKey = key;
+        } else {
+          values.put(toToken(key), data.getString(key));
+        }
+      }
+
+      Element paragraph = slotParagraphs[i];
+      if (listKey == null) {
+        bindParagraph(paragraph, values);
+        continue;
+      }
+
+      // Repeat the paragraph once per list item
+      Node parent = paragraph.getParentNode();
+      for (String item : data.getStringList(listKey)) {
+        Element repeated = (Element) paragraph.cloneNode(true);
+        values.put(toToken(listKey), item);
+        bindParagraph(repeated, values);
+        parent.insertBefore(repeated, paragraph);
+      }
+      parent.removeChild(paragraph);
+    }
+  }
+
+  private void bindParagraph(Element paragraph, Map<String, String> values) {
+    if (values.isEmpty()) {
+      return;
+    }
+
+    NodeList textElements = paragraph.getElementsByTagNameNS(XMLConstants.DRAWING_NS, "t");
+    String[] runTexts = new String[textElements.getLength()];
+    for (int j = 0; j < runTexts.length; j++) {
+      runTexts[j] = textElements.item(j).getTextContent();
+    }
+
+    if (tokenReplacer.replace(runTexts, values) > 0) {
+      for (int j = 0; j < runTexts.length; j++) {
+        textElements.item(j).setTextContent(runTexts[j]);
+      }
+    }
+  }
+
+  /**
+   * A notes slide belongs to exactly one slide, so instances never inherit the source's notes
+   */
+  private static void removeNotesSlideRelationships(Document relationships) {
+    NodeList elements = relationships.getElementsByTagNameNS(XMLConstants.PACKAGE_RELATIONSHIPS_NS, "Relationship");
+    for (int i = elements.getLength() - 1; i >= 0; i--) {
+      Element relationship = (Element) elements.item(i);
+      if (XMLConstants.RELATIONSHIP_TYPE_NOTES_SLIDE.equals(relationship.getAttribute("Type"))) {
+        relationship.getParentNode().removeChild(relationship);
+      }
+    }
+  }
+
+  private static String paragraphText(Element paragraph) {
+    NodeList textElements = paragraph.getElementsByTagNameNS(XMLConstants.DRAWING_NS, "t");
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < textElements.getLength(); i++) {
+      text.append(textElements.item(i).getTextContent());
+    }
+    return text.toString();
+  }
+
+  private static String toToken(String key) {
+    return "{{" + key + "}}";
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  // ========== INNER CLASSES ==========
+
+  /**
+   * A paragraph containing binding tokens, addressed by its document-order index among all a:p
+   */
+  private static class BindingSlot {
+    private final int paragraphIndex;
+    private final String[] keys;
+
+    BindingSlot(int paragraphIndex, String[] keys) {
+      this.paragraphIndex = paragraphIndex;
+      this.keys = keys;
+    }
+  }
+}
@@ -0,0 +1,381 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.w3c.dom.*;
+import javax.xml.parsers.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * In-memory model of [Content_Types].xml.
+ *
+ * <p>Default (by extension) and Override (by part name) entries are kept in hash maps, so
+ * registering the content type of a new part is O(1) and never re-parses the file. The
+ * registry is loaded once per session and {@link #flush()} writes the file only when an
+ * entry changed. OPC part names and extensions compare case-insensitively.</p>
+ *
+ * <p>Only the Default and Override elements are regenerated on flush; the XML declaration,
+ * the Types element's attributes and anything else in the file are written back exactly
+ * as they were read.</p>
+ *
+ * <p>Thread Safety: This class is not thread-safe.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public class ContentTypesRegistry {
+
+  private static final Pattern ENTRY_PATTERN = Pattern.compile("<(?:Default|Override)\\b[^>]*/>");
+  private static final Pattern ROOT_ELEMENT_PATTERN = Pattern.compile("<Types\\b[^>]*>");
+
+  private final File contentTypesFile;
+
+  /**
+   * Raw [Content_Types].xml text, or null for a file that does not exist yet
+   */
+  private String content;
+
+  /**
+   * Default entries keyed by lower-case extension
+   */
+  private final Map<String, Entry> defaults;
+
+  /**
+   * Override entries keyed by lower-case part name
+   */
+  private final Map<String, Entry> overrides;
+
+  private boolean dirty;
+
+  private ContentTypesRegistry(File contentTypesFile, String content, Map<String, Entry> defaults,
+      Map<String, Entry> overrides, boolean dirty) {
+    this.contentTypesFile = contentTypesFile;
+    this.content = content;
+    this.defaults = defaults;
+    this.overrides = overrides;
+    this.dirty = dirty;
+  }
+
+  /**
+   * Loads [Content_Types].xml from an extracted PPTX. A missing file yields a registry with
+   * the standard rels and xml defaults, which is written on the next flush.
+   *
+   * @param extractedPptxDir The directory containing the extracted PPTX contents
+   * @return The loaded ContentTypesRegistry
+   * @throws XMLParsingException If the file exists but cannot be parsed
+   */
+  public static ContentTypesRegistry load(File extractedPptxDir) throws XMLParsingException {
+    File contentTypesFile = new File(extractedPptxDir, "[Content_Types].xml");
+    if (!contentTypesFile.exists()) {
+      Map<String, Entry> defaults = new LinkedHashMap<>();
+      defaults.put("rels", new Entry("rels", XMLConstants.CONTENT_TYPE_RELATIONSHIPS));
+      defaults.put("xml", new Entry("xml", XMLConstants.CONTENT_TYPE_XML));
+      return new ContentTypesRegistry(contentTypesFile, null, defaults, new LinkedHashMap<>(), true);
+    }
+
+    try (InputStream input = new FileInputStream(contentTypesFile)) {
+      return parse(contentTypesFile, input);
+    } catch (IOException e) {
+      throw new XMLParsingException("Failed to load [Content_Types].xml", e);
+    }
+  }
+
+  /**
+   * Loads [Content_Types].xml directly from a PPTX archive, without extracting it.
+   * The returned registry is read-only; {@link #flush()} fails if it was modified.
+   *
+   * @param pptxArchive The open PPTX archive
+   * @return The loaded ContentTypesRegistry
+   * @throws XMLParsingException If the archive has no [Content_Types].xml or it cannot be parsed
+   */
+  public static ContentTypesRegistry load(ZipFile pptxArchive) throws XMLParsingException {
+    ZipEntry entry = pptxArchive.getEntry("[Content_Types].xml");
+    if (entry == null) {
+      throw new XMLParsingException("[Content_Types].xml not found in " + pptxArchive.getName());
+    }
+
+    try (InputStream input = pptxArchive.getInputStream(entry)) {
+      return parse(null, input);
+    } catch (IOException e) {
+      throw new XMLParsingException("Failed to load [Content_Types].xml", e);
+    }
+  }
+
+  private static ContentTypesRegistry parse(File contentTypesFile, InputStream input) throws XMLParsingException {
+    Map<String, Entry> defaults = new LinkedHashMap<>();
+    Map<String, Entry> overrides = new LinkedHashMap<>();
+
+    try {
+      String content = new String(input.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(
+            content.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+
+      NodeList defaultElements = document.getElementsByTagNameNS(XMLConstants.CONTENT_TYPES_NS, "Default");
+      for (int i = 0; i < defaultElements.getLength(); i++) {
+        Element element = (Element) defaultElements.item(i);
+        String extension = element.getAttribute("Extension");
+        defaults.put(extension.toLowerCase(Locale.ROOT), new Entry(extension, element.getAttribute("ContentType")));
+      }
+
+      NodeList overrideElements = document.getElementsByTagNameNS(XMLConstants.CONTENT_TYPES_NS, "Override");
+      for (int i = 0; i < overrideElements.getLength(); i++) {
+        Element element = (Element) overrideElements.item(i);
+        String partName = element.getAttribute("PartName");
+        overrides.put(partName.toLowerCase(Locale.ROOT), new Entry(partName, element.getAttribute("ContentType")));
+      }
+
+      return new ContentTypesRegistry(contentTypesFile, content, defaults, overrides, false);
+
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to load [Content_Types].xml", e);
+    }
+  }
+
+  /**
+   * Registers an Override for a part, replacing any existing one.
+   *
+   * @param partName The absolute part name, e.g. "/ppt/slides/slide38.xml"
+   * @param contentType The content type of the part
+   * @return true if the registry changed
+   * @throws IllegalArgumentException If partName does not start with "/" or contentType is empty
+   */
+  public boolean addOverride(String partName, String contentType) {
+    if (partName == null || !partName.startsWith("/")) {
+      throw new IllegalArgumentException("partName must be an absolute part name");
+    }
+    if (contentType == null || contentType.isEmpty()) {
+      throw new IllegalArgumentException("contentType cannot be null or empty");
+    }
+
+    Entry previous = overrides.put(partName.toLowerCase(Locale.ROOT), new Entry(partName, contentType));
+    boolean changed = previous == null || !previous.getContentType().equals(contentType)
+      || !previous.getName().equals(partName);
+    dirty |= changed;
+    return changed;
+  }
+
+  /**
+   * Removes the Override for a part.
+   *
+   * @param partName The absolute part name
+   * @return true if an Override was removed
+   */
+  public boolean removeOverride(String partName) {
+    boolean removed = overrides.remove(partName.toLowerCase(Locale.ROOT)) != null;
+    dirty |= removed;
+    return removed;
+  }
+
+  /**
+   * Moves Overrides to new part names, keeping their content types.
+   *
+   * @param partRenames Old part name to new part name
+   */
+  public void renameParts(Map<String, String> partRenames) {
+    List<Entry> moved = new ArrayList<>();
+    for (Map.Entry<String, String> rename : partRenames.entrySet()) {
+      Entry entry = overrides.remove(rename.getKey().toLowerCase(Locale.ROOT));
+      if (entry != null) {
+        moved.add(new Entry(rename.getValue(), entry.getContentType()));
+      }
+    }
+
+    // Re-add after all removals so swapped names don't overwrite each other
+    for (Entry entry : moved) {
+      overrides.put(entry.getName().toLowerCase(Locale.ROOT), entry);
+      dirty = true;
+    }
+  }
+
+  /**
+   * Registers a Default for a file extension if none exists.
+   *
+   * @param extension The extension without a dot, e.g. "png"
+   * @param contentType The content type for the extension
+   * @return true if the Default was added
+   */
+  public boolean addDefault(String extension, String contentType) {
+    String key = extension.toLowerCase(Locale.ROOT);
+    if (defaults.containsKey(key)) {
+      return false;
+    }
+    defaults.put(key, new Entry(extension, contentType));
+    dirty = true;
+    return true;
+  }
+
+  /**
+   * Removes the Default for a file extension.
+   *
+   * @param extension The extension without a dot
+   * @return true if a Default was removed
+   */
+  public boolean removeDefault(String extension) {
+    boolean removed = defaults.remove(extension.toLowerCase(Locale.ROOT)) != null;
+    dirty |= removed;
+    return removed;
+  }
+
+  /**
+   * Checks whether a part has its own Override.
+   */
+  public boolean hasOverride(String partName) {
+    return overrides.containsKey(partName.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Checks whether an extension has a Default.
+   */
+  public boolean hasDefault(String extension) {
+    return defaults.containsKey(extension.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Resolves the content type of a part: its Override, else the Default for its extension.
+   *
+   * @param partName The absolute part name
+   * @return The content type, or null if the part has none
+   */
+  public String getContentType(String partName) {
+    Entry override = overrides.get(partName.toLowerCase(Locale.ROOT));
+    if (override != null) {
+      return override.getContentType();
+    }
+
+    int dot = partName.lastIndexOf('.');
+    Entry fallback = dot >= 0 ? defaults.get(partName.substring(dot + 1).toLowerCase(Locale.ROOT)) : null;
+    return fallback != null ? fallback.getContentType() : null;
+  }
+
+  /**
+   * Gets the part names of all Overrides, in registration order.
+   *
+   * @return An unmodifiable collection of part names
+   */
+  public Collection<String> getOverridePartNames() {
+    List<String> partNames = new ArrayList<>(overrides.size());
+    for (Entry entry : overrides.values()) {
+      partNames.add(entry.getName());
+    }
+    return Collections.unmodifiableList(partNames);
+  }
+
+  /**
+   * Checks whether the registry holds changes not yet written.
+   */
+  public boolean isDirty() {
+    return dirty;
+  }
+
+  /**
+   * Writes [Content_Types].xml if the registry changed since it was loaded or last flushed.
+   *
+   * @throws XMLParsingException If the file cannot be written
+   */
+  public void flush() throws XMLParsingException {
+    if (!dirty) {
+      return;
+    }
+    if (contentTypesFile == null) {
+      throw new XMLParsingException("Content types loaded from an archive are read-only");
+    }
+
+    String xml;
+    if (content != null) {
+      xml = replaceEntries(content);
+    } else {
+      xml = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+        "<Types xmlns=\"" + XMLConstants.CONTENT_TYPES_NS + "\">" + serializeEntries() + "</Types>";
+    }
+
+    try {
+      Files.writeString(contentTypesFile.toPath(), xml);
+      content = xml;
+      dirty = false;
+    } catch (IOException e) {
+      throw new XMLParsingException("Failed to write [Content_Types].xml", e);
+    }
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  /**
+   * Replaces the Default and Override elements of the raw file with the current entries,
+   * placed where the first entry was, or at the start of the Types element if it had none.
+   */
+  private String replaceEntries(String raw) throws XMLParsingException {
+    StringBuilder updated = new StringBuilder(raw.length());
+    Matcher entry = ENTRY_PATTERN.matcher(raw);
+    int insertAt = -1;
+    int copied = 0;
+    while (entry.find()) {
+      updated.append(raw, copied, entry.start());
+      if (insertAt < 0) {
+        insertAt = updated.length();
+      }
+      copied = entry.end();
+    }
+    updated.append(raw, copied, raw.length());
+
+    String entries = serializeEntries();
+    if (insertAt < 0) {
+      Matcher root = ROOT_ELEMENT_PATTERN.matcher(updated);
+      if (!root.find()) {
+        throw new XMLParsingException("Could not find Types element in [Content_Types].xml");
+      }
+      if (root.group().endsWith("/>")) {
+        String openTag = root.group().substring(0, root.group().length() - 2) + ">";
+        return updated.replace(root.start(), root.end(), openTag + entries + "</Types>").toString();
+      }
+      insertAt = root.end();
+    }
+    return updated.insert(insertAt, entries).toString();
+  }
+
+  /**
+   * Serializes the Default entries followed by the Override entries.
+   */
+  private String serializeEntries() {
+    StringBuilder xml = new StringBuilder();
+    for (Entry entry : defaults.values()) {
+      xml.append("<Default Extension=\"").append(escapeAttribute(entry.getName()))
+        .append("\" ContentType=\"").append(escapeAttribute(entry.getContentType())).append("\"/>");
+    }
+    for (Entry entry : overrides.values()) {
+      xml.append("<Override PartName=\"").append(escapeAttribute(entry.getName()))
+        .append("\" ContentType=\"").append(escapeAttribute(entry.getContentType())).append("\"/>");
+    }
+    return xml.toString();
+  }
+
+  private static String escapeAttribute(String value) {
+    return value.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;").replace(">", "&gt;");
+  }
+
+  // ========== INNER CLASSES ==========
+
+  /**
+   * A Default (name is the extension) or Override (name is the part name) entry.
+   */
+  private static class Entry {
+    private final String name;
+    private final String contentType;
+
+    Entry(String name, String contentType) {
+      this.name = name;
+      this.contentType = contentType;
+    }
+
+    String getName() { return name; }
+    String getContentType() { return contentType; }
+  }
+}
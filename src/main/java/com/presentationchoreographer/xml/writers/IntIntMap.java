@@ -0,0 +1,110 @@
+package com.presentationchoreographer.xml.writers;
+
+import java.util.*;
+
+/**
+ * Open-addressing hash map from int to int, used for SPID remapping without boxing.
+ *
+ * <p>Keys are stored in a power-of-two table with linear probing. {@link #EMPTY_KEY}
+ * marks free slots and cannot be used as a key; shape IDs are positive, so it never
+ * occurs in practice.</p>
+ *
+ * <p>Thread Safety: This class is not thread-safe.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+final class IntIntMap {
+
+  /**
+   * Marks an unused slot; not a valid key
+   */
+  static final int EMPTY_KEY = Integer.MIN_VALUE;
+
+  private int[] keys;
+  private int[] values;
+  private int size;
+
+  IntIntMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+    this.keys = new int[capacity];
+    this.values = new int[capacity];
+    Arrays.fill(keys, EMPTY_KEY);
+  }
+
+  /**
+   * Maps a key to a value, replacing any previous value.
+   *
+   * @throws IllegalArgumentException If key is {@link #EMPTY_KEY}
+   */
+  void put(int key, int value) {
+    if (key == EMPTY_KEY) {
+      throw new IllegalArgumentException("Key " + key + " is reserved");
+    }
+    int slot = slot(key);
+    if (keys[slot] == EMPTY_KEY) {
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+    if (size * 2 > keys.length) {
+      resize();
+    }
+  }
+
+  /**
+   * Gets the value of a key, or defaultValue if the key is absent.
+   */
+  int get(int key, int defaultValue) {
+    int slot = slot(key);
+    return keys[slot] == key && key != EMPTY_KEY ? values[slot] : defaultValue;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Copies the entries into a boxed map.
+   */
+  Map<Integer, Integer> toMap() {
+    Map<Integer, Integer> map = new HashMap<>(size * 2);
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != EMPTY_KEY) {
+        map.put(keys[i], values[i]);
+      }
+    }
+    return map;
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  /**
+   * Finds the slot holding key, or the empty slot where it would be inserted
+   */
+  private int slot(int key) {
+    int mask = keys.length - 1;
+    int hash = key * 0x9E3779B9;
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void resize() {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new int[oldKeys.length * 2];
+    values = new int[oldKeys.length * 2];
+    Arrays.fill(keys, EMPTY_KEY);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY_KEY) {
+        int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
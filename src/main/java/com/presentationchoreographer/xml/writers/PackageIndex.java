@@ -0,0 +1,400 @@
+package com.presentationchoreographer.xml.writers;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.presentationchoreographer.xml.parsers.SlideSpidScanner;
+
+/**
+ * Persistent index of the SPIDs and placeholders of each slide and the relationships of each .rels part
+ * of a package, so reopening an unchanged deck does not rescan it.
+ *
+ * <p>Every indexed part is stored with the CRC-32 of its content as recorded in the
+ * package's ZIP central directory. An index is opened against the CRCs of the package
+ * being opened: entries whose part is gone or whose CRC changed are dropped, and the
+ * managers rescan only those parts and record them again. The SPIDManager and
+ * RelationshipManager built for a freshly extracted package replay matching entries in
+ * place of parsing the part, so registry state, ID counters and validation baselines
+ * come out the same as from a scan.</p>
+ *
+ * <p>The file is a compact binary format: a string table (part names, shape names,
+ * placeholder types and idx values, relationship IDs, types and targets) followed by the slide and relationship entries,
+ * which refer to strings by position. Unreadable or outdated files are ignored.</p>
+ *
+ * <p>Only consult an index while the extracted parts are unchanged since extraction,
+ * i.e. while building the managers of a new session.</p>
+ *
+ * <p>Thread Safety: This class is thread-safe.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public final class PackageIndex {
+
+  private static final int MAGIC = 0x50434958; // "PCIX"
+  private static final int VERSION = 3;
+
+  /**
+   * Receives the relationships of an indexed .rels part.
+   */
+  @FunctionalInterface
+  public interface RelationshipVisitor {
+    void relationship(String id, String type, String target);
+  }
+
+  private final File indexFile;
+  private final Map<String, Long> partCrcs;
+  private final Map<String, SlideEntry> slides = new ConcurrentHashMap<>();
+  private final Map<String, RelationshipEntry> relationships = new ConcurrentHashMap<>();
+  private final AtomicInteger partsReused = new AtomicInteger();
+  private final AtomicInteger partsScanned = new AtomicInteger();
+  private volatile boolean dirty;
+  private volatile String readError;
+
+  private PackageIndex(File indexFile, Map<String, Long> partCrcs) {
+    this.indexFile = indexFile;
+    this.partCrcs = Collections.unmodifiableMap(new HashMap<>(partCrcs));
+  }
+
+  /**
+   * Opens the index stored in a file for a package with the given part CRCs.
+   * A missing, unreadable or outdated file gives an empty index; why a file could not
+   * be read is available from {@link #getReadError()}.
+   *
+   * @param indexFile The index file, which need not exist
+   * @param partCrcs CRC-32 of each part of the package, keyed by part name without a leading slash
+   * @return The index, holding only entries whose parts are unchanged
+   * @throws IllegalArgumentException If indexFile or partCrcs is null
+   */
+  public static PackageIndex open(File indexFile, Map<String, Long> partCrcs) {
+    if (indexFile == null || partCrcs == null) {
+      throw new IllegalArgumentException("indexFile and partCrcs cannot be null");
+    }
+
+    PackageIndex index = new PackageIndex(indexFile, partCrcs);
+    if (indexFile.isFile()) {
+      try {
+        index.read();
+      } catch (IOException e) {
+        index.readError = e.getMessage() != null ? e.getMessage() : e.toString();
+        index.slides.clear();
+        index.relationships.clear();
+        index.dirty = true;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Writes the index back to its file if anything was recorded or dropped since it was opened.
+   * The file is replaced atomically where the file system allows it.
+   *
+   * @return true if the file was written
+   * @throws IOException If the file cannot be written
+   */
+  public synchronized boolean save() throws IOException {
+    if (!dirty) {
+      return false;
+    }
+
+    File parent = indexFile.getAbsoluteFile().getParentFile();
+    Files.createDirectories(parent.toPath());
+    File tempFile = File.createTempFile(indexFile.getName(), ".tmp", parent);
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        write(out);
+      }
+      try {
+        Files.move(tempFile.toPath(), indexFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tempFile.toPath());
+    }
+    dirty = false;
+    return true;
+  }
+
+  /**
+   * Gets the part name of a file under an extracted package, e.g. "ppt/slides/slide1.xml".
+   */
+  public static String partName(File extractedDir, File part) {
+    return extractedDir.toPath().relativize(part.toPath()).toString().replace(File.separatorChar, '/');
+  }
+
+  /**
+   * Gets the number of parts served from the index since it was opened.
+   */
+  public int getPartsReused() {
+    return partsReused.get();
+  }
+
+  /**
+   * Gets the number of parts scanned and recorded since the index was opened.
+   */
+  public int getPartsScanned() {
+    return partsScanned.get();
+  }
+
+  /**
+   * Gets why the index file was ignored when opened, or null if it was read or did not exist.
+   */
+  public String getReadError() {
+    return readError;
+  }
+
+  public File getIndexFile() {
+    return indexFile;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("PackageIndex{slides=%d, rels=%d, reused=%d, scanned=%d}",
+        slides.size(), relationships.size(), partsReused.get(), partsScanned.get());
+  }
+
+  /**
+   * Replays the indexed shapes of a slide part to a handler.
+   *
+   * @return true if the part was indexed and replayed, false if it must be scanned
+   */
+  boolean replaySlide(String partName, SlideSpidScanner.Handler handler) {
+    SlideEntry entry = slides.get(partName);
+    if (entry == null) {
+      return false;
+    }
+    for (int i = 0; i < entry.spids.length; i++) {
+      handler.shape(entry.spids[i], entry.names[i]);
+    }
+    for (int i = 0; i < entry.placeholderSpids.length; i++) {
+      handler.placeholder(entry.placeholderSpids[i], entry.placeholderTypes[i], entry.placeholderIdx[i]);
+    }
+    partsReused.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Records the shapes and placeholders of a scanned slide part. Ignored for parts the
+   * package has no CRC for.
+   */
+  void recordSlide(String partName, int[] spids, String[] names,
+      int[] placeholderSpids, String[] placeholderTypes, String[] placeholderIdx) {
+    Long crc = partCrcs.get(partName);
+    if (crc == null) {
+      return;
+    }
+    slides.put(partName, new SlideEntry(crc, spids.clone(), names.clone(),
+          placeholderSpids.clone(), placeholderTypes.clone(), placeholderIdx.clone()));
+    partsScanned.incrementAndGet();
+    dirty = true;
+  }
+
+  /**
+   * Replays the indexed relationships of a .rels part to a visitor.
+   *
+   * @return true if the part was indexed and replayed, false if it must be scanned
+   */
+  boolean replayRelationships(String partName, RelationshipVisitor visitor) {
+    RelationshipEntry entry = relationships.get(partName);
+    if (entry == null) {
+      return false;
+    }
+    for (int i = 0; i < entry.ids.length; i++) {
+      visitor.relationship(entry.ids[i], entry.types[i], entry.targets[i]);
+    }
+    partsReused.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Records the relationships of a scanned .rels part. Ignored for parts the package has no CRC for.
+   */
+  void recordRelationships(String partName, String[] ids, String[] types, String[] targets) {
+    Long crc = partCrcs.get(partName);
+    if (crc == null) {
+      return;
+    }
+    relationships.put(partName, new RelationshipEntry(crc, ids.clone(), types.clone(), targets.clone()));
+    partsScanned.incrementAndGet();
+    dirty = true;
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  private void read() throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        dirty = true;
+        return;
+      }
+
+      String[] strings = new String[in.readInt()];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = in.readUTF();
+      }
+
+      int slideCount = in.readInt();
+      for (int s = 0; s < slideCount; s++) {
+        String partName = strings[in.readInt()];
+        long crc = in.readLong();
+        int[] spids = new int[in.readInt()];
+        String[] names = new String[spids.length];
+        for (int i = 0; i < spids.length; i++) {
+          spids[i] = in.readInt();
+          names[i] = strings[in.readInt()];
+        }
+        int[] placeholderSpids = new int[in.readInt()];
+        String[] placeholderTypes = new String[placeholderSpids.length];
+        String[] placeholderIdx = new String[placeholderSpids.length];
+        for (int i = 0; i < placeholderSpids.length; i++) {
+          placeholderSpids[i] = in.readInt();
+          placeholderTypes[i] = strings[in.readInt()];
+          placeholderIdx[i] = strings[in.readInt()];
+        }
+        keepIfCurrent(slides, partName, crc,
+            new SlideEntry(crc, spids, names, placeholderSpids, placeholderTypes, placeholderIdx));
+      }
+
+      int relsCount = in.readInt();
+      for (int r = 0; r < relsCount; r++) {
+        String partName = strings[in.readInt()];
+        long crc = in.readLong();
+        String[] ids = new String[in.readInt()];
+        String[] types = new String[ids.length];
+        String[] targets = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+          ids[i] = strings[in.readInt()];
+          types[i] = strings[in.readInt()];
+          targets[i] = strings[in.readInt()];
+        }
+        keepIfCurrent(relationships, partName, crc, new RelationshipEntry(crc, ids, types, targets));
+      }
+    } catch (ArrayIndexOutOfBoundsException | NegativeArraySizeException e) {
+      throw new IOException("Corrupt package index", e);
+    }
+  }
+
+  private <T> void keepIfCurrent(Map<String, T> entries, String partName, long crc, T entry) {
+    Long current = partCrcs.get(partName);
+    if (current != null && current == crc) {
+      entries.put(partName, entry);
+    } else {
+      dirty = true;
+    }
+  }
+
+  private void write(DataOutputStream out) throws IOException {
+    Map<String, SlideEntry> slideSnapshot = new TreeMap<>(slides);
+    Map<String, RelationshipEntry> relsSnapshot = new TreeMap<>(relationships);
+
+    Map<String, Integer> stringTable = new LinkedHashMap<>();
+    for (Map.Entry<String, SlideEntry> entry : slideSnapshot.entrySet()) {
+      intern(stringTable, entry.getKey());
+      SlideEntry slide = entry.getValue();
+      for (String name : slide.names) {
+        intern(stringTable, name);
+      }
+      for (int i = 0; i < slide.placeholderSpids.length; i++) {
+        intern(stringTable, slide.placeholderTypes[i]);
+        intern(stringTable, slide.placeholderIdx[i]);
+      }
+    }
+    for (Map.Entry<String, RelationshipEntry> entry : relsSnapshot.entrySet()) {
+      intern(stringTable, entry.getKey());
+      RelationshipEntry rels = entry.getValue();
+      for (int i = 0; i < rels.ids.length; i++) {
+        intern(stringTable, rels.ids[i]);
+        intern(stringTable, rels.types[i]);
+        intern(stringTable, rels.targets[i]);
+      }
+    }
+
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(stringTable.size());
+    for (String string : stringTable.keySet()) {
+      out.writeUTF(string);
+    }
+
+    out.writeInt(slideSnapshot.size());
+    for (Map.Entry<String, SlideEntry> entry : slideSnapshot.entrySet()) {
+      SlideEntry slide = entry.getValue();
+      out.writeInt(stringTable.get(entry.getKey()));
+      out.writeLong(slide.crc);
+      out.writeInt(slide.spids.length);
+      for (int i = 0; i < slide.spids.length; i++) {
+        out.writeInt(slide.spids[i]);
+        out.writeInt(stringTable.get(slide.names[i]));
+      }
+      out.writeInt(slide.placeholderSpids.length);
+      for (int i = 0; i < slide.placeholderSpids.length; i++) {
+        out.writeInt(slide.placeholderSpids[i]);
+        out.writeInt(stringTable.get(slide.placeholderTypes[i]));
+        out.writeInt(stringTable.get(slide.placeholderIdx[i]));
+      }
+    }
+
+    out.writeInt(relsSnapshot.size());
+    for (Map.Entry<String, RelationshipEntry> entry : relsSnapshot.entrySet()) {
+      RelationshipEntry rels = entry.getValue();
+      out.writeInt(stringTable.get(entry.getKey()));
+      out.writeLong(rels.crc);
+      out.writeInt(rels.ids.length);
+      for (int i = 0; i < rels.ids.length; i++) {
+        out.writeInt(stringTable.get(rels.ids[i]));
+        out.writeInt(stringTable.get(rels.types[i]));
+        out.writeInt(stringTable.get(rels.targets[i]));
+      }
+    }
+  }
+
+  private static void intern(Map<String, Integer> stringTable, String string) {
+    stringTable.putIfAbsent(string, stringTable.size());
+  }
+
+  // ========== INNER CLASSES ==========
+
+  /**
+   * Shapes and placeholders of one slide part, in document order.
+   */
+  private static class SlideEntry {
+    private final long crc;
+    private final int[] spids;
+    private final String[] names;
+    private final int[] placeholderSpids;
+    private final String[] placeholderTypes;
+    private final String[] placeholderIdx;
+
+    SlideEntry(long crc, int[] spids, String[] names,
+        int[] placeholderSpids, String[] placeholderTypes, String[] placeholderIdx) {
+      this.crc = crc;
+      this.spids = spids;
+      this.names = names;
+      this.placeholderSpids = placeholderSpids;
+      this.placeholderTypes = placeholderTypes;
+      this.placeholderIdx = placeholderIdx;
+    }
+  }
+
+  /**
+   * Relationships of one .rels part, in document order.
+   */
+  private static class RelationshipEntry {
+    private final long crc;
+    private final String[] ids;
+    private final String[] types;
+    private final String[] targets;
+
+    RelationshipEntry(long crc, String[] ids, String[] types, String[] targets) {
+      this.crc = crc;
+      this.ids = ids;
+      this.types = types;
+      this.targets = targets;
+    }
+  }
+}
@@ -0,0 +1,303 @@
+package com.presentationchoreographer.xml.writers;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+
+/**
+ * Size-bounded LRU cache of parsed package parts (slide and relationship documents),
+ * shared by the SPIDManager and RelationshipManager of every open session.
+ *
+ * <p>Entries are keyed by the part's absolute path and weighted by an estimate of their
+ * heap footprint: the part's size on disk times {@link #DOM_BYTES_PER_XML_BYTE}. When the
+ * total weight exceeds the budget, least recently used entries are evicted. Each entry
+ * remembers the size and modification time of the file it was parsed from, and a lookup
+ * whose file's size or modification time has changed since is treated as a miss.</p>
+ *
+ * <p>That check alone cannot see a rewrite that keeps the size within the file system's
+ * timestamp granularity, or a rename (which keeps the modification time). Every code path
+ * that writes, renames or deletes a cached part must therefore {@link #put(File, Object)}
+ * the new value or {@link #invalidate(File)} the part; the writers in this package do.
+ * Cached values are shared, not copied, so a caller that modifies a cached document must
+ * do the same after writing it back.</p>
+ *
+ * <p>Thread Safety: This class is thread-safe. Loads run outside the cache lock, so two
+ * threads missing on the same part may both parse it; the last one stored wins.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public final class PartCache {
+
+  /**
+   * Estimated heap bytes of a parsed DOM per byte of XML
+   */
+  public static final int DOM_BYTES_PER_XML_BYTE = 20;
+
+  /**
+   * Default budget of the shared cache: an eighth of the maximum heap, at least 16 MB
+   */
+  public static final long DEFAULT_MAX_BYTES = Math.max(16L << 20, Runtime.getRuntime().maxMemory() / 8);
+
+  private static final PartCache SHARED = new PartCache(DEFAULT_MAX_BYTES);
+
+  /**
+   * Loads a part on a cache miss.
+   *
+   * @param <T> The type of the loaded value
+   */
+  @FunctionalInterface
+  public interface PartLoader<T> {
+    T load(File part) throws Exception;
+  }
+
+  private final long maxBytes;
+
+  /**
+   * Entries in access order, eldest first. Guarded by this.
+   */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+  private long weightedSize;
+  private long hits;
+  private long misses;
+  private long staleMisses;
+  private long evictions;
+
+  /**
+   * Creates a cache with its own budget, e.g. for tests or isolated tools.
+   *
+   * @param maxBytes The maximum total estimated weight of cached entries
+   * @throws IllegalArgumentException If maxBytes is not positive
+   */
+  public PartCache(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be positive");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Gets the cache shared by all sessions in this JVM.
+   */
+  public static PartCache shared() {
+    return SHARED;
+  }
+
+  /**
+   * Gets a cached part, loading it if it is absent, of another type, or stale.
+   *
+   * @param part The part file
+   * @param type The expected value type
+   * @param loader Loads the part on a miss
+   * @return The cached or freshly loaded value
+   * @throws XMLParsingException If the part cannot be loaded
+   */
+  public <T> T get(File part, Class<T> type, PartLoader<T> loader) throws XMLParsingException {
+    String key = part.getAbsolutePath();
+    BasicFileAttributes attributes = readAttributes(part);
+
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null && type.isInstance(entry.value) && entry.matches(attributes)) {
+        hits++;
+        return type.cast(entry.value);
+      }
+      misses++;
+      if (entry != null) {
+        staleMisses++;
+        remove(key);
+      }
+    }
+
+    T value;
+    try {
+      value = loader.load(part);
+    } catch (XMLParsingException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to load part: " + part.getName(), e);
+    }
+    store(key, value, attributes);
+    return value;
+  }
+
+  /**
+   * Stores a value for a part as it is on disk now, typically right after writing it.
+   *
+   * @param part The part file, which must exist
+   * @param value The parsed value of the part's current content
+   * @throws XMLParsingException If the part's attributes cannot be read
+   */
+  public void put(File part, Object value) throws XMLParsingException {
+    BasicFileAttributes attributes = readAttributes(part);
+    if (attributes == null) {
+      throw new XMLParsingException("Cannot cache missing part: " + part.getName());
+    }
+    store(part.getAbsolutePath(), value, attributes);
+  }
+
+  /**
+   * Drops the cached value of a part.
+   */
+  public synchronized void invalidate(File part) {
+    remove(part.getAbsolutePath());
+  }
+
+  /**
+   * Drops every cached part under a directory, e.g. when a session is closed.
+   *
+   * @return The number of entries dropped
+   */
+  public synchronized int invalidateUnder(File directory) {
+    String prefix = directory.getAbsolutePath() + File.separator;
+    List<String> keys = new ArrayList<>();
+    for (String key : entries.keySet()) {
+      if (key.startsWith(prefix)) {
+        keys.add(key);
+      }
+    }
+    for (String key : keys) {
+      remove(key);
+    }
+    return keys.size();
+  }
+
+  /**
+   * Drops every cached part.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    weightedSize = 0;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Gets the total estimated weight of the cached entries.
+   */
+  public synchronized long getWeightedSize() {
+    return weightedSize;
+  }
+
+  /**
+   * Gets a snapshot of the hit, miss and eviction counters.
+   */
+  public synchronized CacheStats getStats() {
+    return new CacheStats(hits, misses, staleMisses, evictions, entries.size(), weightedSize, maxBytes);
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  private static BasicFileAttributes readAttributes(File part) throws XMLParsingException {
+    try {
+      return Files.readAttributes(part.toPath(), BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      throw new XMLParsingException("Failed to read attributes of part: " + part.getName(), e);
+    }
+  }
+
+  private synchronized void store(String key, Object value, BasicFileAttributes attributes) {
+    remove(key);
+    if (attributes == null) {
+      return;
+    }
+
+    long weight = Math.max(1, attributes.size()) * DOM_BYTES_PER_XML_BYTE;
+    if (weight > maxBytes) {
+      return;
+    }
+
+    entries.put(key, new Entry(value, attributes, weight));
+    weightedSize += weight;
+
+    Iterator<Entry> eldest = entries.values().iterator();
+    while (weightedSize > maxBytes && eldest.hasNext()) {
+      weightedSize -= eldest.next().weight;
+      eldest.remove();
+      evictions++;
+    }
+  }
+
+  private void remove(String key) {
+    Entry removed = entries.remove(key);
+    if (removed != null) {
+      weightedSize -= removed.weight;
+    }
+  }
+
+  // ========== INNER CLASSES ==========
+
+  /**
+   * A cached value with the attributes of the file it was parsed from.
+   */
+  private static class Entry {
+    private final Object value;
+    private final long size;
+    private final FileTime lastModified;
+    private final long weight;
+
+    Entry(Object value, BasicFileAttributes attributes, long weight) {
+      this.value = value;
+      this.size = attributes.size();
+      this.lastModified = attributes.lastModifiedTime();
+      this.weight = weight;
+    }
+
+    boolean matches(BasicFileAttributes attributes) {
+      return attributes != null && size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+    }
+  }
+
+  /**
+   * Snapshot of cache counters.
+   */
+  public static class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long staleMisses;
+    private final long evictions;
+    private final int entryCount;
+    private final long weightedSize;
+    private final long maxBytes;
+
+    public CacheStats(long hits, long misses, long staleMisses, long evictions,
+        int entryCount, long weightedSize, long maxBytes) {
+      this.hits = hits;
+      this.misses = misses;
+      this.staleMisses = staleMisses;
+      this.evictions = evictions;
+      this.entryCount = entryCount;
+      this.weightedSize = weightedSize;
+      this.maxBytes = maxBytes;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getStaleMisses() { return staleMisses; }
+    public long getEvictions() { return evictions; }
+    public int getEntryCount() { return entryCount; }
+    public long getWeightedSize() { return weightedSize; }
+    public long getMaxBytes() { return maxBytes; }
+
+    public double getHitRate() {
+      long lookups = hits + misses;
+      return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("CacheStats{hits=%d, misses=%d (stale=%d), evictions=%d, entries=%d, weight=%d/%d}",
+          hits, misses, staleMisses, evictions, entryCount, weightedSize, maxBytes);
+    }
+  }
+}
@@ -0,0 +1,251 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.w3c.dom.*;
+import java.util.*;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * Index of the placeholder shapes of one slide document, keyed by their p:ph type and idx.
+ *
+ * <p>The index is filled while the slide's shapes are walked for SPIDs (see
+ * {@link SPIDManager#regenerateSpids(Document, int)}), so finding the title or body of a
+ * slide afterwards is a map lookup rather than an XPath scan over every shape. A p:ph
+ * without a type attribute is indexed as "obj" and one without an idx as 0, the defaults
+ * given by the schema. When several shapes share a type, the first one in document order
+ * is kept.</p>
+ *
+ * <p>The index holds live elements of the slide document, so it is only valid while that
+ * document is the one being edited.</p>
+ *
+ * <p>Thread Safety: This class is not thread-safe. Each index belongs to a single slide
+ * document and should be used by the thread editing it.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public class PlaceholderIndex {
+
+  /**
+   * Placeholder type assumed when p:ph has no type attribute
+   */
+  public static final String DEFAULT_TYPE = "obj";
+
+  /**
+   * Shapes keyed by placeholder type (title, ctrTitle, body, subTitle, obj, ...)
+   */
+  private final Map<String, Element> shapesByType = new HashMap<>();
+
+  /**
+   * Shapes keyed by placeholder idx
+   */
+  private final Map<Integer, Element> shapesByIndex = new HashMap<>();
+
+  /**
+   * Adds a shape to the index if it is a placeholder.
+   *
+   * @param shape A p:sp or p:pic element
+   * @return true if the shape has a p:ph and was indexed, false otherwise
+   */
+  public boolean add(Element shape) {
+    Element placeholder = findPlaceholder(shape);
+    if (placeholder == null) {
+      return false;
+    }
+
+    String type = placeholder.getAttribute("type");
+    shapesByType.putIfAbsent(type.isEmpty() ? DEFAULT_TYPE : type, shape);
+
+    String idx = placeholder.getAttribute("idx");
+    try {
+      shapesByIndex.putIfAbsent(idx.isEmpty() ? 0 : Integer.parseInt(idx), shape);
+    } catch (NumberFormatException e) {
+      // Malformed idx - the shape stays reachable by type
+    }
+    return true;
+  }
+
+  /**
+   * Gets the placeholder shape of a type.
+   *
+   * @param type The p:ph type, e.g. "title" or "body"
+   * @return The first shape with that type, or null if the slide has none
+   */
+  public Element getByType(String type) {
+    return shapesByType.get(type);
+  }
+
+  /**
+   * Gets the placeholder shape with an idx.
+   *
+   * @param idx The p:ph idx
+   * @return The first shape with that idx, or null if the slide has none
+   */
+  public Element getByIndex(int idx) {
+    return shapesByIndex.get(idx);
+  }
+
+  /**
+   * Gets the title shape: the "title" placeholder, or the "ctrTitle" of a title slide.
+   *
+   * @return The title shape, or null if the slide has no title placeholder
+   */
+  public Element getTitleShape() {
+    Element title = shapesByType.get("title");
+    return title != null ? title : shapesByType.get("ctrTitle");
+  }
+
+  /**
+   * Gets the body shape: the "body" placeholder, then "subTitle", then the content
+   * placeholder at idx 1 used by the standard "Title and Content" layout.
+   *
+   * @return The body shape, or null if the slide has no body placeholder
+   */
+  public Element getBodyShape() {
+    Element body = shapesByType.get("body");
+    if (body == null) {
+      body = shapesByType.get("subTitle");
+    }
+    if (body == null) {
+      Element content = shapesByIndex.get(1);
+      body = content != null && content == shapesByType.get(DEFAULT_TYPE) ? content : null;
+    }
+    return body;
+  }
+
+  /**
+   * Replaces the text of the title shape.
+   *
+   * @param text The new title; line breaks start new paragraphs
+   * @return true if the slide has a title shape, false otherwise
+   */
+  public boolean setTitle(String text) {
+    return setText(getTitleShape(), text);
+  }
+
+  /**
+   * Replaces the text of the body shape.
+   *
+   * @param text The new body text; line breaks start new paragraphs
+   * @return true if the slide has a body shape, false otherwise
+   */
+  public boolean setBody(String text) {
+    return setText(getBodyShape(), text);
+  }
+
+  /**
+   * Gets the number of distinct placeholder types indexed.
+   */
+  public int size() {
+    return shapesByType.size();
+  }
+
+  /**
+   * Checks whether the slide has no placeholders.
+   */
+  public boolean isEmpty() {
+    return shapesByType.isEmpty();
+  }
+
+  /**
+   * Replaces the text of a shape, keeping the paragraph and run properties of its
+   * first paragraph. A p:txBody is added if the shape has none.
+   *
+   * @param shape The shape to update, may be null
+   * @param text The new text; null clears the shape, line breaks start new paragraphs
+   * @return true if the shape was updated, false if shape was null
+   */
+  public static boolean setText(Element shape, String text) {
+    if (shape == null) {
+      return false;
+    }
+
+    Document document = shape.getOwnerDocument();
+    Element txBody = firstChild(shape, XMLConstants.PRESENTATION_NS, "txBody");
+    if (txBody == null) {
+      txBody = document.createElementNS(XMLConstants.PRESENTATION_NS, "p:txBody");
+      txBody.appendChild(document.createElementNS(XMLConstants.DRAWING_NS, "a:bodyPr"));
+      txBody.appendChild(document.createElementNS(XMLConstants.DRAWING_NS, "a:lstStyle"));
+      shape.appendChild(txBody);
+    }
+
+    // Keep the formatting of the first paragraph and run for every new paragraph
+    Element firstParagraph = firstChild(txBody, XMLConstants.DRAWING_NS, "p");
+    Element paragraphProperties = null;
+    Element runProperties = null;
+    if (firstParagraph != null) {
+      paragraphProperties = firstChild(firstParagraph, XMLConstants.DRAWING_NS, "pPr");
+      Element firstRun = firstChild(firstParagraph, XMLConstants.DRAWING_NS, "r");
+      runProperties = firstRun != null ? firstChild(firstRun, XMLConstants.DRAWING_NS, "rPr") : null;
+    }
+
+    for (Element paragraph = firstParagraph; paragraph != null; ) {
+      Element next = nextSibling(paragraph, XMLConstants.DRAWING_NS, "p");
+      txBody.removeChild(paragraph);
+      paragraph = next;
+    }
+
+    for (String line : (text != null ? text : "").split("\n", -1)) {
+      Element paragraph = document.createElementNS(XMLConstants.DRAWING_NS, "a:p");
+      if (paragraphProperties != null) {
+        paragraph.appendChild(paragraphProperties.cloneNode(true));
+      }
+      if (!line.isEmpty()) {
+        Element run = document.createElementNS(XMLConstants.DRAWING_NS, "a:r");
+        if (runProperties != null) {
+          run.appendChild(runProperties.cloneNode(true));
+        }
+        Element t = document.createElementNS(XMLConstants.DRAWING_NS, "a:t");
+        t.setTextContent(line);
+        run.appendChild(t);
+        paragraph.appendChild(run);
+      }
+      txBody.appendChild(paragraph);
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "PlaceholderIndex{types=" + shapesByType.keySet() + ", idx=" + shapesByIndex.keySet() + "}";
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  /**
+   * Finds the p:ph of a shape through its non-visual properties (p:nvSpPr, p:nvPicPr, ...)
+   */
+  private static Element findPlaceholder(Element shape) {
+    for (Node child = shape.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof Element && XMLConstants.PRESENTATION_NS.equals(child.getNamespaceURI())
+          && child.getLocalName().startsWith("nv")) {
+        Element nvPr = firstChild((Element) child, XMLConstants.PRESENTATION_NS, "nvPr");
+        return nvPr != null ? firstChild(nvPr, XMLConstants.PRESENTATION_NS, "ph") : null;
+      }
+    }
+    return null;
+  }
+
+  private static Element firstChild(Element parent, String namespace, String localName) {
+    for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (isElement(child, namespace, localName)) {
+        return (Element) child;
+      }
+    }
+    return null;
+  }
+
+  private static Element nextSibling(Element element, String namespace, String localName) {
+    for (Node sibling = element.getNextSibling(); sibling != null; sibling = sibling.getNextSibling()) {
+      if (isElement(sibling, namespace, localName)) {
+        return (Element) sibling;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isElement(Node node, String namespace, String localName) {
+    return node instanceof Element && namespace.equals(node.getNamespaceURI())
+        && localName.equals(node.getLocalName());
+  }
+}
@@ -0,0 +1,718 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.w3c.dom.*;
+import javax.xml.parsers.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+import com.presentationchoreographer.utils.PackageArchive;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * Parsed model of presentation.xml and presentation.xml.rels.
+ *
+ * <p>Holds the ordered slide list (sldId, relationship ID and part name of each slide),
+ * the notes and handout master references, and every relationship of the presentation
+ * part. Structural edits change only the model; {@link #flush()} serializes each file at
+ * most once. Slide relationships are resolved through their actual targets, so nothing
+ * assumes that rIdN belongs to slide N-1.</p>
+ *
+ * <p>Only the sldIdLst region of presentation.xml is regenerated on flush, and added slide
+ * masters are appended to sldMasterIdLst; the rest of the file is written back exactly as
+ * it was read, which avoids the namespace serialization issues of Java's built-in
+ * transformer.</p>
+ *
+ * <p>A part loaded from a PPTX archive with {@link #load(ZipFile)} is read-only.</p>
+ *
+ * <p>Thread Safety: This class is not thread-safe.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public class PresentationPart {
+
+  private static final Pattern SLIDE_ID_LIST_PATTERN =
+    Pattern.compile("<p:sldIdLst\\s*/>|<p:sldIdLst>.*?</p:sldIdLst>", Pattern.DOTALL);
+  private static final Pattern SLIDE_ID_LIST_PREDECESSOR_PATTERN =
+    Pattern.compile("</p:(?:sldMasterIdLst|notesMasterIdLst|handoutMasterIdLst)>|<p:(?:sldMasterIdLst|notesMasterIdLst|handoutMasterIdLst)\\s*/>");
+  private static final Pattern SLIDE_MASTER_ID_LIST_END_PATTERN =
+    Pattern.compile("</p:sldMasterIdLst>|<p:sldMasterIdLst\\s*/>");
+  private static final Pattern ROOT_ELEMENT_PATTERN = Pattern.compile("<p:presentation\\b[^>]*>");
+  private static final Pattern SLIDE_PART_PATTERN = Pattern.compile("slide(\\d+)\\.xml$");
+
+  private final File presentationFile;
+  private final File relationshipsFile;
+
+  /**
+   * Raw presentation.xml text; only its sldIdLst is regenerated on flush
+   */
+  private String presentationContent;
+
+  /**
+   * Slides in presentation order
+   */
+  private final List<SlideEntry> slides;
+
+  /**
+   * Relationships of the presentation part in document order, indexed by ID
+   */
+  private final Map<String, Relationship> relationships;
+
+  /**
+   * Relationship IDs of the slide masters in sldMasterIdLst order
+   */
+  private final List<String> slideMasterRelationshipIds;
+
+  /**
+   * sldMasterId entries added since the last flush, serialized
+   */
+  private final StringBuilder pendingSlideMasterEntries = new StringBuilder();
+
+  private final String notesMasterRelationshipId;
+  private final String handoutMasterRelationshipId;
+
+  private long maxSlideMasterId;
+  private int nextSlideId;
+  private int nextRelationshipId;
+  private boolean slidesDirty;
+  private boolean relationshipsDirty;
+
+  private PresentationPart(File presentationFile, File relationshipsFile, String presentationContent,
+      List<SlideEntry> slides, Map<String, Relationship> relationships, List<String> slideMasterRelationshipIds,
+      long maxSlideMasterId, String notesMasterRelationshipId, String handoutMasterRelationshipId) {
+    this.presentationFile = presentationFile;
+    this.relationshipsFile = relationshipsFile;
+    this.presentationContent = presentationContent;
+    this.slides = slides;
+    this.relationships = relationships;
+    this.slideMasterRelationshipIds = slideMasterRelationshipIds;
+    this.maxSlideMasterId = maxSlideMasterId;
+    this.notesMasterRelationshipId = notesMasterRelationshipId;
+    this.handoutMasterRelationshipId = handoutMasterRelationshipId;
+
+    int maxSlideId = XMLConstants.DEFAULT_SLIDE_ID_START - 1;
+    for (SlideEntry slide : slides) {
+      maxSlideId = Math.max(maxSlideId, slide.getSlideId());
+    }
+    this.nextSlideId = maxSlideId + 1;
+
+    int maxRelationshipId = 0;
+    for (String id : relationships.keySet()) {
+      maxRelationshipId = Math.max(maxRelationshipId, parseRelationshipNumber(id));
+    }
+    this.nextRelationshipId = maxRelationshipId + 1;
+  }
+
+  /**
+   * Loads the presentation part of an extracted PPTX.
+   *
+   * @param extractedPptxDir The directory containing the extracted PPTX contents
+   * @return The parsed PresentationPart
+   * @throws XMLParsingException If presentation.xml is missing or cannot be parsed, or a slide
+   *     in sldIdLst has no matching relationship
+   */
+  public static PresentationPart load(File extractedPptxDir) throws XMLParsingException {
+    File presentationFile = new File(extractedPptxDir, "ppt/presentation.xml");
+    File relationshipsFile = new File(extractedPptxDir, "ppt/_rels/presentation.xml.rels");
+    if (!presentationFile.exists()) {
+      throw new XMLParsingException("presentation.xml not found");
+    }
+
+    try {
+      return parse(presentationFile, relationshipsFile, Files.readAllBytes(presentationFile.toPath()),
+          relationshipsFile.exists() ? Files.readAllBytes(relationshipsFile.toPath()) : null);
+    } catch (IOException e) {
+      throw new XMLParsingException("Failed to load presentation part", e);
+    }
+  }
+
+  /**
+   * Loads the presentation part directly from a PPTX archive, without extracting it.
+   * The returned part is read-only; {@link #flush()} fails if it was modified.
+   *
+   * @param pptxArchive The open PPTX archive
+   * @return The parsed PresentationPart
+   * @throws XMLParsingException If presentation.xml is missing or cannot be parsed, or a slide
+   *     in sldIdLst has no matching relationship
+   */
+  public static PresentationPart load(ZipFile pptxArchive) throws XMLParsingException {
+    try {
+      byte[] presentation = PackageArchive.readEntry(pptxArchive, "ppt/presentation.xml");
+      if (presentation == null) {
+        throw new XMLParsingException("presentation.xml not found");
+      }
+      return parse(null, null, presentation, PackageArchive.readEntry(pptxArchive, "ppt/_rels/presentation.xml.rels"));
+    } catch (IOException e) {
+      throw new XMLParsingException("Failed to load presentation part", e);
+    }
+  }
+
+  private static PresentationPart parse(File presentationFile, File relationshipsFile, byte[] presentationBytes,
+      byte[] relationshipsBytes) throws XMLParsingException {
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      DocumentBuilder documentBuilder = factory.newDocumentBuilder();
+
+      // Relationships of the presentation part (absent in minimal packages)
+      Map<String, Relationship> relationships = new LinkedHashMap<>();
+      if (relationshipsBytes != null) {
+        NodeList elements = documentBuilder.parse(new ByteArrayInputStream(relationshipsBytes))
+          .getElementsByTagNameNS(XMLConstants.PACKAGE_RELATIONSHIPS_NS, "Relationship");
+        for (int i = 0; i < elements.getLength(); i++) {
+          Element element = (Element) elements.item(i);
+          String targetMode = element.getAttribute("TargetMode");
+          relationships.put(element.getAttribute("Id"), new Relationship(element.getAttribute("Id"),
+                element.getAttribute("Type"), element.getAttribute("Target"),
+                targetMode.isEmpty() ? null : targetMode));
+        }
+      }
+
+      String presentationContent = new String(presentationBytes, java.nio.charset.StandardCharsets.UTF_8);
+      Document presentation = documentBuilder.parse(new ByteArrayInputStream(
+            presentationContent.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+
+      // Slide list in presentation order, resolved through the relationship targets
+      List<SlideEntry> slides = new ArrayList<>();
+      NodeList slideIds = presentation.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "sldId");
+      for (int i = 0; i < slideIds.getLength(); i++) {
+        Element slideId = (Element) slideIds.item(i);
+        String rId = slideId.getAttributeNS(XMLConstants.RELATIONSHIPS_NS, "id");
+        Relationship relationship = relationships.get(rId);
+        if (relationship == null) {
+          throw new XMLParsingException("Slide " + slideId.getAttribute("id") +
+              " references missing relationship " + rId);
+        }
+        slides.add(new SlideEntry(Integer.parseInt(slideId.getAttribute("id")), rId, relationship.getTarget()));
+      }
+
+      // Slide masters in sldMasterIdLst order
+      List<String> slideMasterRelationshipIds = new ArrayList<>();
+      long maxSlideMasterId = 0;
+      NodeList masterIds = presentation.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "sldMasterId");
+      for (int i = 0; i < masterIds.getLength(); i++) {
+        Element masterId = (Element) masterIds.item(i);
+        slideMasterRelationshipIds.add(masterId.getAttributeNS(XMLConstants.RELATIONSHIPS_NS, "id"));
+        if (!masterId.getAttribute("id").isEmpty()) {
+          maxSlideMasterId = Math.max(maxSlideMasterId, Long.parseLong(masterId.getAttribute("id")));
+        }
+      }
+
+      return new PresentationPart(presentationFile, relationshipsFile, presentationContent, slides, relationships,
+          slideMasterRelationshipIds, maxSlideMasterId,
+          findMasterRelationshipId(presentation, "notesMasterId"),
+          findMasterRelationshipId(presentation, "handoutMasterId"));
+
+    } catch (XMLParsingException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to load presentation part", e);
+    }
+  }
+
+  /**
+   * Gets the slides in presentation order.
+   *
+   * @return An unmodifiable list of slide entries
+   */
+  public List<SlideEntry> getSlides() {
+    return Collections.unmodifiableList(slides);
+  }
+
+  /**
+   * Gets the number of slides in sldIdLst.
+   *
+   * @return The slide count
+   */
+  public int getSlideCount() {
+    return slides.size();
+  }
+
+  /**
+   * Gets the slide at a presentation position.
+   *
+   * @param position The 1-based position in presentation order
+   * @return The SlideEntry at that position
+   * @throws IllegalArgumentException If position is out of range
+   */
+  public SlideEntry getSlideAt(int position) {
+    if (position < 1 || position > slides.size()) {
+      throw new IllegalArgumentException("position must be between 1 and " + slides.size());
+    }
+    return slides.get(position - 1);
+  }
+
+  /**
+   * Gets the slide part numbers (N of slideN.xml) in presentation order.
+   *
+   * @return A list of part numbers
+   */
+  public List<Integer> getSlidePartNumbers() {
+    List<Integer> partNumbers = new ArrayList<>(slides.size());
+    for (SlideEntry slide : slides) {
+      partNumbers.add(slide.getPartNumber());
+    }
+    return partNumbers;
+  }
+
+  /**
+   * Finds the presentation position of a slide part.
+   *
+   * @param partNumber The slide part number (N of slideN.xml)
+   * @return The 1-based position, or -1 if the part is not in sldIdLst
+   */
+  public int getPositionOfPart(int partNumber) {
+    for (int i = 0; i < slides.size(); i++) {
+      if (slides.get(i).getPartNumber() == partNumber) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Adds a slide part at a presentation position, allocating a new sldId and relationship ID.
+   *
+   * @param position The 1-based position; positions past the end append
+   * @param partNumber The slide part number (N of slideN.xml)
+   * @return The new SlideEntry
+   * @throws IllegalArgumentException If position is less than 1
+   */
+  public SlideEntry addSlide(int position, int partNumber) {
+    if (position < 1) {
+      throw new IllegalArgumentException("position must be 1 or greater");
+    }
+
+    String rId = allocateRelationshipId();
+    String target = String.format("slides/slide%d.xml", partNumber);
+    relationships.put(rId, new Relationship(rId, XMLConstants.RELATIONSHIP_TYPE_SLIDE, target, null));
+
+    SlideEntry entry = new SlideEntry(nextSlideId++, rId, target);
+    slides.add(Math.min(position, slides.size() + 1) - 1, entry);
+
+    slidesDirty = true;
+    relationshipsDirty = true;
+    return entry;
+  }
+
+  /**
+   * Removes the slide at a presentation position together with its relationship.
+   *
+   * @param position The 1-based position of the slide to remove
+   * @return The removed SlideEntry
+   * @throws IllegalArgumentException If position is out of range
+   */
+  public SlideEntry removeSlide(int position) {
+    SlideEntry removed = getSlideAt(position);
+    slides.remove(position - 1);
+    relationships.remove(removed.getRelationshipId());
+
+    slidesDirty = true;
+    relationshipsDirty = true;
+    return removed;
+  }
+
+  /**
+   * Moves a slide to a new presentation position. Only sldIdLst changes; the slide keeps
+   * its sldId, relationship ID and part.
+   *
+   * @param fromPosition The current 1-based position of the slide
+   * @param toPosition The 1-based position the slide should end up at
+   * @throws IllegalArgumentException If either position is out of range
+   */
+  public void moveSlide(int fromPosition, int toPosition) {
+    SlideEntry slide = getSlideAt(fromPosition);
+    getSlideAt(toPosition);
+    if (fromPosition == toPosition) {
+      return;
+    }
+
+    slides.remove(fromPosition - 1);
+    slides.add(toPosition - 1, slide);
+    slidesDirty = true;
+  }
+
+  /**
+   * Reorders all slides at once. Only sldIdLst changes.
+   *
+   * @param permutation For each new position i (0-based index), the current 1-based position of
+   *                    the slide to place there
+   * @throws IllegalArgumentException If permutation is not a permutation of 1..slideCount
+   */
+  public void reorderSlides(int[] permutation) {
+    if (permutation == null || permutation.length != slides.size()) {
+      throw new IllegalArgumentException("permutation must have one entry per slide (" + slides.size() + ")");
+    }
+
+    boolean[] seen = new boolean[slides.size()];
+    List<SlideEntry> reordered = new ArrayList<>(slides.size());
+    for (int position : permutation) {
+      if (position < 1 || position > slides.size() || seen[position - 1]) {
+        throw new IllegalArgumentException("permutation must contain each position from 1 to " +
+            slides.size() + " exactly once");
+      }
+      seen[position - 1] = true;
+      reordered.add(slides.get(position - 1));
+    }
+
+    if (!reordered.equals(slides)) {
+      slides.clear();
+      slides.addAll(reordered);
+      slidesDirty = true;
+    }
+  }
+
+  /**
+   * Points slides at renamed parts, keeping their sldId, relationship ID and position.
+   *
+   * @param renames Old part number to new part number
+   */
+  public void renameSlideParts(Map<Integer, Integer> renames) {
+    for (int i = 0; i < slides.size(); i++) {
+      SlideEntry slide = slides.get(i);
+      Integer newNumber = renames.get(slide.getPartNumber());
+      if (newNumber == null) {
+        continue;
+      }
+
+      String target = slide.getTarget().replaceFirst("slide\\d+\\.xml$", "slide" + newNumber + ".xml");
+      slides.set(i, new SlideEntry(slide.getSlideId(), slide.getRelationshipId(), target));
+      Relationship relationship = relationships.get(slide.getRelationshipId());
+      relationships.put(relationship.getId(), new Relationship(relationship.getId(),
+            relationship.getType(), target, relationship.getTargetMode()));
+      relationshipsDirty = true;
+    }
+  }
+
+  /**
+   * Gets a relationship of the presentation part.
+   *
+   * @param relationshipId The relationship ID
+   * @return The Relationship, or null if not found
+   */
+  public Relationship getRelationship(String relationshipId) {
+    return relationships.get(relationshipId);
+  }
+
+  /**
+   * Gets the targets of the slide master relationships in sldMasterIdLst order,
+   * relative to the ppt directory (e.g. "slideMasters/slideMaster1.xml").
+   *
+   * @return The slide master targets
+   */
+  public List<String> getSlideMasterTargets() {
+    List<String> targets = new ArrayList<>();
+    for (String rId : slideMasterRelationshipIds) {
+      Relationship relationship = relationships.get(rId);
+      if (relationship != null) {
+        targets.add(relationship.getTarget());
+      }
+    }
+    return targets;
+  }
+
+  /**
+   * Gets the largest sldMasterId in sldMasterIdLst, or 0 if the presentation has none.
+   * Master and layout IDs share one ID space, so callers adding masters must also keep
+   * clear of the sldLayoutId values in the existing masters.
+   */
+  public long getMaxSlideMasterId() {
+    return maxSlideMasterId;
+  }
+
+  /**
+   * Appends a slide master to sldMasterIdLst, allocating its relationship ID.
+   *
+   * @param target The master part relative to the ppt directory, e.g. "slideMasters/slideMaster2.xml"
+   * @param masterId The sldMasterId; must be unique among master and layout IDs
+   * @return The relationship ID linking the master
+   * @throws IllegalArgumentException If masterId is below 2147483648, the schema minimum
+   */
+  public String addSlideMaster(String target, long masterId) {
+    if (masterId < 2147483648L) {
+      throw new IllegalArgumentException("masterId must be 2147483648 or greater");
+    }
+
+    String rId = allocateRelationshipId();
+    relationships.put(rId, new Relationship(rId, XMLConstants.RELATIONSHIP_TYPE_SLIDE_MASTER, target, null));
+    slideMasterRelationshipIds.add(rId);
+    pendingSlideMasterEntries.append(String.format("<p:sldMasterId id=\"%d\" r:id=\"%s\"/>", masterId, rId));
+    maxSlideMasterId = Math.max(maxSlideMasterId, masterId);
+
+    relationshipsDirty = true;
+    return rId;
+  }
+
+  /**
+   * Gets the relationship ID of the notes master, or null if the presentation has none.
+   */
+  public String getNotesMasterRelationshipId() {
+    return notesMasterRelationshipId;
+  }
+
+  /**
+   * Gets the target of the notes master relationship, or null if the presentation has none.
+   */
+  public String getNotesMasterTarget() {
+    Relationship relationship = notesMasterRelationshipId != null ? relationships.get(notesMasterRelationshipId) : null;
+    return relationship != null ? relationship.getTarget() : null;
+  }
+
+  /**
+   * Gets the relationship ID of the handout master, or null if the presentation has none.
+   */
+  public String getHandoutMasterRelationshipId() {
+    return handoutMasterRelationshipId;
+  }
+
+  /**
+   * Gets the target of the handout master relationship, or null if the presentation has none.
+   */
+  public String getHandoutMasterTarget() {
+    Relationship relationship = handoutMasterRelationshipId != null ? relationships.get(handoutMasterRelationshipId) : null;
+    return relationship != null ? relationship.getTarget() : null;
+  }
+
+  /**
+   * Checks whether the model holds changes not yet written by {@link #flush()}.
+   *
+   * @return true if presentation.xml or presentation.xml.rels needs writing
+   */
+  public boolean isDirty() {
+    return slidesDirty || relationshipsDirty || pendingSlideMasterEntries.length() > 0;
+  }
+
+  /**
+   * Writes presentation.xml and presentation.xml.rels if they changed since the last flush.
+   *
+   * @throws XMLParsingException If either file cannot be written
+   */
+  public void flush() throws XMLParsingException {
+    if (presentationFile == null) {
+      if (isDirty()) {
+        throw new XMLParsingException("Presentation part loaded from an archive is read-only");
+      }
+      return;
+    }
+
+    try {
+      if (relationshipsDirty) {
+        relationshipsFile.getParentFile().mkdirs();
+        Files.writeString(relationshipsFile.toPath(), serializeRelationships());
+        relationshipsDirty = false;
+      }
+
+      if (slidesDirty || pendingSlideMasterEntries.length() > 0) {
+        if (pendingSlideMasterEntries.length() > 0) {
+          presentationContent = appendSlideMasterEntries(presentationContent);
+          pendingSlideMasterEntries.setLength(0);
+        }
+        presentationContent = replaceSlideIdList(presentationContent);
+        Files.writeString(presentationFile.toPath(), presentationContent);
+        slidesDirty = false;
+      }
+
+    } catch (XMLParsingException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new XMLParsingException("Failed to write presentation part", e);
+    }
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  /**
+   * Allocates the next unused rIdN for the presentation part.
+   */
+  private String allocateRelationshipId() {
+    String rId;
+    do {
+      rId = XMLConstants.RID_PREFIX + nextRelationshipId++;
+    } while (relationships.containsKey(rId));
+    return rId;
+  }
+
+  /**
+   * Regenerates the sldIdLst of presentation.xml, inserting it in schema order if absent.
+   */
+  private String replaceSlideIdList(String content) throws XMLParsingException {
+    StringBuilder list = new StringBuilder("<p:sldIdLst>");
+    for (SlideEntry slide : slides) {
+      list.append(String.format("<p:sldId id=\"%d\" r:id=\"%s\"/>", slide.getSlideId(), slide.getRelationshipId()));
+    }
+    list.append("</p:sldIdLst>");
+
+    Matcher existing = SLIDE_ID_LIST_PATTERN.matcher(content);
+    String updated;
+    if (existing.find()) {
+      updated = content.substring(0, existing.start()) + list + content.substring(existing.end());
+    } else {
+      // sldIdLst follows the master ID lists, or opens the presentation element
+      int insertAt = -1;
+      Matcher predecessor = SLIDE_ID_LIST_PREDECESSOR_PATTERN.matcher(content);
+      while (predecessor.find()) {
+        insertAt = predecessor.end();
+      }
+      if (insertAt < 0) {
+        Matcher root = ROOT_ELEMENT_PATTERN.matcher(content);
+        if (!root.find()) {
+          throw new XMLParsingException("Could not find p:presentation element in presentation.xml");
+        }
+        insertAt = root.end();
+      }
+      updated = content.substring(0, insertAt) + list + content.substring(insertAt);
+    }
+
+    return ensureRelationshipsNamespace(updated);
+  }
+
+  /**
+   * Appends the pending sldMasterId entries to sldMasterIdLst, creating the list as the
+   * first child of the presentation element if absent.
+   */
+  private String appendSlideMasterEntries(String content) throws XMLParsingException {
+    Matcher end = SLIDE_MASTER_ID_LIST_END_PATTERN.matcher(content);
+    if (end.find()) {
+      String entries = end.group().startsWith("</")
+        ? pendingSlideMasterEntries + end.group()
+        : "<p:sldMasterIdLst>" + pendingSlideMasterEntries + "</p:sldMasterIdLst>";
+      return content.substring(0, end.start()) + entries + content.substring(end.end());
+    }
+
+    Matcher root = ROOT_ELEMENT_PATTERN.matcher(content);
+    if (!root.find() || root.group().endsWith("/>")) {
+      throw new XMLParsingException("Could not find p:presentation element in presentation.xml");
+    }
+    return content.substring(0, root.end()) + "<p:sldMasterIdLst>" + pendingSlideMasterEntries +
+      "</p:sldMasterIdLst>" + content.substring(root.end());
+  }
+
+  /**
+   * Declares the r: prefix on the presentation element if a minimal file lacks it.
+   */
+  private String ensureRelationshipsNamespace(String content) {
+    Matcher root = ROOT_ELEMENT_PATTERN.matcher(content);
+    if (!root.find() || root.group().contains("xmlns:r=")) {
+      return content;
+    }
+
+    int insertAt = root.group().endsWith("/>") ? root.end() - 2 : root.end() - 1;
+    return content.substring(0, insertAt) + " xmlns:r=\"" + XMLConstants.RELATIONSHIPS_NS + "\"" +
+      content.substring(insertAt);
+  }
+
+  /**
+   * Serializes the relationships in the compact form PowerPoint writes.
+   */
+  private String serializeRelationships() {
+    StringBuilder xml = new StringBuilder();
+    xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n");
+    xml.append("<Relationships xmlns=\"").append(XMLConstants.PACKAGE_RELATIONSHIPS_NS).append("\">");
+    for (Relationship relationship : relationships.values()) {
+      xml.append("<Relationship Id=\"").append(escapeAttribute(relationship.getId()))
+        .append("\" Type=\"").append(escapeAttribute(relationship.getType()))
+        .append("\" Target=\"").append(escapeAttribute(relationship.getTarget())).append('"');
+      if (relationship.getTargetMode() != null) {
+        xml.append(" TargetMode=\"").append(escapeAttribute(relationship.getTargetMode())).append('"');
+      }
+      xml.append("/>");
+    }
+    xml.append("</Relationships>");
+    return xml.toString();
+  }
+
+  private static String escapeAttribute(String value) {
+    return value.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;").replace(">", "&gt;");
+  }
+
+  private static String findMasterRelationshipId(Document presentation, String localName) {
+    NodeList masters = presentation.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, localName);
+    if (masters.getLength() == 0) {
+      return null;
+    }
+    String rId = ((Element) masters.item(0)).getAttributeNS(XMLConstants.RELATIONSHIPS_NS, "id");
+    return rId.isEmpty() ? null : rId;
+  }
+
+  private static int parseRelationshipNumber(String id) {
+    if (id.startsWith(XMLConstants.RID_PREFIX)) {
+      try {
+        return Integer.parseInt(id.substring(XMLConstants.RID_PREFIX.length()));
+      } catch (NumberFormatException e) {
+        // Non-numeric relationship ID
+      }
+    }
+    return 0;
+  }
+
+  // ========== INNER CLASSES ==========
+
+  /**
+   * One slide in sldIdLst: its sldId, the relationship that links it, and its part.
+   */
+  public static class SlideEntry {
+    private final int slideId;
+    private final String relationshipId;
+    private final String target;
+
+    public SlideEntry(int slideId, String relationshipId, String target) {
+      this.slideId = slideId;
+      this.relationshipId = relationshipId;
+      this.target = target;
+    }
+
+    public int getSlideId() { return slideId; }
+    public String getRelationshipId() { return relationshipId; }
+
+    /** Relationship target relative to ppt/, e.g. "slides/slide3.xml" */
+    public String getTarget() { return target; }
+
+    /** Package part name, e.g. "/ppt/slides/slide3.xml" */
+    public String getPartName() {
+      return target.startsWith("/") ? target : "/ppt/" + target;
+    }
+
+    /** The N of slideN.xml, or -1 if the part does not follow that naming */
+    public int getPartNumber() {
+      Matcher matcher = SLIDE_PART_PATTERN.matcher(target);
+      return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("SlideEntry{id=%d, rId=%s, part=%s}", slideId, relationshipId, getPartName());
+    }
+  }
+
+  /**
+   * A relationship of the presentation part.
+   */
+  public static class Relationship {
+    private final String id;
+    private final String type;
+    private final String target;
+    private final String targetMode;
+
+    public Relationship(String id, String type, String target, String targetMode) {
+      this.id = id;
+      this.type = type;
+      this.target = target;
+      this.targetMode = targetMode;
+    }
+
+    public String getId() { return id; }
+    public String getType() { return type; }
+    public String getTarget() { return target; }
+    public String getTargetMode() { return targetMode; }
+
+    @Override
+    public String toString() {
+      return String.format("Relationship{id=%s, target=%s}", id, target);
+    }
+  }
+}
@@ -9,7 +9,6 @@ import javax.xml.xpath.*;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import com.presentationchoreographer.exceptions.XMLParsingException;
 import com.presentationchoreographer.utils.XMLConstants;
 
@@ -18,20 +17,22 @@ import com.presentationchoreographer.utils.XMLConstants;
  * 
  * <p>This class provides centralized management of all relationship types within a PPTX package,
  * including slide-to-layout relationships, media relationships, theme relationships, and 
- * slide master relationships. It ensures relationship ID uniqueness across the entire 
- * presentation and handles relationship updates when slides are inserted, moved, or deleted.</p>
+ * slide master relationships. Relationship IDs are scoped to their .rels part, as in OOXML:
+ * each part has its own {@link RelationshipTable} that allocates IDs locally, and
+ * {@link #getRelationshipTables()} gives a global view for validation. It also handles
+ * relationship updates when slides are inserted, moved, or deleted.</p>
  * 
  * <p>Key responsibilities:</p>
  * <ul>
- *   <li>Global relationship ID allocation and collision avoidance</li>
+ *   <li>Per-part relationship ID allocation and collision avoidance</li>
  *   <li>Creation and management of slide relationship files (.rels)</li>
  *   <li>Media relationship tracking and ID remapping</li>
  *   <li>Presentation.xml relationship synchronization</li>
  *   <li>Content type registration for new relationships</li>
  * </ul>
  * 
- * <p>Thread Safety: This class is thread-safe through the use of concurrent collections
- * and atomic operations for ID generation.</p>
+ * <p>Thread Safety: This class is thread-safe. An edit of a .rels part holds the lock of that
+ * part's table only, so relationships of different slides can be edited in parallel.</p>
  * 
  * @author Presentation Choreographer
  * @version 1.0
@@ -55,24 +56,22 @@ public class RelationshipManager {
   private final XPath xpath;
 
   /**
-   * Global registry of all relationship IDs currently in use across the presentation.
-   * Key: Relationship ID (e.g., "rId1", "rId2")
-   * Value: RelationshipInfo containing target and type details
+   * Relationship table of each .rels part, keyed by part name (e.g., "ppt/slides/_rels/slide1.xml.rels").
+   * Tables of invalidated parts are dropped and loaded again from disk on next use.
    */
-  private final Map<String, RelationshipInfo> globalRelationshipRegistry;
+  private final Map<String, RelationshipTable> relationshipTables;
 
   /**
-   * Atomic counter for generating unique relationship IDs across the presentation.
-   * Ensures thread-safe ID allocation even in concurrent scenarios.
+   * Bounded cache of parsed relationship documents, keyed by .rels file.
+   * Documents taken from it are modified in place, then written and stored back.
    */
-  private final AtomicInteger nextRelationshipIdCounter;
+  private final PartCache partCache;
 
   /**
-   * Cache of parsed relationship documents to avoid repeated file I/O.
-   * Key: File path relative to extractedPptxDir
-   * Value: Parsed relationship Document
+   * Persistent index consulted by the initial scan in place of unchanged .rels parts, or null.
+   * Only used during construction.
    */
-  private final Map<String, Document> relationshipDocumentCache;
+  private final PackageIndex packageIndex;
 
   /**
    * Constructs a new RelationshipManager for the specified PPTX directory.
@@ -87,14 +86,51 @@ public class RelationshipManager {
    * @throws IllegalArgumentException If extractedPptxDir is null or does not exist
    */
   public RelationshipManager(File extractedPptxDir) throws XMLParsingException {
+    this(extractedPptxDir, PartCache.shared());
+  }
+
+  /**
+   * Constructs a new RelationshipManager that caches parsed relationship documents
+   * in the given part cache.
+   * 
+   * @param extractedPptxDir The directory containing the extracted PPTX contents
+   * @param partCache The cache for parsed relationship documents
+   * @throws XMLParsingException If the XML parser cannot be initialized or
+   *                           if existing relationships cannot be scanned
+   * @throws IllegalArgumentException If extractedPptxDir is null or does not exist, or partCache is null
+   */
+  public RelationshipManager(File extractedPptxDir, PartCache partCache) throws XMLParsingException {
+    this(extractedPptxDir, partCache, null);
+  }
+
+  /**
+   * Constructs a new RelationshipManager for a freshly extracted package, taking the
+   * relationships of unchanged .rels parts from a persistent index instead of parsing
+   * them. Parsed parts are recorded in the index.
+   * 
+   * @param extractedPptxDir The directory containing the extracted PPTX contents
+   * @param packageIndex The index opened for the package's part CRCs, may be null
+   * @throws XMLParsingException If the XML parser cannot be initialized or
+   *                           if existing relationships cannot be scanned
+   * @throws IllegalArgumentException If extractedPptxDir is null or does not exist
+   */
+  public RelationshipManager(File extractedPptxDir, PackageIndex packageIndex) throws XMLParsingException {
+    this(extractedPptxDir, PartCache.shared(), packageIndex);
+  }
+
+  private RelationshipManager(File extractedPptxDir, PartCache partCache, PackageIndex packageIndex)
+      throws XMLParsingException {
     if (extractedPptxDir == null || !extractedPptxDir.exists()) {
       throw new IllegalArgumentException("extractedPptxDir must exist and be non-null");
     }
+    if (partCache == null) {
+      throw new IllegalArgumentException("partCache cannot be null");
+    }
 
     this.extractedPptxDir = extractedPptxDir;
-    this.globalRelationshipRegistry = new ConcurrentHashMap<>();
-    this.relationshipDocumentCache = new ConcurrentHashMap<>();
-    this.nextRelationshipIdCounter = new AtomicInteger(1);
+    this.relationshipTables = new ConcurrentHashMap<>();
+    this.partCache = partCache;
+    this.packageIndex = packageIndex;
 
     try {
       DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
@@ -117,7 +153,8 @@ public class RelationshipManager {
    * Creates a standard slide relationship file with layout and theme relationships.
    * 
    * <p>This method creates a new .rels file for the specified slide containing
-   * the standard relationships required by PowerPoint:</p>
+   * the standard relationships required by PowerPoint, numbered from rId1 since the
+   * part is written from scratch:</p>
    * <ul>
    *   <li>Slide Layout relationship (typically to slideLayout1.xml)</li>
    *   <li>Theme relationship (typically to theme1.xml)</li>
@@ -138,16 +175,16 @@ public class RelationshipManager {
     }
 
     try {
-      // Create relationship document
-      Document relsDoc = documentBuilder.newDocument();
-      Element relationships = relsDoc.createElementNS(
-          XMLConstants.PACKAGE_RELATIONSHIPS_NS, "Relationships");
-      relsDoc.appendChild(relationships);
+      // Create relationship document and a fresh table for the part
+      File relsFile = getSlideRelationshipFile(slideNumber);
+      RelationshipTable table = newRelationshipTable(relsFile);
+      Document relsDoc = newRelationshipDocument();
+      Element relationships = relsDoc.getDocumentElement();
 
       List<String> createdRelationshipIds = new ArrayList<>();
 
       // Create layout relationship
-      String layoutRId = allocateRelationshipId();
+      String layoutRId = table.allocateId();
       String finalLayoutTarget = layoutTarget != null ? layoutTarget : XMLConstants.DEFAULT_SLIDE_LAYOUT_TARGET;
       Element layoutRel = createRelationshipElement(relsDoc, layoutRId, 
           XMLConstants.RELATIONSHIP_TYPE_SLIDE_LAYOUT, finalLayoutTarget);
@@ -155,10 +192,10 @@ public class RelationshipManager {
       createdRelationshipIds.add(layoutRId);
 
       // Register layout relationship
-      registerRelationship(layoutRId, XMLConstants.RELATIONSHIP_TYPE_SLIDE_LAYOUT, finalLayoutTarget);
+      table.register(layoutRId, XMLConstants.RELATIONSHIP_TYPE_SLIDE_LAYOUT, finalLayoutTarget);
 
       // Create theme relationship
-      String themeRId = allocateRelationshipId();
+      String themeRId = table.allocateId();
       String finalThemeTarget = themeTarget != null ? themeTarget : XMLConstants.DEFAULT_THEME_TARGET;
       Element themeRel = createRelationshipElement(relsDoc, themeRId,
           XMLConstants.RELATIONSHIP_TYPE_THEME, finalThemeTarget);
@@ -166,15 +203,14 @@ public class RelationshipManager {
       createdRelationshipIds.add(themeRId);
 
       // Register theme relationship
-      registerRelationship(themeRId, XMLConstants.RELATIONSHIP_TYPE_THEME, finalThemeTarget);
+      table.register(themeRId, XMLConstants.RELATIONSHIP_TYPE_THEME, finalThemeTarget);
 
       // Write relationship file
-      File relsFile = getSlideRelationshipFile(slideNumber);
       writeRelationshipDocument(relsDoc, relsFile);
 
-      // Cache the document
-      String cacheKey = getRelativePathFromExtractedDir(relsFile);
-      relationshipDocumentCache.put(cacheKey, relsDoc);
+      // Cache the document and publish the table
+      partCache.put(relsFile, relsDoc);
+      relationshipTables.put(table.getPartName(), table);
 
       return new RelationshipCreationResult(relsFile, createdRelationshipIds);
 
@@ -186,14 +222,14 @@ public class RelationshipManager {
   /**
    * Copies relationships from a source slide to a destination slide with ID remapping.
    * 
-   * <p>This method handles the complex process of copying slide relationships while
-   * ensuring no relationship ID conflicts occur. Media relationships are remapped
-   * to new IDs, while standard layout/theme relationships may reuse existing IDs
-   * if they point to the same targets.</p>
+   * <p>Relationship IDs are scoped to their .rels part, so the destination starts a fresh
+   * table and keeps the source IDs by default; the r:id references of a copied slide stay
+   * valid as they are. With forceNewIds the destination is renumbered from rId1 and the
+   * returned mappings give the new ID of each source ID.</p>
    * 
    * @param sourceSlideNumber The source slide number (1-based) to copy from
    * @param destinationSlideNumber The destination slide number (1-based) to copy to
-   * @param forceNewIds If true, all relationships get new IDs; if false, allows reuse for standard relationships
+   * @param forceNewIds If true, all relationships get new IDs; if false, the source IDs are kept
    * @return RelationshipCopyResult containing old-to-new ID mappings and created file path
    * @throws XMLParsingException If relationship copying fails
    * @throws IllegalArgumentException If slide numbers are invalid
@@ -216,10 +252,15 @@ public class RelationshipManager {
       }
 
       // Parse source relationships
-      Document sourceRelsDoc = parseRelationshipDocument(sourceRelsFile);
-      Document destRelsDoc = (Document) sourceRelsDoc.cloneNode(true);
+      RelationshipTable sourceTable = getRelationshipTable(sourceRelsFile);
+      Document destRelsDoc;
+      synchronized (sourceTable) {
+        destRelsDoc = (Document) parseRelationshipDocument(sourceRelsFile).cloneNode(true);
+      }
 
-      // Extract and remap relationships
+      // Register relationships in the destination's own table
+      File destRelsFile = getSlideRelationshipFile(destinationSlideNumber);
+      RelationshipTable destinationTable = newRelationshipTable(destRelsFile);
       Map<String, String> idMappings = new HashMap<>();
       List<String> newRelationshipIds = new ArrayList<>();
 
@@ -230,29 +271,20 @@ public class RelationshipManager {
         String type = relationshipEl.getAttribute("Type");
         String target = relationshipEl.getAttribute("Target");
 
-        String newId;
-        if (forceNewIds || isMediaRelationship(type)) {
-          // Always remap media relationships to avoid conflicts
-          newId = allocateRelationshipId();
-          relationshipEl.setAttribute("Id", newId);
-          registerRelationship(newId, type, target);
-        } else {
-          // For standard relationships, check if we can reuse existing ID
-          newId = findOrCreateRelationshipId(type, target);
-          relationshipEl.setAttribute("Id", newId);
-        }
+        String newId = forceNewIds ? destinationTable.allocateId() : oldId;
+        relationshipEl.setAttribute("Id", newId);
+        destinationTable.register(newId, type, target);
 
         idMappings.put(oldId, newId);
         newRelationshipIds.add(newId);
       }
 
       // Write destination relationship file
-      File destRelsFile = getSlideRelationshipFile(destinationSlideNumber);
       writeRelationshipDocument(destRelsDoc, destRelsFile);
 
-      // Update cache
-      String cacheKey = getRelativePathFromExtractedDir(destRelsFile);
-      relationshipDocumentCache.put(cacheKey, destRelsDoc);
+      // Update cache and publish the table
+      partCache.put(destRelsFile, destRelsDoc);
+      relationshipTables.put(destinationTable.getPartName(), destinationTable);
 
       return new RelationshipCopyResult(destRelsFile, idMappings, newRelationshipIds);
 
@@ -265,8 +297,7 @@ public class RelationshipManager {
   /**
    * Adds a media relationship (image, video, audio) to the specified slide.
    * 
-   * <p>Media relationships require special handling because they reference files
-   * in the media directory and must have unique IDs across the entire presentation.</p>
+   * <p>The media gets the next free ID of the slide's relationship table.</p>
    * 
    * @param slideNumber The slide number (1-based) to add the media relationship to
    * @param mediaType The type of media relationship (e.g., XMLConstants.RELATIONSHIP_TYPE_IMAGE)
@@ -287,31 +318,33 @@ public class RelationshipManager {
     }
 
     try {
-      // Load or create slide relationship document
       File relsFile = getSlideRelationshipFile(slideNumber);
-      Document relsDoc = loadOrCreateSlideRelationshipDocument(slideNumber);
+      RelationshipTable table = getRelationshipTable(relsFile);
+      synchronized (table) {
+        // Load or create slide relationship document
+        Document relsDoc = loadOrCreateSlideRelationshipDocument(slideNumber);
 
-      // Find relationships root element
-      Element relationships = relsDoc.getDocumentElement();
+        // Find relationships root element
+        Element relationships = relsDoc.getDocumentElement();
 
-      // Allocate new relationship ID
-      String mediaRId = allocateRelationshipId();
+        // Allocate new relationship ID
+        String mediaRId = table.allocateId();
 
-      // Create media relationship element
-      Element mediaRel = createRelationshipElement(relsDoc, mediaRId, mediaType, mediaTarget);
-      relationships.appendChild(mediaRel);
+        // Create media relationship element
+        Element mediaRel = createRelationshipElement(relsDoc, mediaRId, mediaType, mediaTarget);
+        relationships.appendChild(mediaRel);
 
-      // Register the relationship
-      registerRelationship(mediaRId, mediaType, mediaTarget);
+        // Register the relationship
+        table.register(mediaRId, mediaType, mediaTarget);
 
-      // Write updated document
-      writeRelationshipDocument(relsDoc, relsFile);
+        // Write updated document
+        writeRelationshipDocument(relsDoc, relsFile);
 
-      // Update cache
-      String cacheKey = getRelativePathFromExtractedDir(relsFile);
-      relationshipDocumentCache.put(cacheKey, relsDoc);
+        // Update cache
+        partCache.put(relsFile, relsDoc);
 
-      return mediaRId;
+        return mediaRId;
+      }
 
     } catch (Exception e) {
       throw new XMLParsingException("Failed to add media relationship to slide " + slideNumber, e);
@@ -341,27 +374,29 @@ public class RelationshipManager {
         return false; // No relationships file means relationship doesn't exist
       }
 
-      Document relsDoc = parseRelationshipDocument(relsFile);
-      Element relationships = relsDoc.getDocumentElement();
+      RelationshipTable table = getRelationshipTable(relsFile);
+      synchronized (table) {
+        Document relsDoc = parseRelationshipDocument(relsFile);
+        Element relationships = relsDoc.getDocumentElement();
 
-      // Find and remove the relationship element
-      NodeList relationshipElements = relationships.getElementsByTagName("Relationship");
-      for (int i = 0; i < relationshipElements.getLength(); i++) {
-        Element relationshipEl = (Element) relationshipElements.item(i);
-        if (relationshipId.equals(relationshipEl.getAttribute("Id"))) {
-          relationships.removeChild(relationshipEl);
+        // Find and remove the relationship element
+        NodeList relationshipElements = relationships.getElementsByTagName("Relationship");
+        for (int i = 0; i < relationshipElements.getLength(); i++) {
+          Element relationshipEl = (Element) relationshipElements.item(i);
+          if (relationshipId.equals(relationshipEl.getAttribute("Id"))) {
+            relationships.removeChild(relationshipEl);
 
-          // Unregister from global registry
-          unregisterRelationship(relationshipId);
+            // Unregister from the slide's table
+            table.unregister(relationshipId);
 
-          // Write updated document
-          writeRelationshipDocument(relsDoc, relsFile);
+            // Write updated document
+            writeRelationshipDocument(relsDoc, relsFile);
 
-          // Update cache
-          String cacheKey = getRelativePathFromExtractedDir(relsFile);
-          relationshipDocumentCache.put(cacheKey, relsDoc);
+            // Update cache
+            partCache.put(relsFile, relsDoc);
 
-          return true;
+            return true;
+          }
         }
       }
 
@@ -397,38 +432,95 @@ public class RelationshipManager {
   }
 
   /**
-   * Allocates a unique relationship ID that is guaranteed not to conflict
-   * with any existing relationships in the presentation.
-   * 
-   * @return A unique relationship ID (e.g., "rId15")
+   * Drops the cached relationship document and table of a slide so they are re-read from disk
+   * on next use. Must be called after a slide's .rels file is written, renamed or deleted
+   * outside this manager.
+   *
+   * @param slideNumber The slide number whose cached relationships should be dropped
    */
-  public String allocateRelationshipId() {
-    String candidateId;
-    do {
-      int idNumber = nextRelationshipIdCounter.getAndIncrement();
-      candidateId = XMLConstants.RID_PREFIX + idNumber;
-    } while (globalRelationshipRegistry.containsKey(candidateId));
+  public void invalidateSlideRelationships(int slideNumber) {
+    invalidateRelationships(getSlideRelationshipFile(slideNumber));
+  }
 
-    return candidateId;
+  /**
+   * Drops the cached relationship document and table of any .rels file (e.g. of a notes
+   * slide) so they are re-read from disk on next use. Must be called after the file is
+   * written, renamed or deleted outside this manager.
+   *
+   * @param relsFile The .rels file whose cached relationships should be dropped
+   */
+  public void invalidateRelationships(File relsFile) {
+    partCache.invalidate(relsFile);
+    relationshipTables.remove(PackageIndex.partName(extractedPptxDir, relsFile));
   }
 
   /**
-   * Retrieves all relationship IDs currently in use across the entire presentation.
+   * Allocates a relationship ID that is not in use in a slide's relationships.
+   * The ID is unique within the slide's .rels part, which is the scope OOXML gives it.
    * 
-   * @return An unmodifiable set of all relationship IDs
+   * @param slideNumber The slide number (1-based) the ID is for
+   * @return A relationship ID unique within the slide (e.g., "rId3")
+   * @throws XMLParsingException If the slide's relationships cannot be read
+   * @throws IllegalArgumentException If slideNumber is less than 1
    */
-  public Set<String> getAllRelationshipIds() {
-    return Collections.unmodifiableSet(globalRelationshipRegistry.keySet());
+  public String allocateRelationshipId(int slideNumber) throws XMLParsingException {
+    return getSlideRelationshipTable(slideNumber).allocateId();
   }
 
   /**
-   * Gets the relationship information for a specific relationship ID.
+   * Retrieves the relationship IDs in use in a slide's relationships.
    * 
+   * @param slideNumber The slide number (1-based)
+   * @return An unmodifiable snapshot of the slide's relationship IDs
+   * @throws XMLParsingException If the slide's relationships cannot be read
+   * @throws IllegalArgumentException If slideNumber is less than 1
+   */
+  public Set<String> getRelationshipIds(int slideNumber) throws XMLParsingException {
+    return getSlideRelationshipTable(slideNumber).getIds();
+  }
+
+  /**
+   * Gets the relationship information for a relationship ID of a slide.
+   * 
+   * @param slideNumber The slide number (1-based)
    * @param relationshipId The relationship ID to look up
    * @return RelationshipInfo containing type and target, or null if not found
+   * @throws XMLParsingException If the slide's relationships cannot be read
+   * @throws IllegalArgumentException If slideNumber is less than 1
+   */
+  public RelationshipInfo getRelationshipInfo(int slideNumber, String relationshipId) throws XMLParsingException {
+    return getSlideRelationshipTable(slideNumber).get(relationshipId);
+  }
+
+  /**
+   * Finds a relationship of a slide with the given type and target through its table's reverse index.
+   * 
+   * @param slideNumber The slide number (1-based)
+   * @param type The relationship type URI
+   * @param target The relationship target as written in the .rels part
+   * @return One of the matching relationship IDs, or null if none is registered
+   * @throws XMLParsingException If the slide's relationships cannot be read
+   * @throws IllegalArgumentException If slideNumber is less than 1
    */
-  public RelationshipInfo getRelationshipInfo(String relationshipId) {
-    return globalRelationshipRegistry.get(relationshipId);
+  public String findRelationshipId(int slideNumber, String type, String target) throws XMLParsingException {
+    return getSlideRelationshipTable(slideNumber).findId(type, target);
+  }
+
+  /**
+   * Gets the global view of the presentation's relationships: the table of each package,
+   * presentation and slide .rels part, keyed by part name. Tables dropped by invalidation
+   * are loaded again first.
+   * 
+   * @return An unmodifiable map of the tables, sorted by part name
+   * @throws XMLParsingException If a relationship part cannot be read
+   */
+  public Map<String, RelationshipTable> getRelationshipTables() throws XMLParsingException {
+    Map<String, RelationshipTable> tables = new TreeMap<>();
+    for (File relsFile : listRelationshipFiles()) {
+      RelationshipTable table = getRelationshipTable(relsFile);
+      tables.put(table.getPartName(), table);
+    }
+    return Collections.unmodifiableMap(tables);
   }
 
   /**
@@ -441,119 +533,136 @@ public class RelationshipManager {
     List<String> errors = new ArrayList<>();
     List<String> warnings = new ArrayList<>();
 
-    // Check for broken relationship targets
-    for (Map.Entry<String, RelationshipInfo> entry : globalRelationshipRegistry.entrySet()) {
-      String relationshipId = entry.getKey();
-      RelationshipInfo info = entry.getValue();
-
-      // Check if target file exists
-      if (!isExternalTarget(info.getTarget())) {
-        File targetFile = resolveRelationshipTarget(info.getTarget());
-        if (!targetFile.exists()) {
-          errors.add("Relationship " + relationshipId + " points to non-existent target: " + info.getTarget());
+    // Check for broken relationship targets, part by part
+    for (RelationshipTable table : getRelationshipTables().values()) {
+      for (Map.Entry<String, RelationshipInfo> entry : table.getRelationships().entrySet()) {
+        String relationshipId = entry.getKey();
+        RelationshipInfo info = entry.getValue();
+
+        // Check if target file exists
+        if (!isExternalTarget(info.getTarget())) {
+          File targetFile = resolveRelationshipTarget(table, info.getTarget());
+          if (!targetFile.exists()) {
+            errors.add("Relationship " + relationshipId + " of " + table.getPartName() +
+                " points to non-existent target: " + info.getTarget());
+          }
         }
       }
     }
 
-    // Check for duplicate relationship IDs (shouldn't happen but good to verify)
-    Set<String> duplicateCheck = new HashSet<>();
-    for (String id : globalRelationshipRegistry.keySet()) {
-      if (!duplicateCheck.add(id)) {
-        errors.add("Duplicate relationship ID detected: " + id);
-      }
-    }
-
     return new ValidationResult(errors, warnings);
   }
 
   // ========== PRIVATE HELPER METHODS ==========
 
   /**
-   * Scans all existing relationship files in the presentation to build the global registry.
+   * Scans all existing relationship files in the presentation to build their tables.
    */
   private void scanExistingRelationships() throws XMLParsingException {
     try {
-      // Scan package-level relationships
-      scanRelationshipFile(new File(extractedPptxDir, "_rels/.rels"));
-
-      // Scan presentation relationships  
-      scanRelationshipFile(new File(extractedPptxDir, "ppt/_rels/presentation.xml.rels"));
-
-      // Scan all slide relationships
-      File slidesRelsDir = new File(extractedPptxDir, "ppt/slides/_rels");
-      if (slidesRelsDir.exists()) {
-        File[] relsFiles = slidesRelsDir.listFiles((dir, name) -> name.endsWith(".rels"));
-        if (relsFiles != null) {
-          for (File relsFile : relsFiles) {
-            scanRelationshipFile(relsFile);
-          }
-        }
+      for (File relsFile : listRelationshipFiles()) {
+        RelationshipTable table = loadRelationshipTable(relsFile, packageIndex);
+        relationshipTables.put(table.getPartName(), table);
       }
-
-      // Update counter to ensure new IDs don't conflict
-      updateRelationshipIdCounter();
-
     } catch (Exception e) {
       throw new XMLParsingException("Failed to scan existing relationships", e);
     }
   }
 
   /**
-   * Scans a single relationship file and adds all relationships to the global registry.
+   * Lists the existing package, presentation and slide relationship files.
    */
-  private void scanRelationshipFile(File relsFile) throws XMLParsingException {
-    if (!relsFile.exists()) {
-      return;
+  private List<File> listRelationshipFiles() {
+    List<File> relsFiles = new ArrayList<>();
+    for (File relsFile : new File[] {
+        new File(extractedPptxDir, "_rels/.rels"),
+        new File(extractedPptxDir, "ppt/_rels/presentation.xml.rels") }) {
+      if (relsFile.exists()) {
+        relsFiles.add(relsFile);
+      }
     }
 
-    try {
-      Document relsDoc = documentBuilder.parse(relsFile);
-      NodeList relationshipElements = relsDoc.getElementsByTagName("Relationship");
-
-      for (int i = 0; i < relationshipElements.getLength(); i++) {
-        Element relationshipEl = (Element) relationshipElements.item(i);
-        String id = relationshipEl.getAttribute("Id");
-        String type = relationshipEl.getAttribute("Type");
-        String target = relationshipEl.getAttribute("Target");
-
-        registerRelationship(id, type, target);
-      }
+    File[] slideRelsFiles = new File(extractedPptxDir, "ppt/slides/_rels").listFiles((dir, name) -> name.endsWith(".rels"));
+    if (slideRelsFiles != null) {
+      relsFiles.addAll(Arrays.asList(slideRelsFiles));
+    }
+    return relsFiles;
+  }
 
-    } catch (Exception e) {
-      throw new XMLParsingException("Failed to scan relationship file: " + relsFile.getName(), e);
+  /**
+   * Gets the table of a slide's relationships, loading it if needed.
+   */
+  private RelationshipTable getSlideRelationshipTable(int slideNumber) throws XMLParsingException {
+    if (slideNumber < 1) {
+      throw new IllegalArgumentException("slideNumber must be positive");
     }
+    return getRelationshipTable(getSlideRelationshipFile(slideNumber));
   }
 
   /**
-   * Registers a relationship in the global registry.
+   * Gets the table of a .rels part, loading it from disk if it is not held; a missing file
+   * gives an empty table.
    */
-  private void registerRelationship(String id, String type, String target) {
-    globalRelationshipRegistry.put(id, new RelationshipInfo(type, target));
+  private RelationshipTable getRelationshipTable(File relsFile) throws XMLParsingException {
+    String partName = PackageIndex.partName(extractedPptxDir, relsFile);
+    RelationshipTable table = relationshipTables.get(partName);
+    if (table == null) {
+      RelationshipTable loaded = loadRelationshipTable(relsFile, null);
+      table = relationshipTables.putIfAbsent(partName, loaded);
+      if (table == null) {
+        table = loaded;
+      }
+    }
+    return table;
   }
 
   /**
-   * Unregisters a relationship from the global registry.
+   * Creates an empty table for a .rels part.
    */
-  private void unregisterRelationship(String id) {
-    globalRelationshipRegistry.remove(id);
+  private RelationshipTable newRelationshipTable(File relsFile) {
+    return new RelationshipTable(PackageIndex.partName(extractedPptxDir, relsFile),
+        getRelativePathFromExtractedDir(relsFile.getParentFile().getParentFile()));
   }
 
   /**
-   * Updates the relationship ID counter based on existing relationships.
+   * Reads a relationship file into a new table. An index is only consulted while the
+   * extracted parts are unchanged, i.e. during construction.
    */
-  private void updateRelationshipIdCounter() {
-    int maxId = 0;
-    for (String relationshipId : globalRelationshipRegistry.keySet()) {
-      if (relationshipId.startsWith(XMLConstants.RID_PREFIX)) {
-        try {
-          int idNumber = Integer.parseInt(relationshipId.substring(XMLConstants.RID_PREFIX.length()));
-          maxId = Math.max(maxId, idNumber);
-        } catch (NumberFormatException e) {
-          // Skip non-numeric relationship IDs
-        }
+  private RelationshipTable loadRelationshipTable(File relsFile, PackageIndex index) throws XMLParsingException {
+    RelationshipTable table = newRelationshipTable(relsFile);
+    if (!relsFile.exists()) {
+      return table;
+    }
+
+    try {
+      // Unchanged parts are registered from the persistent index without parsing them
+      String partName = table.getPartName();
+      if (index != null && index.replayRelationships(partName, table::register)) {
+        return table;
+      }
+
+      Document relsDoc = parseRelationshipDocument(relsFile);
+      NodeList relationshipElements = relsDoc.getElementsByTagName("Relationship");
+      String[] ids = new String[relationshipElements.getLength()];
+      String[] types = new String[ids.length];
+      String[] targets = new String[ids.length];
+
+      for (int i = 0; i < relationshipElements.getLength(); i++) {
+        Element relationshipEl = (Element) relationshipElements.item(i);
+        ids[i] = relationshipEl.getAttribute("Id");
+        types[i] = relationshipEl.getAttribute("Type");
+        targets[i] = relationshipEl.getAttribute("Target");
+        table.register(ids[i], types[i], targets[i]);
+      }
+
+      if (index != null) {
+        index.recordRelationships(partName, ids, types, targets);
       }
+      return table;
+
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to scan relationship file: " + relsFile.getName(), e);
     }
-    nextRelationshipIdCounter.set(maxId + 1);
   }
 
   /**
@@ -576,20 +685,16 @@ public class RelationshipManager {
   }
 
   /**
-   * Parses a relationship document, using cache if available.
+   * Parses a relationship document, using the part cache while the file is unchanged.
    */
   private Document parseRelationshipDocument(File relsFile) throws XMLParsingException {
-    String cacheKey = getRelativePathFromExtractedDir(relsFile);
-    Document cached = relationshipDocumentCache.get(cacheKey);
-    if (cached != null) {
-      return cached;
-    }
-
     try {
-      Document doc = documentBuilder.parse(relsFile);
-      relationshipDocumentCache.put(cacheKey, doc);
-      return doc;
-    } catch (Exception e) {
+      return partCache.get(relsFile, Document.class, file -> {
+        synchronized (documentBuilder) {
+          return documentBuilder.parse(file);
+        }
+      });
+    } catch (XMLParsingException e) {
       throw new XMLParsingException("Failed to parse relationship document: " + relsFile.getName(), e);
     }
   }
@@ -602,14 +707,22 @@ public class RelationshipManager {
     if (relsFile.exists()) {
       return parseRelationshipDocument(relsFile);
     } else {
-      // Create basic relationship document structure
-      Document doc = documentBuilder.newDocument();
-      Element relationships = doc.createElementNS(XMLConstants.PACKAGE_RELATIONSHIPS_NS, "Relationships");
-      doc.appendChild(relationships);
-      return doc;
+      return newRelationshipDocument();
     }
   }
 
+  /**
+   * Creates a relationship document with an empty Relationships root.
+   */
+  private Document newRelationshipDocument() {
+    Document doc;
+    synchronized (documentBuilder) {
+      doc = documentBuilder.newDocument();
+    }
+    doc.appendChild(doc.createElementNS(XMLConstants.PACKAGE_RELATIONSHIPS_NS, "Relationships"));
+    return doc;
+  }
+
   /**
    * Writes a relationship document to file.
    */
@@ -632,33 +745,6 @@ public class RelationshipManager {
     }
   }
 
-  /**
-   * Determines if a relationship type is for media (images, video, audio).
-   */
-  private boolean isMediaRelationship(String relationshipType) {
-    return relationshipType.equals(XMLConstants.RELATIONSHIP_TYPE_IMAGE) ||
-      relationshipType.contains("video") ||
-      relationshipType.contains("audio");
-  }
-
-  /**
-   * Finds an existing relationship ID for the given type and target, or creates a new one.
-   */
-  private String findOrCreateRelationshipId(String type, String target) {
-    // Look for existing relationship with same type and target
-    for (Map.Entry<String, RelationshipInfo> entry : globalRelationshipRegistry.entrySet()) {
-      RelationshipInfo info = entry.getValue();
-      if (info.getType().equals(type) && info.getTarget().equals(target)) {
-        return entry.getKey();
-      }
-    }
-
-    // No existing relationship found, create new one
-    String newId = allocateRelationshipId();
-    registerRelationship(newId, type, target);
-    return newId;
-  }
-
   /**
    * Converts an absolute file path to a path relative to the extracted PPTX directory.
    */
@@ -674,15 +760,11 @@ public class RelationshipManager {
   }
 
   /**
-   * Resolves a relationship target to an actual file path.
+   * Resolves a relationship target of a part to an actual file path.
    */
-  private File resolveRelationshipTarget(String target) {
-    // Handle relative paths from the slide's perspective
-    if (target.startsWith("../")) {
-      return new File(extractedPptxDir, "ppt/" + target.substring(3));
-    } else {
-      return new File(extractedPptxDir, "ppt/slides/" + target);
-    }
+  private File resolveRelationshipTarget(RelationshipTable table, String target) {
+    return target.startsWith("/") ? new File(extractedPptxDir, target.substring(1))
+      : new File(new File(extractedPptxDir, table.getSourceDirectory()), target);
   }
 
   // ========== INNER CLASSES ==========
@@ -702,6 +784,23 @@ public class RelationshipManager {
     public String getType() { return type; }
     public String getTarget() { return target; }
 
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof RelationshipInfo)) {
+        return false;
+      }
+      RelationshipInfo that = (RelationshipInfo) other;
+      return Objects.equals(type, that.type) && Objects.equals(target, that.target);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, target);
+    }
+
     @Override
     public String toString() {
       return String.format("RelationshipInfo{type='%s', target='%s'}", type, target);
@@ -0,0 +1,164 @@
+package com.presentationchoreographer.xml.writers;
+
+import java.util.*;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * The relationships of one .rels part and the allocator for its relationship IDs.
+ *
+ * <p>OOXML scopes relationship IDs to their .rels part: rId1 on one slide and rId1 on
+ * another are unrelated. Each table therefore numbers its own IDs, starting after the
+ * highest rIdN registered in it, so a slide with two relationships has IDs rId1 and rId2
+ * however many relationships the rest of the presentation holds. A reverse index from
+ * type and target to IDs answers reuse lookups without scanning the part.</p>
+ *
+ * <p>Thread Safety: This class is thread-safe. Every method locks only this table, so
+ * edits of different parts never contend; callers that read, modify and write a part
+ * hold the table's lock for the whole edit.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public final class RelationshipTable {
+
+  private final String partName;
+  private final String sourceDirectory;
+  private final Map<String, RelationshipManager.RelationshipInfo> relationships = new LinkedHashMap<>();
+  private final Map<RelationshipManager.RelationshipInfo, Set<String>> idsByInfo = new HashMap<>();
+  private int nextIdNumber = 1;
+
+  /**
+   * Creates an empty table.
+   *
+   * @param partName The .rels part name, e.g. "ppt/slides/_rels/slide1.xml.rels"
+   * @param sourceDirectory Directory of the source part, which targets resolve against, e.g. "ppt/slides"
+   * @throws IllegalArgumentException If partName or sourceDirectory is null
+   */
+  public RelationshipTable(String partName, String sourceDirectory) {
+    if (partName == null || sourceDirectory == null) {
+      throw new IllegalArgumentException("partName and sourceDirectory cannot be null");
+    }
+    this.partName = partName;
+    this.sourceDirectory = sourceDirectory;
+  }
+
+  public String getPartName() {
+    return partName;
+  }
+
+  public String getSourceDirectory() {
+    return sourceDirectory;
+  }
+
+  /**
+   * Allocates an ID that is not registered in this part. The ID is not registered.
+   *
+   * @return The next free ID (e.g., "rId3")
+   */
+  public synchronized String allocateId() {
+    String candidateId;
+    do {
+      candidateId = XMLConstants.RID_PREFIX + nextIdNumber++;
+    } while (relationships.containsKey(candidateId));
+    return candidateId;
+  }
+
+  /**
+   * Registers a relationship, replacing any relationship with the same ID.
+   */
+  public synchronized void register(String id, String type, String target) {
+    RelationshipManager.RelationshipInfo info = new RelationshipManager.RelationshipInfo(type, target);
+    RelationshipManager.RelationshipInfo previous = relationships.put(id, info);
+    if (previous != null) {
+      unindex(id, previous);
+    }
+    idsByInfo.computeIfAbsent(info, key -> new LinkedHashSet<>()).add(id);
+
+    int idNumber = idNumber(id);
+    if (idNumber >= nextIdNumber) {
+      nextIdNumber = idNumber + 1;
+    }
+  }
+
+  /**
+   * Unregisters a relationship.
+   *
+   * @return true if the ID was registered
+   */
+  public synchronized boolean unregister(String id) {
+    RelationshipManager.RelationshipInfo previous = relationships.remove(id);
+    if (previous == null) {
+      return false;
+    }
+    unindex(id, previous);
+    return true;
+  }
+
+  /**
+   * Gets the relationship registered under an ID, or null.
+   */
+  public synchronized RelationshipManager.RelationshipInfo get(String id) {
+    return relationships.get(id);
+  }
+
+  /**
+   * Finds a relationship with the given type and target.
+   *
+   * @return The first such ID registered, or null if there is none
+   */
+  public synchronized String findId(String type, String target) {
+    Set<String> ids = idsByInfo.get(new RelationshipManager.RelationshipInfo(type, target));
+    return ids != null ? ids.iterator().next() : null;
+  }
+
+  /**
+   * Gets a snapshot of the registered relationships by ID, in registration order.
+   */
+  public synchronized Map<String, RelationshipManager.RelationshipInfo> getRelationships() {
+    return Collections.unmodifiableMap(new LinkedHashMap<>(relationships));
+  }
+
+  /**
+   * Gets a snapshot of the registered IDs, in registration order.
+   */
+  public synchronized Set<String> getIds() {
+    return Collections.unmodifiableSet(new LinkedHashSet<>(relationships.keySet()));
+  }
+
+  public synchronized int size() {
+    return relationships.size();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("RelationshipTable{part='%s', relationships=%d, nextId=%s%d}",
+        partName, relationships.size(), XMLConstants.RID_PREFIX, nextIdNumber);
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  /**
+   * Removes an ID from the reverse index, dropping its entry once no ID is left.
+   */
+  private void unindex(String id, RelationshipManager.RelationshipInfo info) {
+    Set<String> ids = idsByInfo.get(info);
+    if (ids != null && ids.remove(id) && ids.isEmpty()) {
+      idsByInfo.remove(info);
+    }
+  }
+
+  /**
+   * Gets N of an "rIdN" ID, or 0 for IDs of any other form.
+   */
+  private static int idNumber(String id) {
+    if (id.startsWith(XMLConstants.RID_PREFIX)) {
+      try {
+        return Integer.parseInt(id.substring(XMLConstants.RID_PREFIX.length()));
+      } catch (NumberFormatException e) {
+        // Not numbered
+      }
+    }
+    return 0;
+  }
+}
@@ -1,14 +1,19 @@
 package com.presentationchoreographer.xml.writers;
 
 import org.w3c.dom.*;
+import org.xml.sax.SAXException;
 import javax.xml.parsers.*;
-import javax.xml.xpath.*;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import com.presentationchoreographer.exceptions.XMLParsingException;
 import com.presentationchoreographer.utils.XMLConstants;
+import com.presentationchoreographer.xml.parsers.SlideSpidScanner;
 
 /**
  * Global Shape ID (SPID) management system for PowerPoint presentations.
@@ -27,7 +32,9 @@ import com.presentationchoreographer.utils.XMLConstants;
  * </ul>
  * 
  * <p>Thread Safety: This class is thread-safe through the use of concurrent
- * collections and atomic operations for ID generation.</p>
+ * collections and atomic operations for ID generation. Each allocating thread draws
+ * SPIDs from its own reserved block, so the shared counter is only touched once per
+ * {@link #THREAD_SPID_BLOCK_SIZE} allocations.</p>
  * 
  * @author Presentation Choreographer
  * @version 1.0
@@ -35,6 +42,22 @@ import com.presentationchoreographer.utils.XMLConstants;
  */
 public class SPIDManager {
 
+  /**
+   * Default number of SPIDs reserved per block for writers that allocate locally.
+   */
+  public static final int DEFAULT_SPID_BLOCK_SIZE = 64;
+
+  /**
+   * Number of SPIDs each thread reserves at a time for {@link #allocateUniqueSpid()}.
+   */
+  public static final int THREAD_SPID_BLOCK_SIZE = 256;
+
+  /**
+   * Shape ID of the shape tree root (p:spTree/p:nvGrpSpPr/p:cNvPr) on every slide. It is
+   * reserved once here: allocation always starts above it and it is never registered.
+   */
+  public static final int ROOT_SPID = 1;
+
   /**
    * Reference to the extracted PPTX directory containing all presentation parts.
    */
@@ -46,16 +69,22 @@ public class SPIDManager {
   private final DocumentBuilder documentBuilder;
 
   /**
-   * XPath processor for querying shape and animation XML structures.
+   * Streaming scanner for reading slide SPIDs without building a DOM.
+   */
+  private final SlideSpidScanner spidScanner;
+
+  /**
+   * Persistent index consulted by the initial scan in place of unchanged slides, or null.
+   * Only used during construction.
    */
-  private final XPath xpath;
+  private final PackageIndex packageIndex;
 
   /**
    * Global registry of all Shape IDs currently in use across the presentation.
-   * Key: SPID (Integer)
-   * Value: SPIDInfo containing slide number and shape details
+   * A paged bitmap with the slide number and interned shape name of each SPID
+   * held in primitive arrays; SPIDInfo objects are only created on lookup.
    */
-  private final Map<Integer, SPIDInfo> globalSpidRegistry;
+  private final SpidRegistry globalSpidRegistry;
 
   /**
    * Atomic counter for generating unique SPIDs across the presentation.
@@ -64,11 +93,44 @@ public class SPIDManager {
   private final AtomicInteger nextSpidCounter;
 
   /**
-   * Cache of parsed slide documents to avoid repeated file I/O during operations.
-   * Key: Slide number (Integer)
-   * Value: Parsed slide Document
+   * Block each thread is currently allocating from; consumed without atomics.
+   */
+  private final ThreadLocal<SpidBlock> threadSpidBlocks;
+
+  /**
+   * Unused tails of released blocks, handed out again before new blocks are reserved.
+   */
+  private final Queue<SpidBlock> freeSpidBlocks;
+
+  /**
+   * Bounded cache of parsed slides (document and placeholder index), keyed by slide file.
+   * Entries are reloaded when the file changes and evicted under memory pressure.
+   */
+  private final PartCache partCache;
+
+  /**
+   * Incremental validation baseline: the SPIDs found in each slide file when it was last
+   * parsed, with the file's size and modification time at that point.
+   * Guarded by validationLock, like spidOccurrences and duplicateSpids.
+   */
+  private final Map<Integer, ValidatedSlide> validatedSlides;
+
+  /**
+   * Number of slide files each SPID was found in at the last validation.
+   */
+  private final Map<Integer, Integer> spidOccurrences;
+
+  /**
+   * SPIDs found in more than one place at the last validation.
    */
-  private final Map<Integer, Document> slideDocumentCache;
+  private final Set<Integer> duplicateSpids;
+
+  /**
+   * Slides reported written through {@link #markSlideModified(int)} since the last validation.
+   */
+  private final Set<Integer> modifiedSlides;
+
+  private final Object validationLock = new Object();
 
   /**
    * Constructs a new SPIDManager for the specified PPTX directory.
@@ -83,24 +145,64 @@ public class SPIDManager {
    * @throws IllegalArgumentException If extractedPptxDir is null or does not exist
    */
   public SPIDManager(File extractedPptxDir) throws XMLParsingException {
+    this(extractedPptxDir, PartCache.shared());
+  }
+
+  /**
+   * Constructs a new SPIDManager that caches parsed slides in the given part cache.
+   * 
+   * @param extractedPptxDir The directory containing the extracted PPTX contents
+   * @param partCache The cache for parsed slide documents
+   * @throws XMLParsingException If the XML parser cannot be initialized or
+   *                           if existing slides cannot be scanned
+   * @throws IllegalArgumentException If extractedPptxDir is null or does not exist, or partCache is null
+   */
+  public SPIDManager(File extractedPptxDir, PartCache partCache) throws XMLParsingException {
+    this(extractedPptxDir, partCache, null);
+  }
+
+  /**
+   * Constructs a new SPIDManager for a freshly extracted package, taking the SPIDs of
+   * unchanged slides from a persistent index instead of scanning them. Scanned slides
+   * are recorded in the index.
+   * 
+   * @param extractedPptxDir The directory containing the extracted PPTX contents
+   * @param packageIndex The index opened for the package's part CRCs, may be null
+   * @throws XMLParsingException If the XML parser cannot be initialized or
+   *                           if existing slides cannot be scanned
+   * @throws IllegalArgumentException If extractedPptxDir is null or does not exist
+   */
+  public SPIDManager(File extractedPptxDir, PackageIndex packageIndex) throws XMLParsingException {
+    this(extractedPptxDir, PartCache.shared(), packageIndex);
+  }
+
+  private SPIDManager(File extractedPptxDir, PartCache partCache, PackageIndex packageIndex)
+      throws XMLParsingException {
     if (extractedPptxDir == null || !extractedPptxDir.exists()) {
       throw new IllegalArgumentException("extractedPptxDir must exist and be non-null");
     }
+    if (partCache == null) {
+      throw new IllegalArgumentException("partCache cannot be null");
+    }
 
     this.extractedPptxDir = extractedPptxDir;
-    this.globalSpidRegistry = new ConcurrentHashMap<>();
-    this.slideDocumentCache = new ConcurrentHashMap<>();
-    this.nextSpidCounter = new AtomicInteger(1);
+    this.globalSpidRegistry = new SpidRegistry();
+    this.partCache = partCache;
+    this.spidScanner = new SlideSpidScanner();
+    this.packageIndex = packageIndex;
+    this.validatedSlides = new HashMap<>();
+    this.spidOccurrences = new HashMap<>();
+    this.duplicateSpids = new TreeSet<>();
+    this.modifiedSlides = ConcurrentHashMap.newKeySet();
+    this.nextSpidCounter = new AtomicInteger(ROOT_SPID + 1);
+    this.threadSpidBlocks = new ThreadLocal<>();
+    this.freeSpidBlocks = new ConcurrentLinkedQueue<>();
 
     try {
       DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
       factory.setNamespaceAware(true);
       this.documentBuilder = factory.newDocumentBuilder();
 
-      XPathFactory xpathFactory = XPathFactory.newInstance();
-      this.xpath = xpathFactory.newXPath();
-      this.xpath.setNamespaceContext(XMLConstants.createNamespaceContext());
-
       // Scan all existing slides to build global SPID registry
       scanAllSlidesForSpids();
 
@@ -114,11 +216,15 @@ public class SPIDManager {
    * 
    * <p>This method is essential for slide copying operations. It parses all shapes
    * in the slide, generates new unique SPIDs, updates the shape references, and
-   * updates any animation references that target those shapes.</p>
+   * updates every attribute referring to those shapes, as recorded by a
+   * {@link ShapeReferenceGraph}: animation targets, build list entries and connector
+   * end points. Placeholder shapes
+   * found on the way are collected into a {@link PlaceholderIndex} over the document,
+   * so a copied slide can be retitled without scanning its shapes again.</p>
    * 
    * @param slideDocument The slide document to regenerate SPIDs for
    * @param slideNumber The slide number for logging and reference purposes
-   * @return SPIDRegenerationResult containing old-to-new SPID mappings and statistics
+   * @return SPIDRegenerationResult containing old-to-new SPID mappings, statistics and the placeholder index
    * @throws XMLParsingException If SPID regeneration fails
    * @throws IllegalArgumentException If slideDocument is null
    */
@@ -128,51 +234,29 @@ public class SPIDManager {
     }
 
     try {
-      Map<Integer, Integer> spidMappings = new HashMap<>();
-      int shapesProcessed = 0;
-      int animationsUpdated = 0;
-
-      // Step 1: Find all shapes in the slide and collect their current SPIDs
-      NodeList shapeElements = (NodeList) xpath.evaluate(
-          XMLConstants.XPATH_ALL_SHAPES_AND_PICTURES, slideDocument, XPathConstants.NODESET);
-
-      List<Element> shapesToUpdate = new ArrayList<>();
-      List<Integer> currentSpids = new ArrayList<>();
-
-      for (int i = 0; i < shapeElements.getLength(); i++) {
-        Element shapeElement = (Element) shapeElements.item(i);
-        String spidStr = (String) xpath.evaluate(
-            XMLConstants.XPATH_SHAPE_ID_ATTRIBUTE, shapeElement, XPathConstants.STRING);
-
-        if (!spidStr.isEmpty()) {
-          int currentSpid = Integer.parseInt(spidStr);
-          currentSpids.add(currentSpid);
-          shapesToUpdate.add(shapeElement);
-        }
-      }
+      // Step 1: Find all shapes and every attribute referencing a shape ID in one walk
+      ShapeReferenceGraph graph = ShapeReferenceGraph.build(slideDocument);
+      IntIntMap spidMappings = new IntIntMap(graph.getShapeCount());
+      PlaceholderIndex placeholders = new PlaceholderIndex();
 
       // Step 2: Generate new unique SPIDs for all shapes
-      for (int i = 0; i < currentSpids.size(); i++) {
-        int oldSpid = currentSpids.get(i);
+      for (int i = 0; i < graph.getShapeCount(); i++) {
+        placeholders.add(graph.getShape(i));
+        Element cNvPr = graph.getShapeProperties(i);
+        int oldSpid = graph.getShapeSpid(i);
         int newSpid = allocateUniqueSpid();
         spidMappings.put(oldSpid, newSpid);
-
-        // Update the shape's SPID in the XML
-        Element shapeElement = shapesToUpdate.get(i);
-        Element cNvPr = (Element) xpath.evaluate(".//p:cNvPr", shapeElement, XPathConstants.NODE);
-        if (cNvPr != null) {
-          cNvPr.setAttribute("id", String.valueOf(newSpid));
-          shapesProcessed++;
-        }
+        cNvPr.setAttribute("id", String.valueOf(newSpid));
 
         // Register the new SPID in our global registry
-        registerSpid(newSpid, slideNumber, "regenerated_shape_" + newSpid);
+        registerSpid(newSpid, slideNumber, !cNvPr.getAttribute("name").isEmpty()
+            ? cNvPr.getAttribute("name") : "regenerated_shape");
       }
 
-      // Step 3: Update animation references to point to new SPIDs
-      animationsUpdated = updateAnimationReferences(slideDocument, spidMappings);
+      // Step 3: Point animation targets, build list entries and connectors at the new SPIDs
+      int referencesUpdated = graph.remapReferences(spidMappings);
 
-      return new SPIDRegenerationResult(spidMappings, shapesProcessed, animationsUpdated);
+      return new SPIDRegenerationResult(spidMappings, graph.getShapeCount(), referencesUpdated, placeholders);
 
     } catch (Exception e) {
       throw new XMLParsingException("Failed to regenerate SPIDs for slide " + slideNumber, e);
@@ -183,34 +267,125 @@ public class SPIDManager {
    * Allocates a unique SPID that is guaranteed not to conflict with any
    * existing SPIDs in the presentation.
    * 
+   * <p>The SPID comes from the calling thread's block of {@link #THREAD_SPID_BLOCK_SIZE}
+   * reserved SPIDs, found with a next-clear-bit scan of the registry inside the block.
+   * Only claiming a new block touches shared state; the unused tail of a thread's block
+   * can be handed back with {@link #releaseThreadSpidBlock()}.</p>
+   * 
    * @return A unique SPID (Shape ID)
    */
   public int allocateUniqueSpid() {
-    int candidateSpid;
-    do {
-      candidateSpid = nextSpidCounter.getAndIncrement();
-    } while (globalSpidRegistry.containsKey(candidateSpid));
+    SpidBlock block = threadSpidBlocks.get();
+    while (true) {
+      if (block == null || !block.hasNext()) {
+        block = claimSpidBlock(THREAD_SPID_BLOCK_SIZE);
+        threadSpidBlocks.set(block);
+      }
 
-    return candidateSpid;
+      int spid = globalSpidRegistry.nextFree(block.peek());
+      if (spid < block.getEnd()) {
+        block.skipTo(spid + 1);
+        return spid;
+      }
+      block.skipTo(block.getEnd());
+    }
   }
 
   /**
-   * Allocates multiple unique SPIDs in a single operation.
+   * Allocates a contiguous range of unique SPIDs in a single operation.
+   * 
+   * <p>The range is taken from the calling thread's block when it has room and the
+   * SPIDs there are free; otherwise a free run is reserved directly from the shared
+   * counter, so the thread's block is left intact.</p>
    * 
    * @param count The number of SPIDs to allocate
-   * @return A list of unique SPIDs
+   * @return A SpidRange of count consecutive SPIDs
    * @throws IllegalArgumentException If count is less than 1
    */
-  public List<Integer> allocateUniqueSpids(int count) {
+  public SpidRange allocateUniqueSpids(int count) {
     if (count < 1) {
       throw new IllegalArgumentException("count must be positive");
     }
 
-    List<Integer> allocatedSpids = new ArrayList<>();
-    for (int i = 0; i < count; i++) {
-      allocatedSpids.add(allocateUniqueSpid());
+    SpidBlock block = threadSpidBlocks.get();
+    if (block != null && block.remaining() >= count) {
+      int first = globalSpidRegistry.nextFree(block.peek());
+      if (first <= block.getEnd() - count && isRangeFree(first, count)) {
+        block.skipTo(first + count);
+        return new SpidRange(first, first + count);
+      }
     }
-    return allocatedSpids;
+
+    int first = reserveFreeRange(count);
+    return new SpidRange(first, first + count);
+  }
+
+  /**
+   * Returns the unused tail of the calling thread's SPID block to the free list, e.g.
+   * when a worker thread is about to finish. The next allocation on this thread claims
+   * a new block.
+   */
+  public void releaseThreadSpidBlock() {
+    SpidBlock block = threadSpidBlocks.get();
+    threadSpidBlocks.remove();
+    if (block != null && block.hasNext()) {
+      freeSpidBlocks.add(block);
+    }
+  }
+
+  /**
+   * Reserves a contiguous block of SPIDs for exclusive use by one writer.
+   * 
+   * <p>The block is claimed with a single successful atomic operation on the shared
+   * counter, starting at the first unregistered SPID at or after it, so writers on
+   * different slides or threads can hand out IDs from their own block without
+   * contending on the counter. IDs in the block are not registered until they are used.</p>
+   * 
+   * @param blockSize The number of SPIDs to reserve
+   * @return A SpidBlock covering the reserved range
+   * @throws IllegalArgumentException If blockSize is less than 1
+   */
+  public SpidBlock reserveSpidBlock(int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("blockSize must be positive");
+    }
+
+    while (true) {
+      int counter = nextSpidCounter.get();
+      int start = globalSpidRegistry.nextFree(counter);
+      if (nextSpidCounter.compareAndSet(counter, start + blockSize)) {
+        return new SpidBlock(start, start + blockSize);
+      }
+    }
+  }
+
+  /**
+   * Creates a SPID allocator for a writer editing the given slide.
+   * 
+   * <p>The allocator draws SPIDs from blocks of {@link #DEFAULT_SPID_BLOCK_SIZE} reserved
+   * via {@link #reserveSpidBlock(int)} and registers each SPID it hands out against the
+   * slide. One allocator should be created per writer.</p>
+   * 
+   * @param slideNumber The slide number that allocated SPIDs are registered against
+   * @return A new block-backed SpidAllocator
+   */
+  public SpidAllocator createBlockAllocator(int slideNumber) {
+    return createBlockAllocator(slideNumber, DEFAULT_SPID_BLOCK_SIZE);
+  }
+
+  /**
+   * Creates a SPID allocator for a writer editing the given slide, with a custom block size.
+   * 
+   * @param slideNumber The slide number that allocated SPIDs are registered against
+   * @param blockSize The number of SPIDs reserved each time the current block runs out
+   * @return A new block-backed SpidAllocator
+   * @throws IllegalArgumentException If blockSize is less than 1
+   */
+  public SpidAllocator createBlockAllocator(int slideNumber, int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("blockSize must be positive");
+    }
+    return new BlockSpidAllocator(slideNumber, blockSize);
   }
 
   /**
@@ -219,9 +394,10 @@ public class SPIDManager {
    * @param spid The Shape ID to register
    * @param slideNumber The slide number containing this shape
    * @param shapeName The name of the shape (for debugging/logging)
+   * @throws IllegalArgumentException If spid is negative
    */
   public void registerSpid(int spid, int slideNumber, String shapeName) {
-    globalSpidRegistry.put(spid, new SPIDInfo(slideNumber, shapeName));
+    globalSpidRegistry.register(spid, slideNumber, shapeName);
   }
 
   /**
@@ -231,7 +407,88 @@ public class SPIDManager {
    * @return true if the SPID was found and removed, false otherwise
    */
   public boolean unregisterSpid(int spid) {
-    return globalSpidRegistry.remove(spid) != null;
+    return globalSpidRegistry.unregister(spid);
+  }
+
+  /**
+   * Unregisters every SPID of a slide, e.g. after the slide has been deleted.
+   *
+   * @param slideNumber The slide number whose SPIDs should be released
+   * @return The number of SPIDs released
+   */
+  public int releaseSlide(int slideNumber) {
+    int released = globalSpidRegistry.releaseSlide(slideNumber).length;
+    partCache.invalidate(getSlideFile(slideNumber));
+    return released;
+  }
+
+  /**
+   * Moves registered SPIDs to new slide numbers after slide parts have been renamed.
+   * 
+   * <p>Only the SPIDs of the renumbered slides are visited, through the per-slide index.
+   * Must not run concurrently with registrations on those slides.</p>
+   * 
+   * @param slideNumberMapping Old slide number to new slide number; unmapped slides are unchanged
+   */
+  public void renumberSlides(Map<Integer, Integer> slideNumberMapping) {
+    globalSpidRegistry.renumberSlides(slideNumberMapping);
+
+    // A rename keeps the modification time, so cached parses of either path cannot be trusted
+    for (Map.Entry<Integer, Integer> entry : slideNumberMapping.entrySet()) {
+      partCache.invalidate(getSlideFile(entry.getKey()));
+      partCache.invalidate(getSlideFile(entry.getValue()));
+    }
+
+    // Renamed files keep their content, so their validation baseline moves with them
+    synchronized (validationLock) {
+      renumberCache(validatedSlides, slideNumberMapping);
+    }
+    Map<Integer, Boolean> marks = new HashMap<>();
+    for (Map.Entry<Integer, Integer> entry : slideNumberMapping.entrySet()) {
+      if (modifiedSlides.remove(entry.getKey())) {
+        marks.put(entry.getValue(), Boolean.TRUE);
+      }
+    }
+    modifiedSlides.addAll(marks.keySet());
+  }
+
+  /**
+   * Records that a slide file was written: its cached parse is dropped and the next
+   * incremental validation re-parses it. Must be called after every write of a slide file
+   * made outside this manager.
+   * 
+   * @param slideNumber The slide number (part number) that was written
+   */
+  public void markSlideModified(int slideNumber) {
+    partCache.invalidate(getSlideFile(slideNumber));
+    modifiedSlides.add(slideNumber);
+  }
+
+  /**
+   * Gets the placeholder index of a slide's current file.
+   * 
+   * <p>The SPID scan records which shapes of a slide are placeholders, so a slide without
+   * any gets an empty index without being parsed. Otherwise the first call parses the slide
+   * into a DOM, once, and looks the recorded SPIDs up among its shapes; the index then
+   * refers to that cached, read-only parse until the file changes. A slide written since
+   * it was scanned or validated has no record, and all its shapes are checked for a p:ph.
+   * To edit placeholders, use the index returned by {@link #regenerateSpids(Document, int)}
+   * or build one over the document being written.</p>
+   * 
+   * @param slideNumber The slide number to look up
+   * @return The slide's PlaceholderIndex, or null if the slide does not exist
+   * @throws XMLParsingException If the slide cannot be parsed
+   */
+  public PlaceholderIndex getPlaceholderIndex(int slideNumber) throws XMLParsingException {
+    File slideFile = getSlideFile(slideNumber);
+    if (!slideFile.exists()) {
+      return null;
+    }
+    int[] placeholderSpids = getScannedPlaceholderSpids(slideNumber, slideFile);
+    if (placeholderSpids != null && placeholderSpids.length == 0) {
+      return new PlaceholderIndex();
+    }
+    return getParsedSlide(slideFile, placeholderSpids).placeholders;
   }
 
   /**
@@ -241,7 +498,7 @@ public class SPIDManager {
    * @return true if the SPID is in use, false otherwise
    */
   public boolean isSpidInUse(int spid) {
-    return globalSpidRegistry.containsKey(spid);
+    return globalSpidRegistry.contains(spid);
   }
 
   /**
@@ -251,97 +508,186 @@ public class SPIDManager {
    * @return SPIDInfo containing slide number and shape name, or null if not found
    */
   public SPIDInfo getSpidInfo(int spid) {
-    return globalSpidRegistry.get(spid);
+    int slideNumber = globalSpidRegistry.getSlideNumber(spid);
+    return slideNumber != SpidRegistry.NO_SLIDE
+      ? new SPIDInfo(slideNumber, globalSpidRegistry.getShapeName(spid)) : null;
   }
 
   /**
    * Gets all SPIDs currently in use across the presentation.
    * 
-   * @return An unmodifiable set of all SPIDs
+   * @return An unmodifiable live view of all SPIDs, in ascending order
    */
   public Set<Integer> getAllSpids() {
-    return Collections.unmodifiableSet(globalSpidRegistry.keySet());
+    return globalSpidRegistry.asSet();
   }
 
   /**
    * Gets all SPIDs for a specific slide.
    * 
+   * <p>Answered from the per-slide index in O(shapes on the slide).</p>
+   * 
    * @param slideNumber The slide number to get SPIDs for
    * @return A set of SPIDs used in the specified slide
    */
   public Set<Integer> getSpidsForSlide(int slideNumber) {
-    return globalSpidRegistry.entrySet().stream()
-      .filter(entry -> entry.getValue().getSlideNumber() == slideNumber)
-      .map(Map.Entry::getKey)
-      .collect(java.util.stream.Collectors.toSet());
+    int[] spids = globalSpidRegistry.getSlideSpids(slideNumber);
+    Set<Integer> result = new HashSet<>(Math.max(16, spids.length * 2));
+    for (int spid : spids) {
+      result.add(spid);
+    }
+    return result;
   }
 
   /**
-   * Validates that all SPIDs in the presentation are unique and consistent.
+   * Gets the number of SPIDs registered for a specific slide.
+   * 
+   * @param slideNumber The slide number to count SPIDs for
+   * @return The number of SPIDs used in the specified slide
+   */
+  public int getSpidCountForSlide(int slideNumber) {
+    return globalSpidRegistry.countSlideSpids(slideNumber);
+  }
+
+  /**
+   * Validates that all SPIDs in the presentation are unique and consistent, re-parsing
+   * every slide (a full audit).
    * 
    * @return ValidationResult containing any detected SPID conflicts or issues
    * @throws XMLParsingException If validation cannot be performed
    */
   public ValidationResult validateSpidUniqueness() throws XMLParsingException {
+    return validateSpidUniqueness(ValidationMode.FULL_AUDIT);
+  }
+
+  /**
+   * Validates that all SPIDs in the presentation are unique and consistent.
+   * 
+   * <p>{@link ValidationMode#FULL_AUDIT} re-parses every slide and checks the whole
+   * registry. {@link ValidationMode#INCREMENTAL} only re-parses slides that were marked
+   * via {@link #markSlideModified(int)}, added, or changed in size or modification time
+   * since they were last parsed (by the initial scan or a previous validation). It reports
+   * every duplicate in the deck, but registry consistency warnings only for the slides it
+   * re-parsed. Both modes update the baseline used by the next incremental validation.</p>
+   * 
+   * @param mode The validation mode
+   * @return ValidationResult containing any detected SPID conflicts or issues
+   * @throws XMLParsingException If validation cannot be performed
+   * @throws IllegalArgumentException If mode is null
+   */
+  public ValidationResult validateSpidUniqueness(ValidationMode mode) throws XMLParsingException {
+    if (mode == null) {
+      throw new IllegalArgumentException("mode cannot be null");
+    }
+
     List<String> errors = new ArrayList<>();
     List<String> warnings = new ArrayList<>();
 
     try {
-      // Re-scan all slides and compare with our registry
-      Map<Integer, Integer> actualSpidCounts = new HashMap<>();
+      synchronized (validationLock) {
+        Map<Integer, File> slideFiles = listSlideFiles();
+        Set<Integer> marked = new HashSet<>(modifiedSlides);
+        modifiedSlides.removeAll(marked);
+
+        // Drop the baseline of slides whose files are gone
+        for (Integer slideNumber : new ArrayList<>(validatedSlides.keySet())) {
+          if (!slideFiles.containsKey(slideNumber)) {
+            forgetValidatedSlide(slideNumber);
+          }
+        }
 
-      File slidesDir = new File(extractedPptxDir, "ppt/slides");
-      File[] slideFiles = slidesDir.listFiles((dir, name) -> name.matches("slide\\d+\\.xml"));
+        int slidesParsed = 0;
+        for (Map.Entry<Integer, File> entry : slideFiles.entrySet()) {
+          int slideNumber = entry.getKey();
+          File slideFile = entry.getValue();
+          BasicFileAttributes attributes = Files.readAttributes(slideFile.toPath(), BasicFileAttributes.class);
+          ValidatedSlide baseline = validatedSlides.get(slideNumber);
 
-      if (slideFiles != null) {
-        for (File slideFile : slideFiles) {
-          Document slideDoc = documentBuilder.parse(slideFile);
-          NodeList shapes = (NodeList) xpath.evaluate(
-              XMLConstants.XPATH_ALL_SHAPES_AND_PICTURES, slideDoc, XPathConstants.NODESET);
+          if (mode == ValidationMode.INCREMENTAL && baseline != null && !marked.contains(slideNumber)
+              && baseline.matches(attributes)) {
+            continue;
+          }
 
-          for (int i = 0; i < shapes.getLength(); i++) {
-            Element shape = (Element) shapes.item(i);
-            String spidStr = (String) xpath.evaluate(
-                XMLConstants.XPATH_SHAPE_ID_ATTRIBUTE, shape, XPathConstants.STRING);
+          ScannedSpids scanned = scanSpids(slideFile, slideNumber, false);
+          int[] spids = scanned.getSpids();
+          recordValidatedSlide(slideNumber, attributes, scanned);
+          slidesParsed++;
+          checkAnimationTargets(slideNumber, scanned, warnings);
 
-            if (!spidStr.isEmpty()) {
-              int spid = Integer.parseInt(spidStr);
-              actualSpidCounts.put(spid, actualSpidCounts.getOrDefault(spid, 0) + 1);
-            }
+          if (mode == ValidationMode.INCREMENTAL) {
+            checkSlideAgainstRegistry(slideNumber, spids, warnings);
           }
         }
-      }
 
-      // Check for duplicates
-      for (Map.Entry<Integer, Integer> entry : actualSpidCounts.entrySet()) {
-        if (entry.getValue() > 1) {
-          errors.add("Duplicate SPID detected: " + entry.getKey() + 
-              " appears " + entry.getValue() + " times");
+        // Check for duplicates
+        for (Integer spid : duplicateSpids) {
+          errors.add("Duplicate SPID detected: " + spid + 
+              " appears " + spidOccurrences.get(spid) + " times");
         }
-      }
 
-      // Check registry consistency
-      for (Integer spid : globalSpidRegistry.keySet()) {
-        if (!actualSpidCounts.containsKey(spid)) {
-          warnings.add("SPID " + spid + " is registered but not found in slides");
-        }
-      }
+        // Check registry consistency
+        if (mode == ValidationMode.FULL_AUDIT) {
+          for (Integer spid : globalSpidRegistry.asSet()) {
+            if (!spidOccurrences.containsKey(spid)) {
+              warnings.add("SPID " + spid + " is registered but not found in slides");
+            }
+          }
 
-      for (Integer spid : actualSpidCounts.keySet()) {
-        if (!globalSpidRegistry.containsKey(spid)) {
-          warnings.add("SPID " + spid + " found in slides but not registered");
+          for (Integer spid : spidOccurrences.keySet()) {
+            if (!globalSpidRegistry.contains(spid)) {
+              warnings.add("SPID " + spid + " found in slides but not registered");
+            }
+          }
         }
+
+        return new ValidationResult(errors, warnings, slidesParsed);
       }
 
     } catch (Exception e) {
       throw new XMLParsingException("Failed to validate SPID uniqueness", e);
     }
-
-    return new ValidationResult(errors, warnings);
   }
 
   // ========== PRIVATE HELPER METHODS ==========
 
+  /**
+   * Takes a released block tail from the free list, or reserves a new block.
+   */
+  private SpidBlock claimSpidBlock(int blockSize) {
+    SpidBlock released = freeSpidBlocks.poll();
+    return released != null ? released : reserveSpidBlock(blockSize);
+  }
+
+  /**
+   * Reserves a run of count unregistered SPIDs from the shared counter, skipping
+   * registered SPIDs ahead of the counter.
+   */
+  private int reserveFreeRange(int count) {
+    while (true) {
+      int counter = nextSpidCounter.get();
+      int first = globalSpidRegistry.nextFree(counter);
+      int registered = globalSpidRegistry.nextRegistered(first);
+      while (registered >= 0 && registered - first < count) {
+        first = globalSpidRegistry.nextFree(registered);
+        registered = globalSpidRegistry.nextRegistered(first);
+      }
+      if (first > Integer.MAX_VALUE - count) {
+        throw new IllegalStateException("No free range of " + count + " SPIDs");
+      }
+      if (nextSpidCounter.compareAndSet(counter, first + count)) {
+        return first;
+      }
+    }
+  }
+
+  /**
+   * Checks that no SPID in [first, first + count) is registered.
+   */
+  private boolean isRangeFree(int first, int count) {
+    int registered = globalSpidRegistry.nextRegistered(first);
+    return registered < 0 || registered - first >= count;
+  }
+
   /**
    * Scans all slides in the presentation to build the global SPID registry.
    */
@@ -372,72 +718,215 @@ public class SPIDManager {
 
   /**
    * Scans a single slide file for SPIDs and registers them.
+   * 
+   * <p>The slide is streamed rather than parsed into a DOM. The SPIDs of its placeholders
+   * are kept with the validation baseline; the document and placeholder index are only
+   * built if they are asked for later, through the part cache.</p>
    */
   private void scanSlideForSpids(File slideFile, int slideNumber) throws XMLParsingException {
     try {
-      Document slideDoc = documentBuilder.parse(slideFile);
-      slideDocumentCache.put(slideNumber, slideDoc);
+      // Attributes are read first, so a write during the scan makes the baseline stale
+      BasicFileAttributes attributes = Files.readAttributes(slideFile.toPath(), BasicFileAttributes.class);
+
+      // Unchanged slides are registered from the persistent index without reading them
+      ScannedSpids scanned = new ScannedSpids(this, slideNumber);
+      String partName = PackageIndex.partName(extractedPptxDir, slideFile);
+      if (packageIndex == null || !packageIndex.replaySlide(partName, scanned)) {
+        scanned = scanSpids(slideFile, slideNumber, true);
+        if (packageIndex != null) {
+          packageIndex.recordSlide(partName, scanned.getSpids(), scanned.getNames(),
+              scanned.getPlaceholderSpids(), scanned.getPlaceholderTypes(), scanned.getPlaceholderIdx());
+        }
+      }
 
-      NodeList shapeElements = (NodeList) xpath.evaluate(
-          XMLConstants.XPATH_ALL_SHAPES_AND_PICTURES, slideDoc, XPathConstants.NODESET);
+      // The scan doubles as the first validation pass for incremental validation
+      synchronized (validationLock) {
+        recordValidatedSlide(slideNumber, attributes, scanned);
+      }
+
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to scan slide " + slideNumber + " for SPIDs", e);
+    }
+  }
+
+  /**
+   * Updates the SPID counter based on existing SPIDs to avoid conflicts.
+   */
+  private void updateSpidCounter() {
+    nextSpidCounter.set(Math.max(globalSpidRegistry.highest(), ROOT_SPID) + 1);
+  }
 
-      for (int i = 0; i < shapeElements.getLength(); i++) {
-        Element shapeElement = (Element) shapeElements.item(i);
+  /**
+   * Gets the part file of a slide number, which may not exist.
+   */
+  private File getSlideFile(int slideNumber) {
+    return new File(extractedPptxDir, "ppt/slides/slide" + slideNumber + ".xml");
+  }
 
-        String spidStr = (String) xpath.evaluate(
-            XMLConstants.XPATH_SHAPE_ID_ATTRIBUTE, shapeElement, XPathConstants.STRING);
-        String shapeName = (String) xpath.evaluate(
-            XMLConstants.XPATH_SHAPE_NAME_ATTRIBUTE, shapeElement, XPathConstants.STRING);
+  /**
+   * Gets the placeholder SPIDs recorded when a slide was last scanned or validated, or null
+   * if the file has been marked or changed since.
+   */
+  private int[] getScannedPlaceholderSpids(int slideNumber, File slideFile) throws XMLParsingException {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(slideFile.toPath(), BasicFileAttributes.class);
+      synchronized (validationLock) {
+        ValidatedSlide baseline = validatedSlides.get(slideNumber);
+        return baseline != null && !modifiedSlides.contains(slideNumber) && baseline.matches(attributes)
+          ? baseline.placeholderSpids : null;
+      }
+    } catch (IOException e) {
+      throw new XMLParsingException("Failed to read slide: " + slideFile.getName(), e);
+    }
+  }
 
-        if (!spidStr.isEmpty()) {
-          int spid = Integer.parseInt(spidStr);
-          registerSpid(spid, slideNumber, shapeName.isEmpty() ? "unnamed_shape" : shapeName);
+  /**
+   * Gets the cached parse of a slide file, parsing and indexing it on a miss.
+   *
+   * @param placeholderSpids Sorted SPIDs of the slide's placeholders, or null to check every shape
+   */
+  private ParsedSlide getParsedSlide(File slideFile, int[] placeholderSpids) throws XMLParsingException {
+    return partCache.get(slideFile, ParsedSlide.class, file -> {
+      Document slideDoc = parseSlideFile(file);
+      PlaceholderIndex placeholders = new PlaceholderIndex();
+      NodeList cNvPrs = slideDoc.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "cNvPr");
+      for (int i = 0; i < cNvPrs.getLength(); i++) {
+        Element cNvPr = (Element) cNvPrs.item(i);
+        Node shape = cNvPr.getParentNode().getParentNode();
+        if (!(shape instanceof Element) || "spTree".equals(shape.getLocalName())) {
+          continue;
+        }
+        if (placeholderSpids == null || isPlaceholderSpid(cNvPr, placeholderSpids)) {
+          placeholders.add((Element) shape);
         }
       }
+      return new ParsedSlide(slideDoc, placeholders);
+    });
+  }
 
-    } catch (Exception e) {
-      throw new XMLParsingException("Failed to scan slide " + slideNumber + " for SPIDs", e);
+  private static boolean isPlaceholderSpid(Element cNvPr, int[] placeholderSpids) {
+    try {
+      return Arrays.binarySearch(placeholderSpids, Integer.parseInt(cNvPr.getAttribute("id").trim())) >= 0;
+    } catch (NumberFormatException e) {
+      return false;
     }
   }
 
   /**
-   * Updates animation references to use new SPIDs after regeneration.
+   * Parses a slide file; the shared DocumentBuilder is not thread-safe.
    */
-  private int updateAnimationReferences(Document slideDocument, Map<Integer, Integer> spidMappings) 
-      throws XPathExpressionException {
-      int animationsUpdated = 0;
+  private Document parseSlideFile(File slideFile) throws SAXException, IOException {
+    synchronized (documentBuilder) {
+      return documentBuilder.parse(slideFile);
+    }
+  }
 
-      // Find all animation target elements that reference SPIDs
-      NodeList animationTargets = (NodeList) xpath.evaluate(
-          "//p:spTgt[@spid]", slideDocument, XPathConstants.NODESET);
+  /**
+   * Lists the slide part files by slide number.
+   */
+  private Map<Integer, File> listSlideFiles() {
+    Map<Integer, File> slideFiles = new TreeMap<>();
+    File[] files = new File(extractedPptxDir, "ppt/slides").listFiles((dir, name) -> name.matches("slide\\d+\\.xml"));
+    if (files != null) {
+      for (File file : files) {
+        slideFiles.put(extractSlideNumberFromFileName(file.getName()), file);
+      }
+    }
+    return slideFiles;
+  }
+
+  /**
+   * Streams the SPIDs and animation targets of a slide file, optionally registering its shapes.
+   */
+  private ScannedSpids scanSpids(File slideFile, int slideNumber, boolean register) throws XMLParsingException {
+    ScannedSpids scanned = new ScannedSpids(register ? this : null, slideNumber);
+    spidScanner.scan(slideFile, scanned);
+    return scanned;
+  }
 
-      for (int i = 0; i < animationTargets.getLength(); i++) {
-        Element target = (Element) animationTargets.item(i);
-        String oldSpidStr = target.getAttribute("spid");
+  /**
+   * Reports animation targets of a slide that are not shapes on that slide.
+   */
+  private void checkAnimationTargets(int slideNumber, ScannedSpids scanned, List<String> warnings) {
+    int[] targets = scanned.getAnimationTargets();
+    if (targets.length == 0) {
+      return;
+    }
+    int[] spids = scanned.getSpids();
+    Arrays.sort(spids);
+    for (int target : targets) {
+      if (Arrays.binarySearch(spids, target) < 0) {
+        warnings.add("Slide " + slideNumber + " animates SPID " + target + ", which is not on the slide");
+      }
+    }
+  }
 
-        if (!oldSpidStr.isEmpty()) {
-          int oldSpid = Integer.parseInt(oldSpidStr);
-          Integer newSpid = spidMappings.get(oldSpid);
+  /**
+   * Replaces a slide's validation baseline, updating occurrence counts and duplicates.
+   * Called with validationLock held.
+   */
+  private void recordValidatedSlide(int slideNumber, BasicFileAttributes attributes, ScannedSpids scanned) {
+    forgetValidatedSlide(slideNumber);
+    int[] placeholderSpids = scanned.getPlaceholderSpids();
+    Arrays.sort(placeholderSpids);
+    validatedSlides.put(slideNumber, new ValidatedSlide(attributes, scanned.getSpids(), placeholderSpids));
+    for (int spid : scanned.getSpids()) {
+      if (spidOccurrences.merge(spid, 1, Integer::sum) > 1) {
+        duplicateSpids.add(spid);
+      }
+    }
+  }
 
-          if (newSpid != null) {
-            target.setAttribute("spid", String.valueOf(newSpid));
-            animationsUpdated++;
-          }
-        }
+  /**
+   * Removes a slide's validation baseline, updating occurrence counts and duplicates.
+   * Called with validationLock held.
+   */
+  private void forgetValidatedSlide(int slideNumber) {
+    ValidatedSlide baseline = validatedSlides.remove(slideNumber);
+    if (baseline == null) {
+      return;
+    }
+    for (int spid : baseline.spids) {
+      Integer remaining = spidOccurrences.merge(spid, -1, Integer::sum);
+      if (remaining <= 0) {
+        spidOccurrences.remove(spid);
+      }
+      if (remaining <= 1) {
+        duplicateSpids.remove(spid);
       }
+    }
+  }
 
-      return animationsUpdated;
+  /**
+   * Reports differences between the SPIDs found in one slide and those registered for it.
+   */
+  private void checkSlideAgainstRegistry(int slideNumber, int[] spids, List<String> warnings) {
+    Set<Integer> found = new HashSet<>();
+    for (int spid : spids) {
+      found.add(spid);
+      if (!globalSpidRegistry.contains(spid)) {
+        warnings.add("SPID " + spid + " found in slides but not registered");
+      }
+    }
+    for (int spid : globalSpidRegistry.getSlideSpids(slideNumber)) {
+      if (!found.contains(spid)) {
+        warnings.add("SPID " + spid + " is registered but not found in slides");
+      }
+    }
   }
 
   /**
-   * Updates the SPID counter based on existing SPIDs to avoid conflicts.
+   * Moves per-slide cache entries to their new slide numbers, leaving unmapped slides in place.
    */
-  private void updateSpidCounter() {
-    int maxSpid = globalSpidRegistry.keySet().stream()
-      .mapToInt(Integer::intValue)
-      .max()
-      .orElse(0);
-    nextSpidCounter.set(maxSpid + 1);
+  private static <T> void renumberCache(Map<Integer, T> cache, Map<Integer, Integer> slideNumberMapping) {
+    Map<Integer, T> moved = new HashMap<>();
+    for (Map.Entry<Integer, Integer> entry : slideNumberMapping.entrySet()) {
+      T value = cache.remove(entry.getKey());
+      if (value != null) {
+        moved.put(entry.getValue(), value);
+      }
+    }
+    cache.putAll(moved);
   }
 
   /**
@@ -454,6 +943,84 @@ public class SPIDManager {
 
   // ========== INNER CLASSES ==========
 
+  /**
+   * Collects the SPIDs, placeholders and animation targets streamed from one slide,
+   * registering each shape with the manager when one is given.
+   */
+  private static class ScannedSpids implements SlideSpidScanner.Handler {
+    private final SPIDManager registrar;
+    private final int slideNumber;
+    private int[] spids = new int[16];
+    private String[] names = new String[16];
+    private int spidCount;
+    private int[] targets = new int[0];
+    private int targetCount;
+    private int[] placeholderSpids = new int[0];
+    private String[] placeholderTypes = new String[0];
+    private String[] placeholderIdx = new String[0];
+    private int placeholderCount;
+
+    ScannedSpids(SPIDManager registrar, int slideNumber) {
+      this.registrar = registrar;
+      this.slideNumber = slideNumber;
+    }
+
+    @Override
+    public void shape(int spid, String name) {
+      if (spidCount == spids.length) {
+        spids = Arrays.copyOf(spids, spidCount * 2);
+        names = Arrays.copyOf(names, spidCount * 2);
+      }
+      names[spidCount] = name;
+      spids[spidCount++] = spid;
+      if (registrar != null) {
+        registrar.registerSpid(spid, slideNumber, name.isEmpty() ? "unnamed_shape" : name);
+      }
+    }
+
+    @Override
+    public void animationTarget(int spid) {
+      if (targetCount == targets.length) {
+        targets = Arrays.copyOf(targets, Math.max(8, targetCount * 2));
+      }
+      targets[targetCount++] = spid;
+    }
+
+    @Override
+    public void placeholder(int spid, String type, String idx) {
+      if (placeholderCount == placeholderSpids.length) {
+        int capacity = Math.max(4, placeholderCount * 2);
+        placeholderSpids = Arrays.copyOf(placeholderSpids, capacity);
+        placeholderTypes = Arrays.copyOf(placeholderTypes, capacity);
+        placeholderIdx = Arrays.copyOf(placeholderIdx, capacity);
+      }
+      placeholderTypes[placeholderCount] = type;
+      placeholderIdx[placeholderCount] = idx;
+      placeholderSpids[placeholderCount++] = spid;
+    }
+
+    int[] getSpids() { return Arrays.copyOf(spids, spidCount); }
+    String[] getNames() { return Arrays.copyOf(names, spidCount); }
+    int[] getAnimationTargets() { return Arrays.copyOf(targets, targetCount); }
+    int[] getPlaceholderSpids() { return Arrays.copyOf(placeholderSpids, placeholderCount); }
+    String[] getPlaceholderTypes() { return Arrays.copyOf(placeholderTypes, placeholderCount); }
+    String[] getPlaceholderIdx() { return Arrays.copyOf(placeholderIdx, placeholderCount); }
+  }
+
+  /**
+   * A parsed slide document with the placeholder index over it, as held in the part cache.
+   * The document is shared and must not be modified.
+   */
+  private static class ParsedSlide {
+    private final Document document;
+    private final PlaceholderIndex placeholders;
+
+    ParsedSlide(Document document, PlaceholderIndex placeholders) {
+      this.document = document;
+      this.placeholders = placeholders;
+    }
+  }
+
   /**
    * Contains information about a specific SPID.
    */
@@ -475,30 +1042,223 @@ public class SPIDManager {
     }
   }
 
+  /**
+   * A contiguous range of reserved SPIDs, consumed by a single owner without synchronization.
+   */
+  public static class SpidBlock {
+    private final int end;
+    private int cursor;
+
+    public SpidBlock(int start, int end) {
+      this.cursor = start;
+      this.end = end;
+    }
+
+    public boolean hasNext() { return cursor < end; }
+    public int remaining() { return end - cursor; }
+    public int peek() { return cursor; }
+    public int getEnd() { return end; }
+
+    /**
+     * Skips ahead so the next SPID handed out is at least spid; never moves backwards or past the end.
+     */
+    public void skipTo(int spid) {
+      cursor = Math.max(cursor, Math.min(spid, end));
+    }
+
+    public int next() {
+      if (cursor >= end) {
+        throw new NoSuchElementException("SPID block exhausted");
+      }
+      return cursor++;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("SpidBlock{next=%d, end=%d}", cursor, end);
+    }
+  }
+
+  /**
+   * A contiguous, immutable range of allocated SPIDs [first, end), stored as its bounds
+   * rather than as boxed elements.
+   */
+  public static class SpidRange {
+    private final int first;
+    private final int end;
+
+    public SpidRange(int first, int end) {
+      if (end < first) {
+        throw new IllegalArgumentException("end must not be below first");
+      }
+      this.first = first;
+      this.end = end;
+    }
+
+    public int getFirst() { return first; }
+    public int getEnd() { return end; }
+    public int size() { return end - first; }
+    public boolean contains(int spid) { return spid >= first && spid < end; }
+
+    /**
+     * Gets the SPID at an offset into the range.
+     *
+     * @throws IndexOutOfBoundsException If index is not in [0, size())
+     */
+    public int get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("index " + index + " outside range of " + size());
+      }
+      return first + index;
+    }
+
+    public int[] toArray() {
+      int[] spids = new int[size()];
+      for (int i = 0; i < spids.length; i++) {
+        spids[i] = first + i;
+      }
+      return spids;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("SpidRange{first=%d, end=%d}", first, end);
+    }
+  }
+
+  /**
+   * SpidAllocator handing out SPIDs from blocks reserved from this manager.
+   * SPIDs already registered (e.g. by an explicit registerSpid call) are skipped.
+   */
+  private class BlockSpidAllocator implements SpidAllocator {
+    private final int slideNumber;
+    private final int blockSize;
+    private SpidBlock block;
+
+    BlockSpidAllocator(int slideNumber, int blockSize) {
+      this.slideNumber = slideNumber;
+      this.blockSize = blockSize;
+    }
+
+    @Override
+    public int allocateSpid(String shapeName) {
+      int spid;
+      do {
+        if (block == null || !block.hasNext()) {
+          block = claimSpidBlock(blockSize);
+        }
+        spid = block.next();
+      } while (isSpidInUse(spid));
+
+      registerSpid(spid, slideNumber, shapeName);
+      return spid;
+    }
+
+    @Override
+    public void release() {
+      if (block != null && block.hasNext()) {
+        freeSpidBlocks.add(block);
+      }
+      block = null;
+    }
+
+    @Override
+    public void revoke(int spid) {
+      if (unregisterSpid(spid)) {
+        freeSpidBlocks.add(new SpidBlock(spid, spid + 1));
+      }
+    }
+  }
+
   /**
    * Result of SPID regeneration operation.
    */
   public static class SPIDRegenerationResult {
-    private final Map<Integer, Integer> spidMappings;
+    private final IntIntMap spidMappings;
+    private Map<Integer, Integer> boxedMappings;
     private final int shapesProcessed;
     private final int animationsUpdated;
+    private final PlaceholderIndex placeholderIndex;
 
     public SPIDRegenerationResult(Map<Integer, Integer> spidMappings, 
         int shapesProcessed, int animationsUpdated) {
-      this.spidMappings = Collections.unmodifiableMap(new HashMap<>(spidMappings));
+      this(spidMappings, shapesProcessed, animationsUpdated, new PlaceholderIndex());
+    }
+
+    public SPIDRegenerationResult(Map<Integer, Integer> spidMappings, 
+        int shapesProcessed, int animationsUpdated, PlaceholderIndex placeholderIndex) {
+      this(toIntIntMap(spidMappings), shapesProcessed, animationsUpdated, placeholderIndex);
+    }
+
+    SPIDRegenerationResult(IntIntMap spidMappings,
+        int shapesProcessed, int animationsUpdated, PlaceholderIndex placeholderIndex) {
+      this.spidMappings = spidMappings;
       this.shapesProcessed = shapesProcessed;
       this.animationsUpdated = animationsUpdated;
+      this.placeholderIndex = placeholderIndex;
+    }
+
+    /**
+     * Gets the old-to-new SPID mappings as a map, boxed on first use.
+     */
+    public Map<Integer, Integer> getSpidMappings() {
+      if (boxedMappings == null) {
+        boxedMappings = Collections.unmodifiableMap(spidMappings.toMap());
+      }
+      return boxedMappings;
     }
 
-    public Map<Integer, Integer> getSpidMappings() { return spidMappings; }
+    /**
+     * Gets the new SPID of a shape, or -1 if the SPID was not regenerated.
+     */
+    public int getNewSpid(int oldSpid) { return spidMappings.get(oldSpid, -1); }
     public int getShapesProcessed() { return shapesProcessed; }
     public int getAnimationsUpdated() { return animationsUpdated; }
+    public PlaceholderIndex getPlaceholderIndex() { return placeholderIndex; }
 
     @Override
     public String toString() {
       return String.format("SPIDRegenerationResult{shapes=%d, animations=%d, mappings=%d}",
           shapesProcessed, animationsUpdated, spidMappings.size());
     }
+
+    private static IntIntMap toIntIntMap(Map<Integer, Integer> spidMappings) {
+      IntIntMap map = new IntIntMap(spidMappings.size());
+      spidMappings.forEach(map::put);
+      return map;
+    }
+  }
+
+  /**
+   * How much of the presentation {@link #validateSpidUniqueness(ValidationMode)} re-parses.
+   */
+  public enum ValidationMode {
+    /** Re-parse only slides added, marked or changed since they were last parsed */
+    INCREMENTAL,
+    /** Re-parse every slide and check the whole registry */
+    FULL_AUDIT
+  }
+
+  /**
+   * SPIDs and sorted placeholder SPIDs found in one slide file, with the file attributes
+   * they were read at.
+   */
+  private static class ValidatedSlide {
+    private final long size;
+    private final FileTime lastModified;
+    private final int[] spids;
+    private final int[] placeholderSpids;
+
+    ValidatedSlide(BasicFileAttributes attributes, int[] spids, int[] placeholderSpids) {
+      this.size = attributes.size();
+      this.lastModified = attributes.lastModifiedTime();
+      this.spids = spids;
+      this.placeholderSpids = placeholderSpids;
+    }
+
+    boolean matches(BasicFileAttributes attributes) {
+      return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+    }
   }
 
   /**
@@ -507,14 +1267,21 @@ public class SPIDManager {
   public static class ValidationResult {
     private final List<String> errors;
     private final List<String> warnings;
+    private final int slidesParsed;
 
     public ValidationResult(List<String> errors, List<String> warnings) {
+      this(errors, warnings, 0);
+    }
+
+    public ValidationResult(List<String> errors, List<String> warnings, int slidesParsed) {
       this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
       this.warnings = Collections.unmodifiableList(new ArrayList<>(warnings));
+      this.slidesParsed = slidesParsed;
     }
 
     public List<String> getErrors() { return errors; }
     public List<String> getWarnings() { return warnings; }
+    public int getSlidesParsed() { return slidesParsed; }
     public boolean hasErrors() { return !errors.isEmpty(); }
     public boolean hasWarnings() { return !warnings.isEmpty(); }
     public boolean isValid() { return errors.isEmpty(); }
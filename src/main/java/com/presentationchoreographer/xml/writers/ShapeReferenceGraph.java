@@ -0,0 +1,257 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.w3c.dom.*;
+import java.util.*;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * The shape IDs defined by a slide document and every attribute that refers to one.
+ *
+ * <p>A single walk over the document records every p:cNvPr under p:spTree except the
+ * tree's own (the shapes, pictures, connectors, groups and graphic frames
+ * {@link SPIDManager} assigns SPIDs to) and the attributes that reference shape IDs
+ * elsewhere in the slide: animation targets (p:spTgt), build list entries (p:bldP,
+ * p:bldDgm, p:bldOleChart, p:bldGraphic) and connector end points (a:stCxn, a:endCxn).
+ * Renumbering a slide is then a loop over the recorded attribute nodes with a primitive
+ * old-to-new map, instead of one XPath query per kind of reference.</p>
+ *
+ * <p>The graph holds live nodes of the document and is only valid until the document's
+ * structure changes.</p>
+ *
+ * <p>Thread Safety: This class is not thread-safe.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ShapeReferenceGraph {
+
+  /**
+   * Kinds of attributes that reference a shape ID.
+   */
+  public enum ReferenceKind {
+    ANIMATION_TARGET(XMLConstants.PRESENTATION_NS, "spTgt", "spid"),
+    BUILD_PARAGRAPH(XMLConstants.PRESENTATION_NS, "bldP", "spid"),
+    BUILD_DIAGRAM(XMLConstants.PRESENTATION_NS, "bldDgm", "spid"),
+    BUILD_OLE_CHART(XMLConstants.PRESENTATION_NS, "bldOleChart", "spid"),
+    BUILD_GRAPHIC(XMLConstants.PRESENTATION_NS, "bldGraphic", "spid"),
+    CONNECTION_START(XMLConstants.DRAWING_NS, "stCxn", "id"),
+    CONNECTION_END(XMLConstants.DRAWING_NS, "endCxn", "id");
+
+    private final String namespace;
+    private final String localName;
+    private final String attribute;
+
+    ReferenceKind(String namespace, String localName, String attribute) {
+      this.namespace = namespace;
+      this.localName = localName;
+      this.attribute = attribute;
+    }
+
+    public String getNamespace() { return namespace; }
+    public String getLocalName() { return localName; }
+    public String getAttribute() { return attribute; }
+
+    private static ReferenceKind of(Element element) {
+      for (ReferenceKind kind : values()) {
+        if (kind.localName.equals(element.getLocalName()) && kind.namespace.equals(element.getNamespaceURI())) {
+          return kind;
+        }
+      }
+      return null;
+    }
+  }
+
+  private final List<Element> shapes = new ArrayList<>();
+  private final List<Element> shapeCNvPrs = new ArrayList<>();
+  private final List<Attr> references = new ArrayList<>();
+  private final List<ReferenceKind> referenceKinds = new ArrayList<>();
+
+  /**
+   * Document-order position of each reference among the elements of its kind
+   */
+  private int[] referenceOrdinals = new int[16];
+
+  private ShapeReferenceGraph() {
+  }
+
+  /**
+   * Builds the graph of a slide document in one walk.
+   *
+   * @param slideDocument The slide document
+   * @return The graph over the document's live nodes
+   * @throws IllegalArgumentException If slideDocument is null
+   */
+  public static ShapeReferenceGraph build(Document slideDocument) {
+    if (slideDocument == null) {
+      throw new IllegalArgumentException("slideDocument cannot be null");
+    }
+
+    ShapeReferenceGraph graph = new ShapeReferenceGraph();
+    int[] ordinals = new int[ReferenceKind.values().length];
+    int spTreeDepth = 0;
+    Node root = slideDocument.getDocumentElement();
+
+    // Pre-order walk, the order of getElementsByTagNameNS
+    Node node = root;
+    while (node != null) {
+      boolean entered = false;
+      if (node instanceof Element) {
+        Element element = (Element) node;
+        boolean presentation = XMLConstants.PRESENTATION_NS.equals(element.getNamespaceURI());
+        String localName = element.getLocalName();
+
+        if (presentation && "spTree".equals(localName)) {
+          spTreeDepth++;
+        } else if (presentation && spTreeDepth > 0 && "cNvPr".equals(localName)) {
+          graph.addShape(element);
+        } else {
+          ReferenceKind kind = ReferenceKind.of(element);
+          if (kind != null) {
+            int ordinal = ordinals[kind.ordinal()]++;
+            Attr attr = element.getAttributeNode(kind.attribute);
+            if (attr != null && !attr.getValue().isEmpty()) {
+              graph.addReference(kind, attr, ordinal);
+            }
+          }
+        }
+
+        if (node.getFirstChild() != null) {
+          node = node.getFirstChild();
+          entered = true;
+        }
+      }
+
+      if (!entered) {
+        if (isSpTree(node)) {
+          spTreeDepth--;
+        }
+        // Climb until a following sibling exists, closing any p:spTree on the way
+        while (node != root && node.getNextSibling() == null) {
+          node = node.getParentNode();
+          if (isSpTree(node)) {
+            spTreeDepth--;
+          }
+        }
+        node = node == root ? null : node.getNextSibling();
+      }
+    }
+    return graph;
+  }
+
+  /**
+   * Gets the number of shapes with an id.
+   */
+  public int getShapeCount() {
+    return shapes.size();
+  }
+
+  /**
+   * Gets a shape (p:sp, p:pic, p:cxnSp, p:grpSp or p:graphicFrame) in document order.
+   */
+  public Element getShape(int index) {
+    return shapes.get(index);
+  }
+
+  /**
+   * Gets the p:cNvPr holding the id and name of a shape.
+   */
+  public Element getShapeProperties(int index) {
+    return shapeCNvPrs.get(index);
+  }
+
+  /**
+   * Gets the current id of a shape.
+   */
+  public int getShapeSpid(int index) {
+    return Integer.parseInt(shapeCNvPrs.get(index).getAttribute("id"));
+  }
+
+  /**
+   * Gets the number of recorded references.
+   */
+  public int getReferenceCount() {
+    return references.size();
+  }
+
+  public ReferenceKind getReferenceKind(int index) {
+    return referenceKinds.get(index);
+  }
+
+  /**
+   * Gets the position of a reference among the elements of its kind in document order,
+   * i.e. its index in getElementsByTagNameNS(kind namespace, kind local name).
+   */
+  public int getReferenceOrdinal(int index) {
+    return referenceOrdinals[index];
+  }
+
+  /**
+   * Gets the shape ID a reference points at, or -1 if it is not a number.
+   */
+  public int getReferencedSpid(int index) {
+    try {
+      return Integer.parseInt(references.get(index).getValue().trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Rewrites every reference whose shape ID is in the map.
+   *
+   * @param spidMappings Old SPID to new SPID
+   * @return The number of references rewritten
+   */
+  int remapReferences(IntIntMap spidMappings) {
+    int remapped = 0;
+    for (int i = 0; i < references.size(); i++) {
+      int oldSpid = getReferencedSpid(i);
+      int newSpid = oldSpid < 0 ? -1 : spidMappings.get(oldSpid, -1);
+      if (newSpid >= 0) {
+        references.get(i).setValue(String.valueOf(newSpid));
+        remapped++;
+      }
+    }
+    return remapped;
+  }
+
+  @Override
+  public String toString() {
+    Map<ReferenceKind, Integer> counts = new EnumMap<>(ReferenceKind.class);
+    for (ReferenceKind kind : referenceKinds) {
+      counts.merge(kind, 1, Integer::sum);
+    }
+    return "ShapeReferenceGraph{shapes=" + shapes.size() + ", references=" + counts + "}";
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  /**
+   * Records the shape owning a p:cNvPr (its parent's parent) if the p:cNvPr has an id.
+   * The p:cNvPr of the p:spTree itself is the group root, which keeps
+   * {@link SPIDManager#ROOT_SPID}, and is skipped.
+   */
+  private void addShape(Element cNvPr) {
+    Node nonVisualProperties = cNvPr.getParentNode();
+    Node shape = nonVisualProperties != null ? nonVisualProperties.getParentNode() : null;
+    if (shape instanceof Element && !isSpTree(shape) && !cNvPr.getAttribute("id").isEmpty()) {
+      shapes.add((Element) shape);
+      shapeCNvPrs.add(cNvPr);
+    }
+  }
+
+  private void addReference(ReferenceKind kind, Attr attr, int ordinal) {
+    if (references.size() == referenceOrdinals.length) {
+      referenceOrdinals = Arrays.copyOf(referenceOrdinals, referenceOrdinals.length * 2);
+    }
+    referenceOrdinals[references.size()] = ordinal;
+    references.add(attr);
+    referenceKinds.add(kind);
+  }
+
+  private static boolean isSpTree(Node node) {
+    return node instanceof Element && "spTree".equals(node.getLocalName())
+        && XMLConstants.PRESENTATION_NS.equals(node.getNamespaceURI());
+  }
+}
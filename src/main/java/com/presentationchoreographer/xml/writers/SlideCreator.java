@@ -11,8 +11,11 @@ import java.io.*;
 import java.nio.file.*;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import com.presentationchoreographer.core.model.*;
 import com.presentationchoreographer.exceptions.*;
 import com.presentationchoreographer.utils.XMLConstants;
@@ -21,8 +24,13 @@ import com.presentationchoreographer.utils.XMLConstants;
  * Comprehensive slide creation system supporting blank slides, 
  * slide duplication, template-based creation, and complete PPTX relationship management.
  * 
- * REFACTORED: Uses string-based approach for presentation.xml manipulation to avoid
- * XML namespace serialization issues with Java's built-in transformer.
+ * presentation.xml and its relationships are edited through a cached PresentationPart
+ * model, which resolves slides through their actual relationship targets and writes
+ * each structural file once per operation.
+ * 
+ * Slide order can be tracked physically (slideN.xml is always the Nth slide, so inserts
+ * rename every subsequent part) or logically (order lives only in the sldIdLst of
+ * presentation.xml, new slides get fresh part names, and parts are compacted on save).
  */
 public class SlideCreator {
 
@@ -33,7 +41,55 @@ public class SlideCreator {
   private final RelationshipManager relationshipManager;
   private final SPIDManager spidManager;
 
+  /**
+   * How slide order is maintained when slides are inserted
+   */
+  private SlideOrderingMode orderingMode = SlideOrderingMode.PHYSICAL;
+
+  /**
+   * Whether logically ordered slide parts should be compacted when the presentation is saved
+   */
+  private boolean compactOnSave = true;
+
+  /**
+   * Cached model of presentation.xml and its relationships, loaded on first use
+   */
+  private PresentationPart presentationPart;
+
+  /**
+   * Cached [Content_Types].xml registry, loaded on first use
+   */
+  private ContentTypesRegistry contentTypesRegistry;
+
+  /**
+   * Importer holding part mappings of slides imported from other packages, created on first import
+   */
+  private SlideImporter slideImporter;
+
+  /**
+   * Number of template instances held in memory before they are written
+   */
+  private static final int TEMPLATE_WRITE_CHUNK_SIZE = 64;
+
+  /**
+   * Number of template rows consumed per structural pass by {@link #instantiateTemplate}
+   */
+  private static final int TEMPLATE_ROW_CHUNK_SIZE = 256;
+
+  private static final Pattern SLIDE_TARGET_PATTERN =
+    Pattern.compile("(Target=\"[^\"]*slides/)slide(\\d+)\\.xml\"");
+
   public SlideCreator(File extractedPptxDir) throws XMLParsingException {
+    this(extractedPptxDir, null);
+  }
+
+  /**
+   * Creates a slide creator for a freshly extracted package whose managers take unchanged
+   * parts from a persistent index instead of scanning them.
+   * @param extractedPptxDir The extracted package directory
+   * @param packageIndex The index opened for the package's part CRCs, may be null
+   */
+  public SlideCreator(File extractedPptxDir, PackageIndex packageIndex) throws XMLParsingException {
     this.extractedPptxDir = extractedPptxDir;
     this.namespaceContext = XMLConstants.createNamespaceContext();
 
@@ -47,10 +103,10 @@ public class SlideCreator {
       this.xpath.setNamespaceContext(namespaceContext);
 
       // Initialize relationship manager for comprehensive relationship handling
-      this.relationshipManager = new RelationshipManager(extractedPptxDir);
+      this.relationshipManager = new RelationshipManager(extractedPptxDir, packageIndex);
 
       // Initialize SPID manager for global shape ID management
-      this.spidManager = new SPIDManager(extractedPptxDir);
+      this.spidManager = new SPIDManager(extractedPptxDir, packageIndex);
 
     } catch (ParserConfigurationException e) {
       throw new XMLParsingException("Failed to initialize slide creator", e);
@@ -61,37 +117,18 @@ public class SlideCreator {
    * Insert a new blank slide at the specified position
    * @param insertPosition Position to insert (1-based, inserts BEFORE this position)
    * @param slideTitle Title for the new slide
-   * @return The slide number of the newly created slide
+   * @return The slide number of the newly created slide (its part number in LOGICAL mode)
    */
   public int insertBlankSlide(int insertPosition, String slideTitle) throws XMLParsingException {
     try {
       System.out.println("INSERTING BLANK SLIDE AT POSITION " + insertPosition);
 
-      // Step 1: Rename subsequent slides to make space
-      renameSubsequentSlides(insertPosition);
-
-      // Step 2: Create new blank slide document
-      Document newSlide = createBlankSlideDocument(slideTitle);
-
-      // Step 3: Write new slide file
-      String newSlideFileName = String.format("slide%d.xml", insertPosition);
-      File slidesDir = new File(extractedPptxDir, "ppt/slides");
-      slidesDir.mkdirs();
-      File newSlideFile = new File(slidesDir, newSlideFileName);
-      writeDocument(newSlide, newSlideFile);
-      System.out.println("  ✓ Created slide file: " + newSlideFileName);
-
-      // Step 4: Create relationships file for new slide
-      createSlideRelationships(insertPosition);
-
-      // Step 5: Update presentation.xml to include new slide
-      updatePresentationXml(insertPosition);
-
-      // Step 6: Update content types registry
-      updateContentTypes();
+      int slideNumber = insertSlides(
+          List.of(SlideInsertion.blank(insertPosition, slideTitle)), this::createInsertedSlides)
+        .getSlideNumbers().get(0);
 
       System.out.println("  ✓ Blank slide insertion complete");
-      return insertPosition;
+      return slideNumber;
 
     } catch (Exception e) {
       throw new XMLParsingException("Failed to insert blank slide at position " + insertPosition, e);
@@ -109,38 +146,12 @@ public class SlideCreator {
     try {
       System.out.println("COPYING SLIDE " + sourceSlideNumber + " TO POSITION " + insertPosition);
 
-      // Step 1: Rename subsequent slides to make space
-      renameSubsequentSlides(insertPosition);
-
-      // Step 2: Load and parse source slide
-      File sourceSlideFile = new File(extractedPptxDir, String.format("ppt/slides/slide%d.xml", sourceSlideNumber));
-      if (!sourceSlideFile.exists()) {
-        throw new XMLParsingException("Source slide " + sourceSlideNumber + " not found");
-      }
-
-      Document sourceSlide = documentBuilder.parse(sourceSlideFile);
-
-      // Step 3: Modify copied slide (update title, regenerate SPIDs)
-      Document modifiedSlide = modifySlideForCopy(sourceSlide, newSlideTitle);
-
-      // Step 4: Write copied slide
-      String newSlideFileName = String.format("slide%d.xml", insertPosition);
-      File slidesDir = new File(extractedPptxDir, "ppt/slides");
-      File newSlideFile = new File(slidesDir, newSlideFileName);
-      writeDocument(modifiedSlide, newSlideFile);
-      System.out.println("  ✓ Created copied slide file: " + newSlideFileName);
-
-      // Step 5: Copy and update relationships
-      copySlideRelationships(sourceSlideNumber, insertPosition);
-
-      // Step 6: Update presentation.xml
-      updatePresentationXml(insertPosition);
-
-      // Step 7: Update content types
-      updateContentTypes();
+      int slideNumber = insertSlides(
+          List.of(SlideInsertion.copy(insertPosition, sourceSlideNumber, newSlideTitle)), this::createInsertedSlides)
+        .getSlideNumbers().get(0);
 
       System.out.println("  ✓ Slide copying complete");
-      return insertPosition;
+      return slideNumber;
 
     } catch (Exception e) {
       throw new XMLParsingException("Failed to copy slide " + sourceSlideNumber + " to position " + insertPosition, e);
@@ -158,224 +169,604 @@ public class SlideCreator {
     try {
       System.out.println("INSERTING TEMPLATE SLIDE AT POSITION " + insertPosition);
 
-      // Step 1: Rename subsequent slides to make space
-      renameSubsequentSlides(insertPosition);
+      int slideNumber = insertSlides(
+          List.of(SlideInsertion.template(insertPosition, template, templateData)), this::createInsertedSlides)
+        .getSlideNumbers().get(0);
 
-      // Step 2: Create slide from template
-      Document newSlide = template.createSlideDocument(templateData);
+      System.out.println("  ✓ Template slide insertion complete");
+      return slideNumber;
 
-      // Step 3: Write template slide
-      String newSlideFileName = String.format("slide%d.xml", insertPosition);
-      File slidesDir = new File(extractedPptxDir, "ppt/slides");
-      File newSlideFile = new File(slidesDir, newSlideFileName);
-      writeDocument(newSlide, newSlideFile);
-      System.out.println("  ✓ Created template slide file: " + newSlideFileName);
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to insert template slide at position " + insertPosition, e);
+    }
+  }
 
-      // Step 4: Create relationships for template slide
-      createSlideRelationships(insertPosition);
+  /**
+   * Insert several slides in one structural pass.
+   * 
+   * <p>Insertions are applied in list order with the same position semantics as calling
+   * the individual insert methods one after another, but all positions are planned up front:
+   * existing slide parts are renamed in at most one sweep (PHYSICAL mode only), and
+   * presentation.xml, presentation.xml.rels and [Content_Types].xml are each written
+   * exactly once. Source slides of copies refer to the deck before the batch.</p>
+   * 
+   * @param insertions The slide insertions to apply, in order
+   * @return BatchInsertionResult with the slide number of each insertion
+   * @throws XMLParsingException If any slide cannot be created or the presentation cannot be updated
+   * @throws IllegalArgumentException If insertions is null or empty
+   */
+  public BatchInsertionResult applyBatch(List<SlideInsertion> insertions) throws XMLParsingException {
+    if (insertions == null || insertions.isEmpty()) {
+      throw new IllegalArgumentException("insertions cannot be null or empty");
+    }
 
-      // Step 5: Update presentation.xml
-      updatePresentationXml(insertPosition);
+    try {
+      System.out.println("APPLYING BATCH OF " + insertions.size() + " SLIDE INSERTIONS");
 
-      // Step 6: Update content types
-      updateContentTypes();
+      BatchInsertionResult result = insertSlides(insertions, this::createInsertedSlides);
 
-      System.out.println("  ✓ Template slide insertion complete");
-      return insertPosition;
+      System.out.println("  ✓ Batch insertion complete: " + result.getSlideNumbers().size() + " slides");
+      return result;
 
+    } catch (XMLParsingException e) {
+      throw e;
     } catch (Exception e) {
-      throw new XMLParsingException("Failed to insert template slide at position " + insertPosition, e);
+      throw new XMLParsingException("Failed to apply batch of " + insertions.size() + " slide insertions", e);
     }
   }
 
   /**
-   * Create relationships file for a new slide using RelationshipManager
+   * Insert several copies of one slide, parsing the source only once.
+   * 
+   * <p>The source slide is compiled once into a {@link CompiledSlideTemplate}. Each copy is
+   * a clone of the template stamped with SPIDs from a single block reserved for the whole
+   * fan-out, and the copies are serialized in parallel. Copies keep the source's
+   * relationships except its notes slide. Structural parts are written once, as in
+   * {@link #applyBatch(List)}.</p>
+   * 
+   * @param sourceSlideNumber Slide number to copy from
+   * @param count Number of copies to create
+   * @param positions Position of each copy with {@link #applyBatch(List)} semantics, or null
+   *                  to place the copies directly after the source slide
+   * @return BatchInsertionResult with the slide number of each copy
+   * @throws XMLParsingException If the source slide cannot be read or the copies cannot be written
+   * @throws IllegalArgumentException If count is less than 1 or positions does not have count entries
    */
-  private void createSlideRelationships(int slideNumber) throws XMLParsingException {
+  public BatchInsertionResult cloneSlide(int sourceSlideNumber, int count, int[] positions) throws XMLParsingException {
+    if (count < 1) {
+      throw new IllegalArgumentException("count must be positive");
+    }
+    if (positions != null && positions.length != count) {
+      throw new IllegalArgumentException("positions must have one entry per copy");
+    }
+
     try {
-      // Delegate to RelationshipManager for comprehensive relationship handling
-      RelationshipManager.RelationshipCreationResult result = 
-        relationshipManager.createSlideRelationships(slideNumber, null, null);
+      System.out.println("CLONING SLIDE " + sourceSlideNumber + " INTO " + count + " COPIES");
+
+      int[] copyPositions = positions;
+      if (copyPositions == null) {
+        PresentationPart presentation = getPresentationPart();
+        int sourcePosition = presentation.getPositionOfPart(sourceSlideNumber);
+        int first = sourcePosition > 0 ? sourcePosition + 1 : presentation.getSlideCount() + 1;
+        copyPositions = new int[count];
+        for (int i = 0; i < count; i++) {
+          copyPositions[i] = first + i;
+        }
+      }
 
-      System.out.println("  ✓ Created relationships file: " + result.getRelationshipFile().getName());
-      System.out.println("    → Created " + result.getCreatedRelationshipIds().size() + " relationships: " + 
-          result.getCreatedRelationshipIds());
+      List<SlideInsertion> insertions = new ArrayList<>();
+      for (int position : copyPositions) {
+        insertions.add(SlideInsertion.copy(position, sourceSlideNumber, null));
+      }
+
+      BatchInsertionResult result = insertSlides(insertions, (planned, partNumbers, renames) -> {
+        int sourcePart = renames.getOrDefault(sourceSlideNumber, sourceSlideNumber);
+        CompiledSlideTemplate template = CompiledSlideTemplate.compile("slide" + sourcePart,
+            new File(extractedPptxDir, String.format("ppt/slides/slide%d.xml", sourcePart)));
+        createTemplateSlides(template, null, partNumbers);
+      });
+
+      System.out.println("  ✓ Slide cloning complete: " + count + " copies");
+      return result;
 
+    } catch (XMLParsingException e) {
+      throw e;
     } catch (Exception e) {
-      throw new XMLParsingException("Failed to create slide relationships for slide " + slideNumber, e);
+      throw new XMLParsingException("Failed to clone slide " + sourceSlideNumber + " into " + count + " copies", e);
     }
   }
 
   /**
-   * Copy relationships from source slide to new slide using RelationshipManager
+   * Insert one slide per data row from a compiled template, starting at a position.
+   * 
+   * <p>Rows are consumed from the iterator in chunks, so a lazily generated row source is never
+   * held in memory at once. Each chunk is one structural pass: its slides share one SPID
+   * reservation, are bound and written in parallel, and presentation.xml,
+   * presentation.xml.rels and [Content_Types].xml are written once. Appending at the end
+   * (or LOGICAL ordering) avoids renaming existing slide parts between chunks.</p>
+   * 
+   * @param template The compiled template to instantiate
+   * @param position Position of the first new slide (1-based); later rows follow it in order
+   * @param rows The data rows, one slide per row
+   * @return BatchInsertionResult with the slide number of each row's slide
+   * @throws XMLParsingException If any slide cannot be created or the presentation cannot be updated
+   * @throws IllegalArgumentException If template or rows is null, or position is less than 1
    */
-  private void copySlideRelationships(int sourceSlideNumber, int newSlideNumber) throws XMLParsingException {
+  public BatchInsertionResult instantiateTemplate(CompiledSlideTemplate template, int position,
+      Iterable<TemplateData> rows) throws XMLParsingException {
+    if (template == null || rows == null) {
+      throw new IllegalArgumentException("template and rows cannot be null");
+    }
+    if (position < 1) {
+      throw new IllegalArgumentException("position must be 1 or greater");
+    }
+
     try {
-      // Use RelationshipManager for intelligent relationship copying with ID remapping
-      RelationshipManager.RelationshipCopyResult result = 
-        relationshipManager.copySlideRelationships(sourceSlideNumber, newSlideNumber, false);
+      System.out.println("INSTANTIATING TEMPLATE " + template.getTemplateName() + " AT POSITION " + position);
+
+      List<Integer> slideNumbers = new ArrayList<>();
+      int partsRenamed = 0;
+      int nextPosition = position;
+      Iterator<TemplateData> iterator = rows.iterator();
+
+      while (iterator.hasNext()) {
+        List<TemplateData> chunk = new ArrayList<>();
+        List<SlideInsertion> insertions = new ArrayList<>();
+        while (iterator.hasNext() && chunk.size() < TEMPLATE_ROW_CHUNK_SIZE) {
+          TemplateData row = iterator.next();
+          chunk.add(row);
+          insertions.add(SlideInsertion.template(nextPosition++, template, row));
+        }
 
-      System.out.println("  ✓ Copied relationships file: " + result.getRelationshipFile().getName());
-      System.out.println("    → ID mappings: " + result.getOldToNewIdMappings().size() + " relationships remapped");
-      System.out.println("    → New relationship IDs: " + result.getNewRelationshipIds());
+        BatchInsertionResult result = insertSlides(insertions,
+            (planned, partNumbers, renames) -> createTemplateSlides(template, chunk, partNumbers));
+        slideNumbers.addAll(result.getSlideNumbers());
+        partsRenamed += result.getPartsRenamed();
+      }
+
+      System.out.println("  ✓ Template instantiation complete: " + slideNumbers.size() + " slides");
+      return new BatchInsertionResult(slideNumbers, partsRenamed);
 
+    } catch (XMLParsingException e) {
+      throw e;
     } catch (Exception e) {
-      throw new XMLParsingException("Failed to copy slide relationships from slide " + 
-          sourceSlideNumber + " to slide " + newSlideNumber, e);
+      throw new XMLParsingException("Failed to instantiate template " + template.getTemplateName(), e);
     }
   }
 
   /**
-   * Update presentation.xml to include the new slide in the slide list.
-   * REFACTORED: Uses string-based approach to avoid XML namespace serialization issues.
+   * Import slides of another PPTX, with the layouts, masters, media and other parts they
+   * depend on.
+   * 
+   * <p>Each source slide's relationship graph is copied into this presentation (see
+   * {@link SlideImporter}): byte-identical masters and layouts already present are reused,
+   * media is deduplicated by content hash, and parts imported by earlier calls from the same
+   * source package are not copied again. Imported slides keep their relationship IDs, which
+   * are scoped to their .rels part, and get fresh SPIDs from this presentation's SPIDManager.
+   * Notes slides are not imported. Structural parts are written once, as in {@link #applyBatch(List)}.</p>
+   * 
+   * <p>The source may be an extracted directory or a PPTX archive. An archive is read entry
+   * by entry and never extracted, so only the parts the imported slides reference are read.</p>
+   * 
+   * @param sourcePptx The source package, an extracted directory or a PPTX archive; it is only read
+   * @param sourcePositions Presentation positions (1-based) of the source slides to import, or
+   *                        null to import every slide in order
+   * @param position Position of the first imported slide (1-based); the others follow it in order
+   * @return BatchInsertionResult with the slide number of each imported slide
+   * @throws XMLParsingException If a source part cannot be read or the presentation cannot be updated
+   * @throws IllegalArgumentException If sourcePptx is null, sourcePositions is empty or out of
+   *     range, or position is less than 1
    */
-  private void updatePresentationXml(int newSlideNumber) throws XMLParsingException {
+  public BatchInsertionResult importSlides(File sourcePptx, int[] sourcePositions, int position)
+      throws XMLParsingException {
+    if (sourcePptx == null || (sourcePositions != null && sourcePositions.length == 0)) {
+      throw new IllegalArgumentException("sourcePptx cannot be null and sourcePositions cannot be empty");
+    }
+    if (position < 1) {
+      throw new IllegalArgumentException("position must be 1 or greater");
+    }
+
+    if (slideImporter == null) {
+      slideImporter = new SlideImporter(this, extractedPptxDir);
+    }
+    SlideImporter importer = slideImporter;
+
     try {
-      // Load presentation.xml
-      File presentationFile = new File(extractedPptxDir, "ppt/presentation.xml");
-      if (!presentationFile.exists()) {
-        throw new XMLParsingException("presentation.xml not found");
-      }
+      System.out.println("IMPORTING SLIDES FROM " + sourcePptx.getName());
 
-      // Read the entire file as string
-      String presentationContent = Files.readString(presentationFile.toPath());
+      int[] sourceParts = importer.resolveSourceSlides(sourcePptx, sourcePositions);
+      if (sourceParts.length == 0) {
+        return new BatchInsertionResult(new ArrayList<>(), 0);
+      }
 
-      // Calculate new slide ID
-      int newSlideId = calculateNextSlideId(presentationContent);
+      // Placeholders for planning; the factory writes the imported parts
+      List<SlideInsertion> insertions = new ArrayList<>();
+      for (int i = 0; i < sourceParts.length; i++) {
+        insertions.add(SlideInsertion.blank(position + i, null));
+      }
 
-      // Calculate rId for this slide (slide1 = rId2, slide2 = rId3, etc.)
-      String newRId = XMLConstants.RID_PREFIX + (newSlideNumber + 1);
+      BatchInsertionResult result = insertSlides(insertions, (planned, partNumbers, renames) -> {
+        Map<Integer, Integer> importedParts = new HashMap<>();
+        for (int i = 0; i < sourceParts.length; i++) {
+          importedParts.putIfAbsent(sourceParts[i], partNumbers[i]);
+        }
+        List<CompiledSlideTemplate> slides = new ArrayList<>();
+        for (int i = 0; i < sourceParts.length; i++) {
+          slides.add(importer.importSlide(sourcePptx, sourceParts[i], partNumbers[i], importedParts));
+        }
+        createTemplateSlides(slides, null, partNumbers);
+      });
+
+      System.out.println("  ✓ Slide import complete: " + sourceParts.length + " slides");
+      return result;
+
+    } catch (IllegalArgumentException e) {
+      throw e;
+    } catch (XMLParsingException e) {
+      // Part mappings may refer to parts that were never registered
+      slideImporter = null;
+      throw e;
+    } catch (Exception e) {
+      slideImporter = null;
+      throw new XMLParsingException("Failed to import slides from " + sourcePptx.getName(), e);
+    } finally {
+      importer.closeSources();
+    }
+  }
 
-      // Create new sldId element as string with proper namespaces
-      String newSldIdElement = String.format(
-          "    <p:sldId id=\"%d\" r:id=\"%s\"/>", 
-          newSlideId, 
-          newRId
-          );
+  /**
+   * Delete the slide at a presentation position.
+   * 
+   * <p>Only the slide's own parts are touched: its sldId and relationship are removed from
+   * presentation.xml and presentation.xml.rels, the slide part, its relationships and its notes
+   * slide are deleted along with their content type Overrides, and its SPIDs are released.
+   * A notes slide still referenced by another slide (e.g. one created by
+   * {@link #insertCopiedSlide}) is kept and pointed at that slide instead.
+   * No other slide part is renamed or rewritten, so slide hyperlinks targeting the deleted
+   * slide are left dangling. In PHYSICAL mode the slideN numbering is restored by the next
+   * insertion or by {@link #compactSlideParts()}.</p>
+   * 
+   * @param position The 1-based presentation position of the slide to delete
+   * @return The part number of the deleted slide
+   * @throws XMLParsingException If the presentation cannot be updated
+   * @throws IllegalArgumentException If position is out of range
+   */
+  public int deleteSlide(int position) throws XMLParsingException {
+    PresentationPart presentation = getPresentationPart();
+    presentation.getSlideAt(position);
 
-      // Find insertion point in the sldIdLst
-      String updatedContent = insertSlideIdElement(presentationContent, newSldIdElement, newSlideNumber);
+    try {
+      System.out.println("DELETING SLIDE AT POSITION " + position);
+
+      ContentTypesRegistry contentTypes = getContentTypesRegistry();
+      PresentationPart.SlideEntry slide = presentation.removeSlide(position);
+      int partNumber = slide.getPartNumber();
+
+      File slideFile = new File(extractedPptxDir, "ppt/" + slide.getTarget());
+      File slideRelsFile = new File(slideFile.getParentFile(), "_rels/" + slideFile.getName() + ".rels");
+      File notesFile = findNotesSlide(slideRelsFile);
+
+      Files.deleteIfExists(slideFile.toPath());
+      Files.deleteIfExists(slideRelsFile.toPath());
+      contentTypes.removeOverride(slide.getPartName());
+      relationshipManager.invalidateSlideRelationships(partNumber);
+
+      boolean notesShared = false;
+      if (notesFile != null) {
+        File notesRelsFile = new File(notesFile.getParentFile(), "_rels/" + notesFile.getName() + ".rels");
+        int sharingSlide = findSlideReferencingNotes(notesFile, slideRelsFile.getParentFile());
+        notesShared = sharingSlide > 0;
+        if (notesShared) {
+          rewriteSlideReferences(notesRelsFile, Map.of(partNumber, sharingSlide));
+        } else {
+          Files.deleteIfExists(notesFile.toPath());
+          Files.deleteIfExists(notesRelsFile.toPath());
+          relationshipManager.invalidateRelationships(notesRelsFile);
+          contentTypes.removeOverride("/ppt/notesSlides/" + notesFile.getName());
+        }
+      }
 
-      // Update subsequent rId attributes
-      updatedContent = updateSubsequentRIdsInString(updatedContent, newSlideNumber);
+      int releasedSpids = spidManager.releaseSlide(partNumber);
 
-      // Write back to file
-      Files.writeString(presentationFile.toPath(), updatedContent);
+      presentation.flush();
+      contentTypes.flush();
 
-      System.out.println("  ✓ Updated presentation.xml with new slide ID: " + newSlideId);
+      System.out.println("  ✓ Deleted " + slide.getPartName() + " (slide ID " + slide.getSlideId() +
+          ", " + slide.getRelationshipId() + ")" + (notesFile != null && !notesShared ? " and " + notesFile.getName() : ""));
+      if (notesShared) {
+        System.out.println("    → Kept " + notesFile.getName() + ", still referenced by another slide");
+      }
+      System.out.println("    → Released " + releasedSpids + " SPIDs");
+      return partNumber;
 
     } catch (Exception e) {
-      throw new XMLParsingException("Failed to update presentation.xml", e);
+      presentationPart = null;
+      contentTypesRegistry = null;
+      throw new XMLParsingException("Failed to delete slide at position " + position, e);
     }
   }
 
   /**
-   * Calculate the next available slide ID from presentation content
+   * Move a slide to a new presentation position.
+   * 
+   * <p>Only the sldIdLst of presentation.xml is rewritten; no slide part is renamed. In PHYSICAL
+   * mode the slideN numbering is restored by the next insertion or by {@link #compactSlideParts()}.</p>
+   * 
+   * @param fromPosition The current 1-based position of the slide
+   * @param toPosition The 1-based position the slide should end up at
+   * @throws XMLParsingException If presentation.xml cannot be updated
+   * @throws IllegalArgumentException If either position is out of range
    */
-  private int calculateNextSlideId(String presentationContent) {
-    int maxId = XMLConstants.DEFAULT_SLIDE_ID_START - 1;
-
-    // Find all existing slide IDs using regex
-    Pattern slideIdPattern = Pattern.compile("<p:sldId\\s+id=\"(\\d+)\"");
-    Matcher matcher = slideIdPattern.matcher(presentationContent);
+  public void moveSlide(int fromPosition, int toPosition) throws XMLParsingException {
+    PresentationPart presentation = getPresentationPart();
+    presentation.moveSlide(fromPosition, toPosition);
 
-    while (matcher.find()) {
-      int id = Integer.parseInt(matcher.group(1));
-      maxId = Math.max(maxId, id);
+    try {
+      presentation.flush();
+      System.out.println("  ✓ Moved slide from position " + fromPosition + " to " + toPosition);
+    } catch (XMLParsingException e) {
+      presentationPart = null;
+      throw e;
     }
+  }
+
+  /**
+   * Reorder every slide in one step. Only the sldIdLst of presentation.xml is rewritten.
+   * 
+   * @param permutation For each new position i (0-based index), the current 1-based position of
+   *                    the slide to place there
+   * @throws XMLParsingException If presentation.xml cannot be updated
+   * @throws IllegalArgumentException If permutation is not a permutation of the current positions
+   */
+  public void reorderSlides(int[] permutation) throws XMLParsingException {
+    PresentationPart presentation = getPresentationPart();
+    presentation.reorderSlides(permutation);
 
-    return maxId + 1;
+    try {
+      presentation.flush();
+      System.out.println("  ✓ Reordered " + permutation.length + " slides");
+    } catch (XMLParsingException e) {
+      presentationPart = null;
+      throw e;
+    }
   }
 
   /**
-   * Insert new slide ID element at the correct position
+   * Gets the parsed presentation.xml model, loading it on first use.
+   * 
+   * <p>The model is cached for the lifetime of this creator and written back by each
+   * structural operation; callers that edit it directly must call
+   * {@link PresentationPart#flush()} themselves.</p>
+   * 
+   * @return The cached PresentationPart
+   * @throws XMLParsingException If presentation.xml cannot be loaded
    */
-  private String insertSlideIdElement(String presentationContent, String newSldIdElement, int newSlideNumber) {
-    // Find the sldIdLst section
-    Pattern sldIdLstPattern = Pattern.compile("(<p:sldIdLst>)(.*?)(</p:sldIdLst>)", Pattern.DOTALL);
-    Matcher matcher = sldIdLstPattern.matcher(presentationContent);
+  public PresentationPart getPresentationPart() throws XMLParsingException {
+    if (presentationPart == null) {
+      presentationPart = PresentationPart.load(extractedPptxDir);
+    }
+    return presentationPart;
+  }
 
-    if (!matcher.find()) {
-      throw new RuntimeException("Could not find sldIdLst in presentation.xml");
+  /**
+   * Gets the [Content_Types].xml registry, loading it on first use.
+   * 
+   * @return The cached ContentTypesRegistry
+   * @throws XMLParsingException If [Content_Types].xml cannot be loaded
+   */
+  public ContentTypesRegistry getContentTypesRegistry() throws XMLParsingException {
+    if (contentTypesRegistry == null) {
+      contentTypesRegistry = ContentTypesRegistry.load(extractedPptxDir);
     }
+    return contentTypesRegistry;
+  }
 
-    String beforeList = matcher.group(1);
-    String listContent = matcher.group(2);
-    String afterList = matcher.group(3);
+  /**
+   * Plan and apply slide insertions against the presentation model, flushing structural parts once.
+   * The partFactory writes the new slide parts once their part numbers are known.
+   */
+  private BatchInsertionResult insertSlides(List<SlideInsertion> insertions,
+      SlidePartFactory partFactory) throws Exception {
+    PresentationPart presentation = getPresentationPart();
+    ContentTypesRegistry contentTypes = getContentTypesRegistry();
 
-    // Find all existing slide elements and their positions
-    List<SlideIdInfo> existingSlides = parseExistingSlideIds(listContent);
+    try {
+      List<Integer> order = presentation.getSlidePartNumbers();
+      Set<Integer> existingParts = new HashSet<>(getExistingSlideNumbers());
+
+      // Step 1: Plan the final order (negative entries are new slides)
+      List<Integer> plan = new ArrayList<>(order);
+      for (int i = 0; i < insertions.size(); i++) {
+        SlideInsertion insertion = insertions.get(i);
+        if (insertion.getType() == SlideInsertion.Type.COPY
+            && !existingParts.contains(insertion.getSourceSlideNumber())) {
+          throw new XMLParsingException("Source slide " + insertion.getSourceSlideNumber() + " not found");
+        }
+        int index = Math.min(insertion.getPosition(), plan.size() + 1) - 1;
+        plan.add(index, -(i + 1));
+      }
 
-    // Find insertion point
-    StringBuilder newListContent = new StringBuilder();
-    boolean inserted = false;
+      // Step 2: Assign part numbers, renaming existing parts at most once
+      Map<Integer, Integer> renames = new LinkedHashMap<>();
+      int[] newPartNumbers = new int[insertions.size()];
+      if (orderingMode == SlideOrderingMode.PHYSICAL) {
+        Set<Integer> unlisted = new HashSet<>(existingParts);
+        unlisted.removeAll(order);
+        assignPartNumbers(plan, unlisted, renames, newPartNumbers);
+      } else {
+        int nextPart = existingParts.stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+        for (int i = 0; i < newPartNumbers.length; i++) {
+          newPartNumbers[i] = nextPart++;
+        }
+      }
+
+      if (!renames.isEmpty()) {
+        renameSlideParts(renames);
+        presentation.renameSlideParts(renames);
+        contentTypes.renameParts(toSlidePartNames(renames));
+        System.out.println("  ✓ Renamed " + renames.size() + " existing slide parts");
+      }
 
-    for (int i = 0; i < existingSlides.size(); i++) {
-      SlideIdInfo slideInfo = existingSlides.get(i);
+      // Step 3: Create the new slide parts and their relationships
+      partFactory.createParts(insertions, newPartNumbers, renames);
 
-      // If this slide should come after our new slide, insert here
-      if (!inserted && slideInfo.slideNumber >= newSlideNumber) {
-        newListContent.append("\n").append(newSldIdElement);
-        inserted = true;
+      // Step 4: Place new slides at their planned positions
+      for (int index = 0; index < plan.size(); index++) {
+        int entry = plan.get(index);
+        if (entry < 0) {
+          PresentationPart.SlideEntry slide = presentation.addSlide(index + 1, newPartNumbers[-entry - 1]);
+          System.out.println("  ✓ Added " + slide.getPartName() + " as slide ID " + slide.getSlideId() +
+              " (" + slide.getRelationshipId() + ") at position " + (index + 1));
+        }
       }
 
-      // Add the existing slide (with potentially updated rId)
-      newListContent.append("\n").append(slideInfo.originalElement);
-    }
+      // Step 5: Register content types for the new parts
+      for (int partNumber : newPartNumbers) {
+        contentTypes.addOverride(String.format("/ppt/slides/slide%d.xml", partNumber), XMLConstants.CONTENT_TYPE_SLIDE);
+      }
 
-    // If we haven't inserted yet, add at the end
-    if (!inserted) {
-      newListContent.append("\n").append(newSldIdElement);
+      // Step 6: Write each structural part exactly once
+      presentation.flush();
+      contentTypes.flush();
+
+      List<Integer> slideNumbers = new ArrayList<>();
+      for (int partNumber : newPartNumbers) {
+        slideNumbers.add(partNumber);
+      }
+      return new BatchInsertionResult(slideNumbers, renames.size());
+
+    } catch (Exception e) {
+      // The models may no longer match the files on disk; reload them on next use
+      presentationPart = null;
+      contentTypesRegistry = null;
+      throw e;
     }
+  }
+
+  /**
+   * Create relationships file for a new slide using RelationshipManager
+   */
+  private void createSlideRelationships(int slideNumber) throws XMLParsingException {
+    try {
+      // Delegate to RelationshipManager for comprehensive relationship handling
+      RelationshipManager.RelationshipCreationResult result = 
+        relationshipManager.createSlideRelationships(slideNumber, null, null);
+
+      System.out.println("  ✓ Created relationships file: " + result.getRelationshipFile().getName());
+      System.out.println("    → Created " + result.getCreatedRelationshipIds().size() + " relationships: " + 
+          result.getCreatedRelationshipIds());
 
-    return presentationContent.replace(matcher.group(0), 
-        beforeList + newListContent.toString() + "\n" + afterList);
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to create slide relationships for slide " + slideNumber, e);
+    }
   }
 
   /**
-   * Parse existing slide IDs from sldIdLst content
+   * Copy relationships from source slide to new slide using RelationshipManager
    */
-  private List<SlideIdInfo> parseExistingSlideIds(String listContent) {
-    List<SlideIdInfo> slides = new ArrayList<>();
+  private void copySlideRelationships(int sourceSlideNumber, int newSlideNumber) throws XMLParsingException {
+    try {
+      // Use RelationshipManager for intelligent relationship copying with ID remapping
+      RelationshipManager.RelationshipCopyResult result = 
+        relationshipManager.copySlideRelationships(sourceSlideNumber, newSlideNumber, false);
+
+      System.out.println("  ✓ Copied relationships file: " + result.getRelationshipFile().getName());
+      System.out.println("    → ID mappings: " + result.getOldToNewIdMappings().size() + " relationships remapped");
+      System.out.println("    → New relationship IDs: " + result.getNewRelationshipIds());
 
-    Pattern slidePattern = Pattern.compile("<p:sldId\\s+id=\"(\\d+)\"\\s+r:id=\"([^\"]+)\"/>");
-    Matcher matcher = slidePattern.matcher(listContent);
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to copy slide relationships from slide " + 
+          sourceSlideNumber + " to slide " + newSlideNumber, e);
+    }
+  }
 
-    while (matcher.find()) {
-      String fullElement = matcher.group(0);
-      int slideId = Integer.parseInt(matcher.group(1));
-      String rId = matcher.group(2);
-      int slideNumber = extractSlideNumberFromRId(rId);
+  /**
+   * Assign final part numbers to a planned slide order, taking the lowest numbers not held by
+   * parts outside the order. Existing parts whose number changes are added to renames; planned
+   * new slides (negative entries, -1 for the first) receive their number in newPartNumbers.
+   */
+  private void assignPartNumbers(List<Integer> plan, Set<Integer> unlisted,
+      Map<Integer, Integer> renames, int[] newPartNumbers) {
+    int nextNumber = 1;
+    for (int entry : plan) {
+      while (unlisted.contains(nextNumber)) {
+        nextNumber++;
+      }
+      if (entry < 0) {
+        newPartNumbers[-entry - 1] = nextNumber;
+      } else if (entry != nextNumber) {
+        renames.put(entry, nextNumber);
+      }
+      nextNumber++;
+    }
+  }
 
-      slides.add(new SlideIdInfo(slideNumber, slideId, rId, fullElement));
+  /**
+   * Rename slide parts in one sweep. Parts are staged under temporary names first so swaps never
+   * overwrite each other; references in every .rels file except presentation.xml.rels (held by the
+   * PresentationPart) are updated, and SPIDManager registrations are renumbered.
+   */
+  private void renameSlideParts(Map<Integer, Integer> renames) throws IOException {
+    File slidesDir = new File(extractedPptxDir, "ppt/slides");
+    File relsDir = new File(slidesDir, "_rels");
+    for (int oldNumber : renames.keySet()) {
+      movePart(new File(slidesDir, String.format("slide%d.xml", oldNumber)),
+          new File(slidesDir, String.format("slide%d.xml.renaming", oldNumber)));
+      movePart(new File(relsDir, String.format("slide%d.xml.rels", oldNumber)),
+          new File(relsDir, String.format("slide%d.xml.rels.renaming", oldNumber)));
+    }
+    for (Map.Entry<Integer, Integer> rename : renames.entrySet()) {
+      movePart(new File(slidesDir, String.format("slide%d.xml.renaming", rename.getKey())),
+          new File(slidesDir, String.format("slide%d.xml", rename.getValue())));
+      movePart(new File(relsDir, String.format("slide%d.xml.rels.renaming", rename.getKey())),
+          new File(relsDir, String.format("slide%d.xml.rels", rename.getValue())));
+      relationshipManager.invalidateSlideRelationships(rename.getKey());
+      relationshipManager.invalidateSlideRelationships(rename.getValue());
     }
 
-    return slides;
+    Path presentationRels = new File(extractedPptxDir, "ppt/_rels/presentation.xml.rels").toPath();
+    List<Path> relsFiles;
+    try (Stream<Path> paths = Files.walk(new File(extractedPptxDir, "ppt").toPath())) {
+      relsFiles = paths
+        .filter(path -> path.toString().endsWith(".rels") && !path.equals(presentationRels))
+        .collect(Collectors.toList());
+    }
+    for (Path relsPath : relsFiles) {
+      rewriteSlideReferences(relsPath.toFile(), renames);
+    }
+
+    spidManager.renumberSlides(renames);
   }
 
   /**
-   * Update subsequent rId attributes when a slide is inserted
+   * Rewrite slide relationship targets in one relationships file
    */
-  private String updateSubsequentRIdsInString(String content, int insertedSlideNumber) {
-    Pattern slidePattern = Pattern.compile("<p:sldId\\s+id=\"(\\d+)\"\\s+r:id=\"rId(\\d+)\"/>");
-    Matcher matcher = slidePattern.matcher(content);
+  private void rewriteSlideReferences(File file, Map<Integer, Integer> renames) throws IOException {
+    if (!file.exists()) {
+      return;
+    }
 
-    StringBuffer result = new StringBuffer();
+    String content = Files.readString(file.toPath());
+    String rewritten = rewriteSlideReferences(content, renames);
+    if (!rewritten.equals(content)) {
+      Files.writeString(file.toPath(), rewritten);
+      relationshipManager.invalidateRelationships(file);
+    }
+  }
+
+  /**
+   * Rewrite slide relationship targets in relationships XML content
+   */
+  private String rewriteSlideReferences(String content, Map<Integer, Integer> renames) {
+    Matcher matcher = SLIDE_TARGET_PATTERN.matcher(content);
+    StringBuilder result = new StringBuilder();
 
     while (matcher.find()) {
-      String slideId = matcher.group(1);
-      int rIdNumber = Integer.parseInt(matcher.group(2));
-      int slideNumber = rIdNumber - 1; // rId2 = slide1, etc.
-
-      // If this slide comes after our inserted slide, increment its rId
-      if (slideNumber > insertedSlideNumber) {
-        String newRId = XMLConstants.RID_PREFIX + (rIdNumber + 1);
-        String replacement = String.format("<p:sldId id=\"%s\" r:id=\"%s\"/>", slideId, newRId);
-        matcher.appendReplacement(result, replacement);
-      } else {
-        // Keep original
-        matcher.appendReplacement(result, matcher.group(0));
-      }
+      Integer newNumber = renames.get(Integer.parseInt(matcher.group(2)));
+      String replacement = newNumber != null
+        ? matcher.group(1) + "slide" + newNumber + ".xml\""
+        : matcher.group();
+      matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
     }
 
     matcher.appendTail(result);
@@ -383,98 +774,215 @@ public class SlideCreator {
   }
 
   /**
-   * Update content types registry using RelationshipManager validation
+   * Convert slide part number renames into part name renames
    */
-  private void updateContentTypes() throws XMLParsingException {
-    try {
-      // Use RelationshipManager to validate and ensure content types are consistent
-      RelationshipManager.ValidationResult validation = relationshipManager.validateAllRelationships();
+  private Map<String, String> toSlidePartNames(Map<Integer, Integer> renames) {
+    Map<String, String> partRenames = new LinkedHashMap<>();
+    for (Map.Entry<Integer, Integer> rename : renames.entrySet()) {
+      partRenames.put(String.format("/ppt/slides/slide%d.xml", rename.getKey()),
+          String.format("/ppt/slides/slide%d.xml", rename.getValue()));
+    }
+    return partRenames;
+  }
 
-      if (validation.hasErrors()) {
-        System.out.println("  ⚠ Relationship validation found issues:");
-        for (String error : validation.getErrors()) {
-          System.out.println("    → " + error);
-        }
-      }
+  /**
+   * Create the parts for planned insertions one at a time
+   */
+  private void createInsertedSlides(List<SlideInsertion> insertions, int[] partNumbers,
+      Map<Integer, Integer> renames) throws XMLParsingException {
+    for (int i = 0; i < insertions.size(); i++) {
+      createInsertedSlide(insertions.get(i), partNumbers[i], renames);
+    }
+  }
 
-      if (validation.hasWarnings()) {
-        System.out.println("  ⚠ Relationship validation warnings:");
-        for (String warning : validation.getWarnings()) {
-          System.out.println("    → " + warning);
+  /**
+   * Create slide parts from a compiled template, one instance per part number. All instances share
+   * one contiguous SPID reservation; instances are bound and written in parallel in bounded chunks.
+   * A null row leaves the template's tokens in place.
+   */
+  private void createTemplateSlides(CompiledSlideTemplate template, List<TemplateData> rows,
+      int[] partNumbers) throws XMLParsingException {
+    createTemplateSlides(Collections.nCopies(partNumbers.length, template), rows, partNumbers);
+    System.out.println("  ✓ Created " + partNumbers.length + " slides from template " + template.getTemplateName() +
+        " (" + template.getShapeCount() + " shapes, " + template.getAnimationTargetCount() + " animation targets each)");
+  }
+
+  /**
+   * Create slide parts from one compiled template per part number, with one SPID reservation for all
+   * of them (each instance gets the next getShapeCount() SPIDs) and parallel writes in bounded chunks.
+   */
+  private void createTemplateSlides(List<CompiledSlideTemplate> templates, List<TemplateData> rows,
+      int[] partNumbers) throws XMLParsingException {
+    File slidesDir = new File(extractedPptxDir, "ppt/slides");
+    int[] spidOffsets = new int[partNumbers.length];
+    int totalShapes = 0;
+    for (int i = 0; i < partNumbers.length; i++) {
+      spidOffsets[i] = totalShapes;
+      totalShapes += templates.get(i).getShapeCount();
+    }
+    int firstSpid = totalShapes > 0 ? spidManager.allocateUniqueSpids(totalShapes).getFirst() : 1;
+
+    for (int chunkStart = 0; chunkStart < partNumbers.length; chunkStart += TEMPLATE_WRITE_CHUNK_SIZE) {
+      int chunkEnd = Math.min(partNumbers.length, chunkStart + TEMPLATE_WRITE_CHUNK_SIZE);
+      List<Callable<Void>> writes = new ArrayList<>();
+
+      for (int i = chunkStart; i < chunkEnd; i++) {
+        CompiledSlideTemplate template = templates.get(i);
+        int shapeCount = template.getShapeCount();
+        int partNumber = partNumbers[i];
+        int instanceFirstSpid = firstSpid + spidOffsets[i];
+        for (int slot = 0; slot < shapeCount; slot++) {
+          spidManager.registerSpid(instanceFirstSpid + slot, partNumber, template.getShapeName(slot));
         }
-      }
 
-      // Load [Content_Types].xml for basic slide content type verification
-      File contentTypesFile = new File(extractedPptxDir, "[Content_Types].xml");
-      if (!contentTypesFile.exists()) {
-        throw new XMLParsingException("[Content_Types].xml not found");
+        TemplateData row = rows != null ? rows.get(i) : null;
+        File slideFile = new File(slidesDir, String.format("slide%d.xml", partNumber));
+        File relsFile = new File(slidesDir, String.format("_rels/slide%d.xml.rels", partNumber));
+        writes.add(() -> {
+          writeDocument(template.instantiate(row, instanceFirstSpid), slideFile);
+          spidManager.markSlideModified(partNumber);
+          if (template.hasRelationships()) {
+            writeDocument(template.createRelationshipsDocument(), relsFile);
+          }
+          return null;
+        });
       }
 
-      Document contentTypesDoc = documentBuilder.parse(contentTypesFile);
+      runParallel(writes, "Failed to write slides from template " + templates.get(chunkStart).getTemplateName());
+    }
+
+    for (int i = 0; i < partNumbers.length; i++) {
+      relationshipManager.invalidateSlideRelationships(partNumbers[i]);
+      if (!templates.get(i).hasRelationships()) {
+        createSlideRelationships(partNumbers[i]);
+      }
+    }
+  }
 
-      // Check if slide content type is already registered
-      Element typesRoot = contentTypesDoc.getDocumentElement();
-      String slideContentTypeQuery = String.format("//Override[@ContentType='%s']", 
-          XMLConstants.CONTENT_TYPE_SLIDE);
-      NodeList overrides = (NodeList) xpath.evaluate(slideContentTypeQuery, 
-          contentTypesDoc, XPathConstants.NODESET);
+  /**
+   * Run tasks on a bounded thread pool and surface the first failure
+   */
+  private void runParallel(List<Callable<Void>> tasks, String failureMessage) throws XMLParsingException {
+    if (tasks.isEmpty()) {
+      return;
+    }
 
-      if (overrides.getLength() == 0) {
-        // Add slide content type override if missing
-        Element override = contentTypesDoc.createElement("Override");
-        override.setAttribute("PartName", "/ppt/slides/slide1.xml");
-        override.setAttribute("ContentType", XMLConstants.CONTENT_TYPE_SLIDE);
-        typesRoot.appendChild(override);
+    // Pool threads end with the pool, so hand their SPID block tails back after each task
+    List<Callable<Void>> releasingTasks = new ArrayList<>();
+    for (Callable<Void> task : tasks) {
+      releasingTasks.add(() -> {
+        try {
+          return task.call();
+        } finally {
+          spidManager.releaseThreadSpidBlock();
+        }
+      });
+    }
 
-        writeDocument(contentTypesDoc, contentTypesFile);
-        System.out.println("  ✓ Added slide content type to [Content_Types].xml");
-      } else {
-        System.out.println("  ✓ Slide content type already registered in [Content_Types].xml");
+    int threads = Math.min(Math.max(1, Runtime.getRuntime().availableProcessors()), tasks.size());
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (Future<Void> future : executor.invokeAll(releasingTasks)) {
+        future.get();
       }
-
-    } catch (Exception e) {
-      throw new XMLParsingException("Failed to update content types", e);
+    } catch (ExecutionException e) {
+      throw new XMLParsingException(failureMessage, e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new XMLParsingException(failureMessage, e);
+    } finally {
+      executor.shutdownNow();
     }
   }
 
   /**
-   * Rename all slides at and after the insertion position
-   * This creates space for the new slide to be inserted
+   * Create the part and relationships for one planned slide insertion
    */
-  private void renameSubsequentSlides(int insertPosition) throws XMLParsingException {
+  private void createInsertedSlide(SlideInsertion insertion, int slideNumber,
+      Map<Integer, Integer> renames) throws XMLParsingException {
     try {
       File slidesDir = new File(extractedPptxDir, "ppt/slides");
-      File relsDir = new File(extractedPptxDir, "ppt/slides/_rels");
+      File newSlideFile = new File(slidesDir, String.format("slide%d.xml", slideNumber));
+
+      switch (insertion.getType()) {
+        case COPY: {
+          int sourcePart = renames.getOrDefault(insertion.getSourceSlideNumber(), insertion.getSourceSlideNumber());
+          Document sourceSlide = documentBuilder.parse(new File(slidesDir, String.format("slide%d.xml", sourcePart)));
+          writeDocument(modifySlideForCopy(sourceSlide, insertion.getTitle(), slideNumber), newSlideFile);
+          copySlideRelationships(sourcePart, slideNumber);
+          break;
+        }
+        case TEMPLATE:
+          if (insertion.getTemplate() instanceof CompiledSlideTemplate) {
+            createTemplateSlides((CompiledSlideTemplate) insertion.getTemplate(),
+                Collections.singletonList(insertion.getTemplateData()), new int[] {slideNumber});
+            break;
+          }
+          writeDocument(insertion.getTemplate().createSlideDocument(insertion.getTemplateData()), newSlideFile);
+          createSlideRelationships(slideNumber);
+          break;
+        default:
+          writeDocument(createBlankSlideDocument(insertion.getTitle(), slideNumber), newSlideFile);
+          createSlideRelationships(slideNumber);
+          break;
+      }
 
-      // Get list of existing slide numbers
-      List<Integer> existingSlides = getExistingSlideNumbers();
+      spidManager.markSlideModified(slideNumber);
+      System.out.println("  ✓ Created slide file: " + newSlideFile.getName() +
+          " (" + insertion.getType() + " at position " + insertion.getPosition() + ")");
 
-      // Sort in descending order to avoid naming conflicts
-      existingSlides.sort(Collections.reverseOrder());
+    } catch (XMLParsingException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to create slide " + slideNumber, e);
+    }
+  }
 
-      // Rename slides from highest to lowest
-      for (int slideNum : existingSlides) {
-        if (slideNum >= insertPosition) {
-          int newSlideNum = slideNum + 1;
+  /**
+   * Find the notes slide owned by a slide through its relationships file
+   */
+  private File findNotesSlide(File slideRelsFile) throws Exception {
+    if (!slideRelsFile.exists()) {
+      return null;
+    }
 
-          // Rename slide XML file
-          File oldSlideFile = new File(slidesDir, String.format("slide%d.xml", slideNum));
-          File newSlideFile = new File(slidesDir, String.format("slide%d.xml", newSlideNum));
-          if (oldSlideFile.exists()) {
-            Files.move(oldSlideFile.toPath(), newSlideFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-          }
+    NodeList relationships = documentBuilder.parse(slideRelsFile)
+      .getElementsByTagNameNS(XMLConstants.PACKAGE_RELATIONSHIPS_NS, "Relationship");
+    for (int i = 0; i < relationships.getLength(); i++) {
+      Element relationship = (Element) relationships.item(i);
+      if (XMLConstants.RELATIONSHIP_TYPE_NOTES_SLIDE.equals(relationship.getAttribute("Type"))) {
+        return new File(slideRelsFile.getParentFile().getParentFile(), relationship.getAttribute("Target"))
+          .toPath().normalize().toFile();
+      }
+    }
+    return null;
+  }
 
-          // Rename relationships file
-          File oldRelsFile = new File(relsDir, String.format("slide%d.xml.rels", slideNum));
-          File newRelsFile = new File(relsDir, String.format("slide%d.xml.rels", newSlideNum));
-          if (oldRelsFile.exists()) {
-            Files.move(oldRelsFile.toPath(), newRelsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-          }
-        }
+  /**
+   * Find another slide whose relationships reference a notes slide
+   *
+   * @return The part number of such a slide, or -1 if none references it
+   */
+  private int findSlideReferencingNotes(File notesFile, File slidesRelsDir) throws Exception {
+    File[] relsFiles = slidesRelsDir.listFiles((dir, name) -> name.matches("slide\\d+\\.xml\\.rels"));
+    if (relsFiles == null) {
+      return -1;
+    }
+
+    for (File relsFile : relsFiles) {
+      if (notesFile.equals(findNotesSlide(relsFile))) {
+        return Integer.parseInt(relsFile.getName().replaceAll("\\D", ""));
       }
+    }
+    return -1;
+  }
 
-    } catch (IOException e) {
-      throw new XMLParsingException("Failed to rename subsequent slides", e);
+  /**
+   * Move a part file if it exists
+   */
+  private void movePart(File source, File target) throws IOException {
+    if (source.exists()) {
+      Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
     }
   }
 
@@ -506,7 +1014,7 @@ public class SlideCreator {
   /**
    * Create a blank slide document with minimal OOXML structure
    */
-  private Document createBlankSlideDocument(String slideTitle) throws XMLParsingException {
+  private Document createBlankSlideDocument(String slideTitle, int slideNumber) throws XMLParsingException {
     try {
       Document document = documentBuilder.newDocument();
 
@@ -522,7 +1030,7 @@ public class SlideCreator {
       slide.appendChild(cSld);
 
       // Create shape tree
-      Element spTree = createBlankShapeTree(document, slideTitle);
+      Element spTree = createBlankShapeTree(document, slideTitle, slideNumber);
       cSld.appendChild(spTree);
 
       // Create color map override
@@ -542,7 +1050,7 @@ public class SlideCreator {
   /**
    * Create a minimal shape tree with just a title placeholder
    */
-  private Element createBlankShapeTree(Document document, String slideTitle) {
+  private Element createBlankShapeTree(Document document, String slideTitle, int slideNumber) {
     Element spTree = document.createElementNS(XMLConstants.PRESENTATION_NS, "p:spTree");
 
     // Add group shape properties
@@ -573,9 +1081,48 @@ public class SlideCreator {
     addTransformElement(document, xfrm, "a:chOff", "0", "0");
     addTransformElement(document, xfrm, "a:chExt", "0", "0");
 
+    spTree.appendChild(createTitlePlaceholder(document, slideTitle, slideNumber));
+
     return spTree;
   }
 
+  /**
+   * Create a title placeholder shape; position and size are inherited from the layout
+   */
+  private Element createTitlePlaceholder(Document document, String slideTitle, int slideNumber) {
+    int spid = spidManager.allocateUniqueSpid();
+    spidManager.registerSpid(spid, slideNumber, "Title 1");
+
+    Element sp = document.createElementNS(XMLConstants.PRESENTATION_NS, "p:sp");
+
+    Element nvSpPr = document.createElementNS(XMLConstants.PRESENTATION_NS, "p:nvSpPr");
+    sp.appendChild(nvSpPr);
+
+    Element cNvPr = document.createElementNS(XMLConstants.PRESENTATION_NS, "p:cNvPr");
+    cNvPr.setAttribute("id", String.valueOf(spid));
+    cNvPr.setAttribute("name", "Title 1");
+    nvSpPr.appendChild(cNvPr);
+
+    Element cNvSpPr = document.createElementNS(XMLConstants.PRESENTATION_NS, "p:cNvSpPr");
+    nvSpPr.appendChild(cNvSpPr);
+
+    Element spLocks = document.createElementNS(XMLConstants.DRAWING_NS, "a:spLocks");
+    spLocks.setAttribute("noGrp", "1");
+    cNvSpPr.appendChild(spLocks);
+
+    Element nvPr = document.createElementNS(XMLConstants.PRESENTATION_NS, "p:nvPr");
+    nvSpPr.appendChild(nvPr);
+
+    Element ph = document.createElementNS(XMLConstants.PRESENTATION_NS, "p:ph");
+    ph.setAttribute("type", "title");
+    nvPr.appendChild(ph);
+
+    sp.appendChild(document.createElementNS(XMLConstants.PRESENTATION_NS, "p:spPr"));
+
+    PlaceholderIndex.setText(sp, slideTitle);
+    return sp;
+  }
+
   /**
    * Helper method to add transform elements
    */
@@ -589,18 +1136,18 @@ public class SlideCreator {
   /**
    * Modify a copied slide to avoid SPID conflicts and update content
    */
-  private Document modifySlideForCopy(Document sourceSlide, String newTitle) throws XMLParsingException {
+  private Document modifySlideForCopy(Document sourceSlide, String newTitle, int slideNumber) throws XMLParsingException {
     // Clone the document
     Document copiedSlide = (Document) sourceSlide.cloneNode(true);
 
-    // Regenerate all SPIDs to avoid conflicts
-    SPIDManager.SPIDRegenerationResult spidResult = regenerateSpids(copiedSlide);
+    // Regenerate all SPIDs to avoid conflicts; this also indexes the placeholders
+    SPIDManager.SPIDRegenerationResult spidResult = regenerateSpids(copiedSlide, slideNumber);
     System.out.println("    → SPID regeneration: " + spidResult.getShapesProcessed() + 
         " shapes, " + spidResult.getAnimationsUpdated() + " animations updated");
 
     // Update title if provided
     if (newTitle != null && !newTitle.trim().isEmpty()) {
-      updateSlideTitle(copiedSlide, newTitle);
+      updateSlideTitle(spidResult.getPlaceholderIndex(), newTitle);
     }
 
     return copiedSlide;
@@ -610,39 +1157,35 @@ public class SlideCreator {
    * Regenerates all SPIDs in a slide document using SPIDManager.
    * 
    * @param slideDocument The slide document to regenerate SPIDs for
+   * @param slideNumber The part number the copied slide will be written to
    * @return SPIDRegenerationResult containing mapping and statistics
    * @throws XMLParsingException If SPID regeneration fails
    */
-  private SPIDManager.SPIDRegenerationResult regenerateSpids(Document slideDocument) throws XMLParsingException {
+  private SPIDManager.SPIDRegenerationResult regenerateSpids(Document slideDocument, int slideNumber)
+      throws XMLParsingException {
     try {
-      return spidManager.regenerateSpids(slideDocument, 0); // 0 = copied slide (temporary)
+      // Register against the new part so the per-slide index covers copied slides
+      return spidManager.regenerateSpids(slideDocument, slideNumber);
     } catch (Exception e) {
       throw new XMLParsingException("Failed to regenerate SPIDs in copied slide", e);
     }
   }
 
   /**
-   * Updates the title of a slide (placeholder implementation).
+   * Updates the title of a slide through its placeholder index.
    * 
-   * @param slide The slide document to update
+   * <p>The title is the "title" placeholder, or the "ctrTitle" of a title slide. Its
+   * paragraph and run formatting is kept; slides without a title placeholder are left
+   * unchanged.</p>
+   * 
+   * @param placeholders The placeholder index of the slide document to update
    * @param newTitle The new title text
-   * @throws XMLParsingException If title update fails
-   */
-  private void updateSlideTitle(Document slide, String newTitle) throws XMLParsingException {
-    // TODO: Implement title shape detection and text update
-    // This is a future enhancement for slide copying
-    System.out.println("    → Title update requested: \"" + newTitle + "\" (not yet implemented)");
-  }
-
-  /**
-   * Helper method to extract slide number from rId (e.g., "rId3" -> 2 for slide2)
    */
-  private int extractSlideNumberFromRId(String rId) {
-    try {
-      int ridNum = Integer.parseInt(rId.substring(XMLConstants.RID_PREFIX.length()));
-      return ridNum - 1; // rId2 corresponds to slide1, etc.
-    } catch (Exception e) {
-      return 1; // Default fallback
+  private void updateSlideTitle(PlaceholderIndex placeholders, String newTitle) {
+    if (placeholders.setTitle(newTitle)) {
+      System.out.println("    → Title updated: \"" + newTitle + "\"");
+    } else {
+      System.out.println("    ⚠ No title placeholder found; title \"" + newTitle + "\" not applied");
     }
   }
 
@@ -683,6 +1226,106 @@ public class SlideCreator {
     return spidManager;
   }
 
+  /**
+   * Opens a deck-level writer session for editing many slides at once.
+   * Writers in the session share this creator's SPIDManager for collision-free SPID allocation.
+   * 
+   * @return A new SlideWriterSession over this presentation
+   */
+  public SlideWriterSession openWriterSession() {
+    return new SlideWriterSession(extractedPptxDir, spidManager);
+  }
+
+  /**
+   * Sets how slide order is maintained for subsequent insertions.
+   * 
+   * <p>In LOGICAL mode an insert writes one new part (slide{max+1}.xml), one relationship
+   * in presentation.xml.rels and one sldId, instead of renaming every subsequent slide part.
+   * Slide numbers returned by insert methods are then part numbers, not positions.</p>
+   * 
+   * @param orderingMode The ordering mode to use
+   * @throws IllegalArgumentException If orderingMode is null
+   */
+  public void setOrderingMode(SlideOrderingMode orderingMode) {
+    if (orderingMode == null) {
+      throw new IllegalArgumentException("orderingMode cannot be null");
+    }
+    this.orderingMode = orderingMode;
+  }
+
+  /**
+   * Gets the current slide ordering mode.
+   * 
+   * @return The SlideOrderingMode in effect
+   */
+  public SlideOrderingMode getOrderingMode() {
+    return orderingMode;
+  }
+
+  /**
+   * Sets whether logically ordered slide parts are compacted when the presentation is saved.
+   * 
+   * @param compactOnSave true to compact on save (the default)
+   */
+  public void setCompactOnSave(boolean compactOnSave) {
+    this.compactOnSave = compactOnSave;
+  }
+
+  /**
+   * Checks whether slide parts should be compacted before the presentation is saved.
+   * 
+   * @return true if in LOGICAL mode with compaction on save enabled
+   */
+  public boolean isCompactOnSave() {
+    return orderingMode == SlideOrderingMode.LOGICAL && compactOnSave;
+  }
+
+  /**
+   * Renames slide parts so that slideN.xml is the Nth slide in sldIdLst order.
+   * 
+   * <p>Parts are staged under temporary names first so swaps never overwrite each other,
+   * then every reference is rewritten: presentation.xml.rels, [Content_Types].xml and any
+   * other relationship file targeting a slide (notes slides, slide hyperlinks). Parts not
+   * listed in sldIdLst keep their names, and listed slides skip over them. SPIDs registered
+   * with the SPIDManager are renumbered; open SlideWriterSessions should be discarded.</p>
+   * 
+   * @return The number of slide parts renamed
+   * @throws XMLParsingException If compaction fails
+   */
+  public int compactSlideParts() throws XMLParsingException {
+    try {
+      PresentationPart presentation = getPresentationPart();
+      List<Integer> order = presentation.getSlidePartNumbers();
+      Set<Integer> unlisted = new HashSet<>(getExistingSlideNumbers());
+      unlisted.removeAll(order);
+
+      Map<Integer, Integer> renames = new LinkedHashMap<>();
+      assignPartNumbers(order, unlisted, renames, new int[0]);
+      if (renames.isEmpty()) {
+        return 0;
+      }
+
+      renameSlideParts(renames);
+      presentation.renameSlideParts(renames);
+      ContentTypesRegistry contentTypes = getContentTypesRegistry();
+      contentTypes.renameParts(toSlidePartNames(renames));
+      presentation.flush();
+      contentTypes.flush();
+
+      System.out.println("  ✓ Compacted slide parts: " + renames.size() + " renamed");
+      return renames.size();
+
+    } catch (XMLParsingException e) {
+      presentationPart = null;
+      contentTypesRegistry = null;
+      throw e;
+    } catch (Exception e) {
+      presentationPart = null;
+      contentTypesRegistry = null;
+      throw new XMLParsingException("Failed to compact slide parts", e);
+    }
+  }
+
   /**
    * Allocates a unique SPID for new shapes, guaranteed not to conflict with existing shapes.
    * 
@@ -693,15 +1336,29 @@ public class SlideCreator {
   }
 
   /**
-   * Validates that all SPIDs and relationships in the presentation are consistent.
+   * Validates that all SPIDs and relationships in the presentation are consistent,
+   * re-parsing every slide for the SPID check.
    * 
    * @return ValidationSummary containing any detected issues
    * @throws XMLParsingException If validation cannot be performed
    */
   public ValidationSummary validatePresentation() throws XMLParsingException {
+    return validatePresentation(SPIDManager.ValidationMode.FULL_AUDIT);
+  }
+
+  /**
+   * Validates that all SPIDs and relationships in the presentation are consistent.
+   * 
+   * @param spidValidationMode Whether the SPID check re-parses every slide or only slides
+   *                          changed since they were last parsed
+   * @return ValidationSummary containing any detected issues
+   * @throws XMLParsingException If validation cannot be performed
+   */
+  public ValidationSummary validatePresentation(SPIDManager.ValidationMode spidValidationMode)
+      throws XMLParsingException {
     try {
       // Validate both SPID uniqueness and relationship consistency
-      SPIDManager.ValidationResult spidValidation = spidManager.validateSpidUniqueness();
+      SPIDManager.ValidationResult spidValidation = spidManager.validateSpidUniqueness(spidValidationMode);
       RelationshipManager.ValidationResult relationshipValidation = relationshipManager.validateAllRelationships();
 
       List<String> allErrors = new ArrayList<>();
@@ -748,22 +1405,100 @@ public class SlideCreator {
   // ========== INNER CLASSES ==========
 
   /**
-   * Helper class for slide ID information
+   * One planned slide insertion for {@link SlideCreator#applyBatch(List)}.
    */
-  private static class SlideIdInfo {
-    final int slideNumber;
-    final int slideId;
-    final String rId;
-    final String originalElement;
+  public static class SlideInsertion {
+
+    public enum Type { BLANK, COPY, TEMPLATE }
+
+    private final Type type;
+    private final int position;
+    private final String title;
+    private final int sourceSlideNumber;
+    private final SlideTemplate template;
+    private final TemplateData templateData;
 
-    SlideIdInfo(int slideNumber, int slideId, String rId, String originalElement) {
-      this.slideNumber = slideNumber;
-      this.slideId = slideId;
-      this.rId = rId;
-      this.originalElement = originalElement;
+    private SlideInsertion(Type type, int position, String title, int sourceSlideNumber,
+        SlideTemplate template, TemplateData templateData) {
+      if (position < 1) {
+        throw new IllegalArgumentException("position must be 1 or greater");
+      }
+      this.type = type;
+      this.position = position;
+      this.title = title;
+      this.sourceSlideNumber = sourceSlideNumber;
+      this.template = template;
+      this.templateData = templateData;
+    }
+
+    public static SlideInsertion blank(int position, String title) {
+      return new SlideInsertion(Type.BLANK, position, title, 0, null, null);
+    }
+
+    public static SlideInsertion copy(int position, int sourceSlideNumber, String newTitle) {
+      return new SlideInsertion(Type.COPY, position, newTitle, sourceSlideNumber, null, null);
+    }
+
+    public static SlideInsertion template(int position, SlideTemplate template, TemplateData templateData) {
+      if (template == null) {
+        throw new IllegalArgumentException("template cannot be null");
+      }
+      return new SlideInsertion(Type.TEMPLATE, position, null, 0, template, templateData);
+    }
+
+    public Type getType() { return type; }
+    public int getPosition() { return position; }
+    public String getTitle() { return title; }
+    public int getSourceSlideNumber() { return sourceSlideNumber; }
+    public SlideTemplate getTemplate() { return template; }
+    public TemplateData getTemplateData() { return templateData; }
+
+    @Override
+    public String toString() {
+      return String.format("SlideInsertion{type=%s, position=%d}", type, position);
+    }
+  }
+
+  /**
+   * Result of a batch slide insertion.
+   */
+  public static class BatchInsertionResult {
+    private final List<Integer> slideNumbers;
+    private final int partsRenamed;
+
+    public BatchInsertionResult(List<Integer> slideNumbers, int partsRenamed) {
+      this.slideNumbers = Collections.unmodifiableList(new ArrayList<>(slideNumbers));
+      this.partsRenamed = partsRenamed;
+    }
+
+    /** Slide number of each insertion, in the order the insertions were given */
+    public List<Integer> getSlideNumbers() { return slideNumbers; }
+    public int getPartsRenamed() { return partsRenamed; }
+
+    @Override
+    public String toString() {
+      return String.format("BatchInsertionResult{inserted=%d, renamed=%d}", slideNumbers.size(), partsRenamed);
     }
   }
 
+  /**
+   * Creates the parts for planned insertions once their part numbers are known.
+   */
+  private interface SlidePartFactory {
+    void createParts(List<SlideInsertion> insertions, int[] partNumbers,
+        Map<Integer, Integer> renames) throws Exception;
+  }
+
+  /**
+   * How slide order is maintained when slides are inserted.
+   */
+  public enum SlideOrderingMode {
+    /** slideN.xml is always the Nth slide; inserts rename every subsequent slide part */
+    PHYSICAL,
+    /** Order lives only in sldIdLst; new slides get fresh part names until compaction */
+    LOGICAL
+  }
+
   /**
    * Combined validation result for both SPIDs and relationships.
    */
@@ -790,39 +1525,3 @@ public class SlideCreator {
   }
 }
 
-/**
- * Interface for slide templates - moved to separate file in production
- */
-interface SlideTemplate {
-  Document createSlideDocument(TemplateData data) throws XMLParsingException;
-  String getTemplateName();
-}
-
-/**
- * Data container for template population - moved to separate file in production
- */
-class TemplateData {
-  private final Map<String, Object> data = new HashMap<>();
-
-  public void put(String key, Object value) {
-    data.put(key, value);
-  }
-
-  public Object get(String key) {
-    return data.get(key);
-  }
-
-  public String getString(String key) {
-    Object value = data.get(key);
-    return value != null ? value.toString() : null;
-  }
-
-  @SuppressWarnings("unchecked")
-  public List<String> getStringList(String key) {
-    Object value = data.get(key);
-    if (value instanceof List) {
-      return (List<String>) value;
-    }
-    return new ArrayList<>();
-  }
-}
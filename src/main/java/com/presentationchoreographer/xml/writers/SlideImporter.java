@@ -0,0 +1,674 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.w3c.dom.*;
+import javax.xml.parsers.*;
+import javax.xml.transform.*;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.*;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+import com.presentationchoreographer.utils.PackageArchive;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * Copies the parts a slide of another PPTX depends on into the presentation of a
+ * {@link SlideCreator}, and prepares the slide itself for instantiation there.
+ *
+ * <p>The slide's relationship graph is walked from the slide: its layout, the layout's
+ * master (with every layout and the theme of that master), media, and any other related
+ * parts are copied under part names that are free in the target. A source master is reused
+ * instead of copied when the target holds an identical master whose layouts include an
+ * identical copy of each source layout. Masters and layouts compare by their bytes and
+ * relationships, and by the content of the parts those relationships resolve to (the
+ * master's theme, background and logo media), so a stock master over a different theme is
+ * copied. Media is deduplicated by SHA-256 content hash
+ * against the target's existing media and everything imported earlier. Mappings are kept
+ * per source package, so each dependency is copied at most once across imports.</p>
+ *
+ * <p>A source package is either an extracted directory or a PPTX archive. Archives are read
+ * entry by entry, so only the parts an imported slide actually references are read, and
+ * nothing is extracted. An archive stays open until {@link #closeSources()}.</p>
+ *
+ * <p>Copied parts and the imported slide keep their own relationship IDs, which are scoped
+ * to their .rels part (see {@link RelationshipTable}), so r:id, r:embed and r:link
+ * references need no rewriting. Notes slides are not imported.</p>
+ *
+ * <p>Thread Safety: This class is not thread-safe.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+class SlideImporter {
+
+  private static final long MIN_MASTER_OR_LAYOUT_ID = 2147483648L;
+  private static final Pattern LAYOUT_ID_PATTERN = Pattern.compile("(<p:sldLayoutId\\b[^>]*?\\bid=\")(\\d+)\"");
+  private static final Pattern PART_NAME_PATTERN = Pattern.compile("^(.*?)(\\d*)(\\.[^.]*)?$");
+  private static final Pattern SLIDE_PART_PATTERN = Pattern.compile("slide(\\d+)\\.xml$");
+  private static final String MEDIA_DIRECTORY = "ppt/media/";
+
+  private final SlideCreator target;
+  private final File targetDir;
+  private final DocumentBuilder documentBuilder;
+
+  /**
+   * Source packages imported from, keyed by canonical path
+   */
+  private final Map<File, SourcePackage> sources = new HashMap<>();
+
+  /**
+   * Target media part path by SHA-256 of its content, built on first use
+   */
+  private Map<String, String> mediaByHash;
+
+  /**
+   * Target part paths allocated by this importer whose files may not be written yet
+   */
+  private final Set<String> allocatedPartNames = new HashSet<>();
+
+  /**
+   * Next free sldMasterId/sldLayoutId, computed on first use
+   */
+  private long nextMasterOrLayoutId;
+
+  /**
+   * Reads parts of the target package
+   */
+  private final PartReader targetReader;
+
+  SlideImporter(SlideCreator target, File targetDir) throws XMLParsingException {
+    this.target = target;
+    this.targetDir = targetDir;
+    this.targetReader = path -> readFile(new File(targetDir, path));
+
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      this.documentBuilder = factory.newDocumentBuilder();
+    } catch (ParserConfigurationException e) {
+      throw new XMLParsingException("Failed to initialize slide importer", e);
+    }
+  }
+
+  /**
+   * Resolves presentation positions of a source package to slide part numbers.
+   * Null positions resolve every slide in presentation order.
+   *
+   * @throws IllegalArgumentException If a position is out of range
+   */
+  int[] resolveSourceSlides(File sourcePackage, int[] sourcePositions) throws XMLParsingException {
+    PresentationPart presentation = source(sourcePackage).presentation;
+    if (sourcePositions == null) {
+      return presentation.getSlidePartNumbers().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    int[] parts = new int[sourcePositions.length];
+    for (int i = 0; i < sourcePositions.length; i++) {
+      parts[i] = presentation.getSlideAt(sourcePositions[i]).getPartNumber();
+    }
+    return parts;
+  }
+
+  /**
+   * Imports the dependencies of a source slide and compiles the slide as a template whose
+   * relationships point at the imported parts.
+   *
+   * @param sourcePackage The source package, an extracted directory or a PPTX archive
+   * @param sourcePart Part number of the source slide
+   * @param targetPart Part number the slide will be written to in the target
+   * @param importedParts Target part number of each source slide imported in the same call;
+   *                      slide hyperlinks to those follow them, other slide hyperlinks are
+   *                      retargeted at the imported slide itself
+   * @return The compiled slide, ready for instantiation by SlideCreator
+   * @throws XMLParsingException If a part cannot be read or copied
+   */
+  CompiledSlideTemplate importSlide(File sourcePackage, int sourcePart, int targetPart,
+      Map<Integer, Integer> importedParts) throws XMLParsingException {
+    SourcePackage source = source(sourcePackage);
+    String slidePath = String.format("ppt/slides/slide%d.xml", sourcePart);
+    String targetSlidePath = String.format("ppt/slides/slide%d.xml", targetPart);
+
+    try {
+      Document slide = parse(source, slidePath);
+      if (slide == null) {
+        throw new XMLParsingException("Part " + slidePath + " not found in source package");
+      }
+      Document relationships = parse(source, relationshipsPath(slidePath));
+
+      if (relationships != null) {
+        for (Element relationship : relationshipElements(relationships)) {
+          String type = relationship.getAttribute("Type");
+          if (XMLConstants.RELATIONSHIP_TYPE_NOTES_SLIDE.equals(type)) {
+            relationship.getParentNode().removeChild(relationship);
+            continue;
+          }
+
+          if ("External".equals(relationship.getAttribute("TargetMode"))) {
+            continue;
+          }
+
+          String resolved = resolveTarget(slidePath, relationship.getAttribute("Target"));
+          Matcher linkedSlide = SLIDE_PART_PATTERN.matcher(resolved);
+          if (XMLConstants.RELATIONSHIP_TYPE_SLIDE.equals(type) && linkedSlide.find()) {
+            int linkedPart = importedParts.getOrDefault(Integer.parseInt(linkedSlide.group(1)), targetPart);
+            relationship.setAttribute("Target", String.format("slide%d.xml", linkedPart));
+            continue;
+          }
+
+          relationship.setAttribute("Target", relativeTarget(targetSlidePath, importPart(source, type, resolved)));
+        }
+      }
+
+      return CompiledSlideTemplate.compile("imported slide" + sourcePart, slide, relationships);
+
+    } catch (XMLParsingException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to import slide " + sourcePart + " from " + sourcePackage.getName(), e);
+    }
+  }
+
+  /**
+   * Closes the source archives opened by imports. Their part mappings are kept, and an
+   * archive is reopened if it is imported from again.
+   */
+  void closeSources() {
+    for (SourcePackage source : sources.values()) {
+      source.closeArchive();
+    }
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  private SourcePackage source(File sourcePackage) throws XMLParsingException {
+    try {
+      File key = sourcePackage.getCanonicalFile();
+      SourcePackage source = sources.get(key);
+      if (source == null) {
+        if (key.isDirectory()) {
+          source = new SourcePackage(key, null, PresentationPart.load(key), ContentTypesRegistry.load(key));
+        } else {
+          ZipFile archive = new ZipFile(key);
+          source = new SourcePackage(key, archive, PresentationPart.load(archive), ContentTypesRegistry.load(archive));
+        }
+        sources.put(key, source);
+      } else if (!key.isDirectory() && source.archive == null) {
+        source.archive = new ZipFile(key);
+      }
+      return source;
+
+    } catch (IOException e) {
+      throw new XMLParsingException("Failed to open source package " + sourcePackage, e);
+    }
+  }
+
+  /**
+   * Maps a source part into the target, copying it (and what it references) on first use
+   */
+  private String importPart(SourcePackage source, String relationshipType, String sourcePath) throws Exception {
+    String mapped = source.partMappings.get(sourcePath);
+    if (mapped != null) {
+      return mapped;
+    }
+    if (!source.exists(sourcePath)) {
+      throw new XMLParsingException("Part " + sourcePath + " not found in source package");
+    }
+
+    if (XMLConstants.RELATIONSHIP_TYPE_SLIDE_LAYOUT.equals(relationshipType)) {
+      return importLayout(source, sourcePath);
+    }
+    if (XMLConstants.RELATIONSHIP_TYPE_SLIDE_MASTER.equals(relationshipType)) {
+      importMaster(source, sourcePath);
+      return source.partMappings.get(sourcePath);
+    }
+    if (sourcePath.startsWith(MEDIA_DIRECTORY)) {
+      return importMedia(source, sourcePath);
+    }
+    return copyPart(source, sourcePath);
+  }
+
+  /**
+   * Maps a layout by importing its master, which maps every layout of that master
+   */
+  private String importLayout(SourcePackage source, String layoutPath) throws Exception {
+    for (Element relationship : relationshipElements(source, layoutPath)) {
+      if (XMLConstants.RELATIONSHIP_TYPE_SLIDE_MASTER.equals(relationship.getAttribute("Type"))) {
+        importMaster(source, resolveTarget(layoutPath, relationship.getAttribute("Target")));
+        break;
+      }
+    }
+
+    String mapped = source.partMappings.get(layoutPath);
+    return mapped != null ? mapped : copyPart(source, layoutPath);
+  }
+
+  /**
+   * Maps a master to an identical target master, or copies it with its layouts and theme
+   */
+  private void importMaster(SourcePackage source, String masterPath) throws Exception {
+    if (source.partMappings.containsKey(masterPath)) {
+      return;
+    }
+
+    byte[] masterBytes = source.read(masterPath);
+    List<String> layouts = relatedParts(source, masterPath, XMLConstants.RELATIONSHIP_TYPE_SLIDE_LAYOUT);
+    String masterDigest = partDigest(source, masterPath, new HashMap<>());
+
+    for (String targetMaster : getTargetMasterPaths()) {
+      if (!masterDigest.equals(partDigest(targetReader, targetMaster, new HashMap<>()))) {
+        continue;
+      }
+      Map<String, String> layoutMatches = matchLayouts(source, layouts,
+          relatedParts(targetReader, targetMaster, XMLConstants.RELATIONSHIP_TYPE_SLIDE_LAYOUT));
+      if (layoutMatches != null) {
+        source.partMappings.put(masterPath, targetMaster);
+        source.partMappings.putAll(layoutMatches);
+        System.out.println("  ✓ Reused identical " + targetMaster + " for imported " + masterPath);
+        return;
+      }
+    }
+
+    // Map the master before copying its graph, since each layout refers back to it
+    String targetMaster = allocatePartName(masterPath);
+    source.partMappings.put(masterPath, targetMaster);
+    copyRelationships(source, masterPath, targetMaster);
+
+    // Layout IDs share one ID space with master IDs across the presentation
+    long masterId = allocateMasterOrLayoutId();
+    Matcher layoutIds = LAYOUT_ID_PATTERN.matcher(new String(masterBytes, "UTF-8"));
+    StringBuffer content = new StringBuffer();
+    while (layoutIds.find()) {
+      layoutIds.appendReplacement(content, Matcher.quoteReplacement(layoutIds.group(1) + allocateMasterOrLayoutId() + "\""));
+    }
+    layoutIds.appendTail(content);
+    writePart(targetMaster, content.toString().getBytes("UTF-8"));
+
+    registerContentType(source, masterPath, targetMaster);
+    target.getPresentationPart().addSlideMaster(relativeTarget("ppt/presentation.xml", targetMaster), masterId);
+    System.out.println("  ✓ Imported " + masterPath + " as " + targetMaster + " with " + layouts.size() + " layouts");
+  }
+
+  /**
+   * Pairs each source layout with an unused identical target layout, or returns null
+   */
+  private Map<String, String> matchLayouts(SourcePackage source, List<String> sourceLayouts,
+      List<String> targetLayouts) throws IOException {
+    Map<String, String> sourceDigests = new HashMap<>();
+    Map<String, String> targetDigests = new HashMap<>();
+    Map<String, String> matches = new HashMap<>();
+    Set<String> used = new HashSet<>();
+    for (String sourceLayout : sourceLayouts) {
+      String sourceDigest = partDigest(source, sourceLayout, sourceDigests);
+      String match = null;
+      for (String targetLayout : targetLayouts) {
+        if (!used.contains(targetLayout) && sourceDigest.equals(partDigest(targetReader, targetLayout, targetDigests))) {
+          match = targetLayout;
+          break;
+        }
+      }
+      if (match == null) {
+        return null;
+      }
+      used.add(match);
+      matches.put(sourceLayout, match);
+    }
+    return matches;
+  }
+
+  /**
+   * Maps a media part to target media with the same content, or copies it
+   */
+  private String importMedia(SourcePackage source, String mediaPath) throws Exception {
+    byte[] content = source.read(mediaPath);
+    String hash = sha256(content);
+
+    String targetPath = getMediaByHash().get(hash);
+    if (targetPath == null) {
+      targetPath = allocatePartName(mediaPath);
+      writePart(targetPath, content);
+      registerContentType(source, mediaPath, targetPath);
+      mediaByHash.put(hash, targetPath);
+    }
+
+    source.partMappings.put(mediaPath, targetPath);
+    return targetPath;
+  }
+
+  /**
+   * Copies a part verbatim under a free name, importing the parts it references
+   */
+  private String copyPart(SourcePackage source, String sourcePath) throws Exception {
+    String targetPath = allocatePartName(sourcePath);
+    source.partMappings.put(sourcePath, targetPath);
+
+    writePart(targetPath, source.read(sourcePath));
+    copyRelationships(source, sourcePath, targetPath);
+    registerContentType(source, sourcePath, targetPath);
+    return targetPath;
+  }
+
+  /**
+   * Writes the relationships of a copied part, keeping IDs and pointing targets at the imported parts
+   */
+  private void copyRelationships(SourcePackage source, String sourcePath, String targetPath) throws Exception {
+    Document relationships = parse(source, relationshipsPath(sourcePath));
+    if (relationships == null) {
+      return;
+    }
+
+    for (Element relationship : relationshipElements(relationships)) {
+      if (!"External".equals(relationship.getAttribute("TargetMode"))) {
+        String imported = importPart(source, relationship.getAttribute("Type"),
+            resolveTarget(sourcePath, relationship.getAttribute("Target")));
+        relationship.setAttribute("Target", relativeTarget(targetPath, imported));
+      }
+    }
+
+    File output = new File(targetDir, relationshipsPath(targetPath));
+    output.getParentFile().mkdirs();
+    Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+    transformer.transform(new DOMSource(relationships), new StreamResult(output));
+  }
+
+  /**
+   * Gives a target part the source's content type, as a Default where the source used one
+   */
+  private void registerContentType(SourcePackage source, String sourcePath, String targetPath) throws XMLParsingException {
+    String contentType = source.contentTypes.getContentType("/" + sourcePath);
+    ContentTypesRegistry contentTypes = target.getContentTypesRegistry();
+    if (contentType == null || contentType.equals(contentTypes.getContentType("/" + targetPath))) {
+      return;
+    }
+
+    String extension = targetPath.substring(targetPath.lastIndexOf('.') + 1);
+    if (source.contentTypes.hasOverride("/" + sourcePath) || contentTypes.hasDefault(extension)) {
+      contentTypes.addOverride("/" + targetPath, contentType);
+    } else {
+      contentTypes.addDefault(extension, contentType);
+    }
+  }
+
+  /**
+   * Picks a target part name: the source name if free, else the first free number in its series
+   */
+  private String allocatePartName(String sourcePath) {
+    String candidate = sourcePath;
+    if (isPartNameTaken(candidate)) {
+      int slash = sourcePath.lastIndexOf('/');
+      Matcher name = PART_NAME_PATTERN.matcher(sourcePath.substring(slash + 1));
+      name.matches();
+      String prefix = sourcePath.substring(0, slash + 1) + name.group(1);
+      String extension = name.group(3) != null ? name.group(3) : "";
+      int number = 1;
+      do {
+        candidate = prefix + number++ + extension;
+      } while (isPartNameTaken(candidate));
+    }
+
+    allocatedPartNames.add(candidate.toLowerCase(Locale.ROOT));
+    return candidate;
+  }
+
+  private boolean isPartNameTaken(String partPath) {
+    return allocatedPartNames.contains(partPath.toLowerCase(Locale.ROOT)) || new File(targetDir, partPath).exists();
+  }
+
+  private long allocateMasterOrLayoutId() throws Exception {
+    if (nextMasterOrLayoutId == 0) {
+      long max = target.getPresentationPart().getMaxSlideMasterId();
+      for (String master : getTargetMasterPaths()) {
+        File masterFile = new File(targetDir, master);
+        if (masterFile.exists()) {
+          Matcher layoutIds = LAYOUT_ID_PATTERN.matcher(Files.readString(masterFile.toPath()));
+          while (layoutIds.find()) {
+            max = Math.max(max, Long.parseLong(layoutIds.group(2)));
+          }
+        }
+      }
+      nextMasterOrLayoutId = Math.max(max + 1, MIN_MASTER_OR_LAYOUT_ID);
+    }
+    return nextMasterOrLayoutId++;
+  }
+
+  private List<String> getTargetMasterPaths() throws XMLParsingException {
+    List<String> paths = new ArrayList<>();
+    for (String masterTarget : target.getPresentationPart().getSlideMasterTargets()) {
+      paths.add(resolveTarget("ppt/presentation.xml", masterTarget));
+    }
+    return paths;
+  }
+
+  private Map<String, String> getMediaByHash() throws IOException {
+    if (mediaByHash == null) {
+      mediaByHash = new HashMap<>();
+      File[] media = new File(targetDir, MEDIA_DIRECTORY).listFiles(File::isFile);
+      if (media != null) {
+        for (File file : media) {
+          mediaByHash.putIfAbsent(sha256(Files.readAllBytes(file.toPath())), MEDIA_DIRECTORY + file.getName());
+        }
+      }
+    }
+    return mediaByHash;
+  }
+
+  private void writePart(String targetPath, byte[] content) throws IOException {
+    File output = new File(targetDir, targetPath);
+    output.getParentFile().mkdirs();
+    Files.write(output.toPath(), content);
+  }
+
+  /**
+   * Resolves the parts a part relates to with a given relationship type
+   */
+  private List<String> relatedParts(PartReader reader, String partPath, String relationshipType) throws IOException {
+    List<String> parts = new ArrayList<>();
+    for (Element relationship : relationshipElements(reader, partPath)) {
+      if (relationshipType.equals(relationship.getAttribute("Type"))) {
+        parts.add(resolveTarget(partPath, relationship.getAttribute("Target")));
+      }
+    }
+    return parts;
+  }
+
+  /**
+   * SHA-256 over a part's bytes and its relationships: the ID, type and, for internal
+   * targets, the digest of the resolved target part in place of its name. Relationships
+   * to masters and layouts are left out, since those are matched on their own.
+   * Digests already computed in the same comparison are taken from the map.
+   */
+  private String partDigest(PartReader reader, String partPath, Map<String, String> digests) throws IOException {
+    String digest = digests.get(partPath);
+    if (digest != null) {
+      return digest;
+    }
+    // A part reached again through a cycle contributes its path only
+    digests.put(partPath, partPath);
+
+    byte[] content = reader.read(partPath);
+    StringBuilder fingerprint = new StringBuilder(content != null ? sha256(content) : "missing");
+    List<Element> relationships = relationshipElements(reader, partPath);
+    relationships.sort(Comparator.comparing(relationship -> relationship.getAttribute("Id")));
+    for (Element relationship : relationships) {
+      String type = relationship.getAttribute("Type");
+      if (XMLConstants.RELATIONSHIP_TYPE_SLIDE_MASTER.equals(type)
+          || XMLConstants.RELATIONSHIP_TYPE_SLIDE_LAYOUT.equals(type)) {
+        continue;
+      }
+      String target = relationship.getAttribute("Target");
+      fingerprint.append('\n').append(relationship.getAttribute("Id")).append(' ').append(type).append(' ')
+        .append("External".equals(relationship.getAttribute("TargetMode"))
+            ? target : partDigest(reader, resolveTarget(partPath, target), digests));
+    }
+
+    digest = sha256(fingerprint.toString().getBytes("UTF-8"));
+    digests.put(partPath, digest);
+    return digest;
+  }
+
+  private List<Element> relationshipElements(PartReader reader, String partPath) throws IOException {
+    Document relationships = parse(reader, relationshipsPath(partPath));
+    return relationships != null ? relationshipElements(relationships) : new ArrayList<>();
+  }
+
+  /**
+   * Parses a part, or returns null if the package has no such part
+   */
+  private Document parse(PartReader reader, String partPath) throws IOException {
+    byte[] content = reader.read(partPath);
+    if (content == null) {
+      return null;
+    }
+    try {
+      return documentBuilder.parse(new ByteArrayInputStream(content));
+    } catch (org.xml.sax.SAXException e) {
+      throw new IOException("Failed to parse " + partPath, e);
+    }
+  }
+
+  private static byte[] readFile(File file) throws IOException {
+    return file.isFile() ? Files.readAllBytes(file.toPath()) : null;
+  }
+
+  /**
+   * Snapshot of the Relationship elements, safe to modify while iterating
+   */
+  private static List<Element> relationshipElements(Document relationships) {
+    NodeList nodes = relationships.getElementsByTagNameNS(XMLConstants.PACKAGE_RELATIONSHIPS_NS, "Relationship");
+    List<Element> elements = new ArrayList<>(nodes.getLength());
+    for (int i = 0; i < nodes.getLength(); i++) {
+      elements.add((Element) nodes.item(i));
+    }
+    return elements;
+  }
+
+  /**
+   * Gets the relationships part path of a part, e.g. ppt/slides/_rels/slide1.xml.rels
+   */
+  private static String relationshipsPath(String partPath) {
+    int slash = partPath.lastIndexOf('/');
+    return partPath.substring(0, slash + 1) + "_rels/" + partPath.substring(slash + 1) + ".rels";
+  }
+
+  /**
+   * Resolves a relationship target against the part that holds it, to a package path
+   */
+  static String resolveTarget(String partPath, String target) {
+    Deque<String> segments = new ArrayDeque<>();
+    if (!target.startsWith("/")) {
+      String[] base = partPath.split("/");
+      for (int i = 0; i < base.length - 1; i++) {
+        segments.addLast(base[i]);
+      }
+    }
+
+    for (String segment : target.split("/")) {
+      if (segment.equals("..")) {
+        segments.pollLast();
+      } else if (!segment.isEmpty() && !segment.equals(".")) {
+        segments.addLast(segment);
+      }
+    }
+    return String.join("/", segments);
+  }
+
+  /**
+   * Expresses a package path relative to the directory of the part that will reference it
+   */
+  static String relativeTarget(String fromPartPath, String toPartPath) {
+    String[] from = fromPartPath.split("/");
+    String[] to = toPartPath.split("/");
+
+    int common = 0;
+    while (common < from.length - 1 && common < to.length - 1 && from[common].equals(to[common])) {
+      common++;
+    }
+
+    StringBuilder relative = new StringBuilder();
+    for (int i = common; i < from.length - 1; i++) {
+      relative.append("../");
+    }
+    for (int i = common; i < to.length; i++) {
+      relative.append(to[i]);
+      if (i < to.length - 1) {
+        relative.append('/');
+      }
+    }
+    return relative.toString();
+  }
+
+  private static String sha256(byte[] content) {
+    try {
+      StringBuilder hex = new StringBuilder();
+      for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  // ========== INNER CLASSES ==========
+
+  /**
+   * Reads package parts by path, returning null for parts the package does not have.
+   */
+  private interface PartReader {
+    byte[] read(String partPath) throws IOException;
+  }
+
+  /**
+   * A source package and the target part each of its parts was imported as.
+   */
+  private static class SourcePackage implements PartReader {
+    private final File location;
+    private final PresentationPart presentation;
+    private final ContentTypesRegistry contentTypes;
+    private final Map<String, String> partMappings = new HashMap<>();
+
+    /**
+     * Open archive of an archive package, or null for a directory or a closed archive
+     */
+    private ZipFile archive;
+
+    SourcePackage(File location, ZipFile archive, PresentationPart presentation, ContentTypesRegistry contentTypes) {
+      this.location = location;
+      this.archive = archive;
+      this.presentation = presentation;
+      this.contentTypes = contentTypes;
+    }
+
+    @Override
+    public byte[] read(String partPath) throws IOException {
+      return archive != null ? PackageArchive.readEntry(archive, partPath) : readFile(new File(location, partPath));
+    }
+
+    boolean exists(String partPath) {
+      return archive != null ? archive.getEntry(partPath) != null : new File(location, partPath).isFile();
+    }
+
+    void closeArchive() {
+      if (archive != null) {
+        try {
+          archive.close();
+        } catch (IOException e) {
+          System.out.println("  ⚠ Failed to close " + location.getName() + ": " + e.getMessage());
+        }
+        archive = null;
+      }
+    }
+
+    @Override
+    public String toString() {
+      return String.format("SourcePackage{location=%s, importedParts=%d}", location.getName(), partMappings.size());
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.w3c.dom.Document;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+
+/**
+ * Source of slide documents for {@link SlideCreator#insertTemplateSlide}.
+ *
+ * <p>Implementations may build each document from scratch. For templates instantiated
+ * many times, use {@link CompiledSlideTemplate}, which analyzes its prototype once and
+ * lets SlideCreator stamp fresh SPIDs into each instance without re-parsing.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public interface SlideTemplate {
+
+  /**
+   * Creates a new slide document populated with the given data.
+   *
+   * @param data The values to bind into the slide; may be null for an unbound slide
+   * @return A new slide Document owned by the caller
+   * @throws XMLParsingException If the document cannot be created
+   */
+  Document createSlideDocument(TemplateData data) throws XMLParsingException;
+
+  /**
+   * Gets the name of the template, for logging.
+   *
+   * @return The template name
+   */
+  String getTemplateName();
+}
@@ -0,0 +1,279 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.w3c.dom.*;
+import javax.xml.parsers.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.presentationchoreographer.core.model.GeometryTransform;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+
+/**
+ * Deck-level writer session holding SlideXMLWriters for many slides at once.
+ *
+ * <p>Slides are parsed on first access (or in bulk via {@link #loadSlides}), edited
+ * in memory, and written back together by {@link #commit()}. All writers in the
+ * session allocate SPIDs through block allocators from the shared SPIDManager, so
+ * shapes injected on different slides never receive the same SPID.</p>
+ *
+ * <p>Key responsibilities:</p>
+ * <ul>
+ *   <li>Lazy and bulk loading of slide documents into writers</li>
+ *   <li>Collision-free SPID allocation across every slide in the session</li>
+ *   <li>Deferred flush of modified slides in one parallel serialization step</li>
+ * </ul>
+ *
+ * <p>Thread Safety: Writers may be obtained concurrently, but each individual
+ * SlideXMLWriter must only be edited by one thread at a time.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public class SlideWriterSession {
+
+  /**
+   * Reference to the extracted PPTX directory containing all presentation parts.
+   */
+  private final File extractedPptxDir;
+
+  /**
+   * Global SPID manager shared by every writer in the session.
+   */
+  private final SPIDManager spidManager;
+
+  /**
+   * Open writers indexed by slide number.
+   */
+  private final Map<Integer, SlideXMLWriter> writers;
+
+  /**
+   * Per-thread document builders, since DocumentBuilder is not thread-safe.
+   */
+  private final ThreadLocal<DocumentBuilder> documentBuilders;
+
+  /**
+   * Number of threads used for bulk loading and flushing.
+   */
+  private final int parallelism;
+
+  /**
+   * Constructs a new writer session for the specified PPTX directory.
+   *
+   * @param extractedPptxDir The directory containing the extracted PPTX contents
+   * @param spidManager The SPID manager tracking every shape in the presentation
+   * @throws IllegalArgumentException If extractedPptxDir does not exist or spidManager is null
+   */
+  public SlideWriterSession(File extractedPptxDir, SPIDManager spidManager) {
+    if (extractedPptxDir == null || !extractedPptxDir.exists()) {
+      throw new IllegalArgumentException("extractedPptxDir must exist and be non-null");
+    }
+    if (spidManager == null) {
+      throw new IllegalArgumentException("spidManager cannot be null");
+    }
+
+    this.extractedPptxDir = extractedPptxDir;
+    this.spidManager = spidManager;
+    this.writers = new ConcurrentHashMap<>();
+    this.parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+    this.documentBuilders = ThreadLocal.withInitial(() -> {
+      try {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder();
+      } catch (ParserConfigurationException e) {
+        throw new IllegalStateException("Failed to initialize document builder", e);
+      }
+    });
+  }
+
+  /**
+   * Gets the writer for a slide, parsing the slide on first access.
+   *
+   * @param slideNumber The slide number (1-based)
+   * @return The SlideXMLWriter for the slide
+   * @throws XMLParsingException If the slide cannot be found or parsed
+   */
+  public SlideXMLWriter getWriter(int slideNumber) throws XMLParsingException {
+    SlideXMLWriter writer = writers.get(slideNumber);
+    if (writer != null) {
+      return writer;
+    }
+
+    SlideXMLWriter loaded = loadWriter(slideNumber);
+    SlideXMLWriter existing = writers.putIfAbsent(slideNumber, loaded);
+    return existing != null ? existing : loaded;
+  }
+
+  /**
+   * Parses several slides in parallel so bulk edits don't interleave parsing with editing.
+   *
+   * @param slideNumbers The slide numbers to load
+   * @throws XMLParsingException If any slide cannot be parsed
+   */
+  public void loadSlides(Collection<Integer> slideNumbers) throws XMLParsingException {
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int slideNumber : slideNumbers) {
+      if (!writers.containsKey(slideNumber)) {
+        tasks.add(() -> {
+          getWriter(slideNumber);
+          return null;
+        });
+      }
+    }
+    runParallel(tasks, "Failed to load slides");
+  }
+
+  /**
+   * Applies a geometry transform to every shape on the given slides, one slide per task in parallel.
+   * Typical use is relayout between slide sizes via {@link GeometryTransform#slideResize}.
+   *
+   * @param slideNumbers The slides to transform
+   * @param transform The transform to apply, in slide coordinates
+   * @return The total number of top-level shapes transformed
+   * @throws XMLParsingException If any slide cannot be loaded
+   */
+  public int transformSlides(Collection<Integer> slideNumbers, GeometryTransform transform) throws XMLParsingException {
+    loadSlides(slideNumbers);
+
+    List<Callable<Void>> tasks = new ArrayList<>();
+    AtomicInteger transformed = new AtomicInteger();
+    for (int slideNumber : new LinkedHashSet<>(slideNumbers)) {
+      SlideXMLWriter writer = getWriter(slideNumber);
+      tasks.add(() -> {
+        transformed.addAndGet(writer.transformAllShapes(transform));
+        return null;
+      });
+    }
+
+    runParallel(tasks, "Failed to transform slides");
+    return transformed.get();
+  }
+
+  /**
+   * Gets the slide numbers with open writers in this session.
+   *
+   * @return An unmodifiable sorted set of slide numbers
+   */
+  public SortedSet<Integer> getOpenSlideNumbers() {
+    return Collections.unmodifiableSortedSet(new TreeSet<>(writers.keySet()));
+  }
+
+  /**
+   * Gets the slide numbers whose writers hold unsaved modifications.
+   *
+   * @return An unmodifiable sorted set of dirty slide numbers
+   */
+  public SortedSet<Integer> getDirtySlideNumbers() {
+    SortedSet<Integer> dirty = new TreeSet<>();
+    for (Map.Entry<Integer, SlideXMLWriter> entry : writers.entrySet()) {
+      if (entry.getValue().isModified()) {
+        dirty.add(entry.getKey());
+      }
+    }
+    return Collections.unmodifiableSortedSet(dirty);
+  }
+
+  /**
+   * Writes every modified slide back to disk in one parallel serialization step.
+   *
+   * @return The number of slides written
+   * @throws XMLParsingException If any slide cannot be written
+   */
+  public int commit() throws XMLParsingException {
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (Map.Entry<Integer, SlideXMLWriter> entry : writers.entrySet()) {
+      SlideXMLWriter writer = entry.getValue();
+      if (writer.isModified()) {
+        File slideFile = getSlideFile(entry.getKey());
+        int slideNumber = entry.getKey();
+        tasks.add(() -> {
+          writer.writeXML(slideFile);
+          writer.markFlushed();
+          spidManager.markSlideModified(slideNumber);
+          return null;
+        });
+      }
+    }
+
+    runParallel(tasks, "Failed to flush slide writer session");
+    return tasks.size();
+  }
+
+  /**
+   * Discards all open writers without writing any pending modifications. SPIDs given to
+   * shapes injected since the last commit are unregistered and, with the writers' unused
+   * SPID reservations, returned to the SPIDManager.
+   *
+   * @return The number of SPIDs unregistered
+   */
+  public int discard() {
+    int revoked = 0;
+    for (SlideXMLWriter writer : writers.values()) {
+      revoked += writer.discardSpids();
+    }
+    writers.clear();
+    return revoked;
+  }
+
+  /**
+   * Gets the SPID manager shared by writers in this session.
+   *
+   * @return The SPIDManager instance
+   */
+  public SPIDManager getSPIDManager() {
+    return spidManager;
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  /**
+   * Parses a slide file and wraps it in a SPIDManager-backed writer.
+   */
+  private SlideXMLWriter loadWriter(int slideNumber) throws XMLParsingException {
+    File slideFile = getSlideFile(slideNumber);
+    if (!slideFile.exists()) {
+      throw new XMLParsingException("Slide " + slideNumber + " not found");
+    }
+
+    try {
+      Document document = documentBuilders.get().parse(slideFile);
+      return new SlideXMLWriter(document, spidManager.createBlockAllocator(slideNumber));
+    } catch (XMLParsingException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new XMLParsingException("Failed to load slide " + slideNumber, e);
+    }
+  }
+
+  /**
+   * Runs tasks on a bounded thread pool and surfaces the first failure.
+   */
+  private void runParallel(List<Callable<Void>> tasks, String failureMessage) throws XMLParsingException {
+    if (tasks.isEmpty()) {
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()));
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      throw new XMLParsingException(failureMessage, e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new XMLParsingException(failureMessage, e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Gets the slide XML file for a specific slide number.
+   */
+  private File getSlideFile(int slideNumber) {
+    return new File(extractedPptxDir, String.format("ppt/slides/slide%d.xml", slideNumber));
+  }
+}
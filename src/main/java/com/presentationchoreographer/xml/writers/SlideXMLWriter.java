@@ -21,13 +21,57 @@ public class SlideXMLWriter {
   private final Document document;
   private final XPath xpath;
   private final Element shapeTree;
-  private int nextAvailableSpid;
+
+  /**
+   * Source of SPIDs for shapes injected by this writer
+   */
+  private final SpidAllocator spidAllocator;
+
+  /**
+   * Whether the document has been modified since it was loaded or last flushed
+   */
+  private boolean modified;
+
+  /**
+   * Main sequence timing node (the cTn under p:seq[@concurrent='1']), or null
+   * if the slide has no timing tree yet
+   */
+  private Element mainSequenceNode;
+
+  /**
+   * Ordered index of click group p:par elements in the main sequence.
+   * Position N-1 holds click trigger N; maintained as click triggers are added.
+   */
+  private final List<Element> clickGroupIndex;
+
+  /**
+   * SPIDs handed out by the allocator since the document was loaded or last flushed;
+   * the first allocatedSpidCount entries are valid
+   */
+  private int[] allocatedSpids = new int[8];
+  private int allocatedSpidCount;
 
   // Namespace prefixes for creating new elements
   private static final String PRESENTATION_PREFIX = "p";
   private static final String DRAWING_PREFIX = "a";
 
+  /**
+   * Create a standalone writer that allocates SPIDs sequentially after the highest
+   * SPID found on the slide
+   */
   public SlideXMLWriter(Document document) throws XMLParsingException {
+    this(document, null);
+  }
+
+  /**
+   * Create a writer that draws SPIDs from the given allocator, e.g. a block allocator
+   * from {@link SPIDManager#createBlockAllocator(int)} so writers on different slides
+   * and threads never hand out the same SPID. The slide is not scanned for existing
+   * SPIDs; the allocator is responsible for avoiding them.
+   *
+   * @param spidAllocator The SPID source, or null for local sequential allocation
+   */
+  public SlideXMLWriter(Document document, SpidAllocator spidAllocator) throws XMLParsingException {
     this.document = document;
 
     try {
@@ -41,8 +85,14 @@ public class SlideXMLWriter {
         throw new XMLParsingException("No shape tree found in slide document");
       }
 
-      // Calculate next available SPID
-      this.nextAvailableSpid = calculateNextSpid();
+      // Without an allocator, continue after the highest SPID on this slide
+      this.spidAllocator = spidAllocator != null
+          ? spidAllocator
+          : SpidAllocator.sequential(calculateNextSpid());
+
+      // Index existing click groups once so trigger lookups don't re-query the timing tree
+      this.clickGroupIndex = new ArrayList<>();
+      indexClickGroups();
 
     } catch (XPathExpressionException e) {
       throw new XMLParsingException("Failed to initialize XML writer", e);
@@ -54,13 +104,14 @@ public class SlideXMLWriter {
    */
   public int injectBasicShape(ShapeGeometry geometry, String text, String name) throws XMLParsingException {
     try {
-      int spid = nextAvailableSpid++;
+      int spid = allocateSpid(name);
 
       // Create the shape element with all required child elements
       Element shapeElement = createBasicShapeElement(spid, name, geometry, text);
 
       // Inject into the shape tree
       shapeTree.appendChild(shapeElement);
+      modified = true;
 
       return spid;
 
@@ -88,12 +139,47 @@ public class SlideXMLWriter {
         // Create text structure if it doesn't exist
         addTextToShape(shape, newText);
       }
+      modified = true;
 
     } catch (XPathExpressionException e) {
       throw new XMLParsingException("Failed to update shape text", e);
     }
   }
 
+  /**
+   * Replace placeholder tokens (e.g. "{{customer}}") in every text run of the slide.
+   * Tokens split across several runs of one paragraph are matched as a whole.
+   *
+   * @param bindings Token to replacement value map
+   * @return The number of tokens replaced
+   */
+  public int replaceTextTokens(Map<String, String> bindings) {
+    TokenReplacer replacer = new TokenReplacer(bindings);
+    int replacements = 0;
+
+    NodeList paragraphs = document.getElementsByTagNameNS(XMLConstants.DRAWING_NS, "p");
+    for (int i = 0; i < paragraphs.getLength(); i++) {
+      NodeList textElements = ((Element) paragraphs.item(i)).getElementsByTagNameNS(XMLConstants.DRAWING_NS, "t");
+      String[] runTexts = new String[textElements.getLength()];
+      for (int j = 0; j < runTexts.length; j++) {
+        runTexts[j] = textElements.item(j).getTextContent();
+      }
+
+      int paragraphReplacements = replacer.replace(runTexts);
+      if (paragraphReplacements > 0) {
+        for (int j = 0; j < runTexts.length; j++) {
+          textElements.item(j).setTextContent(runTexts[j]);
+        }
+        replacements += paragraphReplacements;
+      }
+    }
+
+    if (replacements > 0) {
+      modified = true;
+    }
+    return replacements;
+  }
+
   /**
    * Update geometry (position/size) of an existing shape
    */
@@ -106,6 +192,7 @@ public class SlideXMLWriter {
 
       // Update the transform element
       updateShapeTransform(shape, newGeometry);
+      modified = true;
 
     } catch (Exception e) {
       throw new XMLParsingException("Failed to update shape geometry", e);
@@ -113,19 +200,153 @@ public class SlideXMLWriter {
   }
 
   /**
-   * Inject animation binding for a shape into the timing tree
+   * Apply a slide-space transform to a set of shapes in one pass over the shape tree.
+   * Groups are transformed together with their children (a:chOff/a:chExt and every
+   * descendant frame), and shapes nested in groups are transformed in slide space.
+   *
+   * @param spids The SPIDs of the shapes to transform
+   * @param transform The transform to apply, in slide coordinates
+   * @return The number of shapes transformed
+   */
+  public int transformShapes(Collection<Integer> spids, GeometryTransform transform) {
+    Set<Integer> targets = new HashSet<>(spids);
+    List<ShapeFrame> frames = new ArrayList<>();
+    collectFrames(shapeTree, GeometryTransform.identity(), targets::contains, frames);
+
+    for (ShapeFrame frame : frames) {
+      transformElement(frame.element, transform.conjugate(frame.containerToSlide));
+    }
+    if (!frames.isEmpty()) {
+      modified = true;
+    }
+    return frames.size();
+  }
+
+  /**
+   * Apply a slide-space transform to every shape on the slide (e.g. 16:9 to 4:3 relayout).
+   *
+   * @param transform The transform to apply, in slide coordinates
+   * @return The number of top-level shapes transformed
+   */
+  public int transformAllShapes(GeometryTransform transform) {
+    List<ShapeFrame> frames = new ArrayList<>();
+    collectFrames(shapeTree, GeometryTransform.identity(), spid -> true, frames);
+
+    for (ShapeFrame frame : frames) {
+      transformElement(frame.element, transform);
+    }
+    if (!frames.isEmpty()) {
+      modified = true;
+    }
+    return frames.size();
+  }
+
+  /**
+   * Align a set of shapes to an edge or center line of their combined bounding box.
+   *
+   * @param spids The SPIDs of the shapes to align
+   * @param alignment The edge or center line to align to
+   * @return The number of shapes aligned
+   */
+  public int alignShapes(Collection<Integer> spids, Alignment alignment) {
+    Set<Integer> targets = new HashSet<>(spids);
+    List<ShapeFrame> frames = new ArrayList<>();
+    collectFrames(shapeTree, GeometryTransform.identity(), targets::contains, frames);
+    if (frames.isEmpty()) {
+      return 0;
+    }
+
+    long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE, maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+    for (ShapeFrame frame : frames) {
+      ShapeGeometry g = frame.slideGeometry;
+      minX = Math.min(minX, g.getX());
+      minY = Math.min(minY, g.getY());
+      maxX = Math.max(maxX, g.getX() + g.getWidth());
+      maxY = Math.max(maxY, g.getY() + g.getHeight());
+    }
+
+    for (ShapeFrame frame : frames) {
+      ShapeGeometry g = frame.slideGeometry;
+      long dx = 0, dy = 0;
+      switch (alignment) {
+        case LEFT:   dx = minX - g.getX(); break;
+        case CENTER: dx = (minX + maxX) / 2 - (g.getX() + g.getWidth() / 2); break;
+        case RIGHT:  dx = maxX - (g.getX() + g.getWidth()); break;
+        case TOP:    dy = minY - g.getY(); break;
+        case MIDDLE: dy = (minY + maxY) / 2 - (g.getY() + g.getHeight() / 2); break;
+        case BOTTOM: dy = maxY - (g.getY() + g.getHeight()); break;
+      }
+      transformElement(frame.element, GeometryTransform.translate(dx, dy).conjugate(frame.containerToSlide));
+    }
+
+    modified = true;
+    return frames.size();
+  }
+
+  /**
+   * Distribute shapes so the gaps between them are equal along an axis.
+   * The first and last shapes along the axis keep their positions.
+   *
+   * @param spids The SPIDs of the shapes to distribute
+   * @param axis The axis to distribute along
+   * @return The number of shapes moved (0 when fewer than three shapes match)
+   */
+  public int distributeShapes(Collection<Integer> spids, DistributionAxis axis) {
+    Set<Integer> targets = new HashSet<>(spids);
+    List<ShapeFrame> frames = new ArrayList<>();
+    collectFrames(shapeTree, GeometryTransform.identity(), targets::contains, frames);
+    if (frames.size() < 3) {
+      return 0;
+    }
+
+    boolean horizontal = axis == DistributionAxis.HORIZONTAL;
+    frames.sort(Comparator.comparingLong(f -> horizontal ? f.slideGeometry.getX() : f.slideGeometry.getY()));
+
+    long totalSize = 0;
+    for (ShapeFrame frame : frames) {
+      totalSize += horizontal ? frame.slideGeometry.getWidth() : frame.slideGeometry.getHeight();
+    }
+    ShapeGeometry first = frames.get(0).slideGeometry;
+    ShapeGeometry last = frames.get(frames.size() - 1).slideGeometry;
+    long spanStart = horizontal ? first.getX() : first.getY();
+    long spanEnd = horizontal ? last.getX() + last.getWidth() : last.getY() + last.getHeight();
+    double gap = (double) (spanEnd - spanStart - totalSize) / (frames.size() - 1);
+
+    double position = spanStart;
+    for (ShapeFrame frame : frames) {
+      ShapeGeometry g = frame.slideGeometry;
+      long current = horizontal ? g.getX() : g.getY();
+      long delta = Math.round(position) - current;
+      GeometryTransform move = horizontal ? GeometryTransform.translate(delta, 0) : GeometryTransform.translate(0, delta);
+      transformElement(frame.element, move.conjugate(frame.containerToSlide));
+      position += (horizontal ? g.getWidth() : g.getHeight()) + gap;
+    }
+
+    modified = true;
+    return frames.size();
+  }
+
+  /**
+   * Inject animation binding for a shape into the timing tree.
+   * The click trigger must be an existing click group or the next one, which is created.
+   *
+   * @throws IllegalArgumentException If clickTrigger is not between 1 and getClickGroupCount() + 1
    */
   public void injectAnimation(int targetSpid, String animationType, String transition, 
       String filter, String duration, String delay, int clickTrigger) throws XMLParsingException {
+    if (clickTrigger < 1 || clickTrigger > clickGroupIndex.size() + 1) {
+      throw new IllegalArgumentException("clickTrigger must be between 1 and " + (clickGroupIndex.size() + 1));
+    }
+
     try {
       // Find the timing tree
-      Element timingElement = (Element) xpath.evaluate("//p:timing", document, XPathConstants.NODE);
+      Element timingElement = findTimingElement();
       if (timingElement == null) {
         throw new XMLParsingException("No timing element found in slide");
       }
 
       // Find the specific click trigger node
-      Element clickNode = findClickTriggerNode(timingElement, clickTrigger);
+      Element clickNode = findClickTriggerNode(clickTrigger);
       if (clickNode == null) {
         // Create new click trigger if it doesn't exist
         clickNode = createNewClickTrigger(timingElement, clickTrigger);
@@ -136,6 +357,7 @@ public class SlideXMLWriter {
 
       // Inject into the click trigger
       injectIntoClickTrigger(clickNode, animationEffect);
+      modified = true;
 
     } catch (XPathExpressionException e) {
       throw new XMLParsingException("Failed to inject animation", e);
@@ -147,29 +369,14 @@ public class SlideXMLWriter {
    */
   public int createNewClickTrigger() throws XMLParsingException {
     try {
-      Element timingElement = (Element) xpath.evaluate("//p:timing", document, XPathConstants.NODE);
+      Element timingElement = findTimingElement();
       if (timingElement == null) {
         throw new XMLParsingException("No timing element found in slide");
       }
 
-      // Find the main sequence
-      Element mainSeq = (Element) xpath.evaluate(".//p:seq[@concurrent='1']//p:cTn", timingElement, XPathConstants.NODE);
-      if (mainSeq == null) {
-        throw new XMLParsingException("No main sequence found in timing");
-      }
-
       // Get current click count and create new click trigger
-      int newClickNumber = getNextClickTriggerNumber(mainSeq);
-      Element newClickTrigger = createClickTriggerElement(newClickNumber);
-
-      // Find or create childTnLst
-      Element childTnLst = (Element) xpath.evaluate("./p:childTnLst", mainSeq, XPathConstants.NODE);
-      if (childTnLst == null) {
-        childTnLst = document.createElementNS(XMLConstants.PRESENTATION_NS, "p:childTnLst");
-        mainSeq.appendChild(childTnLst);
-      }
-
-      childTnLst.appendChild(newClickTrigger);
+      int newClickNumber = getNextClickTriggerNumber();
+      createNewClickTrigger(timingElement, newClickNumber);
       return newClickNumber;
 
     } catch (XPathExpressionException e) {
@@ -177,6 +384,67 @@ public class SlideXMLWriter {
     }
   }
 
+  /**
+   * Get all click groups in the main sequence, in click order
+   *
+   * @return Unmodifiable list of click groups with their effect counts
+   */
+  public List<ClickGroup> getClickGroups() {
+    List<ClickGroup> groups = new ArrayList<>(clickGroupIndex.size());
+    for (int i = 0; i < clickGroupIndex.size(); i++) {
+      Element par = clickGroupIndex.get(i);
+      Element cTn = getFirstChildElement(par, "cTn");
+      int timingNodeId = parseIntAttribute(cTn, "id");
+      groups.add(new ClickGroup(i + 1, timingNodeId, countEffects(par)));
+    }
+    return Collections.unmodifiableList(groups);
+  }
+
+  /**
+   * Get the number of click groups in the main sequence
+   */
+  public int getClickGroupCount() {
+    return clickGroupIndex.size();
+  }
+
+  /**
+   * Get the slide document this writer modifies
+   */
+  public Document getDocument() {
+    return document;
+  }
+
+  /**
+   * Check whether the document has unsaved modifications
+   */
+  public boolean isModified() {
+    return modified;
+  }
+
+  /**
+   * Clear the modified flag after the document has been flushed
+   */
+  void markFlushed() {
+    this.modified = false;
+    this.allocatedSpidCount = 0;
+  }
+
+  /**
+   * Revoke the SPIDs of shapes injected since the last flush, which are being discarded,
+   * and hand SPIDs reserved by this writer's allocator but not yet used back to their source
+   *
+   * @return The number of SPIDs revoked
+   */
+  int discardSpids() {
+    int revoked = allocatedSpidCount;
+    for (int i = 0; i < allocatedSpidCount; i++) {
+      spidAllocator.revoke(allocatedSpids[i]);
+    }
+    allocatedSpidCount = 0;
+    spidAllocator.release();
+    return revoked;
+  }
+
   /**
    * Write the modified document to a file
    */
@@ -315,6 +583,18 @@ public class SlideXMLWriter {
         document, XPathConstants.NODE);
   }
 
+  /**
+   * Allocate a SPID for a new shape from the writer's allocator
+   */
+  private int allocateSpid(String shapeName) {
+    int spid = spidAllocator.allocateSpid(shapeName);
+    if (allocatedSpidCount == allocatedSpids.length) {
+      allocatedSpids = Arrays.copyOf(allocatedSpids, allocatedSpidCount * 2);
+    }
+    allocatedSpids[allocatedSpidCount++] = spid;
+    return spid;
+  }
+
   /**
    * Calculate the next available SPID by finding the highest existing one
    */
@@ -336,49 +616,165 @@ public class SlideXMLWriter {
   }
 
   /**
-   * Find a specific click trigger node in the timing tree
+   * Find a specific click trigger node using the click group index
    */
-  private Element findClickTriggerNode(Element timingElement, int clickNumber) throws XPathExpressionException {
-    // Click triggers are par elements with indefinite delay
-    NodeList clickTriggers = (NodeList) xpath.evaluate(
-        ".//p:seq[@concurrent='1']//p:childTnLst/p:par[p:cTn/p:stCondLst/p:cond/@delay='indefinite']", 
-        timingElement, XPathConstants.NODESET
-        );
-
-    if (clickNumber > 0 && clickNumber <= clickTriggers.getLength()) {
-      return (Element) clickTriggers.item(clickNumber - 1);
+  private Element findClickTriggerNode(int clickNumber) {
+    if (clickNumber > 0 && clickNumber <= clickGroupIndex.size()) {
+      return clickGroupIndex.get(clickNumber - 1);
     }
 
     return null;
   }
 
   /**
-   * Create a new click trigger element
+   * Create a new click trigger element and append it to the click group index.
+   * Only the next click number can be created, so index positions always match click numbers.
    */
   private Element createNewClickTrigger(Element timingElement, int clickNumber) throws XMLParsingException {
+    if (clickNumber != clickGroupIndex.size() + 1) {
+      throw new IllegalArgumentException("Click trigger " + clickNumber + " cannot follow " + clickGroupIndex.size() + " click groups");
+    }
+
     try {
-      // Find the main sequence
-      Element mainSeq = (Element) xpath.evaluate(".//p:seq[@concurrent='1']//p:cTn", timingElement, XPathConstants.NODE);
-      if (mainSeq == null) {
-        throw new XMLParsingException("No main sequence found");
+      // Resolve the main sequence lazily in case the timing tree was absent at construction
+      if (mainSequenceNode == null) {
+        mainSequenceNode = (Element) xpath.evaluate(".//p:seq[@concurrent='1']//p:cTn", timingElement, XPathConstants.NODE);
+      }
+      if (mainSequenceNode == null) {
+        throw new XMLParsingException("No main sequence found in timing");
       }
 
       Element newClickTrigger = createClickTriggerElement(clickNumber);
 
       // Add to main sequence
-      Element childTnLst = (Element) xpath.evaluate("./p:childTnLst", mainSeq, XPathConstants.NODE);
+      Element childTnLst = getFirstChildElement(mainSequenceNode, "childTnLst");
       if (childTnLst == null) {
         childTnLst = document.createElementNS(XMLConstants.PRESENTATION_NS, "p:childTnLst");
-        mainSeq.appendChild(childTnLst);
+        mainSequenceNode.appendChild(childTnLst);
       }
 
       childTnLst.appendChild(newClickTrigger);
+      clickGroupIndex.add(newClickTrigger);
+      modified = true;
       return newClickTrigger;
     } catch (XPathExpressionException e) {
       throw new XMLParsingException("Failed to create new click trigger", e);
     }
   }
 
+  /**
+   * Build the click group index from the main sequence.
+   * Click groups are the par children of the main sequence with an indefinite start delay.
+   */
+  private void indexClickGroups() throws XPathExpressionException {
+    clickGroupIndex.clear();
+
+    Element timingElement = findTimingElement();
+    if (timingElement == null) {
+      return;
+    }
+
+    mainSequenceNode = (Element) xpath.evaluate(".//p:seq[@concurrent='1']//p:cTn", timingElement, XPathConstants.NODE);
+    if (mainSequenceNode == null) {
+      return;
+    }
+
+    Element childTnLst = getFirstChildElement(mainSequenceNode, "childTnLst");
+    if (childTnLst == null) {
+      return;
+    }
+
+    for (Node child = childTnLst.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (isPresentationElement(child, "par") && isClickTrigger((Element) child)) {
+        clickGroupIndex.add((Element) child);
+      }
+    }
+  }
+
+  /**
+   * Check whether a par element starts on click (p:cTn/p:stCondLst/p:cond/@delay='indefinite')
+   */
+  private boolean isClickTrigger(Element par) {
+    Element cTn = getFirstChildElement(par, "cTn");
+    Element stCondLst = cTn != null ? getFirstChildElement(cTn, "stCondLst") : null;
+    if (stCondLst == null) {
+      return false;
+    }
+
+    for (Node cond = stCondLst.getFirstChild(); cond != null; cond = cond.getNextSibling()) {
+      if (isPresentationElement(cond, "cond") 
+          && XMLConstants.INDEFINITE_DELAY.equals(((Element) cond).getAttribute("delay"))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Count the effects (preset timing nodes) contained in a click group
+   */
+  private int countEffects(Element clickGroup) {
+    NodeList timingNodes = clickGroup.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "cTn");
+    int effects = 0;
+    for (int i = 0; i < timingNodes.getLength(); i++) {
+      if (((Element) timingNodes.item(i)).hasAttribute("presetClass")) {
+        effects++;
+      }
+    }
+    return effects;
+  }
+
+  /**
+   * Find the slide's timing element, or null if the slide has none
+   */
+  private Element findTimingElement() throws XPathExpressionException {
+    return (Element) xpath.evaluate("//p:timing", document, XPathConstants.NODE);
+  }
+
+  /**
+   * Get the first direct child element in the presentation namespace with the given local name
+   */
+  private Element getFirstChildElement(Element parent, String localName) {
+    return getFirstChildElement(parent, XMLConstants.PRESENTATION_NS, localName);
+  }
+
+  /**
+   * Get the first direct child element with the given namespace and local name
+   */
+  private Element getFirstChildElement(Element parent, String namespaceUri, String localName) {
+    for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child.getNodeType() == Node.ELEMENT_NODE
+          && namespaceUri.equals(child.getNamespaceURI())
+          && localName.equals(child.getLocalName())) {
+        return (Element) child;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Check whether a node is a presentation namespace element with the given local name
+   */
+  private boolean isPresentationElement(Node node, String localName) {
+    return node.getNodeType() == Node.ELEMENT_NODE
+      && XMLConstants.PRESENTATION_NS.equals(node.getNamespaceURI())
+      && localName.equals(node.getLocalName());
+  }
+
+  /**
+   * Parse an integer attribute, returning 0 when absent or non-numeric
+   */
+  private int parseIntAttribute(Element element, String attributeName) {
+    if (element == null) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(element.getAttribute(attributeName));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
   /**
    * Create a click trigger element structure
    */
@@ -469,25 +865,183 @@ public class SlideXMLWriter {
   /**
    * Update the transform element of a shape
    */
-  private void updateShapeTransform(Element shape, ShapeGeometry geometry) throws XPathExpressionException {
-    Element xfrm = (Element) xpath.evaluate(".//a:xfrm", shape, XPathConstants.NODE);
+  private void updateShapeTransform(Element shape, ShapeGeometry geometry) {
+    Element xfrm = findTransformElement(shape);
     if (xfrm == null) return;
 
     // Update offset
-    Element off = (Element) xpath.evaluate("./a:off", xfrm, XPathConstants.NODE);
+    Element off = getFirstChildElement(xfrm, XMLConstants.DRAWING_NS, "off");
     if (off != null) {
       off.setAttribute("x", String.valueOf(geometry.getX()));
       off.setAttribute("y", String.valueOf(geometry.getY()));
     }
 
     // Update extents
-    Element ext = (Element) xpath.evaluate("./a:ext", xfrm, XPathConstants.NODE);
+    Element ext = getFirstChildElement(xfrm, XMLConstants.DRAWING_NS, "ext");
     if (ext != null) {
       ext.setAttribute("cx", String.valueOf(geometry.getWidth()));
       ext.setAttribute("cy", String.valueOf(geometry.getHeight()));
     }
   }
 
+  /**
+   * Collect the frames of targeted shapes in a container, descending into untargeted groups.
+   * A targeted group's children are transformed with it, so they are not collected separately.
+   */
+  private void collectFrames(Element container, GeometryTransform containerToSlide,
+      java.util.function.IntPredicate isTarget, List<ShapeFrame> frames) {
+    for (Node child = container.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (!isShapeElement(child)) {
+        continue;
+      }
+
+      Element shape = (Element) child;
+      Element xfrm = findTransformElement(shape);
+      if (xfrm == null) {
+        continue;
+      }
+
+      if (isTarget.test(getShapeId(shape))) {
+        frames.add(new ShapeFrame(shape, containerToSlide, containerToSlide.apply(readFrame(xfrm, "off", "ext"))));
+      } else if ("grpSp".equals(shape.getLocalName())) {
+        collectFrames(shape, groupMapping(xfrm).then(containerToSlide), isTarget, frames);
+      }
+    }
+  }
+
+  /**
+   * Apply a transform (in the shape's container coordinates) to a shape's frame.
+   * For groups the child offset/extent and every descendant are transformed in the
+   * group's child space, keeping the group's child-to-frame mapping consistent.
+   */
+  private void transformElement(Element shape, GeometryTransform transform) {
+    Element xfrm = findTransformElement(shape);
+    if (xfrm == null) {
+      return;
+    }
+
+    // Capture the child mapping before the frame changes
+    GeometryTransform childTransform = null;
+    if ("grpSp".equals(shape.getLocalName())) {
+      childTransform = transform.conjugate(groupMapping(xfrm));
+    }
+
+    writeFrame(xfrm, "off", "ext", transform.apply(readFrame(xfrm, "off", "ext")));
+
+    if (childTransform != null) {
+      if (getFirstChildElement(xfrm, XMLConstants.DRAWING_NS, "chOff") != null) {
+        writeFrame(xfrm, "chOff", "chExt", childTransform.apply(readFrame(xfrm, "chOff", "chExt")));
+      }
+      for (Node child = shape.getFirstChild(); child != null; child = child.getNextSibling()) {
+        if (isShapeElement(child)) {
+          transformElement((Element) child, childTransform);
+        }
+      }
+    }
+  }
+
+  /**
+   * Build the child-to-frame mapping of a group transform element
+   */
+  private GeometryTransform groupMapping(Element xfrm) {
+    ShapeGeometry frame = readFrame(xfrm, "off", "ext");
+    if (getFirstChildElement(xfrm, XMLConstants.DRAWING_NS, "chOff") == null) {
+      return GeometryTransform.identity();
+    }
+    ShapeGeometry child = readFrame(xfrm, "chOff", "chExt");
+    return GeometryTransform.groupMapping(frame.getX(), frame.getY(), frame.getWidth(), frame.getHeight(),
+        child.getX(), child.getY(), child.getWidth(), child.getHeight());
+  }
+
+  /**
+   * Read an offset/extent pair (a:off + a:ext, or a:chOff + a:chExt) from a transform element
+   */
+  private ShapeGeometry readFrame(Element xfrm, String offName, String extName) {
+    Element off = getFirstChildElement(xfrm, XMLConstants.DRAWING_NS, offName);
+    Element ext = getFirstChildElement(xfrm, XMLConstants.DRAWING_NS, extName);
+    return new ShapeGeometry(
+        parseLongAttribute(off, "x"), parseLongAttribute(off, "y"),
+        parseLongAttribute(ext, "cx"), parseLongAttribute(ext, "cy"));
+  }
+
+  /**
+   * Write an offset/extent pair to a transform element
+   */
+  private void writeFrame(Element xfrm, String offName, String extName, ShapeGeometry geometry) {
+    Element off = getFirstChildElement(xfrm, XMLConstants.DRAWING_NS, offName);
+    if (off != null) {
+      off.setAttribute("x", String.valueOf(geometry.getX()));
+      off.setAttribute("y", String.valueOf(geometry.getY()));
+    }
+    Element ext = getFirstChildElement(xfrm, XMLConstants.DRAWING_NS, extName);
+    if (ext != null) {
+      ext.setAttribute("cx", String.valueOf(geometry.getWidth()));
+      ext.setAttribute("cy", String.valueOf(geometry.getHeight()));
+    }
+  }
+
+  /**
+   * Find the transform element of a shape: a:xfrm in p:spPr or p:grpSpPr,
+   * or p:xfrm directly under a graphic frame
+   */
+  private Element findTransformElement(Element shape) {
+    switch (shape.getLocalName()) {
+      case "graphicFrame":
+        return getFirstChildElement(shape, "xfrm");
+      case "grpSp": {
+        Element grpSpPr = getFirstChildElement(shape, "grpSpPr");
+        return grpSpPr != null ? getFirstChildElement(grpSpPr, XMLConstants.DRAWING_NS, "xfrm") : null;
+      }
+      default: {
+        Element spPr = getFirstChildElement(shape, "spPr");
+        return spPr != null ? getFirstChildElement(spPr, XMLConstants.DRAWING_NS, "xfrm") : null;
+      }
+    }
+  }
+
+  /**
+   * Get a shape's SPID from its non-visual properties (p:nv*Pr/p:cNvPr/@id), or -1 if absent
+   */
+  private int getShapeId(Element shape) {
+    for (Node child = shape.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child.getNodeType() == Node.ELEMENT_NODE && child.getLocalName().startsWith("nv")) {
+        Element cNvPr = getFirstChildElement((Element) child, "cNvPr");
+        return cNvPr != null ? (int) parseLongAttribute(cNvPr, "id", -1) : -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Check whether a node is a positioned shape-tree element (shape, picture, connector, group, graphic frame)
+   */
+  private boolean isShapeElement(Node node) {
+    if (node.getNodeType() != Node.ELEMENT_NODE || !XMLConstants.PRESENTATION_NS.equals(node.getNamespaceURI())) {
+      return false;
+    }
+    String name = node.getLocalName();
+    return "sp".equals(name) || "pic".equals(name) || "cxnSp".equals(name)
+      || "grpSp".equals(name) || "graphicFrame".equals(name);
+  }
+
+  /**
+   * Parse a long attribute, returning 0 when absent or non-numeric
+   */
+  private long parseLongAttribute(Element element, String attributeName) {
+    return parseLongAttribute(element, attributeName, 0);
+  }
+
+  private long parseLongAttribute(Element element, String attributeName, long defaultValue) {
+    if (element == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(element.getAttribute(attributeName));
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
   /**
    * Add text structure to a shape that doesn't have text
    */
@@ -542,12 +1096,60 @@ public class SlideXMLWriter {
   /**
    * Get the next click trigger number
    */
-  private int getNextClickTriggerNumber(Element mainSeq) throws XMLParsingException {
-    try {
-      NodeList clickTriggers = (NodeList) xpath.evaluate("./p:childTnLst/p:par", mainSeq, XPathConstants.NODESET);
-      return clickTriggers.getLength() + 1;
-    } catch (XPathExpressionException e) {
-      throw new XMLParsingException("Failed to count existing click triggers", e);
+  private int getNextClickTriggerNumber() {
+    return clickGroupIndex.size() + 1;
+  }
+
+  /**
+   * Edge or center line used when aligning shapes
+   */
+  public enum Alignment {
+    LEFT, CENTER, RIGHT, TOP, MIDDLE, BOTTOM
+  }
+
+  /**
+   * Axis used when distributing shapes
+   */
+  public enum DistributionAxis {
+    HORIZONTAL, VERTICAL
+  }
+
+  /**
+   * A targeted shape with the mapping from its container's coordinates to slide coordinates
+   */
+  private static class ShapeFrame {
+    final Element element;
+    final GeometryTransform containerToSlide;
+    final ShapeGeometry slideGeometry;
+
+    ShapeFrame(Element element, GeometryTransform containerToSlide, ShapeGeometry slideGeometry) {
+      this.element = element;
+      this.containerToSlide = containerToSlide;
+      this.slideGeometry = slideGeometry;
+    }
+  }
+
+  /**
+   * Summary of a click group in the main animation sequence
+   */
+  public static class ClickGroup {
+    private final int clickNumber;
+    private final int timingNodeId;
+    private final int effectCount;
+
+    public ClickGroup(int clickNumber, int timingNodeId, int effectCount) {
+      this.clickNumber = clickNumber;
+      this.timingNodeId = timingNodeId;
+      this.effectCount = effectCount;
+    }
+
+    public int getClickNumber() { return clickNumber; }
+    public int getTimingNodeId() { return timingNodeId; }
+    public int getEffectCount() { return effectCount; }
+
+    @Override
+    public String toString() {
+      return String.format("ClickGroup{click=%d, node=%d, effects=%d}", clickNumber, timingNodeId, effectCount);
     }
   }
 
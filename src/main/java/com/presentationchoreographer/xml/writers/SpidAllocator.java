@@ -0,0 +1,67 @@
+package com.presentationchoreographer.xml.writers;
+
+/**
+ * Source of shape IDs (SPIDs) for new shapes injected by a {@link SlideXMLWriter}.
+ *
+ * <p>A standalone writer uses a {@link #sequential(int) sequential} allocator seeded from
+ * the highest SPID on its own slide. Writers that belong to a deck use a block allocator
+ * from {@link SPIDManager#createBlockAllocator(int)}: each allocator draws from a block of
+ * SPIDs reserved up front, so writers on different threads only touch the shared counter
+ * once per block and can never hand out the same SPID.</p>
+ *
+ * <p>Thread Safety: An allocator instance belongs to one writer and is not required to be
+ * thread-safe. Create one allocator per writer.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public interface SpidAllocator {
+
+  /**
+   * Allocates a SPID for a new shape.
+   *
+   * @param shapeName The name of the shape the SPID is allocated for
+   * @return A SPID not used by any other shape known to this allocator
+   */
+  int allocateSpid(String shapeName);
+
+  /**
+   * Returns SPIDs reserved by this allocator but not handed out, when its writer is done.
+   * The allocator may still be used afterwards. Allocators without a shared source do nothing.
+   */
+  default void release() {
+  }
+
+  /**
+   * Takes back a SPID this allocator handed out for a shape that was discarded, so it is
+   * no longer registered and can be handed out again. Allocators without a shared source
+   * do nothing.
+   *
+   * @param spid A SPID previously returned by {@link #allocateSpid(String)}
+   */
+  default void revoke(int spid) {
+  }
+
+  /**
+   * Creates an allocator handing out consecutive SPIDs, for writers not tracked by a SPIDManager.
+   *
+   * @param firstSpid The first SPID to hand out
+   * @return A new sequential allocator
+   * @throws IllegalArgumentException If firstSpid is not positive
+   */
+  static SpidAllocator sequential(int firstSpid) {
+    if (firstSpid <= 0) {
+      throw new IllegalArgumentException("firstSpid must be positive");
+    }
+
+    return new SpidAllocator() {
+      private int nextSpid = firstSpid;
+
+      @Override
+      public int allocateSpid(String shapeName) {
+        return nextSpid++;
+      }
+    };
+  }
+}
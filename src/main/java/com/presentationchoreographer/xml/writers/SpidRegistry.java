@@ -0,0 +1,599 @@
+package com.presentationchoreographer.xml.writers;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Primitive registry of the SPIDs in use, backing {@link SPIDManager}.
+ *
+ * <p>Occupancy is a paged bitmap: each page covers {@link #PAGE_SIZE} consecutive SPIDs
+ * with one bit per SPID, plus parallel int arrays holding the slide number and an
+ * interned shape name id for every slot. A registered shape therefore costs one bit and
+ * two ints instead of a boxed map entry and an info object, and finding a free SPID is a
+ * next-clear-bit scan over 64-bit words.</p>
+ *
+ * <p>Pages for SPIDs below {@link #DENSE_SPID_LIMIT} - which covers every deck written by
+ * PowerPoint or by this library - live in an array indexed by page number; pages for
+ * larger SPIDs, which only appear in sparse hand-edited decks, are kept in a sorted map.</p>
+ *
+ * <p>A secondary index keeps the SPIDs of each slide, so slide-level queries cost
+ * O(shapes on the slide) rather than a scan of the whole registry.</p>
+ *
+ * <p>Thread Safety: This class is thread-safe. Occupancy bits are updated with CAS, and a
+ * slot's slide number and name are written before its bit is set, so a reader that sees
+ * the bit also sees them. Changes to one SPID are made under a lock striped by SPID, so
+ * its bit, slide number and slide index entry change together. Concurrent registrations
+ * of the same SPID are last-writer-wins, as with a map. {@link #renumberSlides(Map)} must
+ * not run concurrently with registrations on the slides it renumbers.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+final class SpidRegistry {
+
+  /**
+   * log2 of the number of SPIDs per page
+   */
+  private static final int PAGE_SHIFT = 10;
+
+  /**
+   * Number of SPIDs covered by one page
+   */
+  static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  /**
+   * SPIDs below this limit are held in the dense page array
+   */
+  static final int DENSE_SPID_LIMIT = 1 << 22;
+
+  /**
+   * Slide number stored for slots whose SPID is not registered
+   */
+  static final int NO_SLIDE = -1;
+
+  /**
+   * Pages for SPIDs below DENSE_SPID_LIMIT, indexed by page number; grown under lock
+   */
+  private volatile Page[] densePages = new Page[16];
+
+  /**
+   * Pages for SPIDs at or above DENSE_SPID_LIMIT, keyed by page number
+   */
+  private final ConcurrentSkipListMap<Integer, Page> sparsePages = new ConcurrentSkipListMap<>();
+
+  /**
+   * Interned shape names: name to id, and id to name
+   */
+  private final Map<String, Integer> nameIds = new ConcurrentHashMap<>();
+  private volatile String[] names = new String[64];
+  private int nameCount;
+
+  /**
+   * Number of registered SPIDs
+   */
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * Secondary index: the SPIDs registered against each slide number
+   */
+  private final Map<Integer, SlideSpids> slideIndex = new ConcurrentHashMap<>();
+
+  /**
+   * Locks guarding the changes to one SPID, striped by SPID
+   */
+  private final Object[] stripes = new Object[64];
+
+  SpidRegistry() {
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Object();
+    }
+  }
+
+  /**
+   * Registers a SPID, replacing the slide number and name of an existing registration.
+   *
+   * @param spid The SPID to register
+   * @param slideNumber The slide holding the shape
+   * @param shapeName The shape name, may be null
+   * @return true if the SPID was not registered before
+   * @throws IllegalArgumentException If spid is negative
+   */
+  boolean register(int spid, int slideNumber, String shapeName) {
+    Page page = getOrCreatePage(pageIndex(spid));
+    int slot = spid & PAGE_MASK;
+    int nameId = internName(shapeName);
+
+    synchronized (stripe(spid)) {
+      int previousSlide = page.isSet(slot) ? page.slideNumbers[slot] : NO_SLIDE;
+      page.slideNumbers[slot] = slideNumber;
+      page.nameIds[slot] = nameId;
+      boolean added = page.set(slot);
+      if (added) {
+        size.incrementAndGet();
+      }
+      moveInSlideIndex(spid, previousSlide, slideNumber);
+      return added;
+    }
+  }
+
+  /**
+   * Unregisters a SPID.
+   *
+   * @return true if the SPID was registered
+   */
+  boolean unregister(int spid) {
+    Page page = spid >= 0 ? getPage(spid >>> PAGE_SHIFT) : null;
+    if (page == null) {
+      return false;
+    }
+
+    synchronized (stripe(spid)) {
+      int slot = spid & PAGE_MASK;
+      if (!page.clear(slot)) {
+        return false;
+      }
+      size.decrementAndGet();
+      moveInSlideIndex(spid, page.slideNumbers[slot], NO_SLIDE);
+      return true;
+    }
+  }
+
+  /**
+   * Checks whether a SPID is registered.
+   */
+  boolean contains(int spid) {
+    Page page = spid >= 0 ? getPage(spid >>> PAGE_SHIFT) : null;
+    return page != null && page.isSet(spid & PAGE_MASK);
+  }
+
+  /**
+   * Gets the slide number of a registered SPID.
+   *
+   * @return The slide number, or NO_SLIDE if the SPID is not registered
+   */
+  int getSlideNumber(int spid) {
+    Page page = spid >= 0 ? getPage(spid >>> PAGE_SHIFT) : null;
+    return page != null && page.isSet(spid & PAGE_MASK) ? page.slideNumbers[spid & PAGE_MASK] : NO_SLIDE;
+  }
+
+  /**
+   * Moves a registered SPID to another slide.
+   *
+   * @return true if the SPID is registered and was updated
+   */
+  boolean setSlideNumber(int spid, int slideNumber) {
+    Page page = spid >= 0 ? getPage(spid >>> PAGE_SHIFT) : null;
+    if (page == null) {
+      return false;
+    }
+
+    synchronized (stripe(spid)) {
+      int slot = spid & PAGE_MASK;
+      if (!page.isSet(slot)) {
+        return false;
+      }
+      moveInSlideIndex(spid, page.slideNumbers[slot], slideNumber);
+      page.slideNumbers[slot] = slideNumber;
+      return true;
+    }
+  }
+
+  /**
+   * Gets the SPIDs registered against a slide.
+   *
+   * @return A new array of the slide's SPIDs, in no particular order
+   */
+  int[] getSlideSpids(int slideNumber) {
+    SlideSpids spids = slideIndex.get(slideNumber);
+    return spids != null ? spids.toArray() : new int[0];
+  }
+
+  /**
+   * Gets the number of SPIDs registered against a slide.
+   */
+  int countSlideSpids(int slideNumber) {
+    SlideSpids spids = slideIndex.get(slideNumber);
+    return spids != null ? spids.size() : 0;
+  }
+
+  /**
+   * Unregisters every SPID of a slide.
+   *
+   * @return The SPIDs that were released
+   */
+  int[] releaseSlide(int slideNumber) {
+    int[] spids = getSlideSpids(slideNumber);
+    for (int spid : spids) {
+      unregister(spid);
+    }
+    return spids;
+  }
+
+  /**
+   * Moves the SPIDs of renumbered slides to their new slide numbers. Only the SPIDs of
+   * the mapped slides are touched.
+   *
+   * @param slideNumberMapping Old slide number to new slide number; unmapped slides are unchanged
+   */
+  void renumberSlides(Map<Integer, Integer> slideNumberMapping) {
+    // Detach every renumbered slide first, so chains such as 1 -> 2, 2 -> 3 do not merge
+    Map<Integer, SlideSpids> detached = new HashMap<>();
+    for (Map.Entry<Integer, Integer> entry : slideNumberMapping.entrySet()) {
+      SlideSpids spids = slideIndex.remove(entry.getKey());
+      if (spids != null) {
+        detached.put(entry.getValue(), spids);
+      }
+    }
+
+    for (Map.Entry<Integer, SlideSpids> entry : detached.entrySet()) {
+      int newSlideNumber = entry.getKey();
+      for (int spid : entry.getValue().toArray()) {
+        synchronized (stripe(spid)) {
+          Page page = getPage(spid >>> PAGE_SHIFT);
+          page.slideNumbers[spid & PAGE_MASK] = newSlideNumber;
+        }
+      }
+      slideIndex.merge(newSlideNumber, entry.getValue(), SlideSpids::addAll);
+    }
+  }
+
+  /**
+   * Gets the shape name of a registered SPID.
+   *
+   * @return The name, or null if the SPID is not registered or was registered without one
+   */
+  String getShapeName(int spid) {
+    Page page = spid >= 0 ? getPage(spid >>> PAGE_SHIFT) : null;
+    if (page == null || !page.isSet(spid & PAGE_MASK)) {
+      return null;
+    }
+    int nameId = page.nameIds[spid & PAGE_MASK];
+    return nameId >= 0 ? names[nameId] : null;
+  }
+
+  /**
+   * Finds the lowest registered SPID at or above a starting point.
+   *
+   * @param from The SPID to start from
+   * @return The next registered SPID, or -1 if there is none
+   */
+  int nextRegistered(int from) {
+    int start = Math.max(from, 0);
+    Page[] dense = densePages;
+    for (int pageIndex = start >>> PAGE_SHIFT; pageIndex < dense.length; pageIndex++) {
+      int found = nextSetInPage(dense[pageIndex], pageIndex, start);
+      if (found >= 0) {
+        return found;
+      }
+    }
+
+    for (Map.Entry<Integer, Page> entry : sparsePages.tailMap(start >>> PAGE_SHIFT, true).entrySet()) {
+      int found = nextSetInPage(entry.getValue(), entry.getKey(), start);
+      if (found >= 0) {
+        return found;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the lowest unregistered SPID at or above a starting point, skipping
+   * fully occupied 64-SPID words at a time.
+   *
+   * @param from The SPID to start from
+   * @return The next free SPID
+   * @throws IllegalStateException If every SPID from the starting point up is registered
+   */
+  int nextFree(int from) {
+    int spid = Math.max(from, 0);
+    while (spid >= 0) {
+      Page page = getPage(spid >>> PAGE_SHIFT);
+      if (page == null) {
+        return spid;
+      }
+
+      int slot = spid & PAGE_MASK;
+      for (int word = slot >>> 6; word < Page.WORDS; word++) {
+        long free = ~page.occupancy.get(word) & (word == slot >>> 6 ? -1L << (slot & 63) : -1L);
+        if (free != 0) {
+          return ((spid >>> PAGE_SHIFT) << PAGE_SHIFT) + (word << 6) + Long.numberOfTrailingZeros(free);
+        }
+      }
+      spid = ((spid >>> PAGE_SHIFT) + 1) << PAGE_SHIFT;
+    }
+    throw new IllegalStateException("No free SPID at or above " + from);
+  }
+
+  /**
+   * Gets the highest registered SPID.
+   *
+   * @return The highest SPID, or 0 if none is registered
+   */
+  int highest() {
+    Map.Entry<Integer, Page> sparse = sparsePages.lastEntry();
+    while (sparse != null) {
+      int found = lastSetInPage(sparse.getValue(), sparse.getKey());
+      if (found >= 0) {
+        return found;
+      }
+      sparse = sparsePages.lowerEntry(sparse.getKey());
+    }
+
+    Page[] dense = densePages;
+    for (int pageIndex = dense.length - 1; pageIndex >= 0; pageIndex--) {
+      int found = lastSetInPage(dense[pageIndex], pageIndex);
+      if (found >= 0) {
+        return found;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Gets the number of registered SPIDs.
+   */
+  int size() {
+    return size.get();
+  }
+
+  /**
+   * Gets a live, unmodifiable view of the registered SPIDs, iterated in ascending order.
+   * Iteration is weakly consistent with concurrent registrations.
+   */
+  Set<Integer> asSet() {
+    return new AbstractSet<Integer>() {
+      @Override
+      public int size() {
+        return SpidRegistry.this.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof Integer && SpidRegistry.this.contains((Integer) o);
+      }
+
+      @Override
+      public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+          private int next = nextRegistered(0);
+
+          @Override
+          public boolean hasNext() {
+            return next >= 0;
+          }
+
+          @Override
+          public Integer next() {
+            if (next < 0) {
+              throw new NoSuchElementException();
+            }
+            int current = next;
+            next = current == Integer.MAX_VALUE ? -1 : nextRegistered(current + 1);
+            return current;
+          }
+        };
+      }
+    };
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  private Object stripe(int spid) {
+    return stripes[spid & (stripes.length - 1)];
+  }
+
+  /**
+   * Moves a SPID between slide index entries; NO_SLIDE stands for "not indexed".
+   * Called with the SPID's stripe lock held.
+   */
+  private void moveInSlideIndex(int spid, int fromSlide, int toSlide) {
+    if (fromSlide == toSlide) {
+      return;
+    }
+    if (fromSlide != NO_SLIDE) {
+      SlideSpids spids = slideIndex.get(fromSlide);
+      if (spids != null) {
+        spids.remove(spid);
+      }
+    }
+    if (toSlide != NO_SLIDE) {
+      slideIndex.computeIfAbsent(toSlide, slide -> new SlideSpids()).add(spid);
+    }
+  }
+
+  private static int pageIndex(int spid) {
+    if (spid < 0) {
+      throw new IllegalArgumentException("spid cannot be negative: " + spid);
+    }
+    return spid >>> PAGE_SHIFT;
+  }
+
+  private Page getPage(int pageIndex) {
+    if (pageIndex < (DENSE_SPID_LIMIT >>> PAGE_SHIFT)) {
+      Page[] dense = densePages;
+      return pageIndex < dense.length ? dense[pageIndex] : null;
+    }
+    return sparsePages.get(pageIndex);
+  }
+
+  private Page getOrCreatePage(int pageIndex) {
+    Page page = getPage(pageIndex);
+    if (page != null) {
+      return page;
+    }
+
+    if (pageIndex >= (DENSE_SPID_LIMIT >>> PAGE_SHIFT)) {
+      return sparsePages.computeIfAbsent(pageIndex, index -> new Page());
+    }
+
+    synchronized (this) {
+      Page[] dense = densePages;
+      if (pageIndex >= dense.length) {
+        int length = dense.length;
+        while (length <= pageIndex) {
+          length <<= 1;
+        }
+        dense = Arrays.copyOf(dense, Math.min(length, DENSE_SPID_LIMIT >>> PAGE_SHIFT));
+      }
+      if (dense[pageIndex] == null) {
+        dense[pageIndex] = new Page();
+      }
+      densePages = dense;
+      return dense[pageIndex];
+    }
+  }
+
+  /**
+   * Interns a shape name, returning its id, or -1 for null
+   */
+  private int internName(String shapeName) {
+    if (shapeName == null) {
+      return -1;
+    }
+    Integer id = nameIds.get(shapeName);
+    if (id != null) {
+      return id;
+    }
+
+    synchronized (nameIds) {
+      id = nameIds.get(shapeName);
+      if (id == null) {
+        String[] table = names;
+        if (nameCount == table.length) {
+          table = Arrays.copyOf(table, table.length << 1);
+        }
+        table[nameCount] = shapeName;
+        names = table;
+        id = nameCount++;
+        nameIds.put(shapeName, id);
+      }
+      return id;
+    }
+  }
+
+  private static int nextSetInPage(Page page, int pageIndex, int from) {
+    if (page == null) {
+      return -1;
+    }
+    int base = pageIndex << PAGE_SHIFT;
+    int slot = from > base ? from - base : 0;
+    if (slot >= PAGE_SIZE) {
+      return -1;
+    }
+
+    for (int word = slot >>> 6; word < Page.WORDS; word++) {
+      long bits = page.occupancy.get(word) & (word == slot >>> 6 ? -1L << (slot & 63) : -1L);
+      if (bits != 0) {
+        return base + (word << 6) + Long.numberOfTrailingZeros(bits);
+      }
+    }
+    return -1;
+  }
+
+  private static int lastSetInPage(Page page, int pageIndex) {
+    if (page == null) {
+      return -1;
+    }
+    for (int word = Page.WORDS - 1; word >= 0; word--) {
+      long bits = page.occupancy.get(word);
+      if (bits != 0) {
+        return (pageIndex << PAGE_SHIFT) + (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+      }
+    }
+    return -1;
+  }
+
+  // ========== INNER CLASSES ==========
+
+  /**
+   * Unordered int set of the SPIDs on one slide; removal swaps in the last element
+   */
+  private static final class SlideSpids {
+    private int[] spids = new int[8];
+    private int size;
+
+    synchronized void add(int spid) {
+      if (size == spids.length) {
+        spids = Arrays.copyOf(spids, size << 1);
+      }
+      spids[size++] = spid;
+    }
+
+    synchronized void remove(int spid) {
+      for (int i = 0; i < size; i++) {
+        if (spids[i] == spid) {
+          spids[i] = spids[--size];
+          return;
+        }
+      }
+    }
+
+    synchronized SlideSpids addAll(SlideSpids other) {
+      for (int spid : other.toArray()) {
+        add(spid);
+      }
+      return this;
+    }
+
+    synchronized int size() {
+      return size;
+    }
+
+    synchronized int[] toArray() {
+      return Arrays.copyOf(spids, size);
+    }
+  }
+
+  /**
+   * Occupancy bits and per-slot data for PAGE_SIZE consecutive SPIDs
+   */
+  private static final class Page {
+    static final int WORDS = PAGE_SIZE >>> 6;
+
+    final AtomicLongArray occupancy = new AtomicLongArray(WORDS);
+    final int[] slideNumbers = new int[PAGE_SIZE];
+    final int[] nameIds = new int[PAGE_SIZE];
+
+    boolean isSet(int slot) {
+      return (occupancy.get(slot >>> 6) & (1L << slot)) != 0;
+    }
+
+    /**
+     * Sets a slot's bit, returning true if it was clear
+     */
+    boolean set(int slot) {
+      int word = slot >>> 6;
+      long mask = 1L << slot;
+      long bits;
+      do {
+        bits = occupancy.get(word);
+        if ((bits & mask) != 0) {
+          return false;
+        }
+      } while (!occupancy.compareAndSet(word, bits, bits | mask));
+      return true;
+    }
+
+    /**
+     * Clears a slot's bit, returning true if it was set
+     */
+    boolean clear(int slot) {
+      int word = slot >>> 6;
+      long mask = 1L << slot;
+      long bits;
+      do {
+        bits = occupancy.get(word);
+        if ((bits & mask) == 0) {
+          return false;
+        }
+      } while (!occupancy.compareAndSet(word, bits, bits & ~mask));
+      return true;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package com.presentationchoreographer.xml.writers;
+
+import java.util.*;
+
+/**
+ * One row of values bound into a {@link SlideTemplate}.
+ *
+ * <p>Each key holds either a text value or a list of text values. In a
+ * {@link CompiledSlideTemplate}, the token "{{key}}" is replaced by a text value, and a
+ * paragraph containing a list-valued token is repeated once per list item (e.g. one
+ * bullet per item).</p>
+ *
+ * <p>Thread Safety: This class is not thread-safe. Rows must not be modified while
+ * slides are being instantiated from them.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public class TemplateData {
+
+  /**
+   * Values keyed by binding key; each value is a String or an unmodifiable List of String
+   */
+  private final Map<String, Object> values = new LinkedHashMap<>();
+
+  /**
+   * Creates a row of text values.
+   *
+   * @param texts Binding key to text value map
+   * @return A new TemplateData holding the texts
+   * @throws IllegalArgumentException If texts is null or contains an empty key
+   */
+  public static TemplateData of(Map<String, String> texts) {
+    if (texts == null) {
+      throw new IllegalArgumentException("texts cannot be null");
+    }
+
+    TemplateData data = new TemplateData();
+    for (Map.Entry<String, String> entry : texts.entrySet()) {
+      data.putText(entry.getKey(), entry.getValue());
+    }
+    return data;
+  }
+
+  /**
+   * Binds a text value.
+   *
+   * @param key The binding key (without braces)
+   * @param text The text value; null binds an empty string
+   * @return This TemplateData, for chaining
+   * @throws IllegalArgumentException If key is null or empty
+   */
+  public TemplateData putText(String key, String text) {
+    values.put(validateKey(key), text != null ? text : "");
+    return this;
+  }
+
+  /**
+   * Binds a list of text values.
+   *
+   * @param key The binding key (without braces)
+   * @param items The list items; null binds an empty list
+   * @return This TemplateData, for chaining
+   * @throws IllegalArgumentException If key is null or empty
+   */
+  public TemplateData putList(String key, List<String> items) {
+    List<String> copy = new ArrayList<>();
+    if (items != null) {
+      for (String item : items) {
+        copy.add(item != null ? item : "");
+      }
+    }
+    values.put(validateKey(key), Collections.unmodifiableList(copy));
+    return this;
+  }
+
+  /**
+   * Binds a value by its runtime type: lists are bound as lists of their items' string
+   * forms, anything else as its string form.
+   *
+   * @param key The binding key (without braces)
+   * @param value The value to bind
+   * @throws IllegalArgumentException If key is null or empty
+   */
+  public void put(String key, Object value) {
+    if (value instanceof List) {
+      List<String> items = new ArrayList<>();
+      for (Object item : (List<?>) value) {
+        items.add(item != null ? item.toString() : "");
+      }
+      putList(key, items);
+    } else {
+      putText(key, value != null ? value.toString() : null);
+    }
+  }
+
+  /**
+   * Gets the raw value of a key: a String, a List of String, or null if unbound.
+   */
+  public Object get(String key) {
+    return values.get(key);
+  }
+
+  /**
+   * Gets a text value, or the items of a list value joined by newlines.
+   *
+   * @param key The binding key
+   * @return The text, or null if the key is unbound
+   */
+  public String getString(String key) {
+    Object value = values.get(key);
+    if (value instanceof List) {
+      return String.join("\n", getStringList(key));
+    }
+    return (String) value;
+  }
+
+  /**
+   * Gets a list value, or a text value as a single-item list.
+   *
+   * @param key The binding key
+   * @return The items, or an empty list if the key is unbound
+   */
+  @SuppressWarnings("unchecked")
+  public List<String> getStringList(String key) {
+    Object value = values.get(key);
+    if (value instanceof List) {
+      return (List<String>) value;
+    }
+    return value != null ? List.of((String) value) : new ArrayList<>();
+  }
+
+  /**
+   * Checks whether a key is bound.
+   */
+  public boolean has(String key) {
+    return values.containsKey(key);
+  }
+
+  /**
+   * Checks whether a key is bound to a list.
+   */
+  public boolean isList(String key) {
+    return values.get(key) instanceof List;
+  }
+
+  /**
+   * Gets the bound keys, in the order they were first bound.
+   *
+   * @return An unmodifiable set of keys
+   */
+  public Set<String> keySet() {
+    return Collections.unmodifiableSet(values.keySet());
+  }
+
+  @Override
+  public String toString() {
+    return "TemplateData" + values;
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  private static String validateKey(String key) {
+    if (key == null || key.isEmpty()) {
+      throw new IllegalArgumentException("key cannot be null or empty");
+    }
+    return key;
+  }
+}
@@ -0,0 +1,304 @@
+package com.presentationchoreographer.xml.writers;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.*;
+import javax.xml.stream.events.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * Deck-wide placeholder token replacement for mail-merge style text binding.
+ *
+ * <p>Rewrites every a:t run in every slide and notes slide of an extracted PPTX,
+ * replacing tokens such as "{{customer}}" with bound values. Each part is processed
+ * in a single streaming (StAX) pass: only the events of the current a:p paragraph are
+ * buffered, so tokens split across runs are still matched while memory stays bounded
+ * by the largest paragraph rather than the whole slide DOM.</p>
+ *
+ * <p>Rewritten parts are invalidated in the {@link PartCache}, so sessions sharing it
+ * re-read them instead of reusing a parse of the unbound text.</p>
+ *
+ * <p>For edits on a slide that is already open as a DOM, use
+ * {@link SlideXMLWriter#replaceTextTokens(Map)} which applies the same matching rules.</p>
+ *
+ * <p>Thread Safety: An engine is immutable once constructed and may be reused across
+ * decks and threads.</p>
+ *
+ * @author Presentation Choreographer
+ * @version 1.0
+ * @since 1.0
+ */
+public class TextBindingEngine {
+
+  private static final QName PARAGRAPH = new QName(XMLConstants.DRAWING_NS, "p");
+  private static final QName TEXT = new QName(XMLConstants.DRAWING_NS, "t");
+
+  /**
+   * Token matcher shared by all parts processed by this engine.
+   */
+  private final TokenReplacer tokenReplacer;
+
+  /**
+   * Cache whose entries for rewritten parts are dropped.
+   */
+  private final PartCache partCache;
+
+  /**
+   * Per-thread StAX factories; factory instances are not guaranteed to be thread-safe.
+   */
+  private final ThreadLocal<XMLInputFactory> inputFactories;
+  private final ThreadLocal<XMLOutputFactory> outputFactories;
+  private final ThreadLocal<XMLEventFactory> eventFactories;
+
+  /**
+   * Constructs a binding engine for the given token map.
+   *
+   * @param bindings Token to replacement value map (e.g. "{{customer}}" → "Acme Corp")
+   * @throws IllegalArgumentException If bindings is null, empty, or contains an empty token
+   */
+  public TextBindingEngine(Map<String, String> bindings) {
+    this(bindings, PartCache.shared());
+  }
+
+  /**
+   * Constructs a binding engine that invalidates rewritten parts in the given cache.
+   *
+   * @param bindings Token to replacement value map (e.g. "{{customer}}" → "Acme Corp")
+   * @param partCache The cache used by the sessions reading the rewritten parts
+   * @throws IllegalArgumentException If bindings is null, empty, or contains an empty token,
+   *     or partCache is null
+   */
+  public TextBindingEngine(Map<String, String> bindings, PartCache partCache) {
+    if (partCache == null) {
+      throw new IllegalArgumentException("partCache cannot be null");
+    }
+    this.tokenReplacer = new TokenReplacer(bindings);
+    this.partCache = partCache;
+    this.inputFactories = ThreadLocal.withInitial(() -> {
+      XMLInputFactory factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+      factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      return factory;
+    });
+    this.outputFactories = ThreadLocal.withInitial(XMLOutputFactory::newInstance);
+    this.eventFactories = ThreadLocal.withInitial(XMLEventFactory::newInstance);
+  }
+
+  /**
+   * Applies the bindings to every slide and notes slide in an extracted presentation.
+   * Parts are processed in parallel; parts without matches are left untouched on disk.
+   *
+   * @param extractedPptxDir The directory containing the extracted PPTX contents
+   * @return BindingResult with part and replacement counts
+   * @throws XMLParsingException If any part cannot be rewritten
+   * @throws IllegalArgumentException If extractedPptxDir is null or does not exist
+   */
+  public BindingResult apply(File extractedPptxDir) throws XMLParsingException {
+    if (extractedPptxDir == null || !extractedPptxDir.exists()) {
+      throw new IllegalArgumentException("extractedPptxDir must exist and be non-null");
+    }
+
+    List<File> parts = new ArrayList<>();
+    parts.addAll(listParts(new File(extractedPptxDir, "ppt/slides"), "slide\\d+\\.xml"));
+    parts.addAll(listParts(new File(extractedPptxDir, "ppt/notesSlides"), "notesSlide\\d+\\.xml"));
+
+    if (parts.isEmpty()) {
+      return new BindingResult(0, 0, 0);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(parts.size(), Math.max(1, Runtime.getRuntime().availableProcessors())));
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (File part : parts) {
+        futures.add(executor.submit(() -> applyToPart(part)));
+      }
+
+      int partsModified = 0;
+      int replacements = 0;
+      for (Future<Integer> future : futures) {
+        int partReplacements = future.get();
+        if (partReplacements > 0) {
+          partsModified++;
+          replacements += partReplacements;
+        }
+      }
+      return new BindingResult(parts.size(), partsModified, replacements);
+
+    } catch (ExecutionException e) {
+      throw new XMLParsingException("Failed to apply text bindings", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new XMLParsingException("Text binding interrupted", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Applies the bindings to a single part file, rewriting it only if a token matched.
+   *
+   * @param partFile The slide or notes XML part to rewrite
+   * @return The number of tokens replaced in the part
+   * @throws XMLParsingException If the part cannot be read or written
+   */
+  public int applyToPart(File partFile) throws XMLParsingException {
+    File tempFile = new File(partFile.getParentFile(), partFile.getName() + ".binding.tmp");
+    try {
+      int replacements;
+      try (InputStream in = new BufferedInputStream(new FileInputStream(partFile));
+          OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+        replacements = transform(in, out);
+      }
+
+      if (replacements > 0) {
+        Files.move(tempFile.toPath(), partFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        partCache.invalidate(partFile);
+      }
+      return replacements;
+
+    } catch (IOException | XMLStreamException e) {
+      throw new XMLParsingException("Failed to apply text bindings to " + partFile.getName(), e);
+    } finally {
+      tempFile.delete();
+    }
+  }
+
+  /**
+   * Streams a part from input to output, replacing tokens paragraph by paragraph.
+   *
+   * @param in The source part XML
+   * @param out The destination for the rewritten XML
+   * @return The number of tokens replaced
+   * @throws XMLStreamException If the XML cannot be streamed
+   */
+  public int transform(InputStream in, OutputStream out) throws XMLStreamException {
+    XMLEventReader reader = inputFactories.get().createXMLEventReader(in);
+    XMLEventWriter writer = outputFactories.get().createXMLEventWriter(out, "UTF-8");
+
+    int replacements = 0;
+    List<XMLEvent> paragraph = new ArrayList<>();
+    int paragraphDepth = 0;
+
+    try {
+      while (reader.hasNext()) {
+        XMLEvent event = reader.nextEvent();
+
+        if (event.isStartElement() && PARAGRAPH.equals(event.asStartElement().getName())) {
+          paragraphDepth++;
+        }
+
+        if (paragraphDepth == 0) {
+          writer.add(event);
+          continue;
+        }
+
+        paragraph.add(event);
+        if (event.isEndElement() && PARAGRAPH.equals(event.asEndElement().getName())) {
+          paragraphDepth--;
+          if (paragraphDepth == 0) {
+            replacements += flushParagraph(paragraph, writer);
+            paragraph.clear();
+          }
+        }
+      }
+      writer.flush();
+    } finally {
+      reader.close();
+      writer.close();
+    }
+
+    return replacements;
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  /**
+   * Writes a buffered paragraph, substituting run text if any token matched.
+   */
+  private int flushParagraph(List<XMLEvent> paragraph, XMLEventWriter writer) throws XMLStreamException {
+    // Collect the text of each a:t run
+    List<String> runs = new ArrayList<>();
+    StringBuilder current = null;
+    for (XMLEvent event : paragraph) {
+      if (event.isStartElement() && TEXT.equals(event.asStartElement().getName())) {
+        current = new StringBuilder();
+      } else if (event.isEndElement() && TEXT.equals(event.asEndElement().getName())) {
+        runs.add(current.toString());
+        current = null;
+      } else if (current != null && event.isCharacters()) {
+        current.append(event.asCharacters().getData());
+      }
+    }
+
+    String[] runTexts = runs.toArray(new String[0]);
+    int replacements = tokenReplacer.replace(runTexts);
+    if (replacements == 0) {
+      for (XMLEvent event : paragraph) {
+        writer.add(event);
+      }
+      return 0;
+    }
+
+    // Re-emit the paragraph with the rebuilt run text
+    XMLEventFactory eventFactory = eventFactories.get();
+    int runIndex = 0;
+    boolean inText = false;
+    for (XMLEvent event : paragraph) {
+      if (event.isStartElement() && TEXT.equals(event.asStartElement().getName())) {
+        writer.add(event);
+        if (!runTexts[runIndex].isEmpty()) {
+          writer.add(eventFactory.createCharacters(runTexts[runIndex]));
+        }
+        inText = true;
+      } else if (event.isEndElement() && TEXT.equals(event.asEndElement().getName())) {
+        writer.add(event);
+        runIndex++;
+        inText = false;
+      } else if (!(inText && event.isCharacters())) {
+        writer.add(event);
+      }
+    }
+    return replacements;
+  }
+
+  /**
+   * Lists part files in a directory matching the given name pattern.
+   */
+  private List<File> listParts(File directory, String namePattern) {
+    File[] files = directory.listFiles((dir, name) -> name.matches(namePattern));
+    return files != null ? Arrays.asList(files) : Collections.emptyList();
+  }
+
+  // ========== INNER CLASSES ==========
+
+  /**
+   * Result of applying text bindings to a presentation.
+   */
+  public static class BindingResult {
+    private final int partsScanned;
+    private final int partsModified;
+    private final int replacements;
+
+    public BindingResult(int partsScanned, int partsModified, int replacements) {
+      this.partsScanned = partsScanned;
+      this.partsModified = partsModified;
+      this.replacements = replacements;
+    }
+
+    public int getPartsScanned() { return partsScanned; }
+    public int getPartsModified() { return partsModified; }
+    public int getReplacements() { return replacements; }
+
+    @Override
+    public String toString() {
+      return String.format("BindingResult{parts=%d, modified=%d, replacements=%d}",
+          partsScanned, partsModified, replacements);
+    }
+  }
+}
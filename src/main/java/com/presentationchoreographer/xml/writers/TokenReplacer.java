@@ -0,0 +1,171 @@
+package com.presentationchoreographer.xml.writers;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces placeholder tokens (e.g. "{{customer}}") in the text runs of one paragraph.
+ *
+ * <p>PowerPoint frequently splits a typed token across several a:r runs (spell check,
+ * formatting changes, autocorrect), so matching is done on the concatenated paragraph
+ * text. The replacement value is placed in the run where the token starts and the
+ * remaining token characters are removed from the following runs, leaving each run's
+ * formatting untouched.</p>
+ */
+final class TokenReplacer {
+
+  private final Map<String, String> bindings;
+  private final Pattern tokenPattern;
+
+  /**
+   * @param bindings Token to replacement value map; tokens are matched literally
+   * @throws IllegalArgumentException If bindings is null or empty, or contains an empty token
+   */
+  TokenReplacer(Map<String, String> bindings) {
+    if (bindings == null || bindings.isEmpty()) {
+      throw new IllegalArgumentException("bindings cannot be null or empty");
+    }
+
+    this.bindings = new HashMap<>(bindings);
+    this.tokenPattern = compileTokens(bindings.keySet());
+  }
+
+  /**
+   * Creates a matcher for a fixed token set whose values are supplied with each
+   * {@link #replace(String[], Map)} call, so the pattern is compiled only once.
+   *
+   * @param tokens The tokens to match literally
+   * @throws IllegalArgumentException If tokens is null or empty, or contains an empty token
+   */
+  TokenReplacer(Collection<String> tokens) {
+    if (tokens == null || tokens.isEmpty()) {
+      throw new IllegalArgumentException("tokens cannot be null or empty");
+    }
+
+    this.bindings = Collections.emptyMap();
+    this.tokenPattern = compileTokens(tokens);
+  }
+
+  /**
+   * Replaces all tokens in a paragraph's run texts, updating the array in place.
+   *
+   * @param runTexts The text of each a:t run in the paragraph, in document order
+   * @return The number of tokens replaced
+   */
+  int replace(String[] runTexts) {
+    return replace(runTexts, bindings);
+  }
+
+  /**
+   * Replaces tokens using values supplied for this call. Matched tokens without an entry
+   * in values are left in place; entries mapped to null are removed.
+   *
+   * @param runTexts The text of each a:t run in the paragraph, in document order
+   * @param values Token to replacement value map for this call
+   * @return The number of tokens replaced
+   */
+  int replace(String[] runTexts, Map<String, String> values) {
+    if (runTexts.length == 0) {
+      return 0;
+    }
+
+    // Run boundaries within the concatenated paragraph text
+    int[] runStarts = new int[runTexts.length + 1];
+    StringBuilder joined = new StringBuilder();
+    for (int i = 0; i < runTexts.length; i++) {
+      runStarts[i] = joined.length();
+      joined.append(runTexts[i]);
+    }
+    runStarts[runTexts.length] = joined.length();
+
+    String paragraphText = joined.toString();
+    Matcher matcher = tokenPattern.matcher(paragraphText);
+    if (!matcher.find()) {
+      return 0;
+    }
+
+    StringBuilder[] rebuilt = new StringBuilder[runTexts.length];
+    for (int i = 0; i < rebuilt.length; i++) {
+      rebuilt[i] = new StringBuilder();
+    }
+
+    int replacements = 0;
+    int position = 0;
+    do {
+      if (!values.containsKey(matcher.group())) {
+        continue;
+      }
+      copyRange(paragraphText, runStarts, position, matcher.start(), rebuilt);
+      String value = values.get(matcher.group());
+      rebuilt[findRun(runStarts, matcher.start())].append(value != null ? value : "");
+      position = matcher.end();
+      replacements++;
+    } while (matcher.find());
+    if (replacements == 0) {
+      return 0;
+    }
+    copyRange(paragraphText, runStarts, position, paragraphText.length(), rebuilt);
+
+    for (int i = 0; i < runTexts.length; i++) {
+      runTexts[i] = rebuilt[i].toString();
+    }
+    return replacements;
+  }
+
+  /**
+   * Compiles an alternation of the tokens, longest first so overlapping tokens resolve to the
+   * most specific match.
+   */
+  private static Pattern compileTokens(Collection<String> tokenSet) {
+    List<String> tokens = new ArrayList<>(tokenSet);
+    for (String token : tokens) {
+      if (token == null || token.isEmpty()) {
+        throw new IllegalArgumentException("tokens cannot be null or empty");
+      }
+    }
+    tokens.sort(Comparator.comparingInt(String::length).reversed());
+
+    StringBuilder alternation = new StringBuilder();
+    for (String token : tokens) {
+      if (alternation.length() > 0) {
+        alternation.append('|');
+      }
+      alternation.append(Pattern.quote(token));
+    }
+    return Pattern.compile(alternation.toString());
+  }
+
+  /**
+   * Copies paragraph characters [from, to) back into the runs that originally held them.
+   */
+  private void copyRange(String text, int[] runStarts, int from, int to, StringBuilder[] rebuilt) {
+    if (from >= to) {
+      return;
+    }
+    for (int run = findRun(runStarts, from); run < rebuilt.length && runStarts[run] < to; run++) {
+      int start = Math.max(from, runStarts[run]);
+      int end = Math.min(to, runStarts[run + 1]);
+      if (start < end) {
+        rebuilt[run].append(text, start, end);
+      }
+    }
+  }
+
+  /**
+   * Finds the run containing the given paragraph offset; the last match wins so empty runs are skipped.
+   */
+  private int findRun(int[] runStarts, int offset) {
+    int low = 0;
+    int high = runStarts.length - 2;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (runStarts[mid] <= offset) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+}
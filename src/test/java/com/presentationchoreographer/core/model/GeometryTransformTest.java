@@ -0,0 +1,75 @@
+package com.presentationchoreographer.core.model;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GeometryTransform: identity, composition order, inversion and the
+ * conjugation used to express slide-space transforms in a group's child space.
+ *
+ * @author Presentation Choreographer Test Suite
+ */
+class GeometryTransformTest {
+
+  private static final ShapeGeometry SHAPE = new ShapeGeometry(10, 20, 30, 40);
+
+  @Test
+  @DisplayName("Identity leaves geometry unchanged and is neutral under composition")
+  void testIdentity() {
+    GeometryTransform identity = GeometryTransform.identity();
+    assertTrue(identity.isIdentity());
+    assertGeometry(10, 20, 30, 40, identity.apply(SHAPE));
+
+    GeometryTransform move = GeometryTransform.translate(100, 200);
+    assertGeometry(110, 220, 30, 40, identity.then(move).apply(SHAPE));
+    assertGeometry(110, 220, 30, 40, move.then(identity).apply(SHAPE));
+    assertTrue(move.then(move.inverse()).isIdentity());
+  }
+
+  @Test
+  @DisplayName("then() applies this transform first; sizes are scaled but never translated")
+  void testTranslateScaleComposition() {
+    GeometryTransform move = GeometryTransform.translate(100, 200);
+    GeometryTransform scale = GeometryTransform.scale(2.0, 3.0);
+
+    assertGeometry(220, 660, 60, 120, move.then(scale).apply(SHAPE));
+    assertGeometry(120, 260, 60, 120, scale.then(move).apply(SHAPE));
+
+    GeometryTransform composed = move.then(scale);
+    assertGeometry(10, 20, 30, 40, composed.inverse().apply(composed.apply(SHAPE)));
+  }
+
+  @Test
+  @DisplayName("A slide-space transform conjugated by a scaled group mapping acts in child coordinates")
+  void testConjugateByGroupMapping() {
+    // Group frame at (1000, 1000) sized 2000x2000 over a 1000x1000 child space: children are scaled 2x
+    GeometryTransform childToSlide = GeometryTransform.groupMapping(1000, 1000, 2000, 2000, 0, 0, 1000, 1000);
+    ShapeGeometry child = new ShapeGeometry(100, 100, 200, 200);
+    assertGeometry(1200, 1200, 400, 400, childToSlide.apply(child));
+
+    GeometryTransform inChildSpace = GeometryTransform.translate(600, 0).conjugate(childToSlide);
+    ShapeGeometry moved = inChildSpace.apply(child);
+    assertGeometry(400, 100, 200, 200, moved);
+    assertGeometry(1800, 1200, 400, 400, childToSlide.apply(moved));
+  }
+
+  @Test
+  @DisplayName("Aspect-preserving slide resize scales uniformly and centers the content")
+  void testSlideResizePreservingAspectRatio() {
+    GeometryTransform resize = GeometryTransform.slideResize(12192000, 6858000, 9144000, 6858000, true);
+    assertEquals(0.75, resize.getScaleX(), 1e-9);
+    assertEquals(0.75, resize.getScaleY(), 1e-9);
+    assertGeometry(0, 857250, 9144000, 5143500, resize.apply(new ShapeGeometry(0, 0, 12192000, 6858000)));
+
+    assertThrows(IllegalArgumentException.class, () -> GeometryTransform.scale(0.0, 1.0));
+  }
+
+  // ========== HELPER METHODS ==========
+
+  private static void assertGeometry(long x, long y, long width, long height, ShapeGeometry actual) {
+    assertEquals(x, actual.getX(), "x of " + actual);
+    assertEquals(y, actual.getY(), "y of " + actual);
+    assertEquals(width, actual.getWidth(), "width of " + actual);
+    assertEquals(height, actual.getHeight(), "height of " + actual);
+  }
+}
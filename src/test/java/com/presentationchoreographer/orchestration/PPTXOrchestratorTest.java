@@ -0,0 +1,183 @@
+package com.presentationchoreographer.orchestration;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+import com.presentationchoreographer.utils.PackageArchive;
+import com.presentationchoreographer.xml.writers.ContentTypesRegistry;
+import com.presentationchoreographer.xml.writers.PresentationPart;
+
+/**
+ * Tests for PPTXOrchestrator merge and split, end to end from PPTX files to saved pieces.
+ *
+ * Inputs are built from the sample deck in test-pptx-samples: each copy relabels its two
+ * slides so their order can be followed, and may add a logo picture to its second slide.
+ *
+ * @author Presentation Choreographer Test Suite
+ */
+class PPTXOrchestratorTest {
+
+  private static final File SAMPLE_DECK = new File("test-pptx-samples/teststructurepowerpoint.pptx");
+  private static final byte[] LOGO = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 'l', 'o', 'g', 'o'};
+
+  @TempDir
+  Path tempDir;
+
+  private PPTXOrchestrator orchestrator;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    orchestrator = new PPTXOrchestrator();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    for (PPTXOrchestrator.PresentationSession session : new ArrayList<>(orchestrator.getActiveSessions())) {
+      orchestrator.closeSession(session);
+    }
+  }
+
+  @Test
+  @DisplayName("Merge appends decks in order, shares identical masters and media, and saves")
+  void testMergeOrderAndDeduplication() throws Exception {
+    File deckA = createDeck("A", true);
+    File deckB = createDeck("B", true);
+    File deckC = createDeck("C", false);
+
+    PPTXOrchestrator.PresentationSession merged = orchestrator.merge(List.of(deckA, deckB, deckC));
+    File mergedDir = merged.getExtractedDirectory();
+    PresentationPart presentation = PresentationPart.load(mergedDir);
+
+    assertEquals(List.of("A 1", "A 2", "B 1", "B 2", "C 1", "C 2"), slideLabels(mergedDir, presentation));
+    assertEquals(6, merged.getMetadata().getSlideCount(), "Session metadata should count the merged slides");
+    assertEquals(List.of("slideMasters/slideMaster1.xml"), presentation.getSlideMasterTargets(),
+        "Identical masters should be shared across inputs");
+    assertEquals(1, mediaFiles(mergedDir).size(), "The shared logo should be stored once");
+
+    PPTXOrchestrator.ValidationResult validation = orchestrator.validatePresentation(merged);
+    assertTrue(validation.isValid(), "Merged deck should validate: " + validation.getErrors());
+    File output = tempDir.resolve("out/merged.pptx").toFile();
+    orchestrator.savePresentation(merged, output);
+    PPTXOrchestrator.PresentationSession reopened = orchestrator.openPresentation(output);
+    assertEquals(6, PresentationPart.load(reopened.getExtractedDirectory()).getSlideCount());
+  }
+
+  @Test
+  @DisplayName("A failing merge input rolls back and closes the merged session")
+  void testMergeRollbackClosesSession() throws Exception {
+    File deckA = createDeck("A", false);
+    File broken = tempDir.resolve("broken.pptx").toFile();
+    Files.writeString(broken.toPath(), "not a zip archive");
+    Set<String> sessionDirsBefore = sessionDirectories();
+
+    assertThrows(XMLParsingException.class, () -> orchestrator.merge(List.of(deckA, broken)));
+
+    assertTrue(orchestrator.getActiveSessions().isEmpty(), "The merged session should be closed");
+    assertEquals(sessionDirsBefore, sessionDirectories(), "The merged session's files should be removed");
+    assertThrows(IllegalArgumentException.class, () -> orchestrator.merge(List.of()));
+  }
+
+  @Test
+  @DisplayName("Split pieces keep only their own slides, media and content types, and save")
+  void testSplitPieces() throws Exception {
+    PPTXOrchestrator.PresentationSession source = orchestrator.openPresentation(createDeck("A", true));
+
+    List<PPTXOrchestrator.PresentationSession> pieces =
+      orchestrator.split(source, List.of(new int[] {1, 1}, new int[] {2, 2}));
+
+    assertEquals(2, pieces.size());
+    assertEquals(2, PresentationPart.load(source.getExtractedDirectory()).getSlideCount(), "The source is not modified");
+
+    File firstDir = pieces.get(0).getExtractedDirectory();
+    File secondDir = pieces.get(1).getExtractedDirectory();
+    assertEquals(List.of("A 1"), slideLabels(firstDir, PresentationPart.load(firstDir)));
+    assertEquals(List.of("A 2"), slideLabels(secondDir, PresentationPart.load(secondDir)));
+    assertTrue(mediaFiles(firstDir).isEmpty(), "The first piece does not use the logo");
+    assertEquals(1, mediaFiles(secondDir).size());
+
+    for (PPTXOrchestrator.PresentationSession piece : pieces) {
+      File pieceDir = piece.getExtractedDirectory();
+      assertEquals(1, piece.getMetadata().getSlideCount());
+      assertFalse(new File(pieceDir, "ppt/slides/slide2.xml").exists());
+      for (String partName : ContentTypesRegistry.load(pieceDir).getOverridePartNames()) {
+        assertTrue(new File(pieceDir, partName.substring(1)).isFile(), "Override for a missing part: " + partName);
+      }
+
+      PPTXOrchestrator.ValidationResult validation = orchestrator.validatePresentation(piece);
+      assertTrue(validation.isValid(), "Piece should validate: " + validation.getErrors());
+      File output = tempDir.resolve("out/" + piece.getSessionId() + ".pptx").toFile();
+      orchestrator.savePresentation(piece, output);
+      PPTXOrchestrator.PresentationSession reopened = orchestrator.openPresentation(output);
+      assertEquals(1, PresentationPart.load(reopened.getExtractedDirectory()).getSlideCount());
+    }
+
+    assertThrows(IllegalArgumentException.class, () -> orchestrator.split(source, List.of(new int[] {2, 3})));
+  }
+
+  // ========== HELPER METHODS ==========
+
+  /**
+   * Copies the sample deck with its slides relabelled "name 1" and "name 2", optionally
+   * adding a logo picture to the second slide
+   */
+  private File createDeck(String name, boolean withLogo) throws IOException {
+    File dir = tempDir.resolve(name).toFile();
+    PackageArchive.extract(SAMPLE_DECK, dir);
+
+    Path slide1 = dir.toPath().resolve("ppt/slides/slide1.xml");
+    Files.writeString(slide1, Files.readString(slide1).replace("<a:t>Test</a:t>", "<a:t>" + name + " 1</a:t>"));
+    Path slide2 = dir.toPath().resolve("ppt/slides/slide2.xml");
+    String slide2Xml = Files.readString(slide2).replace("<a:t>Test 2</a:t>", "<a:t>" + name + " 2</a:t>");
+    // Both sample slides use shape IDs 2 and 3, which presentation-wide SPID validation rejects
+    slide2Xml = java.util.regex.Pattern.compile("(<p:cNvPr id=\"|spid=\")(\\d+)\"").matcher(slide2Xml).replaceAll(id ->
+        id.group(1) + (id.group(2).equals("1") ? 1 : Integer.parseInt(id.group(2)) + 100) + "\"");
+
+    if (withLogo) {
+      slide2Xml = slide2Xml.replace("</p:spTree>",
+          "<p:pic><p:nvPicPr><p:cNvPr id=\"90\" name=\"Logo\"/><p:cNvPicPr/><p:nvPr/></p:nvPicPr>" +
+          "<p:blipFill><a:blip r:embed=\"rId2\"/></p:blipFill><p:spPr/></p:pic></p:spTree>");
+      Path rels = dir.toPath().resolve("ppt/slides/_rels/slide2.xml.rels");
+      Files.writeString(rels, Files.readString(rels).replace("</Relationships>",
+            "<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/image\" " +
+            "Target=\"../media/image1.png\"/></Relationships>"));
+      Files.createDirectories(dir.toPath().resolve("ppt/media"));
+      Files.write(dir.toPath().resolve("ppt/media/image1.png"), LOGO);
+      Path contentTypes = dir.toPath().resolve("[Content_Types].xml");
+      Files.writeString(contentTypes, Files.readString(contentTypes).replace("<Default Extension=\"rels\"",
+            "<Default Extension=\"png\" ContentType=\"image/png\"/><Default Extension=\"rels\""));
+    }
+    Files.writeString(slide2, slide2Xml);
+
+    File deck = tempDir.resolve(name + ".pptx").toFile();
+    PackageArchive.compress(dir, deck);
+    return deck;
+  }
+
+  /**
+   * Reads the first text run of each slide in presentation order
+   */
+  private static List<String> slideLabels(File extractedDir, PresentationPart presentation) throws Exception {
+    List<String> labels = new ArrayList<>();
+    for (PresentationPart.SlideEntry slide : presentation.getSlides()) {
+      String xml = Files.readString(new File(extractedDir, "ppt/" + slide.getTarget()).toPath());
+      int start = xml.indexOf("<a:t>") + "<a:t>".length();
+      labels.add(xml.substring(start, xml.indexOf("</a:t>", start)));
+    }
+    return labels;
+  }
+
+  private static List<String> mediaFiles(File extractedDir) {
+    String[] names = new File(extractedDir, "ppt/media").list();
+    return names != null ? Arrays.asList(names) : List.of();
+  }
+
+  private static Set<String> sessionDirectories() {
+    String[] names = new File(System.getProperty("java.io.tmpdir"), "presentation_choreographer")
+      .list((dir, name) -> name.startsWith("session_"));
+    return names != null ? new HashSet<>(Arrays.asList(names)) : new HashSet<>();
+  }
+}
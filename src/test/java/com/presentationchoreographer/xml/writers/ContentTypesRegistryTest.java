@@ -0,0 +1,116 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Round-trip tests for ContentTypesRegistry: Override and Default edits, case-insensitive
+ * lookups, and flushes that keep everything other than the entries as it was read.
+ *
+ * @author Presentation Choreographer Test Suite
+ */
+class ContentTypesRegistryTest {
+
+  private static final String SLIDE_TYPE = "application/vnd.openxmlformats-officedocument.presentationml.slide+xml";
+  private static final String HEAD =
+    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+    "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\" " +
+    "xmlns:x=\"urn:example:extension\">\n<!-- generated by a third-party tool -->\n";
+  private static final String TAIL = "\n<x:note keep=\"yes\"/>\n</Types>";
+
+  @TempDir
+  Path tempDir;
+
+  private File pptxDir;
+  private Path contentTypesPath;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    pptxDir = tempDir.toFile();
+    contentTypesPath = tempDir.resolve("[Content_Types].xml");
+    Files.writeString(contentTypesPath, HEAD +
+        "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+        "<Default Extension=\"JPEG\" ContentType=\"image/jpeg\"/>" +
+        "<Override PartName=\"/ppt/slides/slide1.xml\" ContentType=\"" + SLIDE_TYPE + "\"/>" +
+        "<Override PartName=\"/docProps/custom.xml\" " +
+        "ContentType=\"application/vnd.openxmlformats-officedocument.custom-properties+xml\"/>" + TAIL);
+  }
+
+  @Test
+  @DisplayName("Override add and remove round-trip through flush")
+  void testOverrideRoundTrip() throws Exception {
+    ContentTypesRegistry registry = ContentTypesRegistry.load(pptxDir);
+    assertFalse(registry.isDirty());
+
+    assertTrue(registry.addOverride("/ppt/slides/slide38.xml", SLIDE_TYPE));
+    assertFalse(registry.addOverride("/ppt/slides/slide38.xml", SLIDE_TYPE), "Re-adding the same Override is not a change");
+    assertTrue(registry.removeOverride("/PPT/Slides/Slide1.xml"), "Part names compare case-insensitively");
+    assertFalse(registry.removeOverride("/ppt/slides/slide1.xml"));
+    assertThrows(IllegalArgumentException.class, () -> registry.addOverride("ppt/slides/slide2.xml", SLIDE_TYPE));
+    registry.flush();
+    assertFalse(registry.isDirty());
+
+    ContentTypesRegistry reloaded = ContentTypesRegistry.load(pptxDir);
+    assertTrue(reloaded.hasOverride("/ppt/slides/slide38.xml"));
+    assertFalse(reloaded.hasOverride("/ppt/slides/slide1.xml"));
+    assertEquals(SLIDE_TYPE, reloaded.getContentType("/ppt/slides/slide38.xml"));
+    assertEquals(List.of("/docProps/custom.xml", "/ppt/slides/slide38.xml"), List.copyOf(reloaded.getOverridePartNames()));
+  }
+
+  @Test
+  @DisplayName("Default add and remove round-trip through flush")
+  void testDefaultRoundTrip() throws Exception {
+    ContentTypesRegistry registry = ContentTypesRegistry.load(pptxDir);
+
+    assertTrue(registry.addDefault("png", "image/png"));
+    assertFalse(registry.addDefault("PNG", "image/png"), "Extensions compare case-insensitively");
+    assertTrue(registry.removeDefault("jpeg"));
+    assertFalse(registry.removeDefault("jpeg"));
+    registry.flush();
+
+    ContentTypesRegistry reloaded = ContentTypesRegistry.load(pptxDir);
+    assertTrue(reloaded.hasDefault("png"));
+    assertFalse(reloaded.hasDefault("jpeg"));
+    assertEquals("image/png", reloaded.getContentType("/ppt/media/image1.png"));
+    assertNull(reloaded.getContentType("/ppt/media/image2.jpeg"));
+  }
+
+  @Test
+  @DisplayName("Flush regenerates only the entries and keeps the rest of the file")
+  void testFlushPreservesUnknownContent() throws Exception {
+    ContentTypesRegistry registry = ContentTypesRegistry.load(pptxDir);
+    registry.addOverride("/ppt/slides/slide2.xml", SLIDE_TYPE);
+    registry.flush();
+
+    String xml = Files.readString(contentTypesPath);
+    assertTrue(xml.startsWith(HEAD), "Declaration, namespaces and comments should be kept: " + xml);
+    assertTrue(xml.endsWith(TAIL), "Unknown elements should be kept: " + xml);
+    assertTrue(xml.contains("<Default Extension=\"JPEG\" ContentType=\"image/jpeg\"/>"), "Entries keep their original spelling");
+    assertEquals(1, xml.split("/ppt/slides/slide2.xml", -1).length - 1, "Each entry is written once");
+
+    // A clean registry does not write again
+    Files.writeString(contentTypesPath, xml + "<!-- marker -->");
+    ContentTypesRegistry.load(pptxDir).flush();
+    assertTrue(Files.readString(contentTypesPath).endsWith("<!-- marker -->"));
+  }
+
+  @Test
+  @DisplayName("A missing or empty Types element gets entries when flushed")
+  void testFlushCreatesEntries() throws Exception {
+    Files.writeString(contentTypesPath, "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\"/>");
+    ContentTypesRegistry registry = ContentTypesRegistry.load(pptxDir);
+    registry.addOverride("/ppt/slides/slide1.xml", SLIDE_TYPE);
+    registry.flush();
+    assertTrue(ContentTypesRegistry.load(pptxDir).hasOverride("/ppt/slides/slide1.xml"));
+
+    Files.delete(contentTypesPath);
+    ContentTypesRegistry fresh = ContentTypesRegistry.load(pptxDir);
+    assertTrue(fresh.isDirty(), "A missing file is written on the next flush");
+    fresh.flush();
+    assertTrue(ContentTypesRegistry.load(pptxDir).hasDefault("rels"));
+  }
+}
@@ -0,0 +1,144 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * Round-trip tests for PresentationPart: sldIdLst edits with sldId and relationship ID
+ * allocation, and flushes that leave the rest of presentation.xml untouched.
+ *
+ * The fixture deliberately breaks the rIdN = slide N-1 convention, so slides must be
+ * resolved through their relationship targets.
+ *
+ * @author Presentation Choreographer Test Suite
+ */
+class PresentationPartTest {
+
+  private static final String REL_TYPE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/";
+
+  private static final String HEAD =
+    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+    "<p:presentation xmlns:a=\"http://schemas.openxmlformats.org/drawingml/2006/main\" " +
+    "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\" " +
+    "xmlns:p=\"http://schemas.openxmlformats.org/presentationml/2006/main\" saveSubsetFonts=\"1\">" +
+    "<p:sldMasterIdLst><p:sldMasterId id=\"2147483648\" r:id=\"rId1\"/></p:sldMasterIdLst>" +
+    "<p:notesMasterIdLst><p:notesMasterId r:id=\"rId4\"/></p:notesMasterIdLst>";
+
+  private static final String TAIL =
+    "<p:sldSz cx=\"12192000\" cy=\"6858000\"/><p:notesSz cx=\"6858000\" cy=\"9144000\"/>" +
+    "<p:defaultTextStyle><a:lvl1pPr marL=\"0\"/></p:defaultTextStyle>" +
+    "<p:extLst><p:ext uri=\"{EFAFB233-063F-42B5-8137-9DF3F51BA10A}\"><custom flag=\"keep\"/></p:ext></p:extLst>" +
+    "</p:presentation>";
+
+  @TempDir
+  Path tempDir;
+
+  private File pptxDir;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    pptxDir = tempDir.toFile();
+    writePart("ppt/presentation.xml", HEAD +
+        "<p:sldIdLst><p:sldId id=\"300\" r:id=\"rId7\"/><p:sldId id=\"256\" r:id=\"rId2\"/></p:sldIdLst>" + TAIL);
+    writePart("ppt/_rels/presentation.xml.rels",
+        "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+        "<Relationship Id=\"rId1\" Type=\"" + REL_TYPE + "slideMaster\" Target=\"slideMasters/slideMaster1.xml\"/>" +
+        "<Relationship Id=\"rId2\" Type=\"" + REL_TYPE + "slide\" Target=\"slides/slide2.xml\"/>" +
+        "<Relationship Id=\"rId4\" Type=\"" + REL_TYPE + "notesMaster\" Target=\"notesMasters/notesMaster1.xml\"/>" +
+        "<Relationship Id=\"rId7\" Type=\"" + REL_TYPE + "slide\" Target=\"slides/slide1.xml\"/>" +
+        "<Relationship Id=\"rId9\" Type=\"" + REL_TYPE + "hyperlink\" Target=\"https://example.com/?a=1&amp;b=2\" " +
+        "TargetMode=\"External\"/></Relationships>");
+  }
+
+  @Test
+  @DisplayName("Slides resolve through relationship targets, not rId arithmetic")
+  void testLoadResolvesSlidesThroughTargets() throws Exception {
+    PresentationPart presentation = PresentationPart.load(pptxDir);
+
+    assertEquals(List.of(1, 2), presentation.getSlidePartNumbers());
+    assertEquals("rId7", presentation.getSlideAt(1).getRelationshipId());
+    assertEquals(300, presentation.getSlideAt(1).getSlideId());
+    assertEquals("notesMasters/notesMaster1.xml", presentation.getNotesMasterTarget());
+    assertNull(presentation.getHandoutMasterRelationshipId());
+    assertEquals(List.of("slideMasters/slideMaster1.xml"), presentation.getSlideMasterTargets());
+    assertFalse(presentation.isDirty());
+  }
+
+  @Test
+  @DisplayName("Insert, remove and reorder round-trip with fresh sldId and rId allocation")
+  void testSlideListRoundTrip() throws Exception {
+    PresentationPart presentation = PresentationPart.load(pptxDir);
+
+    PresentationPart.SlideEntry added = presentation.addSlide(2, 3);
+    assertEquals(301, added.getSlideId(), "New sldIds follow the highest existing one");
+    assertEquals("rId10", added.getRelationshipId(), "New rIds follow the highest existing one");
+    assertEquals(List.of(1, 3, 2), presentation.getSlidePartNumbers());
+
+    PresentationPart.SlideEntry removed = presentation.removeSlide(1);
+    assertEquals("rId7", removed.getRelationshipId());
+    assertNull(presentation.getRelationship("rId7"), "The removed slide's relationship goes with it");
+
+    PresentationPart.SlideEntry appended = presentation.addSlide(99, 4);
+    assertEquals(302, appended.getSlideId(), "sldIds of removed slides are not reused");
+    assertEquals("rId11", appended.getRelationshipId());
+
+    presentation.reorderSlides(new int[] {3, 1, 2});
+    presentation.moveSlide(3, 1);
+    assertEquals(List.of(2, 4, 3), presentation.getSlidePartNumbers());
+    assertTrue(presentation.isDirty());
+    presentation.flush();
+    assertFalse(presentation.isDirty());
+
+    PresentationPart reloaded = PresentationPart.load(pptxDir);
+    assertEquals(List.of(2, 4, 3), reloaded.getSlidePartNumbers());
+    assertEquals(List.of(256, 302, 301), slideIds(reloaded));
+    assertEquals("slides/slide4.xml", reloaded.getRelationship("rId11").getTarget());
+    assertEquals(XMLConstants.RELATIONSHIP_TYPE_SLIDE, reloaded.getRelationship("rId10").getType());
+  }
+
+  @Test
+  @DisplayName("Flush rewrites only sldIdLst and keeps every other relationship")
+  void testFlushPreservesUnknownContent() throws Exception {
+    PresentationPart presentation = PresentationPart.load(pptxDir);
+    presentation.addSlide(1, 3);
+    presentation.flush();
+
+    String xml = Files.readString(pptxDir.toPath().resolve("ppt/presentation.xml"));
+    assertTrue(xml.startsWith(HEAD), "Content before sldIdLst should be written back verbatim: " + xml);
+    assertTrue(xml.endsWith(TAIL), "Content after sldIdLst should be written back verbatim: " + xml);
+
+    PresentationPart reloaded = PresentationPart.load(pptxDir);
+    PresentationPart.Relationship hyperlink = reloaded.getRelationship("rId9");
+    assertEquals("https://example.com/?a=1&b=2", hyperlink.getTarget());
+    assertEquals("External", hyperlink.getTargetMode());
+    assertEquals("notesMasters/notesMaster1.xml", reloaded.getNotesMasterTarget());
+    assertEquals(List.of("slideMasters/slideMaster1.xml"), reloaded.getSlideMasterTargets());
+
+    // A clean part is not written again
+    Path presentationPath = pptxDir.toPath().resolve("ppt/presentation.xml");
+    Files.writeString(presentationPath, xml + "<!-- marker -->");
+    reloaded.flush();
+    assertTrue(Files.readString(presentationPath).endsWith("<!-- marker -->"));
+  }
+
+  // ========== HELPER METHODS ==========
+
+  private static List<Integer> slideIds(PresentationPart presentation) {
+    List<Integer> ids = new ArrayList<>();
+    for (PresentationPart.SlideEntry slide : presentation.getSlides()) {
+      ids.add(slide.getSlideId());
+    }
+    return ids;
+  }
+
+  private void writePart(String path, String content) throws IOException {
+    Path part = pptxDir.toPath().resolve(path);
+    Files.createDirectories(part.getParent());
+    Files.writeString(part, content);
+  }
+}
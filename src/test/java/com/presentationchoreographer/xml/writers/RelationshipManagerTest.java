@@ -172,24 +172,30 @@ class RelationshipManagerTest {
   }
 
   /**
-   * Test copying relationships with forced new IDs.
+   * Test copying relationships with forced new IDs renumbers the destination part.
    */
   @Test
   @DisplayName("Copy slide relationships with forced new IDs")
   void testCopySlideRelationships_ForceNewIds() throws XMLParsingException {
-    // Arrange
-    relationshipManager.createSlideRelationships(1, null, null);
-    Set<String> originalIds = new HashSet<>(relationshipManager.getAllRelationshipIds());
+    // Arrange - Source slide holding rId2 and rId3 only
+    RelationshipManager.RelationshipCreationResult created = 
+      relationshipManager.createSlideRelationships(1, null, null);
+    String mediaRId = relationshipManager.addMediaRelationship(1, XMLConstants.RELATIONSHIP_TYPE_IMAGE, "../media/image1.png");
+    String layoutRId = created.getCreatedRelationshipIds().get(0);
+    String themeRId = created.getCreatedRelationshipIds().get(1);
+    relationshipManager.removeRelationship(1, layoutRId);
 
     // Act
     RelationshipManager.RelationshipCopyResult result = 
       relationshipManager.copySlideRelationships(1, 2, true);
 
     // Assert
-    Set<String> newIds = new HashSet<>(result.getNewRelationshipIds());
-    Set<String> intersection = new HashSet<>(originalIds);
-    intersection.retainAll(newIds);
-    assertTrue(intersection.isEmpty(), "With forceNewIds=true, no IDs should be reused");
+    assertEquals(Arrays.asList("rId1", "rId2"), result.getNewRelationshipIds(),
+        "With forceNewIds=true, the destination should be renumbered from rId1");
+    assertEquals("rId1", result.getOldToNewIdMappings().get(themeRId), "Theme should map to the first new ID");
+    assertEquals("rId2", result.getOldToNewIdMappings().get(mediaRId), "Media should map to the second new ID");
+    assertEquals(new HashSet<>(result.getNewRelationshipIds()), relationshipManager.getRelationshipIds(2),
+        "Destination table should hold the new IDs");
   }
 
   /**
@@ -227,7 +233,7 @@ class RelationshipManagerTest {
     assertTrue(mediaRId.startsWith(XMLConstants.RID_PREFIX), "Media relationship ID should have correct prefix");
 
     // Verify relationship info is registered
-    RelationshipManager.RelationshipInfo info = relationshipManager.getRelationshipInfo(mediaRId);
+    RelationshipManager.RelationshipInfo info = relationshipManager.getRelationshipInfo(1, mediaRId);
     assertNotNull(info, "Relationship info should be registered");
     assertEquals(XMLConstants.RELATIONSHIP_TYPE_IMAGE, info.getType(), "Relationship type should match");
     assertEquals(mediaTarget, info.getTarget(), "Relationship target should match");
@@ -274,7 +280,7 @@ class RelationshipManagerTest {
     String relationshipIdToRemove = result.getCreatedRelationshipIds().get(0);
 
     // Verify relationship exists before removal
-    assertNotNull(relationshipManager.getRelationshipInfo(relationshipIdToRemove), 
+    assertNotNull(relationshipManager.getRelationshipInfo(1, relationshipIdToRemove), 
         "Relationship should exist before removal");
 
     // Act
@@ -282,7 +288,7 @@ class RelationshipManagerTest {
 
     // Assert
     assertTrue(removed, "Should return true for successful removal");
-    assertNull(relationshipManager.getRelationshipInfo(relationshipIdToRemove), 
+    assertNull(relationshipManager.getRelationshipInfo(1, relationshipIdToRemove), 
         "Relationship should be unregistered after removal");
 
     // Verify file is updated
@@ -310,16 +316,22 @@ class RelationshipManagerTest {
    */
   @Test
   @DisplayName("Relationship ID allocation is unique and sequential")
-  void testAllocateRelationshipId_UniqueAndSequential() {
+  void testAllocateRelationshipId_UniqueAndSequential() throws XMLParsingException {
+    // Arrange
+    relationshipManager.createSlideRelationships(1, null, null);
+
     // Act
-    Set<String> allocatedIds = new HashSet<>();
+    Set<String> allocatedIds = new LinkedHashSet<>();
     for (int i = 0; i < 10; i++) {
-      String id = relationshipManager.allocateRelationshipId();
+      String id = relationshipManager.allocateRelationshipId(1);
       allocatedIds.add(id);
     }
 
     // Assert
     assertEquals(10, allocatedIds.size(), "All allocated IDs should be unique");
+    assertEquals("rId3", allocatedIds.iterator().next(), "Allocation should continue after the slide's own IDs");
+    assertFalse(allocatedIds.removeAll(relationshipManager.getRelationshipIds(1)),
+        "Allocated IDs should not collide with the slide's relationships");
 
     // Verify format
     for (String id : allocatedIds) {
@@ -352,28 +364,70 @@ class RelationshipManagerTest {
   }
 
   /**
-   * Test getting all relationship IDs returns complete set.
+   * Test the relationship tables give a complete per-part view with locally numbered IDs.
    */
   @Test
-  @DisplayName("Get all relationship IDs returns complete set")
-  void testGetAllRelationshipIds_ReturnsCompleteSet() throws XMLParsingException {
+  @DisplayName("Relationship tables cover every part with locally numbered IDs")
+  void testGetRelationshipTables_PerPartScopes() throws XMLParsingException {
     // Arrange
     relationshipManager.createSlideRelationships(1, null, null);
     relationshipManager.createSlideRelationships(2, null, null);
     String mediaRId = relationshipManager.addMediaRelationship(1, XMLConstants.RELATIONSHIP_TYPE_IMAGE, "../media/test.png");
 
     // Act
-    Set<String> allIds = relationshipManager.getAllRelationshipIds();
+    Map<String, RelationshipTable> tables = relationshipManager.getRelationshipTables();
 
     // Assert
-    assertNotNull(allIds, "Relationship ID set should not be null");
-    assertTrue(allIds.size() >= 5, "Should have at least 5 relationships (2 slides × 2 standard + 1 media)");
-    assertTrue(allIds.contains(mediaRId), "Should include the media relationship ID");
+    assertEquals(new TreeSet<>(Arrays.asList("_rels/.rels", "ppt/_rels/presentation.xml.rels",
+        "ppt/slides/_rels/slide1.xml.rels", "ppt/slides/_rels/slide2.xml.rels")), tables.keySet(),
+        "Should hold one table per relationship part");
+    assertEquals(3, tables.get("ppt/slides/_rels/slide1.xml.rels").size(), "Slide 1 should have layout, theme and media");
+    assertTrue(tables.get("ppt/slides/_rels/slide1.xml.rels").getIds().contains(mediaRId),
+        "Should include the media relationship ID");
+    assertEquals(new LinkedHashSet<>(Arrays.asList("rId1", "rId2")), relationshipManager.getRelationshipIds(2),
+        "Each slide should number its relationships from rId1");
 
     // Verify immutability
+    Set<String> slideIds = relationshipManager.getRelationshipIds(1);
     assertThrows(UnsupportedOperationException.class, () -> {
-      allIds.add("rId999");
+      slideIds.add("rId999");
     }, "Returned set should be immutable");
+    assertThrows(UnsupportedOperationException.class, () -> {
+      tables.clear();
+    }, "Returned map should be immutable");
+  }
+
+  /**
+   * Test the type and target index follows registration and removal.
+   */
+  @Test
+  @DisplayName("Find relationship by type and target tracks registration and removal")
+  void testFindRelationshipId_TracksRegistry() throws XMLParsingException {
+    // Arrange
+    RelationshipManager.RelationshipCreationResult result = 
+      relationshipManager.createSlideRelationships(1, null, null);
+    String layoutId = result.getCreatedRelationshipIds().get(0);
+    RelationshipManager.RelationshipInfo layoutInfo = relationshipManager.getRelationshipInfo(1, layoutId);
+
+    // Act & Assert - Lookup by type and target
+    assertEquals(layoutId, relationshipManager.findRelationshipId(1, layoutInfo.getType(), layoutInfo.getTarget()),
+        "Lookup should find the registered layout relationship");
+    assertNull(relationshipManager.findRelationshipId(1, layoutInfo.getType(), "../slideLayouts/missing.xml"),
+        "Lookup should miss an unregistered target");
+
+    // Copy without forced IDs keeps the source IDs in the destination's table
+    RelationshipManager.RelationshipCopyResult copy = 
+      relationshipManager.copySlideRelationships(1, 2, false);
+    assertTrue(copy.getNewRelationshipIds().contains(layoutId), "Copy should keep the layout relationship ID");
+    assertEquals(layoutId, relationshipManager.findRelationshipId(2, layoutInfo.getType(), layoutInfo.getTarget()),
+        "Lookup should find the copied layout relationship");
+
+    // Removal drops the relationship from its own slide's index only
+    assertTrue(relationshipManager.removeRelationship(1, layoutId), "Layout relationship should be removed");
+    assertNull(relationshipManager.findRelationshipId(1, layoutInfo.getType(), layoutInfo.getTarget()),
+        "Lookup should miss a removed relationship");
+    assertEquals(layoutId, relationshipManager.findRelationshipId(2, layoutInfo.getType(), layoutInfo.getTarget()),
+        "Removal should not affect another slide's relationships");
   }
 
   // ========== HELPER METHODS ==========
@@ -8,6 +8,7 @@ import java.nio.file.*;
 import java.util.*;
 import javax.xml.parsers.*;
 import org.w3c.dom.*;
+import com.presentationchoreographer.core.model.ShapeGeometry;
 import com.presentationchoreographer.exceptions.XMLParsingException;
 import com.presentationchoreographer.utils.XMLConstants;
 
@@ -66,18 +67,21 @@ class SPIDManagerTest {
     System.out.println("DEBUG: Detected SPIDs: " + initialSpids);
 
     // Act - Allocate new SPIDs
-    List<Integer> newSpids = spidManager.allocateUniqueSpids(3);
+    SPIDManager.SpidRange newSpids = spidManager.allocateUniqueSpids(3);
 
     // Assert - New SPIDs should not conflict with existing ones
     assertEquals(3, newSpids.size(), "Should allocate exactly 3 SPIDs");
 
-    for (Integer newSpid : newSpids) {
+    for (int newSpid : newSpids.toArray()) {
       assertFalse(initialSpids.contains(newSpid), 
           "New SPID " + newSpid + " should not conflict with existing SPIDs: " + initialSpids);
     }
 
     // Verify all new SPIDs are unique
-    Set<Integer> uniqueNewSpids = new HashSet<>(newSpids);
+    Set<Integer> uniqueNewSpids = new HashSet<>();
+    for (int newSpid : newSpids.toArray()) {
+      uniqueNewSpids.add(newSpid);
+    }
     assertEquals(newSpids.size(), uniqueNewSpids.size(), "All allocated SPIDs should be unique");
   }
 
@@ -151,6 +155,26 @@ class SPIDManagerTest {
     }
   }
 
+  /**
+   * Test 3b: Placeholder index of each slide
+   */
+  @Test
+  @DisplayName("Placeholder index finds the title placeholder of each slide")
+  void testPlaceholderIndexFromScan() throws XMLParsingException {
+    for (int slideNum = 1; slideNum <= 2; slideNum++) {
+      PlaceholderIndex placeholders = spidManager.getPlaceholderIndex(slideNum);
+      assertNotNull(placeholders, "Slide " + slideNum + " should have a placeholder index");
+
+      Element title = placeholders.getTitleShape();
+      assertNotNull(title, "Slide " + slideNum + " should have a title placeholder");
+      assertEquals("Test Slide " + slideNum,
+          title.getElementsByTagNameNS(XMLConstants.DRAWING_NS, "t").item(0).getTextContent());
+      assertNull(placeholders.getBodyShape(), "Blank slides have no body placeholder");
+    }
+
+    assertNull(spidManager.getPlaceholderIndex(99), "Unscanned slides have no index");
+  }
+
   /**
    * Test 4: SPID validation detects duplicates and inconsistencies
    */
@@ -196,7 +220,9 @@ class SPIDManagerTest {
 
     // Assert - Should handle empty case gracefully
     assertTrue(emptySpidManager.getAllSpids().isEmpty(), "Empty presentation should have no SPIDs");
-    assertEquals(1, emptySpidManager.allocateUniqueSpid(), "First SPID allocation should be 1");
+    assertEquals(SPIDManager.ROOT_SPID + 1, emptySpidManager.allocateUniqueSpid(),
+        "SPID 1 is reserved for the shape tree root");
+    assertNotEquals(SPIDManager.ROOT_SPID, emptySpidManager.createBlockAllocator(1).allocateSpid("Title 1"));
 
     // Validate empty presentation
     SPIDManager.ValidationResult validation = emptySpidManager.validateSpidUniqueness();
@@ -224,7 +250,7 @@ class SPIDManagerTest {
     assertEquals(highestExisting + 3, spid3, "Third new SPID should be highest + 3");
 
     // Test batch allocation
-    List<Integer> batchSpids = spidManager.allocateUniqueSpids(3);
+    SPIDManager.SpidRange batchSpids = spidManager.allocateUniqueSpids(3);
 
     // Assert - Batch should continue sequential pattern
     for (int i = 0; i < batchSpids.size(); i++) {
@@ -233,8 +259,460 @@ class SPIDManagerTest {
     }
   }
 
+  /**
+   * Test 7: Registry bookkeeping across dense runs and sparse SPIDs
+   */
+  @Test
+  @DisplayName("SPID registry skips occupied runs and tracks sparse SPIDs")
+  void testRegistryOccupancy() {
+    int highestExisting = spidManager.getAllSpids().stream().mapToInt(Integer::intValue).max().orElse(0);
+
+    // Occupy a run crossing a 64-SPID word and a page boundary
+    for (int spid = highestExisting + 1; spid <= highestExisting + 1100; spid++) {
+      spidManager.registerSpid(spid, 3, "Run " + (spid % 7));
+    }
+    spidManager.registerSpid(Integer.MAX_VALUE - 1, 4, "Sparse");
+
+    assertEquals(highestExisting + 1101, spidManager.allocateUniqueSpid(), "Allocation should skip the run");
+    assertEquals(1100, spidManager.getSpidsForSlide(3).size());
+    assertEquals("Sparse", spidManager.getSpidInfo(Integer.MAX_VALUE - 1).getShapeName());
+    assertEquals(4, spidManager.getSpidInfo(Integer.MAX_VALUE - 1).getSlideNumber());
+    assertTrue(spidManager.getAllSpids().contains(Integer.MAX_VALUE - 1));
+
+    assertTrue(spidManager.unregisterSpid(highestExisting + 500));
+    assertFalse(spidManager.unregisterSpid(highestExisting + 500));
+    assertNull(spidManager.getSpidInfo(highestExisting + 500));
+    assertFalse(spidManager.isSpidInUse(highestExisting + 500));
+
+    spidManager.renumberSlides(Map.of(3, 5));
+    assertTrue(spidManager.getSpidsForSlide(3).isEmpty());
+    assertEquals(1099, spidManager.getSpidsForSlide(5).size());
+    assertThrows(IllegalArgumentException.class, () -> spidManager.registerSpid(-1, 1, "Negative"));
+  }
+
+  /**
+   * Test 8: Per-slide index follows registration, moves and chained renumbering
+   */
+  @Test
+  @DisplayName("Per-slide SPID index tracks moves and chained renumbering")
+  void testSlideIndexRenumbering() {
+    Set<Integer> slide1 = spidManager.getSpidsForSlide(1);
+    Set<Integer> slide2 = spidManager.getSpidsForSlide(2);
+    assertFalse(slide1.isEmpty());
+
+    // Re-registering a SPID against another slide moves it in the index
+    int moved = slide1.iterator().next();
+    spidManager.registerSpid(moved, 7, "Moved");
+    assertFalse(spidManager.getSpidsForSlide(1).contains(moved));
+    assertEquals(Set.of(moved), spidManager.getSpidsForSlide(7));
+
+    // Chained renumbering must not merge slides
+    spidManager.registerSpid(moved, 1, "Moved back");
+    spidManager.renumberSlides(Map.of(1, 2, 2, 3));
+    assertEquals(slide1, spidManager.getSpidsForSlide(2));
+    assertEquals(slide2, spidManager.getSpidsForSlide(3));
+    assertEquals(slide2.size(), spidManager.getSpidCountForSlide(3));
+    assertTrue(spidManager.getSpidsForSlide(1).isEmpty());
+    assertEquals(2, spidManager.getSpidInfo(moved).getSlideNumber());
+
+    assertEquals(slide2.size(), spidManager.releaseSlide(3));
+    assertEquals(0, spidManager.getSpidCountForSlide(3));
+  }
+
+  /**
+   * Test 9: Thread blocks never overlap and released tails are reused
+   */
+  @Test
+  @DisplayName("Per-thread SPID blocks stay disjoint and released tails are reused")
+  void testThreadSpidBlocks() throws Exception {
+    int threads = 4;
+    int perThread = SPIDManager.THREAD_SPID_BLOCK_SIZE + 10;
+    List<int[]> allocated = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Thread worker = new Thread(() -> {
+        int[] spids = new int[perThread];
+        for (int i = 0; i < perThread; i++) {
+          spids[i] = spidManager.allocateUniqueSpid();
+        }
+        allocated.add(spids);
+        spidManager.releaseThreadSpidBlock();
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    Set<Integer> unique = new HashSet<>();
+    for (int[] spids : allocated) {
+      for (int spid : spids) {
+        assertTrue(unique.add(spid), "SPID " + spid + " allocated twice");
+        assertFalse(spidManager.isSpidInUse(spid));
+      }
+    }
+    assertEquals(threads * perThread, unique.size());
+
+    // A released tail is handed out before a new block is reserved
+    int counter = spidManager.reserveSpidBlock(1).peek();
+    int reused = spidManager.allocateUniqueSpid();
+    assertTrue(reused < counter, "Expected a SPID from a released tail, got " + reused);
+    assertFalse(unique.contains(reused));
+
+    // Ranges that do not fit the thread's block come from the counter as one free run
+    SPIDManager.SpidRange range = spidManager.allocateUniqueSpids(SPIDManager.THREAD_SPID_BLOCK_SIZE * 2);
+    assertEquals(SPIDManager.THREAD_SPID_BLOCK_SIZE * 2, range.size());
+    assertTrue(range.getFirst() > Collections.max(unique));
+    assertThrows(IndexOutOfBoundsException.class, () -> range.get(range.size()));
+  }
+
+  /**
+   * Test 10: Incremental validation only re-parses changed slides
+   */
+  @Test
+  @DisplayName("Incremental validation re-parses only new or changed slides")
+  void testIncrementalValidation() throws Exception {
+    // The initial scan is the baseline, so nothing needs re-parsing
+    SPIDManager.ValidationResult initial = spidManager.validateSpidUniqueness(SPIDManager.ValidationMode.INCREMENTAL);
+    assertTrue(initial.isValid());
+    assertEquals(0, initial.getSlidesParsed());
+
+    createSlideWithDuplicateSpid();
+    SPIDManager.ValidationResult added = spidManager.validateSpidUniqueness(SPIDManager.ValidationMode.INCREMENTAL);
+    assertFalse(added.isValid(), "New slide with a duplicate SPID should be detected");
+    assertEquals(1, added.getSlidesParsed());
+
+    // Deck-wide duplicates are still reported when nothing changed
+    SPIDManager.ValidationResult unchanged = spidManager.validateSpidUniqueness(SPIDManager.ValidationMode.INCREMENTAL);
+    assertFalse(unchanged.isValid());
+    assertEquals(0, unchanged.getSlidesParsed());
+
+    // Explicitly marked slides are re-parsed even if their attributes did not change
+    spidManager.markSlideModified(1);
+    assertEquals(1, spidManager.validateSpidUniqueness(SPIDManager.ValidationMode.INCREMENTAL).getSlidesParsed());
+
+    Files.delete(Paths.get(mockPptxDir.getPath(), "ppt", "slides", "slide99.xml"));
+    SPIDManager.ValidationResult removed = spidManager.validateSpidUniqueness(SPIDManager.ValidationMode.INCREMENTAL);
+    assertTrue(removed.isValid(), "Duplicate should be gone with its slide: " + removed.getErrors());
+
+    SPIDManager.ValidationResult audit = spidManager.validateSpidUniqueness(SPIDManager.ValidationMode.FULL_AUDIT);
+    assertTrue(audit.isValid());
+    assertEquals(2, audit.getSlidesParsed());
+  }
+
+  /**
+   * Test 11: Parsed slides are served from a bounded part cache
+   */
+  @Test
+  @DisplayName("Part cache serves unchanged slides, reloads changed ones and evicts under budget")
+  void testPartCache() throws Exception {
+    PartCache cache = new PartCache(64L << 20);
+    SPIDManager cachedManager = new SPIDManager(mockPptxDir, cache);
+    assertEquals(0, cache.getStats().getEntryCount(), "The streaming scan should not build slide DOMs");
+
+    PlaceholderIndex first = cachedManager.getPlaceholderIndex(1);
+    assertSame(first, cachedManager.getPlaceholderIndex(1), "Unchanged slide should be a cache hit");
+    assertEquals(1, cache.getStats().getHits());
+
+    // Rewriting the slide makes the cached parse stale
+    Path slidePath = Paths.get(mockPptxDir.getPath(), "ppt", "slides", "slide1.xml");
+    String xml = new String(Files.readAllBytes(slidePath), "UTF-8");
+    Files.write(slidePath, xml.replace("Test Slide 1", "Renamed Slide").getBytes("UTF-8"));
+    PlaceholderIndex reloaded = cachedManager.getPlaceholderIndex(1);
+    assertNotSame(first, reloaded);
+    assertEquals("Renamed Slide",
+        reloaded.getTitleShape().getElementsByTagNameNS(XMLConstants.DRAWING_NS, "t").item(0).getTextContent());
+    assertEquals(1, cache.getStats().getStaleMisses());
+
+    // A budget that fits one slide keeps only the most recently used one
+    long slideWeight = Files.size(slidePath) * PartCache.DOM_BYTES_PER_XML_BYTE;
+    PartCache tiny = new PartCache(slideWeight + 1);
+    SPIDManager tinyManager = new SPIDManager(mockPptxDir, tiny);
+    tinyManager.getPlaceholderIndex(2);
+    tinyManager.getPlaceholderIndex(1);
+    assertEquals(1, tiny.getStats().getEntryCount());
+    assertTrue(tiny.getStats().getEvictions() >= 1);
+    assertTrue(tiny.getWeightedSize() <= tiny.getMaxBytes());
+
+    assertEquals(1, tiny.invalidateUnder(mockPptxDir));
+    assertEquals(0, tiny.getWeightedSize());
+  }
+
+  /**
+   * Test 12: Streaming SPID scan of grouped shapes and animation targets
+   */
+  @Test
+  @DisplayName("Streaming scan registers grouped shapes and checks animation targets")
+  void testStreamingScanWithTiming() throws Exception {
+    String slideXml = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <p:sld xmlns:p="http://schemas.openxmlformats.org/presentationml/2006/main">
+        <p:cSld>
+        <p:spTree>
+        <p:nvGrpSpPr><p:cNvPr id="1" name=""/></p:nvGrpSpPr>
+        <p:grpSp>
+        <p:nvGrpSpPr><p:cNvPr id="4200" name="Group"/></p:nvGrpSpPr>
+        <p:sp><p:nvSpPr><p:cNvPr id="4201" name="Grouped Shape"/></p:nvSpPr></p:sp>
+        </p:grpSp>
+        <p:pic><p:nvPicPr><p:cNvPr id="4202" name="Picture"/></p:nvPicPr></p:pic>
+        </p:spTree>
+        </p:cSld>
+        <p:timing><p:tnLst><p:par><p:cTn id="1">
+        <p:tgtEl><p:spTgt spid="4201"/></p:tgtEl>
+        <p:tgtEl><p:spTgt spid="4299"/></p:tgtEl>
+        </p:cTn></p:par></p:tnLst></p:timing>
+        </p:sld>
+        """;
+    Files.write(Paths.get(mockPptxDir.getPath(), "ppt", "slides", "slide98.xml"), slideXml.getBytes("UTF-8"));
+
+    SPIDManager scanned = new SPIDManager(mockPptxDir);
+    assertEquals(Set.of(4200, 4201, 4202), scanned.getSpidsForSlide(98),
+        "Groups are registered along with their shapes; the tree root is not");
+    assertEquals("Grouped Shape", scanned.getSpidInfo(4201).getShapeName());
+
+    SPIDManager.ValidationResult validation = scanned.validateSpidUniqueness();
+    assertTrue(validation.getWarnings().stream().anyMatch(w -> w.contains("animates SPID 4299")),
+        "Missing animation target should be reported: " + validation.getWarnings());
+    assertFalse(validation.getWarnings().stream().anyMatch(w -> w.contains("animates SPID 4201")));
+  }
+
+  /**
+   * Test 13: Reopening with a persistent package index skips unchanged parts
+   */
+  @Test
+  @DisplayName("Package index replays unchanged parts and rescans changed ones")
+  void testPackageIndexReopen() throws Exception {
+    Map<String, Long> crcs = new HashMap<>();
+    try (java.util.stream.Stream<Path> files = Files.walk(tempDir)) {
+      for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+        java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+        crc.update(Files.readAllBytes(file));
+        crcs.put(PackageIndex.partName(mockPptxDir, file.toFile()), crc.getValue());
+      }
+    }
+    File indexFile = tempDir.resolve("index").resolve("deck.pcidx").toFile();
+
+    PackageIndex first = PackageIndex.open(indexFile, crcs);
+    assertNull(first.getReadError(), "A missing index file is not an error");
+    new SPIDManager(mockPptxDir, first);
+    RelationshipManager scannedRelationships = new RelationshipManager(mockPptxDir, first);
+    assertEquals(0, first.getPartsReused());
+    assertTrue(first.save(), "A fresh index should be written");
+
+    PackageIndex reopened = PackageIndex.open(indexFile, crcs);
+    SPIDManager replayed = new SPIDManager(mockPptxDir, reopened);
+    RelationshipManager replayedRelationships = new RelationshipManager(mockPptxDir, reopened);
+    assertEquals(0, reopened.getPartsScanned(), "Unchanged parts should not be rescanned: " + reopened);
+    assertEquals(first.getPartsScanned(), reopened.getPartsReused());
+    assertFalse(reopened.save(), "An unchanged index is not rewritten");
+
+    assertEquals(spidManager.getAllSpids(), replayed.getAllSpids());
+    for (int spid : spidManager.getAllSpids()) {
+      assertEquals(spidManager.getSpidInfo(spid).getShapeName(), replayed.getSpidInfo(spid).getShapeName());
+    }
+    Map<String, RelationshipTable> scannedTables = scannedRelationships.getRelationshipTables();
+    Map<String, RelationshipTable> replayedTables = replayedRelationships.getRelationshipTables();
+    assertEquals(scannedTables.keySet(), replayedTables.keySet());
+    for (String partName : scannedTables.keySet()) {
+      assertEquals(scannedTables.get(partName).getRelationships(), replayedTables.get(partName).getRelationships());
+    }
+    assertTrue(replayed.validateSpidUniqueness(SPIDManager.ValidationMode.INCREMENTAL).getSlidesParsed() == 0,
+        "Replayed slides should seed the incremental validation baseline");
+    assertEquals(spidManager.getPlaceholderIndex(1).toString(), replayed.getPlaceholderIndex(1).toString(),
+        "Placeholders should be replayed with the shapes");
+
+    // A changed CRC drops that slide's entry, so only it is rescanned
+    crcs.put("ppt/slides/slide2.xml", crcs.get("ppt/slides/slide2.xml") + 1);
+    PackageIndex changed = PackageIndex.open(indexFile, crcs);
+    new SPIDManager(mockPptxDir, changed);
+    assertEquals(1, changed.getPartsReused());
+    assertEquals(1, changed.getPartsScanned());
+
+    // An unreadable file is reported and gives an empty index that is written again
+    Files.write(indexFile.toPath(), new byte[] {1, 2, 3});
+    PackageIndex corrupt = PackageIndex.open(indexFile, crcs);
+    assertNotNull(corrupt.getReadError());
+    new SPIDManager(mockPptxDir, corrupt);
+    assertEquals(0, corrupt.getPartsReused());
+    assertTrue(corrupt.save());
+    assertNull(PackageIndex.open(indexFile, crcs).getReadError());
+  }
+
+  /**
+   * Test 14: Regeneration renumbers every shape kind and remaps build lists and connectors
+   */
+  @Test
+  @DisplayName("SPID regeneration renumbers connectors, groups and frames and remaps every reference")
+  void testRegenerationRemapsAllShapeReferences() throws Exception {
+    String slideXml = """
+        <p:sld xmlns:p="http://schemas.openxmlformats.org/presentationml/2006/main"
+               xmlns:a="http://schemas.openxmlformats.org/drawingml/2006/main">
+        <p:cSld><p:spTree>
+        <p:nvGrpSpPr><p:cNvPr id="1" name=""/></p:nvGrpSpPr>
+        <p:sp><p:nvSpPr><p:cNvPr id="10" name="Start"/></p:nvSpPr></p:sp>
+        <p:sp><p:nvSpPr><p:cNvPr id="11" name="End"/></p:nvSpPr></p:sp>
+        <p:cxnSp><p:nvCxnSpPr><p:cNvPr id="12" name="Connector"/>
+        <p:cNvCxnSpPr><a:stCxn id="10" idx="3"/><a:endCxn id="11" idx="1"/></p:cNvCxnSpPr>
+        </p:nvCxnSpPr></p:cxnSp>
+        <p:grpSp><p:nvGrpSpPr><p:cNvPr id="13" name="Group"/></p:nvGrpSpPr>
+        <p:graphicFrame><p:nvGraphicFramePr><p:cNvPr id="14" name="Chart"/></p:nvGraphicFramePr></p:graphicFrame>
+        </p:grpSp>
+        </p:spTree></p:cSld>
+        <p:timing>
+        <p:tnLst><p:par><p:cTn id="1"><p:tgtEl><p:spTgt spid="10"/></p:tgtEl></p:cTn></p:par></p:tnLst>
+        <p:bldLst><p:bldP spid="11" grpId="0"/><p:bldGraphic spid="14" grpId="0"/></p:bldLst>
+        </p:timing>
+        </p:sld>
+        """;
+    Document slideDoc = documentBuilder.parse(new ByteArrayInputStream(slideXml.getBytes("UTF-8")));
+
+    ShapeReferenceGraph graph = ShapeReferenceGraph.build(slideDoc);
+    assertEquals(5, graph.getShapeCount(), "Every p:cNvPr but the tree root's gets a new SPID");
+    assertEquals(5, graph.getReferenceCount(), graph.toString());
+
+    SPIDManager.SPIDRegenerationResult result = spidManager.regenerateSpids(slideDoc, 1);
+    int newStart = result.getNewSpid(10);
+    int newEnd = result.getNewSpid(11);
+    int newConnector = result.getNewSpid(12);
+    int newGroup = result.getNewSpid(13);
+    int newChart = result.getNewSpid(14);
+    assertEquals(5, Set.of(newStart, newEnd, newConnector, newGroup, newChart).size());
+    assertEquals(5, result.getAnimationsUpdated());
+    assertEquals(Map.of(10, newStart, 11, newEnd, 12, newConnector, 13, newGroup, 14, newChart),
+        result.getSpidMappings());
+    assertEquals("Connector", spidManager.getSpidInfo(newConnector).getShapeName());
+    assertEquals("Chart", spidManager.getSpidInfo(newChart).getShapeName());
+    assertEquals(String.valueOf(SPIDManager.ROOT_SPID), attribute(slideDoc, XMLConstants.PRESENTATION_NS, "cNvPr", "id"),
+        "The tree root keeps its id");
+
+    assertEquals(String.valueOf(newStart), attribute(slideDoc, XMLConstants.PRESENTATION_NS, "spTgt", "spid"));
+    assertEquals(String.valueOf(newEnd), attribute(slideDoc, XMLConstants.PRESENTATION_NS, "bldP", "spid"));
+    assertEquals(String.valueOf(newStart), attribute(slideDoc, XMLConstants.DRAWING_NS, "stCxn", "id"));
+    assertEquals(String.valueOf(newEnd), attribute(slideDoc, XMLConstants.DRAWING_NS, "endCxn", "id"));
+    assertEquals(String.valueOf(newChart), attribute(slideDoc, XMLConstants.PRESENTATION_NS, "bldGraphic", "spid"));
+  }
+
+  /**
+   * Test 15: Sequential and block allocators hand out disjoint SPIDs; block SPIDs are registered
+   */
+  @Test
+  @DisplayName("Sequential and block SPID allocators hand out disjoint, registered SPIDs")
+  void testSpidAllocators() throws Exception {
+    SpidAllocator sequential = SpidAllocator.sequential(7);
+    assertEquals(List.of(7, 8, 9), List.of(sequential.allocateSpid("A"), sequential.allocateSpid("B"), sequential.allocateSpid("C")));
+    assertThrows(IllegalArgumentException.class, () -> SpidAllocator.sequential(0));
+    assertThrows(IllegalArgumentException.class, () -> spidManager.createBlockAllocator(1, 0));
+
+    // A standalone writer's sequential allocator continues after the highest SPID on its slide
+    Document slide1 = documentBuilder.parse(new File(mockPptxDir, "ppt/slides/slide1.xml"));
+    Set<Integer> slide1Spids = extractSpidsFromDocument(slide1);
+    int standalone = new SlideXMLWriter(slide1).injectBasicShape(
+        new ShapeGeometry(0, 0, 914400, 914400), "Standalone", "Standalone");
+    assertEquals(Collections.max(slide1Spids) + 1, standalone);
+
+    Set<Integer> existing = new HashSet<>(spidManager.getAllSpids());
+    // A SPID registered ahead of the counter must be skipped by the block that covers it
+    int explicit = spidManager.reserveSpidBlock(1).peek() + 2;
+    spidManager.registerSpid(explicit, 3, "Explicit");
+
+    SpidAllocator first = spidManager.createBlockAllocator(1, 4);
+    SpidAllocator second = spidManager.createBlockAllocator(2, 4);
+    Set<Integer> allocated = new HashSet<>();
+    for (int i = 0; i < 10; i++) {
+      for (SpidAllocator allocator : List.of(first, second)) {
+        int slideNumber = allocator == first ? 1 : 2;
+        int spid = allocator.allocateSpid("Shape " + slideNumber + "." + i);
+        assertTrue(allocated.add(spid), "SPID " + spid + " handed out twice");
+        assertFalse(existing.contains(spid), "SPID " + spid + " was already in use");
+        assertNotEquals(explicit, spid);
+        assertEquals(slideNumber, spidManager.getSpidInfo(spid).getSlideNumber());
+        assertEquals("Shape " + slideNumber + "." + i, spidManager.getSpidInfo(spid).getShapeName());
+      }
+    }
+
+    // The manager's own sequential path never collides with SPIDs held in allocator blocks
+    int managed = spidManager.allocateUniqueSpid();
+    assertFalse(allocated.contains(managed));
+    assertFalse(existing.contains(managed));
+    spidManager.releaseThreadSpidBlock();
+
+    // A released block tail is handed to the next allocator instead of being lost
+    int beforeRelease = first.allocateSpid("Last");
+    first.release();
+    int reused = spidManager.createBlockAllocator(3, 4).allocateSpid("Reused");
+    assertFalse(allocated.contains(reused) || reused == beforeRelease);
+    assertTrue(reused < spidManager.reserveSpidBlock(1).peek(), "Expected a SPID from the released tail, got " + reused);
+    assertEquals(3, spidManager.getSpidInfo(reused).getSlideNumber());
+  }
+
+  /**
+   * Test 16: Placeholders are recorded by the streaming scan and resolved by SPID
+   */
+  @Test
+  @DisplayName("Streaming scan records placeholder SPIDs; slides without placeholders are not parsed")
+  void testPlaceholdersFromStreamingScan() throws Exception {
+    String slideXml = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <p:sld xmlns:p="http://schemas.openxmlformats.org/presentationml/2006/main">
+        <p:cSld>
+        <p:spTree>
+        <p:nvGrpSpPr><p:cNvPr id="1" name=""/><p:cNvGrpSpPr/><p:nvPr/></p:nvGrpSpPr>
+        <p:sp><p:nvSpPr><p:cNvPr id="4300" name="Title"/><p:cNvSpPr/><p:nvPr><p:ph type="title"/></p:nvPr></p:nvSpPr></p:sp>
+        <p:grpSp>
+        <p:nvGrpSpPr><p:cNvPr id="4301" name="Group"/><p:cNvGrpSpPr/><p:nvPr/></p:nvGrpSpPr>
+        <p:sp><p:nvSpPr><p:cNvPr id="4302" name="Content"/><p:cNvSpPr/><p:nvPr><p:ph idx="1"/></p:nvPr></p:nvSpPr></p:sp>
+        </p:grpSp>
+        <p:pic><p:nvPicPr><p:cNvPr id="4303" name="Picture"/><p:cNvPicPr/><p:nvPr/></p:nvPicPr></p:pic>
+        </p:spTree>
+        </p:cSld>
+        </p:sld>
+        """;
+    Path slide97 = Paths.get(mockPptxDir.getPath(), "ppt", "slides", "slide97.xml");
+    Files.write(slide97, slideXml.getBytes("UTF-8"));
+    Files.write(Paths.get(mockPptxDir.getPath(), "ppt", "slides", "slide96.xml"),
+        slideXml.replaceAll("<p:ph [^>]*/>", "").replaceAll("43(\\d\\d)", "44$1").getBytes("UTF-8"));
+
+    List<String> reported = new ArrayList<>();
+    new com.presentationchoreographer.xml.parsers.SlideSpidScanner().scan(slide97.toFile(),
+        new com.presentationchoreographer.xml.parsers.SlideSpidScanner.Handler() {
+          @Override
+          public void shape(int spid, String name) {}
+
+          @Override
+          public void placeholder(int spid, String type, String idx) {
+            reported.add(spid + ":" + type + ":" + idx);
+          }
+        });
+    assertEquals(List.of("4300:title:", "4302::1"), reported);
+
+    PartCache cache = new PartCache(64L << 20);
+    SPIDManager scanned = new SPIDManager(mockPptxDir, cache);
+    assertTrue(scanned.getPlaceholderIndex(96).isEmpty());
+    assertEquals(0, cache.getStats().getEntryCount(), "A slide the scan found no placeholders on is not parsed");
+
+    PlaceholderIndex placeholders = scanned.getPlaceholderIndex(97);
+    assertEquals("4300", shapeId(placeholders.getTitleShape()));
+    assertEquals("4302", shapeId(placeholders.getByIndex(1)), "Placeholders inside groups are found");
+    assertEquals(2, placeholders.size());
+
+    // A slide written after the scan has no record, so every shape is checked
+    Files.write(slide97, slideXml.replace("<p:cNvPicPr/><p:nvPr/>", "<p:cNvPicPr/><p:nvPr><p:ph type=\"body\"/></p:nvPr>")
+        .getBytes("UTF-8"));
+    scanned.markSlideModified(97);
+    assertEquals("4303", shapeId(scanned.getPlaceholderIndex(97).getBodyShape()));
+  }
+
   // ========== HELPER METHODS ==========
 
+  private static String shapeId(Element shape) {
+    return ((Element) shape.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "cNvPr").item(0)).getAttribute("id");
+  }
+
+  private static String attribute(Document doc, String namespace, String localName, String attribute) {
+    return ((Element) doc.getElementsByTagNameNS(namespace, localName).item(0)).getAttribute(attribute);
+  }
+
   /**
    * Creates basic PPTX directory structure for testing
    */
@@ -0,0 +1,445 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+
+/**
+ * Unit tests for SlideCreator structural operations (insert, clone, import, delete, move, reorder).
+ *
+ * Slides are generated by SlideCreator itself in a minimal extracted PPTX, and the
+ * resulting presentation.xml is checked through a freshly loaded PresentationPart.
+ *
+ * @author Presentation Choreographer Test Suite
+ */
+class SlideCreatorTest {
+
+  @TempDir
+  Path tempDir;
+
+  private File mockPptxDir;
+  private SlideCreator slideCreator;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    mockPptxDir = tempDir.toFile();
+    createBasicPptxStructure();
+
+    slideCreator = new SlideCreator(mockPptxDir);
+    slideCreator.applyBatch(List.of(
+          SlideCreator.SlideInsertion.blank(1, "One"),
+          SlideCreator.SlideInsertion.blank(2, "Two"),
+          SlideCreator.SlideInsertion.blank(3, "Three")));
+  }
+
+  @Test
+  @DisplayName("Batch insertion places slides in order and registers content types")
+  void testBatchInsertion() throws XMLParsingException {
+    PresentationPart presentation = PresentationPart.load(mockPptxDir);
+    assertEquals(List.of(1, 2, 3), presentation.getSlidePartNumbers());
+
+    // Positions follow sequential-insert semantics; existing parts are renamed in one sweep
+    SlideCreator.BatchInsertionResult result = slideCreator.applyBatch(List.of(
+          SlideCreator.SlideInsertion.blank(1, "Zero"),
+          SlideCreator.SlideInsertion.copy(3, 2, "Two (copy)")));
+
+    assertEquals(List.of(1, 3), result.getSlideNumbers());
+    assertEquals(3, result.getPartsRenamed(), "Each existing part should be renamed once");
+    assertEquals(List.of(1, 2, 3, 4, 5), PresentationPart.load(mockPptxDir).getSlidePartNumbers());
+    assertTrue(readSlide(1).contains("<a:t>Zero</a:t>"));
+    assertTrue(readSlide(2).contains("<a:t>One</a:t>"));
+    assertTrue(readSlide(3).contains("<a:t>Two (copy)</a:t>"), "Copy sources refer to the deck before the batch");
+    assertTrue(readSlide(4).contains("<a:t>Two</a:t>"));
+    assertTrue(readSlide(5).contains("<a:t>Three</a:t>"));
+
+    ContentTypesRegistry contentTypes = ContentTypesRegistry.load(mockPptxDir);
+    for (int part = 1; part <= 5; part++) {
+      assertTrue(contentTypes.hasOverride("/ppt/slides/slide" + part + ".xml"),
+          "slide" + part + ".xml should have a content type Override");
+      assertTrue(new File(mockPptxDir, "ppt/slides/_rels/slide" + part + ".xml.rels").exists());
+    }
+    assertThrows(IllegalArgumentException.class, () -> slideCreator.applyBatch(List.of()));
+  }
+
+  @Test
+  @DisplayName("Cloned slides are placed after the source by default")
+  void testCloneSlidePlacement() throws XMLParsingException {
+    String source = readSlide(1);
+    SlideCreator.BatchInsertionResult result = slideCreator.cloneSlide(1, 2, null);
+
+    assertEquals(List.of(2, 3), result.getSlideNumbers());
+    assertEquals(List.of(1, 2, 3, 4, 5), PresentationPart.load(mockPptxDir).getSlidePartNumbers());
+    assertEquals(source, readSlide(1), "The source slide should not be rewritten");
+    assertTrue(readSlide(4).contains("<a:t>Two</a:t>"), "Later slides move behind the copies");
+
+    // Each copy gets its own registered SPIDs, disjoint from the source and the other copy
+    SPIDManager spidManager = slideCreator.getSPIDManager();
+    Set<Integer> seen = new HashSet<>(spidManager.getSpidsForSlide(1));
+    for (int part : result.getSlideNumbers()) {
+      assertTrue(readSlide(part).contains("<a:t>One</a:t>"), "Copies should carry the source content");
+      assertTrue(new File(mockPptxDir, "ppt/slides/_rels/slide" + part + ".xml.rels").exists());
+      Set<Integer> copySpids = spidManager.getSpidsForSlide(part);
+      assertFalse(copySpids.isEmpty());
+      for (int spid : copySpids) {
+        assertTrue(seen.add(spid), "SPID " + spid + " is shared between copies");
+      }
+    }
+
+    // Explicit positions place copies independently
+    SlideCreator.BatchInsertionResult appended = slideCreator.cloneSlide(1, 1, new int[] {6});
+    assertEquals(List.of(6), appended.getSlideNumbers());
+    assertThrows(IllegalArgumentException.class, () -> slideCreator.cloneSlide(1, 2, new int[] {1}));
+    assertThrows(IllegalArgumentException.class, () -> slideCreator.cloneSlide(1, 0, null));
+  }
+
+  @Test
+  @DisplayName("Copied slides get the new title in their title placeholder")
+  void testCopiedSlideTitle() throws XMLParsingException {
+    int copiedPart = slideCreator.insertCopiedSlide(2, 1, "One (copy)");
+
+    String copied = readSlide(copiedPart);
+    assertTrue(copied.contains("<a:t>One (copy)</a:t>"), "Copied slide should carry the new title");
+    assertFalse(copied.contains("<a:t>One</a:t>"), "Source title should be replaced");
+    assertTrue(readSlide(1).contains("<a:t>One</a:t>"), "Source slide should keep its title");
+    assertTrue(copied.contains("type=\"title\""));
+
+    Set<Integer> copiedSpids = slideCreator.getSPIDManager().getSpidsForSlide(copiedPart);
+    assertEquals(1, copiedSpids.size(), "Copied title should be registered against the new part");
+    assertFalse(slideCreator.getSPIDManager().getSpidsForSlide(1).containsAll(copiedSpids));
+  }
+
+  @Test
+  @DisplayName("Deleting a slide removes only its own parts and references")
+  void testDeleteSlide() throws XMLParsingException {
+    String slide3Before = readSlide(3);
+
+    int deletedPart = slideCreator.deleteSlide(2);
+
+    assertEquals(2, deletedPart);
+    assertEquals(List.of(1, 3), PresentationPart.load(mockPptxDir).getSlidePartNumbers());
+    assertFalse(new File(mockPptxDir, "ppt/slides/slide2.xml").exists());
+    assertFalse(new File(mockPptxDir, "ppt/slides/_rels/slide2.xml.rels").exists());
+    assertFalse(ContentTypesRegistry.load(mockPptxDir).hasOverride("/ppt/slides/slide2.xml"));
+    assertTrue(slideCreator.getSPIDManager().getSpidsForSlide(2).isEmpty());
+    assertEquals(slide3Before, readSlide(3), "Other slide parts should not be rewritten");
+  }
+
+  @Test
+  @DisplayName("Deleting a slide keeps a notes slide that a copy still references")
+  void testDeleteSlideKeepsSharedNotes() throws Exception {
+    String relType = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/";
+    File notesFile = new File(mockPptxDir, "ppt/notesSlides/notesSlide1.xml");
+    File notesRelsFile = new File(mockPptxDir, "ppt/notesSlides/_rels/notesSlide1.xml.rels");
+    writePart(mockPptxDir, "ppt/notesSlides/notesSlide1.xml",
+        "<p:notes xmlns:p=\"http://schemas.openxmlformats.org/presentationml/2006/main\"/>");
+    writePart(mockPptxDir, "ppt/notesSlides/_rels/notesSlide1.xml.rels",
+        relationships("rId1", relType + "slide", "../slides/slide1.xml"));
+    Path slide1Rels = new File(mockPptxDir, "ppt/slides/_rels/slide1.xml.rels").toPath();
+    Files.writeString(slide1Rels, Files.readString(slide1Rels).replace("</Relationships>",
+          "<Relationship Id=\"rId9\" Type=\"" + relType + "notesSlide\" " +
+          "Target=\"../notesSlides/notesSlide1.xml\"/></Relationships>"));
+
+    int copiedPart = slideCreator.insertCopiedSlide(2, 1, "One (copy)");
+    assertTrue(Files.readString(new File(mockPptxDir, "ppt/slides/_rels/slide" + copiedPart + ".xml.rels").toPath())
+        .contains("notesSlide1.xml"), "The copy shares the source's notes slide");
+
+    slideCreator.deleteSlide(1);
+    assertTrue(notesFile.exists(), "Notes still referenced by the copy must be kept");
+    assertTrue(Files.readString(notesRelsFile.toPath()).contains("../slides/slide" + copiedPart + ".xml"),
+        "The kept notes should point at the slide that still uses them");
+
+    slideCreator.deleteSlide(1);
+    assertFalse(notesFile.exists(), "Notes are deleted with the last slide referencing them");
+    assertFalse(notesRelsFile.exists());
+  }
+
+  @Test
+  @DisplayName("Moving and reordering slides only changes sldIdLst order")
+  void testMoveAndReorderSlides() throws XMLParsingException {
+    slideCreator.moveSlide(1, 3);
+    assertEquals(List.of(2, 3, 1), PresentationPart.load(mockPptxDir).getSlidePartNumbers());
+
+    slideCreator.reorderSlides(new int[] {3, 1, 2});
+    assertEquals(List.of(1, 2, 3), PresentationPart.load(mockPptxDir).getSlidePartNumbers());
+
+    assertThrows(IllegalArgumentException.class, () -> slideCreator.reorderSlides(new int[] {1, 1, 2}));
+    assertThrows(IllegalArgumentException.class, () -> slideCreator.moveSlide(0, 2));
+  }
+
+  @Test
+  @DisplayName("Physical insertion after a move restores slideN numbering")
+  void testPhysicalInsertAfterMove() throws XMLParsingException {
+    String originalSlide3 = readSlide(3);
+    slideCreator.moveSlide(3, 1);
+
+    slideCreator.insertBlankSlide(5, "Four");
+
+    assertEquals(List.of(1, 2, 3, 4), PresentationPart.load(mockPptxDir).getSlidePartNumbers());
+    assertEquals(originalSlide3, readSlide(1), "Moved slide should be renamed to slide1.xml");
+  }
+
+  @Test
+  @DisplayName("Logical insertion takes the next part number and leaves existing parts untouched")
+  void testLogicalInsertUsesNextPartNumber() throws XMLParsingException {
+    slideCreator.setOrderingMode(SlideCreator.SlideOrderingMode.LOGICAL);
+    List<String> before = List.of(readSlide(1), readSlide(2), readSlide(3));
+
+    assertEquals(4, slideCreator.insertBlankSlide(1, "Zero"));
+    SlideCreator.BatchInsertionResult result = slideCreator.applyBatch(List.of(
+          SlideCreator.SlideInsertion.blank(3, "Between"),
+          SlideCreator.SlideInsertion.blank(6, "Last")));
+
+    assertEquals(List.of(5, 6), result.getSlideNumbers());
+    assertEquals(0, result.getPartsRenamed());
+    assertEquals(List.of(4, 1, 5, 2, 3, 6), PresentationPart.load(mockPptxDir).getSlidePartNumbers());
+    assertEquals(before, List.of(readSlide(1), readSlide(2), readSlide(3)), "Existing slide parts should not be rewritten");
+    assertTrue(ContentTypesRegistry.load(mockPptxDir).hasOverride("/ppt/slides/slide6.xml"));
+  }
+
+  @Test
+  @DisplayName("Compaction renames parts to sldIdLst order and remaps .rels targets and SPIDs")
+  void testCompactSlideParts() throws Exception {
+    slideCreator.setOrderingMode(SlideCreator.SlideOrderingMode.LOGICAL);
+    int inserted = slideCreator.insertBlankSlide(1, "Zero");
+    String insertedXml = readSlide(inserted);
+    String slide3Xml = readSlide(3);
+    SPIDManager spidManager = slideCreator.getSPIDManager();
+    Set<Integer> insertedSpids = new HashSet<>(spidManager.getSpidsForSlide(inserted));
+    Set<Integer> slide3Spids = new HashSet<>(spidManager.getSpidsForSlide(3));
+    assertFalse(insertedSpids.isEmpty());
+    writePart(mockPptxDir, "ppt/notesSlides/_rels/notesSlide1.xml.rels", relationships(
+          "rId1", "http://schemas.openxmlformats.org/officeDocument/2006/relationships/slide", "../slides/slide4.xml"));
+
+    assertEquals(4, slideCreator.compactSlideParts(), "Every part shifts by one");
+
+    assertEquals(List.of(1, 2, 3, 4), PresentationPart.load(mockPptxDir).getSlidePartNumbers());
+    assertEquals(insertedXml, readSlide(1));
+    assertEquals(slide3Xml, readSlide(4));
+    assertFalse(new File(mockPptxDir, "ppt/slides/slide5.xml").exists());
+    String notesRels = Files.readString(new File(mockPptxDir, "ppt/notesSlides/_rels/notesSlide1.xml.rels").toPath());
+    assertTrue(notesRels.contains("Target=\"../slides/slide1.xml\""), "Slide targets in other .rels should follow: " + notesRels);
+    ContentTypesRegistry contentTypes = ContentTypesRegistry.load(mockPptxDir);
+    for (int part = 1; part <= 4; part++) {
+      assertTrue(contentTypes.hasOverride("/ppt/slides/slide" + part + ".xml"));
+      assertTrue(new File(mockPptxDir, "ppt/slides/_rels/slide" + part + ".xml.rels").exists());
+    }
+
+    assertEquals(insertedSpids, spidManager.getSpidsForSlide(1), "SPIDs should follow their renamed part");
+    assertEquals(slide3Spids, spidManager.getSpidsForSlide(4));
+    assertEquals(0, slideCreator.compactSlideParts(), "Compacted parts need no further renames");
+  }
+
+  @Test
+  @DisplayName("Compiled templates bind each row and stamp unique SPIDs")
+  void testInstantiateCompiledTemplate() throws Exception {
+    String templateXml =
+      "<p:sld xmlns:a=\"http://schemas.openxmlformats.org/drawingml/2006/main\" " +
+      "xmlns:p=\"http://schemas.openxmlformats.org/presentationml/2006/main\">" +
+      "<p:cSld><p:spTree><p:nvGrpSpPr><p:cNvPr id=\"1\" name=\"\"/></p:nvGrpSpPr>" +
+      "<p:sp><p:nvSpPr><p:cNvPr id=\"2\" name=\"Title\"/></p:nvSpPr><p:txBody>" +
+      "<a:p><a:r><a:t>Lesson {{num</a:t></a:r><a:r><a:t>ber}}</a:t></a:r></a:p>" +
+      "<a:p><a:r><a:t>- {{points}}</a:t></a:r></a:p>" +
+      "</p:txBody></p:sp></p:spTree></p:cSld></p:sld>";
+    javax.xml.parsers.DocumentBuilderFactory factory = javax.xml.parsers.DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    CompiledSlideTemplate template = CompiledSlideTemplate.compile("lesson",
+        factory.newDocumentBuilder().parse(new ByteArrayInputStream(templateXml.getBytes("UTF-8"))), null);
+
+    assertEquals(Set.of("number", "points"), template.getBindingKeys());
+    assertEquals(1, template.getShapeCount());
+
+    List<TemplateData> rows = List.of(
+        new TemplateData().putText("number", "1").putList("points", List.of("alpha", "beta")),
+        new TemplateData().putText("number", "2").putList("points", List.of()));
+    SlideCreator.BatchInsertionResult result = slideCreator.instantiateTemplate(template, 4, rows);
+
+    assertEquals(List.of(4, 5), result.getSlideNumbers());
+    String first = readSlide(4);
+    assertTrue(first.contains("Lesson 1"), "Token split across runs should be bound");
+    assertTrue(first.contains("- alpha") && first.contains("- beta"), "List paragraph should repeat per item");
+    assertFalse(readSlide(5).contains("{{"), "Empty list should remove its paragraph");
+
+    Set<Integer> fourSpids = slideCreator.getSPIDManager().getSpidsForSlide(4);
+    Set<Integer> fiveSpids = slideCreator.getSPIDManager().getSpidsForSlide(5);
+    assertEquals(1, fourSpids.size());
+    assertEquals(1, fiveSpids.size());
+    assertNotEquals(fourSpids, fiveSpids);
+  }
+
+  @Test
+  @DisplayName("Imported slides bring their master graph and share deduplicated media")
+  void testImportSlides() throws Exception {
+    File sourceDir = tempDir.resolve("source").toFile();
+    createSourcePackage(sourceDir);
+
+    SlideCreator.BatchInsertionResult result = slideCreator.importSlides(sourceDir, new int[] {1, 2}, 2);
+
+    assertEquals(List.of(2, 3), result.getSlideNumbers());
+    assertEquals(5, PresentationPart.load(mockPptxDir).getSlideCount());
+    assertEquals(1, new File(mockPptxDir, "ppt/media").list().length, "Shared logo should be written once");
+    assertEquals(List.of("slideMasters/slideMaster1.xml"), PresentationPart.load(mockPptxDir).getSlideMasterTargets());
+
+    ContentTypesRegistry contentTypes = ContentTypesRegistry.load(mockPptxDir);
+    assertEquals("image/png", contentTypes.getContentType("/ppt/media/image1.png"));
+    assertTrue(contentTypes.hasOverride("/ppt/slideMasters/slideMaster1.xml"));
+    // slideLayout1.xml already exists in the target, so the imported layout is renamed
+    assertTrue(contentTypes.hasOverride("/ppt/slideLayouts/slideLayout2.xml"));
+
+    for (int part : result.getSlideNumbers()) {
+      String slide = readSlide(part);
+      String rels = Files.readString(new File(mockPptxDir, "ppt/slides/_rels/slide" + part + ".xml.rels").toPath());
+      java.util.regex.Matcher embed = java.util.regex.Pattern.compile("r:embed=\"([^\"]+)\"").matcher(slide);
+      assertTrue(embed.find());
+      assertTrue(rels.contains("Id=\"" + embed.group(1) + "\""), "r:embed should follow the remapped rId");
+      assertTrue(rels.contains("../media/image1.png"));
+      assertTrue(rels.contains("../slideLayouts/slideLayout2.xml"));
+    }
+
+    // A second import from the same package reuses everything it imported before
+    slideCreator.importSlides(sourceDir, new int[] {1}, 6);
+    assertEquals(1, new File(mockPptxDir, "ppt/slideMasters").list(
+          (dir, name) -> name.endsWith(".xml")).length);
+  }
+
+  @Test
+  @DisplayName("Slides import directly from a PPTX archive without extracting it")
+  void testImportSlidesFromArchive() throws Exception {
+    File sourceDir = tempDir.resolve("source").toFile();
+    createSourcePackage(sourceDir);
+    File archive = tempDir.resolve("source.pptx").toFile();
+    com.presentationchoreographer.utils.PackageArchive.compress(sourceDir, archive);
+
+    SlideCreator.BatchInsertionResult result = slideCreator.importSlides(archive, null, 4);
+
+    assertEquals(List.of(4, 5), result.getSlideNumbers());
+    assertArrayEquals(Files.readAllBytes(new File(sourceDir, "ppt/media/image1.png").toPath()),
+        Files.readAllBytes(new File(mockPptxDir, "ppt/media/image1.png").toPath()));
+    assertTrue(new File(mockPptxDir, "ppt/slideMasters/_rels/slideMaster1.xml.rels").exists());
+  }
+
+  @Test
+  @DisplayName("A master with identical XML over a different theme is copied, not reused")
+  void testImportCopiesMasterWithDifferentTheme() throws Exception {
+    File sourceDir = tempDir.resolve("source").toFile();
+    createSourcePackage(sourceDir);
+    File otherThemeDir = tempDir.resolve("otherTheme").toFile();
+    createSourcePackage(otherThemeDir);
+    writePart(otherThemeDir, "ppt/theme/theme1.xml",
+        "<a:theme xmlns:a=\"http://schemas.openxmlformats.org/drawingml/2006/main\" name=\"Other\"/>");
+    assertArrayEquals(Files.readAllBytes(new File(sourceDir, "ppt/slideMasters/slideMaster1.xml").toPath()),
+        Files.readAllBytes(new File(otherThemeDir, "ppt/slideMasters/slideMaster1.xml").toPath()));
+    File sameDir = tempDir.resolve("same").toFile();
+    createSourcePackage(sameDir);
+
+    slideCreator.importSlides(sourceDir, new int[] {1}, 4);
+    slideCreator.importSlides(otherThemeDir, new int[] {1}, 5);
+
+    List<String> masters = PresentationPart.load(mockPptxDir).getSlideMasterTargets();
+    assertEquals(2, masters.size(), "The master over a different theme should be copied");
+    String copiedRels = Files.readString(new File(mockPptxDir, "ppt/slideMasters/_rels/"
+          + masters.get(1).substring(masters.get(1).lastIndexOf('/') + 1) + ".rels").toPath());
+    java.util.regex.Matcher theme = java.util.regex.Pattern.compile("Target=\"\\.\\./(theme/theme\\d+\\.xml)\"").matcher(copiedRels);
+    assertTrue(theme.find(), copiedRels);
+    assertTrue(Files.readString(new File(mockPptxDir, "ppt/" + theme.group(1)).toPath()).contains("name=\"Other\""),
+        "The copied master should keep its own theme");
+
+    // A package whose master, layouts, theme and media all match still reuses the first master
+    slideCreator.importSlides(sameDir, new int[] {1}, 6);
+    assertEquals(masters, PresentationPart.load(mockPptxDir).getSlideMasterTargets());
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  private String readSlide(int partNumber) {
+    try {
+      return Files.readString(new File(mockPptxDir, "ppt/slides/slide" + partNumber + ".xml").toPath());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Creates a source package with one master, layout and theme and two slides sharing a logo
+   */
+  private void createSourcePackage(File dir) throws IOException {
+    String ns = "xmlns:a=\"http://schemas.openxmlformats.org/drawingml/2006/main\" " +
+      "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\" " +
+      "xmlns:p=\"http://schemas.openxmlformats.org/presentationml/2006/main\"";
+    String relType = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/";
+
+    writePart(dir, "[Content_Types].xml",
+        "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+        "<Default Extension=\"png\" ContentType=\"image/png\"/>" +
+        "<Override PartName=\"/ppt/slideMasters/slideMaster1.xml\" " +
+        "ContentType=\"application/vnd.openxmlformats-officedocument.presentationml.slideMaster+xml\"/>" +
+        "<Override PartName=\"/ppt/slideLayouts/slideLayout1.xml\" " +
+        "ContentType=\"application/vnd.openxmlformats-officedocument.presentationml.slideLayout+xml\"/>" +
+        "<Override PartName=\"/ppt/theme/theme1.xml\" " +
+        "ContentType=\"application/vnd.openxmlformats-officedocument.theme+xml\"/></Types>");
+    writePart(dir, "ppt/presentation.xml", "<p:presentation " + ns + "><p:sldMasterIdLst>" +
+        "<p:sldMasterId id=\"2147483648\" r:id=\"rId1\"/></p:sldMasterIdLst><p:sldIdLst>" +
+        "<p:sldId id=\"256\" r:id=\"rId2\"/><p:sldId id=\"257\" r:id=\"rId3\"/></p:sldIdLst></p:presentation>");
+    writePart(dir, "ppt/_rels/presentation.xml.rels", relationships(
+          "rId1", relType + "slideMaster", "slideMasters/slideMaster1.xml",
+          "rId2", relType + "slide", "slides/slide1.xml",
+          "rId3", relType + "slide", "slides/slide2.xml"));
+
+    writePart(dir, "ppt/slideMasters/slideMaster1.xml", "<p:sldMaster " + ns + "><p:sldLayoutIdLst>" +
+        "<p:sldLayoutId id=\"2147483649\" r:id=\"rId1\"/></p:sldLayoutIdLst></p:sldMaster>");
+    writePart(dir, "ppt/slideMasters/_rels/slideMaster1.xml.rels", relationships(
+          "rId1", relType + "slideLayout", "../slideLayouts/slideLayout1.xml",
+          "rId2", relType + "theme", "../theme/theme1.xml"));
+    writePart(dir, "ppt/slideLayouts/slideLayout1.xml", "<p:sldLayout " + ns + "/>");
+    writePart(dir, "ppt/slideLayouts/_rels/slideLayout1.xml.rels", relationships(
+          "rId1", relType + "slideMaster", "../slideMasters/slideMaster1.xml"));
+    writePart(dir, "ppt/theme/theme1.xml", "<a:theme " + ns + " name=\"Source\"/>");
+    Files.createDirectories(new File(dir, "ppt/media").toPath());
+    Files.write(new File(dir, "ppt/media/image1.png").toPath(), new byte[] {(byte) 0x89, 'P', 'N', 'G'});
+
+    for (int part = 1; part <= 2; part++) {
+      writePart(dir, "ppt/slides/slide" + part + ".xml", "<p:sld " + ns + "><p:cSld><p:spTree>" +
+          "<p:nvGrpSpPr><p:cNvPr id=\"1\" name=\"\"/></p:nvGrpSpPr>" +
+          "<p:pic><p:nvPicPr><p:cNvPr id=\"2\" name=\"Logo\"/></p:nvPicPr>" +
+          "<p:blipFill><a:blip r:embed=\"rId2\"/></p:blipFill></p:pic></p:spTree></p:cSld></p:sld>");
+      writePart(dir, "ppt/slides/_rels/slide" + part + ".xml.rels", relationships(
+            "rId1", relType + "slideLayout", "../slideLayouts/slideLayout1.xml",
+            "rId2", relType + "image", "../media/image1.png"));
+    }
+  }
+
+  private static String relationships(String... idTypeTargets) {
+    StringBuilder xml = new StringBuilder(
+        "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+    for (int i = 0; i < idTypeTargets.length; i += 3) {
+      xml.append("<Relationship Id=\"").append(idTypeTargets[i]).append("\" Type=\"").append(idTypeTargets[i + 1])
+        .append("\" Target=\"").append(idTypeTargets[i + 2]).append("\"/>");
+    }
+    return xml.append("</Relationships>").toString();
+  }
+
+  private static void writePart(File dir, String path, String content) throws IOException {
+    File file = new File(dir, path);
+    file.getParentFile().mkdirs();
+    Files.writeString(file.toPath(), content);
+  }
+
+  /**
+   * Creates the minimal extracted PPTX layout SlideCreator needs
+   */
+  private void createBasicPptxStructure() throws IOException {
+    Files.createDirectories(Paths.get(mockPptxDir.getPath(), "ppt", "slides", "_rels"));
+    Files.createDirectories(Paths.get(mockPptxDir.getPath(), "ppt", "slideLayouts"));
+    Files.createDirectories(Paths.get(mockPptxDir.getPath(), "ppt", "theme"));
+    Files.createFile(Paths.get(mockPptxDir.getPath(), "ppt", "slideLayouts", "slideLayout1.xml"));
+    Files.createFile(Paths.get(mockPptxDir.getPath(), "ppt", "theme", "theme1.xml"));
+
+    Files.writeString(Paths.get(mockPptxDir.getPath(), "ppt", "presentation.xml"),
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+        "<p:presentation xmlns:p=\"http://schemas.openxmlformats.org/presentationml/2006/main\">" +
+        "<p:sldIdLst/></p:presentation>");
+  }
+}
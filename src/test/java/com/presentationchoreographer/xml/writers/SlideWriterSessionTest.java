@@ -0,0 +1,150 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import com.presentationchoreographer.core.model.ShapeGeometry;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+
+/**
+ * Unit tests for SlideWriterSession: SPID allocation across writers, deferred commit and discard.
+ *
+ * Slides are generated by SlideCreator in a minimal extracted PPTX, then edited through
+ * a session opened on the same presentation.
+ *
+ * @author Presentation Choreographer Test Suite
+ */
+class SlideWriterSessionTest {
+
+  private static final ShapeGeometry BOX = new ShapeGeometry(914400, 914400, 1828800, 457200);
+
+  @TempDir
+  Path tempDir;
+
+  private File mockPptxDir;
+  private SlideCreator slideCreator;
+  private SPIDManager spidManager;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    mockPptxDir = tempDir.toFile();
+    createBasicPptxStructure();
+
+    slideCreator = new SlideCreator(mockPptxDir);
+    slideCreator.applyBatch(List.of(
+          SlideCreator.SlideInsertion.blank(1, "One"),
+          SlideCreator.SlideInsertion.blank(2, "Two"),
+          SlideCreator.SlideInsertion.blank(3, "Three")));
+    spidManager = slideCreator.getSPIDManager();
+  }
+
+  @Test
+  @DisplayName("Writers on different slides hand out disjoint registered SPIDs and commit in parallel")
+  void testParallelWritersAndCommit() throws Exception {
+    SlideWriterSession session = slideCreator.openWriterSession();
+    session.loadSlides(List.of(1, 2, 3));
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    Map<Integer, Future<List<Integer>>> injected = new TreeMap<>();
+    try {
+      for (int slide = 1; slide <= 3; slide++) {
+        SlideXMLWriter writer = session.getWriter(slide);
+        int slideNumber = slide;
+        injected.put(slide, executor.submit(() -> {
+          List<Integer> spids = new ArrayList<>();
+          for (int i = 0; i < 40; i++) {
+            spids.add(writer.injectBasicShape(BOX, "Box", "Box " + slideNumber + "." + i));
+          }
+          return spids;
+        }));
+      }
+
+      Set<Integer> allSpids = new HashSet<>();
+      for (Map.Entry<Integer, Future<List<Integer>>> entry : injected.entrySet()) {
+        for (int spid : entry.getValue().get()) {
+          assertTrue(allSpids.add(spid), "SPID " + spid + " was handed out twice");
+          assertEquals(entry.getKey(), spidManager.getSpidInfo(spid).getSlideNumber(),
+              "SPID " + spid + " should be registered against its slide");
+        }
+      }
+      assertEquals(120, allSpids.size());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(3, session.commit(), "Every edited slide should be written");
+    assertTrue(session.getDirtySlideNumbers().isEmpty());
+    for (int slide = 1; slide <= 3; slide++) {
+      assertTrue(readSlide(slide).contains("Box " + slide + ".39"), "Slide " + slide + " should hold its shapes");
+    }
+
+    SPIDManager.ValidationResult audit = spidManager.validateSpidUniqueness(SPIDManager.ValidationMode.FULL_AUDIT);
+    assertTrue(audit.isValid(), "Committed SPIDs should be unique: " + audit.getErrors());
+  }
+
+  @Test
+  @DisplayName("Commit writes only the slides with modifications")
+  void testCommitWritesOnlyDirtySlides() throws Exception {
+    SlideWriterSession session = slideCreator.openWriterSession();
+    session.loadSlides(List.of(1, 2, 3));
+    String slide1Before = readSlide(1);
+    String slide3Before = readSlide(3);
+
+    session.getWriter(2).injectBasicShape(BOX, "Only here", "Box");
+
+    assertEquals(Set.of(2), session.getDirtySlideNumbers());
+    assertEquals(1, session.commit());
+    assertTrue(readSlide(2).contains("Only here"));
+    assertEquals(slide1Before, readSlide(1), "Unmodified slides should not be rewritten");
+    assertEquals(slide3Before, readSlide(3), "Unmodified slides should not be rewritten");
+    assertEquals(0, session.commit(), "Nothing is left to write after a commit");
+  }
+
+  @Test
+  @DisplayName("Discard unregisters SPIDs of uncommitted shapes and keeps committed ones")
+  void testDiscardRevokesUncommittedSpids() throws Exception {
+    SlideWriterSession session = slideCreator.openWriterSession();
+    int committedSpid = session.getWriter(1).injectBasicShape(BOX, "Kept", "Kept");
+    session.commit();
+    int discardedSpid = session.getWriter(1).injectBasicShape(BOX, "Dropped", "Dropped");
+
+    assertEquals(1, session.discard(), "Only the shape injected after the commit is discarded");
+
+    assertTrue(spidManager.isSpidInUse(committedSpid), "Committed SPIDs stay registered");
+    assertFalse(spidManager.isSpidInUse(discardedSpid), "Discarded SPIDs are unregistered");
+    assertFalse(readSlide(1).contains("Dropped"));
+    SPIDManager.ValidationResult audit = spidManager.validateSpidUniqueness(SPIDManager.ValidationMode.FULL_AUDIT);
+    assertTrue(audit.getWarnings().stream().noneMatch(warning -> warning.contains("registered but not found")),
+        "No discarded SPID should stay registered: " + audit.getWarnings());
+
+    // The revoked SPID is handed out again rather than lost
+    int reusedSpid = slideCreator.openWriterSession().getWriter(2).injectBasicShape(BOX, "Next", "Next");
+    assertEquals(discardedSpid, reusedSpid);
+  }
+
+  // ========== PRIVATE HELPER METHODS ==========
+
+  private String readSlide(int partNumber) throws IOException {
+    return Files.readString(new File(mockPptxDir, "ppt/slides/slide" + partNumber + ".xml").toPath());
+  }
+
+  /**
+   * Creates the minimal extracted PPTX layout SlideCreator needs
+   */
+  private void createBasicPptxStructure() throws IOException {
+    Files.createDirectories(Paths.get(mockPptxDir.getPath(), "ppt", "slides", "_rels"));
+    Files.createDirectories(Paths.get(mockPptxDir.getPath(), "ppt", "slideLayouts"));
+    Files.createDirectories(Paths.get(mockPptxDir.getPath(), "ppt", "theme"));
+    Files.createFile(Paths.get(mockPptxDir.getPath(), "ppt", "slideLayouts", "slideLayout1.xml"));
+    Files.createFile(Paths.get(mockPptxDir.getPath(), "ppt", "theme", "theme1.xml"));
+
+    Files.writeString(Paths.get(mockPptxDir.getPath(), "ppt", "presentation.xml"),
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+        "<p:presentation xmlns:p=\"http://schemas.openxmlformats.org/presentationml/2006/main\">" +
+        "<p:sldIdLst/></p:presentation>");
+  }
+}
@@ -0,0 +1,248 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.util.*;
+import javax.xml.parsers.*;
+import org.w3c.dom.*;
+import com.presentationchoreographer.core.model.GeometryTransform;
+import com.presentationchoreographer.core.model.ShapeGeometry;
+import com.presentationchoreographer.exceptions.XMLParsingException;
+import com.presentationchoreographer.utils.XMLConstants;
+
+/**
+ * Unit tests for SlideXMLWriter DOM edits: the click group index of the timing tree and
+ * geometry edits (transform, align, distribute), including shapes nested in scaled groups.
+ *
+ * Each test builds a small slide document in memory and checks the writer's view of it
+ * against a fresh writer over the same document.
+ *
+ * @author Presentation Choreographer Test Suite
+ */
+class SlideXMLWriterTest {
+
+  private static final String NAMESPACES =
+    "xmlns:a=\"http://schemas.openxmlformats.org/drawingml/2006/main\" " +
+    "xmlns:p=\"http://schemas.openxmlformats.org/presentationml/2006/main\"";
+
+  private DocumentBuilder documentBuilder;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    documentBuilder = factory.newDocumentBuilder();
+  }
+
+  @Test
+  @DisplayName("Click group index stays consistent with the timing tree as triggers are added")
+  void testClickGroupIndexMatchesDocument() throws Exception {
+    Document slide = parse(animatedSlide());
+    SlideXMLWriter writer = new SlideXMLWriter(slide);
+    assertEquals(1, writer.getClickGroupCount());
+
+    writer.injectAnimation(2, "fade", "in", "fade", "500", "0", 1);
+    writer.injectAnimation(2, "fade", "out", "fade", "500", "0", 2);
+    assertEquals(3, writer.createNewClickTrigger(), "The next trigger follows the last click group");
+
+    List<SlideXMLWriter.ClickGroup> groups = writer.getClickGroups();
+    assertEquals(3, groups.size());
+    assertEquals(2, groups.get(0).getEffectCount(), "Click 1 keeps its effect and gains one");
+    assertEquals(1, groups.get(1).getEffectCount());
+    assertEquals(0, groups.get(2).getEffectCount());
+
+    // A writer re-indexing the same DOM sees the same click groups
+    assertEquals(groups.toString(), new SlideXMLWriter(slide).getClickGroups().toString());
+    assertEquals(3, clickParCount(slide));
+  }
+
+  @Test
+  @DisplayName("Animations cannot target a click trigger beyond the next one")
+  void testOutOfRangeClickTriggerRejected() throws Exception {
+    Document slide = parse(animatedSlide());
+    SlideXMLWriter writer = new SlideXMLWriter(slide);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> writer.injectAnimation(2, "fade", "in", "fade", "500", "0", 3));
+    assertThrows(IllegalArgumentException.class,
+        () -> writer.injectAnimation(2, "fade", "in", "fade", "500", "0", 0));
+
+    assertEquals(1, writer.getClickGroupCount(), "A rejected trigger must not be indexed");
+    assertEquals(1, clickParCount(slide), "A rejected trigger must not change the document");
+    assertFalse(writer.isModified());
+  }
+
+  @Test
+  @DisplayName("Identity and composed translate+scale transforms update shape frames in slide space")
+  void testTransformShapes() throws Exception {
+    Document slide = parse(shapeSlide(box(2, 100, 200, 300, 400) + box(3, 1000, 1000, 100, 100)));
+    SlideXMLWriter writer = new SlideXMLWriter(slide);
+
+    assertEquals(1, writer.transformShapes(List.of(2), GeometryTransform.identity()));
+    assertFrame(100, 200, 300, 400, frameOf(slide, 2));
+
+    GeometryTransform moveThenScale = GeometryTransform.translate(100, 0).then(GeometryTransform.scale(2.0, 0.5));
+    assertEquals(1, writer.transformShapes(List.of(2), moveThenScale));
+    assertFrame(400, 100, 600, 200, frameOf(slide, 2));
+    assertFrame(1000, 1000, 100, 100, frameOf(slide, 3));
+    assertTrue(writer.isModified());
+  }
+
+  @Test
+  @DisplayName("A shape inside a scaled group is transformed in slide space through the group's chOff/chExt")
+  void testTransformShapeInScaledGroup() throws Exception {
+    // Group frame (1000, 1000) 2000x2000 over child space (0, 0) 1000x1000: children render at 2x
+    Document slide = parse(shapeSlide(scaledGroup(4, box(5, 100, 100, 200, 200))));
+    SlideXMLWriter writer = new SlideXMLWriter(slide);
+
+    // Moving the child 600 EMU on the slide is 300 EMU in the group's child space
+    assertEquals(1, writer.transformShapes(List.of(5), GeometryTransform.translate(600, 0)));
+    assertFrame(400, 100, 200, 200, frameOf(slide, 5));
+    assertFrame(1000, 1000, 2000, 2000, frameOf(slide, 4));
+
+    // Moving the group moves its frame; chOff and children move by the same amount in child space
+    assertEquals(1, writer.transformShapes(List.of(4), GeometryTransform.translate(600, 0)));
+    assertFrame(1600, 1000, 2000, 2000, frameOf(slide, 4));
+    assertFrame(300, 0, 1000, 1000, readFrame(transformOf(slide, 4), "chOff", "chExt"));
+    assertFrame(700, 100, 200, 200, frameOf(slide, 5));
+  }
+
+  @Test
+  @DisplayName("Align moves three shapes of unequal width to the bounding box edges and center")
+  void testAlignShapesWithUnequalWidths() throws Exception {
+    String shapes = box(2, 0, 0, 100, 50) + box(3, 500, 100, 300, 50) + box(4, 1000, 200, 200, 50);
+
+    Document left = parse(shapeSlide(shapes));
+    assertEquals(3, new SlideXMLWriter(left).alignShapes(List.of(2, 3, 4), SlideXMLWriter.Alignment.LEFT));
+    assertXPositions(left, 0, 0, 0);
+
+    Document right = parse(shapeSlide(shapes));
+    new SlideXMLWriter(right).alignShapes(List.of(2, 3, 4), SlideXMLWriter.Alignment.RIGHT);
+    assertXPositions(right, 1100, 900, 1000);
+
+    Document center = parse(shapeSlide(shapes));
+    new SlideXMLWriter(center).alignShapes(List.of(2, 3, 4), SlideXMLWriter.Alignment.CENTER);
+    assertXPositions(center, 550, 450, 500);
+
+    // Widths and the other axis are untouched
+    assertFrame(450, 100, 300, 50, frameOf(center, 3));
+  }
+
+  @Test
+  @DisplayName("Distribute equalizes the gaps between three shapes of unequal width")
+  void testDistributeShapesWithUnequalWidths() throws Exception {
+    Document slide = parse(shapeSlide(box(2, 0, 0, 100, 50) + box(3, 150, 0, 300, 50) + box(4, 1000, 0, 200, 50)));
+    SlideXMLWriter writer = new SlideXMLWriter(slide);
+
+    assertEquals(3, writer.distributeShapes(List.of(4, 2, 3), SlideXMLWriter.DistributionAxis.HORIZONTAL));
+    // Span 0..1200 holds 600 EMU of shapes, leaving two 300 EMU gaps
+    assertXPositions(slide, 0, 400, 1000);
+    assertEquals(0, writer.distributeShapes(List.of(2, 3), SlideXMLWriter.DistributionAxis.HORIZONTAL),
+        "Fewer than three shapes cannot be distributed");
+  }
+
+  // ========== HELPER METHODS ==========
+
+  private Document parse(String xml) throws Exception {
+    return documentBuilder.parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+  }
+
+  /**
+   * Counts the click groups (par children) of the main sequence in the document itself
+   */
+  private int clickParCount(Document slide) {
+    Element sequence = (Element) slide.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "seq").item(0);
+    Element mainSequence = (Element) sequence.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "cTn").item(0);
+    Element childTnLst = (Element) mainSequence.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "childTnLst").item(0);
+    int count = 0;
+    for (Node child = childTnLst.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if ("par".equals(child.getLocalName())) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * A slide with one shape and a main sequence holding one click group with one effect
+   */
+  private static String animatedSlide() {
+    return "<p:sld " + NAMESPACES + "><p:cSld><p:spTree>" +
+      "<p:nvGrpSpPr><p:cNvPr id=\"1\" name=\"\"/></p:nvGrpSpPr>" +
+      "<p:sp><p:nvSpPr><p:cNvPr id=\"2\" name=\"Box\"/></p:nvSpPr></p:sp>" +
+      "</p:spTree></p:cSld><p:timing><p:tnLst><p:par><p:cTn id=\"1\" dur=\"indefinite\" nodeType=\"tmRoot\">" +
+      "<p:childTnLst><p:seq concurrent=\"1\" nextAc=\"seek\"><p:cTn id=\"2\" dur=\"indefinite\" nodeType=\"mainSeq\">" +
+      "<p:childTnLst><p:par><p:cTn id=\"3\" fill=\"hold\"><p:stCondLst><p:cond delay=\"indefinite\"/></p:stCondLst>" +
+      "<p:childTnLst><p:par><p:cTn id=\"4\" presetID=\"10\" presetClass=\"entr\" nodeType=\"clickEffect\">" +
+      "<p:stCondLst><p:cond delay=\"0\"/></p:stCondLst></p:cTn></p:par></p:childTnLst></p:cTn></p:par>" +
+      "</p:childTnLst></p:cTn></p:seq></p:childTnLst></p:cTn></p:par></p:tnLst></p:timing></p:sld>";
+  }
+
+  /**
+   * A slide holding the given shape XML and no timing tree
+   */
+  private static String shapeSlide(String shapes) {
+    return "<p:sld " + NAMESPACES + "><p:cSld><p:spTree>" +
+      "<p:nvGrpSpPr><p:cNvPr id=\"1\" name=\"\"/><p:cNvGrpSpPr/><p:nvPr/></p:nvGrpSpPr>" +
+      shapes + "</p:spTree></p:cSld></p:sld>";
+  }
+
+  private static String box(int id, long x, long y, long cx, long cy) {
+    return "<p:sp><p:nvSpPr><p:cNvPr id=\"" + id + "\" name=\"Box " + id + "\"/><p:cNvSpPr/><p:nvPr/></p:nvSpPr>" +
+      "<p:spPr><a:xfrm><a:off x=\"" + x + "\" y=\"" + y + "\"/><a:ext cx=\"" + cx + "\" cy=\"" + cy + "\"/></a:xfrm>" +
+      "</p:spPr></p:sp>";
+  }
+
+  /**
+   * A group whose 1000x1000 child space is drawn in a 2000x2000 frame at (1000, 1000)
+   */
+  private static String scaledGroup(int id, String children) {
+    return "<p:grpSp><p:nvGrpSpPr><p:cNvPr id=\"" + id + "\" name=\"Group " + id + "\"/><p:cNvGrpSpPr/><p:nvPr/></p:nvGrpSpPr>" +
+      "<p:grpSpPr><a:xfrm><a:off x=\"1000\" y=\"1000\"/><a:ext cx=\"2000\" cy=\"2000\"/>" +
+      "<a:chOff x=\"0\" y=\"0\"/><a:chExt cx=\"1000\" cy=\"1000\"/></a:xfrm></p:grpSpPr>" +
+      children + "</p:grpSp>";
+  }
+
+  /**
+   * Finds the a:xfrm of the shape whose p:cNvPr has the given id
+   */
+  private static Element transformOf(Document slide, int id) {
+    NodeList cNvPrs = slide.getElementsByTagNameNS(XMLConstants.PRESENTATION_NS, "cNvPr");
+    for (int i = 0; i < cNvPrs.getLength(); i++) {
+      Element cNvPr = (Element) cNvPrs.item(i);
+      if (String.valueOf(id).equals(cNvPr.getAttribute("id"))) {
+        Element shape = (Element) cNvPr.getParentNode().getParentNode();
+        return (Element) shape.getElementsByTagNameNS(XMLConstants.DRAWING_NS, "xfrm").item(0);
+      }
+    }
+    throw new AssertionError("No shape with id " + id);
+  }
+
+  private static ShapeGeometry frameOf(Document slide, int id) {
+    return readFrame(transformOf(slide, id), "off", "ext");
+  }
+
+  private static ShapeGeometry readFrame(Element xfrm, String offName, String extName) {
+    Element off = (Element) xfrm.getElementsByTagNameNS(XMLConstants.DRAWING_NS, offName).item(0);
+    Element ext = (Element) xfrm.getElementsByTagNameNS(XMLConstants.DRAWING_NS, extName).item(0);
+    return new ShapeGeometry(Long.parseLong(off.getAttribute("x")), Long.parseLong(off.getAttribute("y")),
+        Long.parseLong(ext.getAttribute("cx")), Long.parseLong(ext.getAttribute("cy")));
+  }
+
+  private static void assertFrame(long x, long y, long width, long height, ShapeGeometry actual) {
+    assertEquals(x, actual.getX(), "x of " + actual);
+    assertEquals(y, actual.getY(), "y of " + actual);
+    assertEquals(width, actual.getWidth(), "width of " + actual);
+    assertEquals(height, actual.getHeight(), "height of " + actual);
+  }
+
+  /**
+   * Asserts the x offsets of shapes 2, 3 and 4
+   */
+  private static void assertXPositions(Document slide, long x2, long x3, long x4) {
+    assertEquals(x2, frameOf(slide, 2).getX(), "x of shape 2");
+    assertEquals(x3, frameOf(slide, 3).getX(), "x of shape 3");
+    assertEquals(x4, frameOf(slide, 4).getX(), "x of shape 4");
+  }
+}
@@ -0,0 +1,133 @@
+package com.presentationchoreographer.xml.writers;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Unit tests for TokenReplacer and TextBindingEngine: tokens split across runs, overlapping
+ * token names, notes slides and untouched parts.
+ *
+ * @author Presentation Choreographer Test Suite
+ */
+class TextBindingEngineTest {
+
+  private static final String NAMESPACES =
+    "xmlns:a=\"http://schemas.openxmlformats.org/drawingml/2006/main\" " +
+    "xmlns:p=\"http://schemas.openxmlformats.org/presentationml/2006/main\"";
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  @DisplayName("A token split over two runs is replaced in the run where it starts")
+  void testTokenSplitOverTwoRuns() {
+    TokenReplacer replacer = new TokenReplacer(Map.of("{{name}}", "Ada"));
+    String[] runs = { "Hello {{na", "me}}!" };
+
+    assertEquals(1, replacer.replace(runs));
+    assertArrayEquals(new String[] { "Hello Ada", "!" }, runs);
+  }
+
+  @Test
+  @DisplayName("A token split over three runs leaves the trailing runs empty")
+  void testTokenSplitOverThreeRuns() {
+    TokenReplacer replacer = new TokenReplacer(Map.of("{{customer}}", "Acme"));
+    String[] runs = { "For {{", "cust", "omer}} only" };
+
+    assertEquals(1, replacer.replace(runs));
+    assertArrayEquals(new String[] { "For Acme", "", " only" }, runs);
+  }
+
+  @Test
+  @DisplayName("Adjacent tokens are each replaced")
+  void testAdjacentTokens() {
+    TokenReplacer replacer = new TokenReplacer(Map.of("{{first}}", "Ada", "{{last}}", "Lovelace"));
+    String[] runs = { "{{first}}{{la", "st}}" };
+
+    assertEquals(2, replacer.replace(runs));
+    assertArrayEquals(new String[] { "AdaLovelace", "" }, runs);
+  }
+
+  @Test
+  @DisplayName("Overlapping token names resolve to the longest match")
+  void testOverlappingTokensLongestFirst() {
+    TokenReplacer replacer = new TokenReplacer(Map.of("$NAME", "Ada", "$NAME_FULL", "Ada Lovelace"));
+    String[] runs = { "Dear $NAME_", "FULL and $NAME" };
+
+    assertEquals(2, replacer.replace(runs));
+    assertArrayEquals(new String[] { "Dear Ada Lovelace", " and Ada" }, runs);
+  }
+
+  @Test
+  @DisplayName("Tokens are replaced in slides and notes slides; parts without tokens are left byte-identical")
+  void testApplyToSlidesAndNotes() throws Exception {
+    File pptxDir = tempDir.toFile();
+    Path slide1 = writePart(pptxDir, "ppt/slides/slide1.xml",
+        slide("<a:r><a:t>Q3 {{re</a:t></a:r><a:r><a:rPr b=\"1\"/><a:t>gion}}</a:t></a:r>"));
+    Path notes1 = writePart(pptxDir, "ppt/notesSlides/notesSlide1.xml",
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+        "<p:notes " + NAMESPACES + "><p:cSld><p:spTree><p:sp><p:txBody><a:p>" +
+        "<a:r><a:t>Mention {{region}}</a:t></a:r></a:p></p:txBody></p:sp></p:spTree></p:cSld></p:notes>");
+    // Single quotes and a comment would not survive a rewrite, so identical bytes prove the part was left alone
+    Path slide2 = writePart(pptxDir, "ppt/slides/slide2.xml",
+        "<?xml version='1.0' encoding='UTF-8'?>\n<!-- untouched -->\n" +
+        "<p:sld " + NAMESPACES + "><p:cSld><p:spTree><p:sp><p:txBody>" +
+        "<a:p><a:r><a:t xml:space='preserve'>No {{tokens here</a:t></a:r></a:p></p:txBody></p:sp></p:spTree></p:cSld></p:sld>");
+    byte[] slide2Before = Files.readAllBytes(slide2);
+
+    TextBindingEngine.BindingResult result = new TextBindingEngine(Map.of("{{region}}", "EMEA")).apply(pptxDir);
+
+    assertEquals(3, result.getPartsScanned());
+    assertEquals(2, result.getPartsModified());
+    assertEquals(2, result.getReplacements());
+
+    String slide1Xml = Files.readString(slide1);
+    assertTrue(slide1Xml.contains("<a:t>Q3 EMEA</a:t>"), slide1Xml);
+    assertTrue(slide1Xml.matches("(?s).*<a:rPr b=\"1\"(/>|></a:rPr>)<a:t></a:t>.*"), "The second run keeps its formatting: " + slide1Xml);
+    assertTrue(Files.readString(notes1).contains("Mention EMEA"), "Notes slides are bound too");
+    assertArrayEquals(slide2Before, Files.readAllBytes(slide2), "A part with no match must not be rewritten");
+    assertFalse(Files.exists(slide2.resolveSibling("slide2.xml.binding.tmp")), "No temporary file is left behind");
+  }
+
+  @Test
+  @DisplayName("Rewritten parts are dropped from the part cache even when size and time are unchanged")
+  void testApplyInvalidatesCachedParts() throws Exception {
+    File pptxDir = tempDir.toFile();
+    // Written the way the engine serializes it, so binding an equal-length value keeps the size
+    Path slide1 = writePart(pptxDir, "ppt/slides/slide1.xml", slide("<a:r><a:t>{{abc}}</a:t></a:r>").replace("\r\n", ""));
+    Path slide2 = writePart(pptxDir, "ppt/slides/slide2.xml", slide("<a:r><a:t>none</a:t></a:r>"));
+    PartCache cache = new PartCache(PartCache.DEFAULT_MAX_BYTES);
+    cache.put(slide1.toFile(), "parsed before binding");
+    cache.put(slide2.toFile(), "parsed before binding");
+    long size = Files.size(slide1);
+    FileTime modified = Files.getLastModifiedTime(slide1);
+
+    new TextBindingEngine(Map.of("{{abc}}", "{{xyz}}"), cache).apply(pptxDir);
+    Files.setLastModifiedTime(slide1, modified);
+
+    assertEquals(size, Files.size(slide1), "A same-size rewrite the size and time check cannot see");
+    assertEquals("reloaded", cache.get(slide1.toFile(), String.class, part -> "reloaded"));
+    assertEquals("parsed before binding", cache.get(slide2.toFile(), String.class, part -> "reloaded"),
+        "Parts that were not rewritten stay cached");
+  }
+
+  // ========== HELPER METHODS ==========
+
+  private static String slide(String runs) {
+    return "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+      "<p:sld " + NAMESPACES + "><p:cSld><p:spTree><p:sp><p:txBody><a:p>" + runs +
+      "</a:p></p:txBody></p:sp></p:spTree></p:cSld></p:sld>";
+  }
+
+  private static Path writePart(File pptxDir, String partName, String xml) throws IOException {
+    Path part = pptxDir.toPath().resolve(partName);
+    Files.createDirectories(part.getParent());
+    Files.writeString(part, xml);
+    return part;
+  }
+}